@@ -0,0 +1,78 @@
+package com.example.apigateway.auth;
+
+import com.example.apigateway.config.AuthProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Valid API keys, held only as SHA-256 digests mapped to the owning client. Loaded
+ * from {@code auth.api-keys.sha256} and, if set, {@code auth.api-keys.file}.
+ */
+@Component
+@Slf4j
+public class ApiKeyStore {
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final Map<String, String> ownersByDigest;
+    private final ThreadLocal<MessageDigest> digests = ThreadLocal.withInitial(ApiKeyStore::newDigest);
+
+    public ApiKeyStore(AuthProperties properties) {
+        Map<String, String> owners = new HashMap<>();
+        properties.getApiKeys().getSha256().forEach((digest, owner) -> owners.put(digest.toLowerCase(Locale.ROOT), owner));
+        String file = properties.getApiKeys().getFile();
+        if (file != null && !file.isBlank()) {
+            owners.putAll(load(Path.of(file)));
+        }
+        this.ownersByDigest = Map.copyOf(owners);
+        log.info("Loaded {} API keys", ownersByDigest.size());
+    }
+
+    /** The client owning {@code apiKey}, or {@code null} if the key is unknown. */
+    public String ownerOf(String apiKey) {
+        byte[] digest = digests.get().digest(apiKey.getBytes(StandardCharsets.UTF_8));
+        return ownersByDigest.get(HEX.formatHex(digest));
+    }
+
+    public static String sha256Hex(String apiKey) {
+        return HEX.formatHex(newDigest().digest(apiKey.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static Map<String, String> load(Path file) {
+        Map<String, String> owners = new HashMap<>();
+        try {
+            for (String line : Files.readAllLines(file)) {
+                String trimmed = line.strip();
+                int separator = trimmed.indexOf('=');
+                if (trimmed.isEmpty() || trimmed.startsWith("#") || separator <= 0) {
+                    continue;
+                }
+                owners.put(trimmed.substring(0, separator).strip().toLowerCase(Locale.ROOT),
+                        trimmed.substring(separator + 1).strip());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read API key file " + file, e);
+        }
+        return owners;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
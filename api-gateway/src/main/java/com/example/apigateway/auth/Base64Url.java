@@ -0,0 +1,48 @@
+package com.example.apigateway.auth;
+
+import java.util.Arrays;
+
+/**
+ * Unpadded base64url decoding of a range of a string, so JWT segments are decoded
+ * in place instead of being cut out with {@code substring} first.
+ */
+final class Base64Url {
+
+    private static final int[] VALUES = new int[128];
+
+    static {
+        Arrays.fill(VALUES, -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            VALUES[alphabet.charAt(i)] = i;
+        }
+    }
+
+    private Base64Url() {
+    }
+
+    static byte[] decode(String source, int start, int end) {
+        int length = end - start;
+        if (length % 4 == 1) {
+            throw new InvalidTokenException("Invalid base64url length");
+        }
+        byte[] out = new byte[length * 3 / 4];
+        int position = 0;
+        int buffer = 0;
+        int bits = 0;
+        for (int i = start; i < end; i++) {
+            char c = source.charAt(i);
+            int value = c < 128 ? VALUES[c] : -1;
+            if (value < 0) {
+                throw new InvalidTokenException("Invalid base64url character");
+            }
+            buffer = (buffer << 6) | value;
+            bits += 6;
+            if (bits >= 8) {
+                bits -= 8;
+                out[position++] = (byte) (buffer >> bits);
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.apigateway.auth;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded cache of credential check results, keyed by the raw credential. Hits are
+ * a single {@link ConcurrentHashMap} read. Every entry carries its own expiry
+ * (the token's {@code exp}, capped by a maximum TTL), after which it is dropped on
+ * access; when the cache is full, the oldest entries are evicted first, expired or
+ * not. A {@code null} value records a rejected credential; at most
+ * {@code maxNegativeEntries} of those are kept, oldest evicted first, so a flood
+ * of invalid credentials cannot push out the valid ones.
+ */
+final class CredentialCache<V> {
+
+    private final int maxEntries;
+    private final int maxNegativeEntries;
+    private final ConcurrentHashMap<String, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry<V>> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final Queue<Entry<V>> negativeOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicInteger negativeSize = new AtomicInteger();
+
+    CredentialCache(int maxEntries, int maxNegativeEntries) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.maxNegativeEntries = Math.max(1, Math.min(this.maxEntries, maxNegativeEntries));
+    }
+
+    /** The live entry for {@code key}, or {@code null} if absent or expired. */
+    Entry<V> get(String key, long nowMs) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAtMs() <= nowMs) {
+            remove(entry);
+            return null;
+        }
+        return entry;
+    }
+
+    void put(String key, V value, long expiresAtMs, long nowMs) {
+        Entry<V> entry = new Entry<>(key, value, expiresAtMs);
+        Entry<V> previous = entries.put(key, entry);
+        if (previous == null) {
+            size.incrementAndGet();
+        } else if (previous.value() == null) {
+            negativeSize.decrementAndGet();
+        }
+        insertionOrder.add(entry);
+        if (value == null) {
+            negativeSize.incrementAndGet();
+            negativeOrder.add(entry);
+            trim(negativeOrder, negativeSize, maxNegativeEntries, nowMs);
+        }
+        trim(insertionOrder, size, maxEntries, nowMs);
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    /** Drops the oldest entries of {@code order} while over {@code max}, plus any expired or superseded ones at the head. */
+    private void trim(Queue<Entry<V>> order, AtomicInteger count, int max, long nowMs) {
+        Entry<V> oldest;
+        while ((oldest = order.peek()) != null
+                && (count.get() > max || oldest.expiresAtMs() <= nowMs || entries.get(oldest.key()) != oldest)) {
+            Entry<V> polled = order.poll();
+            if (polled != null) {
+                remove(polled);
+            }
+        }
+    }
+
+    private void remove(Entry<V> entry) {
+        // Only if still current: a key cached again later has a newer entry further back in the queue
+        if (entries.remove(entry.key(), entry)) {
+            size.decrementAndGet();
+            if (entry.value() == null) {
+                negativeSize.decrementAndGet();
+            }
+        }
+    }
+
+    record Entry<V>(String key, V value, long expiresAtMs) {
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.apigateway.auth;
+
+/** A credential that failed validation. Thrown only on cache misses, without a stack trace. */
+public class InvalidTokenException extends RuntimeException {
+
+    public InvalidTokenException(String message) {
+        super(message, null, false, false);
+    }
+}
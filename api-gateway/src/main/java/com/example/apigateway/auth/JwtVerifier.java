@@ -0,0 +1,262 @@
+package com.example.apigateway.auth;
+
+import com.example.apigateway.config.AuthProperties;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Verifies compact JWS tokens signed with HS256 or RS256 against locally
+ * configured keys, using only the JDK crypto providers. The token is read in
+ * place from the header value: segments are located with {@code indexOf} and
+ * decoded straight from the string, and header and claims are read with a
+ * streaming parser. Checks {@code exp}, {@code nbf} and, when configured,
+ * {@code iss} and {@code aud}.
+ */
+public final class JwtVerifier {
+
+    private static final String HS256 = "HS256";
+    private static final String RS256 = "RS256";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final String RSA_ALGORITHM = "SHA256withRSA";
+    private static final String BASE64_PREFIX = "base64:";
+    private static final String PEM_MARKER = "-----BEGIN";
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final SecretKeySpec hmacKey;
+    private final Map<String, PublicKey> rsaKeys;
+    private final PublicKey singleRsaKey;
+    private final String issuer;
+    private final String audience;
+    private final long clockSkewMs;
+    private final ThreadLocal<Mac> macs;
+    private final ThreadLocal<Signature> signatures = ThreadLocal.withInitial(JwtVerifier::newSignature);
+
+    public JwtVerifier(AuthProperties.Jwt config) {
+        this.hmacKey = config.getHmacSecret() != null ? new SecretKeySpec(secretBytes(config.getHmacSecret()), HMAC_ALGORITHM) : null;
+        this.rsaKeys = loadRsaKeys(config.getRsaPublicKeys());
+        this.singleRsaKey = rsaKeys.size() == 1 ? rsaKeys.values().iterator().next() : null;
+        this.issuer = config.getIssuer();
+        this.audience = config.getAudience();
+        this.clockSkewMs = config.getClockSkew().toMillis();
+        this.macs = ThreadLocal.withInitial(() -> newMac(hmacKey));
+    }
+
+    /**
+     * Verifies the token in {@code source} from {@code start} to the end of the string.
+     *
+     * @throws InvalidTokenException if the token is malformed, badly signed or not valid at {@code nowMs}
+     */
+    public VerifiedToken verify(String source, int start, long nowMs) {
+        int end = source.length();
+        int firstDot = source.indexOf('.', start);
+        int secondDot = firstDot < 0 ? -1 : source.indexOf('.', firstDot + 1);
+        if (firstDot <= start || secondDot <= firstDot + 1 || secondDot == end - 1
+                || source.indexOf('.', secondDot + 1) >= 0) {
+            throw new InvalidTokenException("Malformed token");
+        }
+
+        Header header = parseHeader(Base64Url.decode(source, start, firstDot));
+        byte[] signature = Base64Url.decode(source, secondDot + 1, end);
+        byte[] signingInput = ascii(source, start, secondDot);
+        switch (header.algorithm()) {
+            case HS256 -> verifyHmac(signingInput, signature);
+            case RS256 -> verifyRsa(header.keyId(), signingInput, signature);
+            default -> throw new InvalidTokenException("Unsupported algorithm " + header.algorithm());
+        }
+
+        Claims claims = parseClaims(Base64Url.decode(source, firstDot + 1, secondDot));
+        if (claims.expiresAtMs() == 0) {
+            throw new InvalidTokenException("Missing exp");
+        }
+        if (claims.expiresAtMs() + clockSkewMs <= nowMs) {
+            throw new InvalidTokenException("Token expired");
+        }
+        if (claims.notBeforeMs() - clockSkewMs > nowMs) {
+            throw new InvalidTokenException("Token not yet valid");
+        }
+        if (issuer != null && !issuer.equals(claims.issuer())) {
+            throw new InvalidTokenException("Unexpected issuer");
+        }
+        if (audience != null && !claims.audienceMatched()) {
+            throw new InvalidTokenException("Unexpected audience");
+        }
+        if (claims.subject() == null) {
+            throw new InvalidTokenException("Missing sub");
+        }
+        return new VerifiedToken(claims.subject(), claims.expiresAtMs() + clockSkewMs);
+    }
+
+    private void verifyHmac(byte[] signingInput, byte[] signature) {
+        if (hmacKey == null) {
+            throw new InvalidTokenException("HS256 is not configured");
+        }
+        byte[] expected = macs.get().doFinal(signingInput);
+        if (!MessageDigest.isEqual(expected, signature)) {
+            throw new InvalidTokenException("Bad signature");
+        }
+    }
+
+    private void verifyRsa(String keyId, byte[] signingInput, byte[] signature) {
+        PublicKey key = keyId != null ? rsaKeys.get(keyId) : singleRsaKey;
+        if (key == null) {
+            throw new InvalidTokenException("Unknown key " + keyId);
+        }
+        try {
+            Signature verifier = signatures.get();
+            verifier.initVerify(key);
+            verifier.update(signingInput);
+            if (!verifier.verify(signature)) {
+                throw new InvalidTokenException("Bad signature");
+            }
+        } catch (GeneralSecurityException e) {
+            throw new InvalidTokenException("Bad signature: " + e.getMessage());
+        }
+    }
+
+    private static Header parseHeader(byte[] json) {
+        String algorithm = null;
+        String keyId = null;
+        try (JsonParser parser = JSON.createParser(json)) {
+            expectObject(parser);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "alg" -> algorithm = parser.getValueAsString();
+                    case "kid" -> keyId = parser.getValueAsString();
+                    default -> skip(parser, value);
+                }
+            }
+        } catch (IOException e) {
+            throw new InvalidTokenException("Malformed header");
+        }
+        if (algorithm == null) {
+            throw new InvalidTokenException("Missing alg");
+        }
+        return new Header(algorithm, keyId);
+    }
+
+    private Claims parseClaims(byte[] json) {
+        String subject = null;
+        String tokenIssuer = null;
+        long expiresAtMs = 0;
+        long notBeforeMs = 0;
+        boolean audienceMatched = false;
+        try (JsonParser parser = JSON.createParser(json)) {
+            expectObject(parser);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "sub" -> subject = parser.getValueAsString();
+                    case "iss" -> tokenIssuer = parser.getValueAsString();
+                    case "exp" -> expiresAtMs = parser.getValueAsLong() * 1000;
+                    case "nbf" -> notBeforeMs = parser.getValueAsLong() * 1000;
+                    case "aud" -> {
+                        if (value == JsonToken.START_ARRAY) {
+                            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                                audienceMatched |= audience != null && audience.equals(parser.getValueAsString());
+                            }
+                        } else {
+                            audienceMatched = audience != null && audience.equals(parser.getValueAsString());
+                        }
+                    }
+                    default -> skip(parser, value);
+                }
+            }
+        } catch (IOException e) {
+            throw new InvalidTokenException("Malformed claims");
+        }
+        return new Claims(subject, tokenIssuer, expiresAtMs, notBeforeMs, audienceMatched);
+    }
+
+    private static void expectObject(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new InvalidTokenException("Expected a JSON object");
+        }
+    }
+
+    private static void skip(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+            parser.skipChildren();
+        }
+    }
+
+    private static byte[] ascii(String source, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        for (int i = start; i < end; i++) {
+            bytes[i - start] = (byte) source.charAt(i);
+        }
+        return bytes;
+    }
+
+    private static byte[] secretBytes(String secret) {
+        return secret.startsWith(BASE64_PREFIX)
+                ? Base64.getDecoder().decode(secret.substring(BASE64_PREFIX.length()))
+                : secret.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, PublicKey> loadRsaKeys(Map<String, String> configured) {
+        Map<String, PublicKey> keys = new HashMap<>();
+        configured.forEach((keyId, source) -> keys.put(keyId, parsePublicKey(keyId, source)));
+        return Map.copyOf(keys);
+    }
+
+    private static PublicKey parsePublicKey(String keyId, String source) {
+        try {
+            String pem = source.contains(PEM_MARKER) ? source : Files.readString(Path.of(source));
+            String base64 = pem.replaceAll("-----[A-Z ]+-----", "").replaceAll("\\s", "");
+            return KeyFactory.getInstance("RSA").generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(base64)));
+        } catch (IOException | GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("Cannot load RSA public key " + keyId + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static Mac newMac(SecretKeySpec key) {
+        if (key == null) {
+            return null;
+        }
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    private static Signature newSignature() {
+        try {
+            return Signature.getInstance(RSA_ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA256withRSA is not available", e);
+        }
+    }
+
+    /** The authenticated subject and when its token stops being valid. */
+    public record VerifiedToken(String subject, long expiresAtMs) {
+    }
+
+    private record Header(String algorithm, String keyId) {
+    }
+
+    private record Claims(String subject, String issuer, long expiresAtMs, long notBeforeMs, boolean audienceMatched) {
+    }
+}
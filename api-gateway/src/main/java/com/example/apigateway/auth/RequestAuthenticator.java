@@ -0,0 +1,101 @@
+package com.example.apigateway.auth;
+
+import com.example.apigateway.config.AuthProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolves bearer tokens and API keys to principals. Results, including
+ * rejections, are cached by the raw header value, so a token's signature is
+ * checked once per cache lifetime rather than once per request, and a hit
+ * allocates nothing.
+ */
+@Component
+@Slf4j
+public class RequestAuthenticator {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JwtVerifier jwtVerifier;
+    private final ApiKeyStore apiKeyStore;
+    private final CredentialCache<String> tokens;
+    private final CredentialCache<String> apiKeys;
+    private final long maxTtlMs;
+    private final long negativeTtlMs;
+    private final Counter tokenVerifications;
+    private final Counter tokenRejections;
+    private final Counter apiKeyLookups;
+    private final Counter apiKeyRejections;
+
+    public RequestAuthenticator(AuthProperties properties, ApiKeyStore apiKeyStore, MeterRegistry meterRegistry) {
+        this.jwtVerifier = new JwtVerifier(properties.getJwt());
+        this.apiKeyStore = apiKeyStore;
+        AuthProperties.Cache cache = properties.getCache();
+        int maxNegative = (int) (cache.getMaxEntries() * cache.getNegativeShare());
+        this.tokens = new CredentialCache<>(cache.getMaxEntries(), maxNegative);
+        this.apiKeys = new CredentialCache<>(cache.getMaxEntries(), maxNegative);
+        this.maxTtlMs = cache.getMaxTtl().toMillis();
+        this.negativeTtlMs = cache.getNegativeTtl().toMillis();
+
+        Gauge.builder("gateway.auth.cache.size", tokens, CredentialCache::size)
+                .tag("credential", "jwt")
+                .register(meterRegistry);
+        Gauge.builder("gateway.auth.cache.size", apiKeys, CredentialCache::size)
+                .tag("credential", "api_key")
+                .register(meterRegistry);
+        this.tokenVerifications = missCounter("jwt", "valid", meterRegistry);
+        this.tokenRejections = missCounter("jwt", "invalid", meterRegistry);
+        this.apiKeyLookups = missCounter("api_key", "valid", meterRegistry);
+        this.apiKeyRejections = missCounter("api_key", "invalid", meterRegistry);
+    }
+
+    /**
+     * The subject of a valid {@code Authorization: Bearer} value, or {@code null}
+     * if it is not a bearer token or does not verify.
+     */
+    public String authenticateBearer(String authorization) {
+        if (!authorization.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        CredentialCache.Entry<String> cached = tokens.get(authorization, now);
+        if (cached != null) {
+            return cached.value();
+        }
+        try {
+            JwtVerifier.VerifiedToken token = jwtVerifier.verify(authorization, BEARER_PREFIX.length(), now);
+            tokens.put(authorization, token.subject(), Math.min(token.expiresAtMs(), now + maxTtlMs), now);
+            tokenVerifications.increment();
+            return token.subject();
+        } catch (InvalidTokenException e) {
+            log.debug("Rejected bearer token: {}", e.getMessage());
+            tokens.put(authorization, null, now + negativeTtlMs, now);
+            tokenRejections.increment();
+            return null;
+        }
+    }
+
+    /** The client owning {@code apiKey}, or {@code null} if the key is unknown. */
+    public String authenticateApiKey(String apiKey) {
+        long now = System.currentTimeMillis();
+        CredentialCache.Entry<String> cached = apiKeys.get(apiKey, now);
+        if (cached != null) {
+            return cached.value();
+        }
+        String owner = apiKeyStore.ownerOf(apiKey);
+        apiKeys.put(apiKey, owner, now + (owner != null ? maxTtlMs : negativeTtlMs), now);
+        (owner != null ? apiKeyLookups : apiKeyRejections).increment();
+        return owner;
+    }
+
+    private static Counter missCounter(String credential, String outcome, MeterRegistry meterRegistry) {
+        return Counter.builder("gateway.auth.verifications")
+                .description("Credential checks that missed the cache")
+                .tag("credential", credential)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
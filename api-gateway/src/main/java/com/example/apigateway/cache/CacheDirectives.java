@@ -0,0 +1,75 @@
+package com.example.apigateway.cache;
+
+import org.springframework.http.HttpHeaders;
+
+import java.util.List;
+import java.util.Locale;
+
+/** The {@code Cache-Control} directives the response cache acts on; a missing max-age is -1. */
+public record CacheDirectives(boolean noStore, boolean noCache, boolean isPrivate, boolean isPublic,
+        boolean mustRevalidate, long maxAgeSeconds, long sharedMaxAgeSeconds) {
+
+    public static final CacheDirectives NONE = new CacheDirectives(false, false, false, false, false, -1, -1);
+
+    public static CacheDirectives of(HttpHeaders headers) {
+        List<String> values = headers.get(HttpHeaders.CACHE_CONTROL);
+        if (values == null || values.isEmpty()) {
+            return NONE;
+        }
+        boolean noStore = false;
+        boolean noCache = false;
+        boolean isPrivate = false;
+        boolean isPublic = false;
+        boolean mustRevalidate = false;
+        long maxAge = -1;
+        long sharedMaxAge = -1;
+        for (String value : values) {
+            for (String directive : value.split(",")) {
+                String token = directive.trim().toLowerCase(Locale.ROOT);
+                int equals = token.indexOf('=');
+                String name = equals < 0 ? token : token.substring(0, equals).trim();
+                switch (name) {
+                    case "no-store" -> noStore = true;
+                    case "no-cache" -> noCache = true;
+                    case "private" -> isPrivate = true;
+                    case "public" -> isPublic = true;
+                    case "must-revalidate" -> mustRevalidate = true;
+                    case "max-age" -> maxAge = seconds(token, equals);
+                    case "s-maxage" -> sharedMaxAge = seconds(token, equals);
+                    default -> {
+                    }
+                }
+            }
+        }
+        return new CacheDirectives(noStore, noCache, isPrivate, isPublic, mustRevalidate, maxAge, sharedMaxAge);
+    }
+
+    /** The lifetime a shared cache may use, or -1 if the directives set none. */
+    public long freshnessSeconds() {
+        return sharedMaxAgeSeconds >= 0 ? sharedMaxAgeSeconds : maxAgeSeconds;
+    }
+
+    /**
+     * Whether a shared cache may reuse the response for requests that carried
+     * credentials (RFC 9111 3.5).
+     */
+    public boolean allowsSharedAuthenticated() {
+        return isPublic || mustRevalidate || sharedMaxAgeSeconds >= 0;
+    }
+
+    private static long seconds(String token, int equals) {
+        if (equals < 0) {
+            return -1;
+        }
+        String value = token.substring(equals + 1).trim();
+        if (value.length() > 1 && value.charAt(0) == '"' && value.charAt(value.length() - 1) == '"') {
+            value = value.substring(1, value.length() - 1);
+        }
+        try {
+            return Math.max(0, Long.parseLong(value));
+        } catch (NumberFormatException e) {
+            // An invalid max-age makes the response stale (RFC 9111 4.2.1)
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.apigateway.cache;
+
+import org.springframework.http.HttpHeaders;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A stored response. The body is a read-only direct buffer, outside the heap, shared
+ * by every request served from it; the headers exclude hop-by-hop headers and any
+ * header the gateway's own filters set. A stale response is kept until
+ * {@code retainUntilMs} when it can be revalidated with its ETag.
+ */
+public record CachedResponse(int status, HttpHeaders headers, String etag, ByteBuffer body,
+        long storedAtMs, long expiresAtMs, long retainUntilMs) {
+
+    /** Stands for "nothing cached" where a reactive signal needs a value. */
+    public static final CachedResponse NONE = new CachedResponse(0, HttpHeaders.EMPTY, null,
+            ByteBuffer.allocateDirect(0).asReadOnlyBuffer(), 0, 0, 0);
+
+    private static final byte FORMAT_VERSION = 1;
+
+    public boolean isFresh(long nowMs) {
+        return nowMs < expiresAtMs;
+    }
+
+    /** Seconds since the response was stored or last revalidated, for the {@code Age} header. */
+    public long ageSeconds(long nowMs) {
+        return Math.max(0, (nowMs - storedAtMs) / 1000);
+    }
+
+    /** The body as a fresh view, so concurrent readers never share a position. */
+    public ByteBuffer bodyView() {
+        return body.duplicate();
+    }
+
+    public int size() {
+        return body.capacity();
+    }
+
+    /** This response, fresh again after the backend confirmed it with a 304. */
+    CachedResponse revalidated(long nowMs, long ttlMs, long staleRetentionMs) {
+        long expiresAt = nowMs + ttlMs;
+        return new CachedResponse(status, headers, etag, body, nowMs, expiresAt,
+                etag != null ? expiresAt + staleRetentionMs : expiresAt);
+    }
+
+    static CachedResponse of(int status, HttpHeaders headers, String etag, byte[] body, int length,
+            long nowMs, long ttlMs, long staleRetentionMs) {
+        ByteBuffer direct = ByteBuffer.allocateDirect(length);
+        direct.put(body, 0, length).flip();
+        long expiresAt = nowMs + ttlMs;
+        return new CachedResponse(status, HttpHeaders.readOnlyHttpHeaders(headers), etag, direct.asReadOnlyBuffer(),
+                nowMs, expiresAt, etag != null ? expiresAt + staleRetentionMs : expiresAt);
+    }
+
+    /** Serializes the response for the shared Redis tier. */
+    byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(size() + 256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeShort(status);
+            out.writeLong(storedAtMs);
+            out.writeLong(expiresAtMs);
+            out.writeLong(retainUntilMs);
+            writeString(out, etag != null ? etag : "");
+            out.writeShort(headers.size());
+            for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                writeString(out, header.getKey());
+                out.writeShort(header.getValue().size());
+                for (String value : header.getValue()) {
+                    writeString(out, value);
+                }
+            }
+            ByteBuffer view = bodyView();
+            out.writeInt(view.remaining());
+            byte[] chunk = new byte[Math.min(view.remaining(), 8192)];
+            while (view.hasRemaining()) {
+                int length = Math.min(chunk.length, view.remaining());
+                view.get(chunk, 0, length);
+                out.write(chunk, 0, length);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads a response written by {@link #encode()}.
+     *
+     * @throws IllegalArgumentException if {@code encoded} is not in that format
+     */
+    static CachedResponse decode(ByteBuffer encoded) {
+        try {
+            if (encoded.get() != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unknown cached response format");
+            }
+            int status = encoded.getShort();
+            long storedAt = encoded.getLong();
+            long expiresAt = encoded.getLong();
+            long retainUntil = encoded.getLong();
+            String etag = readString(encoded);
+            HttpHeaders headers = new HttpHeaders();
+            int names = encoded.getShort();
+            for (int i = 0; i < names; i++) {
+                String name = readString(encoded);
+                int values = encoded.getShort();
+                for (int j = 0; j < values; j++) {
+                    headers.add(name, readString(encoded));
+                }
+            }
+            int length = encoded.getInt();
+            ByteBuffer body = ByteBuffer.allocateDirect(length);
+            body.put(encoded.slice(encoded.position(), length)).flip();
+            return new CachedResponse(status, HttpHeaders.readOnlyHttpHeaders(headers), etag.isEmpty() ? null : etag,
+                    body.asReadOnlyBuffer(), storedAt, expiresAt, retainUntil);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Malformed cached response", e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
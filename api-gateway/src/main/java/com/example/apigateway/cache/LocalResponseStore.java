@@ -0,0 +1,89 @@
+package com.example.apigateway.cache;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This node's cached responses, bounded by entry count and by body bytes. Hits are
+ * a single {@link ConcurrentHashMap} read. When either bound is exceeded the oldest
+ * entries are evicted first; entries past their retention are dropped on access or
+ * when they reach the head of the queue. Evicted bodies are direct buffers, freed
+ * once no response still being written holds them.
+ */
+final class LocalResponseStore {
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final ConcurrentHashMap<String, Node> entries = new ConcurrentHashMap<>();
+    private final Queue<Node> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    LocalResponseStore(int maxEntries, long maxBytes) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.maxBytes = Math.max(1, maxBytes);
+    }
+
+    /** The entry for {@code key}, fresh or stale, or {@code null} if absent or past retention. */
+    CachedResponse get(String key, long nowMs) {
+        Node node = entries.get(key);
+        if (node == null) {
+            return null;
+        }
+        if (node.response().retainUntilMs() <= nowMs) {
+            remove(node);
+            return null;
+        }
+        return node.response();
+    }
+
+    void put(String key, CachedResponse response, long nowMs) {
+        Node node = new Node(key, response);
+        Node previous = entries.put(key, node);
+        if (previous == null) {
+            size.incrementAndGet();
+        } else {
+            bytes.addAndGet(-previous.response().size());
+        }
+        bytes.addAndGet(response.size());
+        insertionOrder.add(node);
+        Node oldest;
+        while ((oldest = insertionOrder.peek()) != null
+                && (size.get() > maxEntries || bytes.get() > maxBytes
+                    || oldest.response().retainUntilMs() <= nowMs || entries.get(oldest.key()) != oldest)) {
+            Node polled = insertionOrder.poll();
+            if (polled != null && remove(polled)) {
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    long bytes() {
+        return bytes.get();
+    }
+
+    long evictions() {
+        return evictions.get();
+    }
+
+    private boolean remove(Node node) {
+        // Only if still current: a key stored again later has a newer node further back in the queue
+        if (entries.remove(node.key(), node)) {
+            size.decrementAndGet();
+            bytes.addAndGet(-node.response().size());
+            return true;
+        }
+        return false;
+    }
+
+    private record Node(String key, CachedResponse response) {
+    }
+}
@@ -0,0 +1,318 @@
+package com.example.apigateway.cache;
+
+import com.example.apigateway.config.ResponseCacheProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stores GET responses for the routes listed under {@code response-cache.routes}.
+ * Lookups go to this node's {@link LocalResponseStore} and, on a local miss, to the
+ * optional Redis tier shared by all nodes. Concurrent misses for one key are
+ * coalesced: the first request fetches from the backend and the others wait for
+ * its response instead of sending their own.
+ */
+@Service
+@Slf4j
+public class ResponseCache {
+
+    private static final String PREFIX_WILDCARD = "/**";
+    // Heuristically cacheable statuses (RFC 9110 15.1) the backend can return for a GET
+    private static final Set<Integer> STORABLE_STATUSES = Set.of(200, 203, 204, 300, 301, 404, 410);
+
+    /** How a request was answered, as the {@code outcome} tag of {@code gateway.cache.requests}. */
+    public enum Outcome {
+        HIT, SHARED_HIT, REVALIDATED, COALESCED, MISS, BYPASS
+    }
+
+    private final ResponseCacheProperties properties;
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final LocalResponseStore local;
+    private final Map<String, Long> exactRoutes = new HashMap<>();
+    private final String[] prefixes;
+    private final long[] prefixTtls;
+    private final List<String> keyHeaders;
+    private final List<String> credentialHeaders;
+    private final Set<String> varyAllowed;
+    private final long maxTtlMs;
+    private final long staleRetentionMs;
+    private final Duration coalesceTimeout;
+    private final ConcurrentHashMap<String, Sinks.One<CachedResponse>> inflight = new ConcurrentHashMap<>();
+    private final Map<Outcome, Counter> outcomes = new EnumMap<>(Outcome.class);
+
+    public ResponseCache(ResponseCacheProperties properties, ReactiveStringRedisTemplate redisTemplate,
+            MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.redisTemplate = redisTemplate;
+        this.local = new LocalResponseStore(properties.getMaxEntries(), properties.getMaxBytes());
+        this.keyHeaders = List.copyOf(properties.getKeyHeaders());
+        this.credentialHeaders = List.copyOf(properties.getCredentialHeaders());
+        this.varyAllowed = Set.copyOf(keyHeaders.stream().map(name -> name.toLowerCase(Locale.ROOT)).toList());
+        this.maxTtlMs = properties.getMaxTtl().toMillis();
+        this.staleRetentionMs = properties.getStaleRetention().toMillis();
+        this.coalesceTimeout = properties.getCoalesceTimeout();
+
+        Map<String, Long> prefixRoutes = new HashMap<>();
+        for (ResponseCacheProperties.Route route : properties.getRoutes()) {
+            long ttlMs = route.getTtl().toMillis();
+            if (route.getPath().endsWith(PREFIX_WILDCARD)) {
+                prefixRoutes.put(route.getPath().substring(0, route.getPath().length() - PREFIX_WILDCARD.length()), ttlMs);
+            } else {
+                exactRoutes.put(route.getPath(), ttlMs);
+            }
+        }
+        // Longest prefix first, so the most specific route wins
+        this.prefixes = prefixRoutes.keySet().stream()
+                .sorted(Comparator.comparingInt(String::length).reversed())
+                .toArray(String[]::new);
+        this.prefixTtls = new long[prefixes.length];
+        for (int i = 0; i < prefixes.length; i++) {
+            prefixTtls[i] = prefixRoutes.get(prefixes[i]);
+        }
+
+        for (Outcome outcome : Outcome.values()) {
+            outcomes.put(outcome, Counter.builder("gateway.cache.requests")
+                    .description("GET requests on cacheable routes by how they were answered")
+                    .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+        Gauge.builder("gateway.cache.entries", local, LocalResponseStore::size)
+                .description("Responses in this node's cache")
+                .register(meterRegistry);
+        Gauge.builder("gateway.cache.bytes", local, LocalResponseStore::bytes)
+                .description("Off-heap bytes held by cached response bodies")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        FunctionCounter.builder("gateway.cache.evictions", local, LocalResponseStore::evictions)
+                .description("Responses evicted to stay within the entry and byte bounds")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /** The lifetime used for {@code path} when the backend sets none, or -1 if the route is not cached. */
+    public long routeTtlMs(String path) {
+        Long ttlMs = exactRoutes.get(path);
+        if (ttlMs != null) {
+            return ttlMs;
+        }
+        for (int i = 0; i < prefixes.length; i++) {
+            String prefix = prefixes[i];
+            if (path.startsWith(prefix) && (path.length() == prefix.length() || path.charAt(prefix.length()) == '/')) {
+                return prefixTtls[i];
+            }
+        }
+        return -1;
+    }
+
+    /** Path, query and the values of the configured key headers. */
+    public String key(ServerHttpRequest request) {
+        StringBuilder key = new StringBuilder(64).append(request.getPath().value());
+        String query = request.getURI().getRawQuery();
+        if (query != null) {
+            key.append('?').append(query);
+        }
+        HttpHeaders headers = request.getHeaders();
+        for (String name : keyHeaders) {
+            key.append('\n');
+            List<String> values = headers.get(name);
+            if (values != null) {
+                key.append(String.join(",", values));
+            }
+        }
+        return key.toString();
+    }
+
+    /** This node's entry for {@code key}, fresh or stale, or {@code null}. */
+    public CachedResponse getLocal(String key) {
+        return local.get(key, System.currentTimeMillis());
+    }
+
+    /**
+     * The shared tier's entry for {@code key}, copied into the local tier, or
+     * {@link CachedResponse#NONE} when the tier is disabled, has no entry, fails or
+     * exceeds its timeout.
+     */
+    public Mono<CachedResponse> getShared(String key) {
+        if (!properties.getShared().isEnabled()) {
+            return Mono.just(CachedResponse.NONE);
+        }
+        ByteBuffer redisKey = sharedKey(key);
+        return redisTemplate.execute(connection -> connection.stringCommands().get(redisKey))
+                .next()
+                .map(encoded -> {
+                    long now = System.currentTimeMillis();
+                    CachedResponse response = CachedResponse.decode(encoded);
+                    if (response.retainUntilMs() <= now) {
+                        return CachedResponse.NONE;
+                    }
+                    local.put(key, response, now);
+                    return response;
+                })
+                .timeout(properties.getShared().getTimeout())
+                .onErrorResume(e -> {
+                    log.debug("Shared response cache read failed for {}: {}", key, e.toString());
+                    return Mono.just(CachedResponse.NONE);
+                })
+                .defaultIfEmpty(CachedResponse.NONE);
+    }
+
+    /** Whether the request carries any of the configured credential headers. */
+    public boolean hasCredentials(HttpHeaders requestHeaders) {
+        for (String name : credentialHeaders) {
+            if (requestHeaders.containsKey(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether a response with this status and these headers may be stored: not
+     * {@code no-store} or {@code private}, no {@code Set-Cookie}, varying only on
+     * key headers and not announced larger than {@code max-entry-bytes}. The key
+     * leaves credentials out, so a response to a request that had them is stored
+     * only if it allows shared caching explicitly (RFC 9111 3.5).
+     */
+    public boolean isStorable(int status, HttpHeaders headers, boolean credentialed) {
+        if (!STORABLE_STATUSES.contains(status) || headers.containsKey(HttpHeaders.SET_COOKIE)) {
+            return false;
+        }
+        CacheDirectives directives = CacheDirectives.of(headers);
+        if (directives.noStore() || directives.isPrivate()
+                || (credentialed && !directives.allowsSharedAuthenticated())) {
+            return false;
+        }
+        for (String vary : headers.getVary()) {
+            if (!varyAllowed.contains(vary.toLowerCase(Locale.ROOT))) {
+                return false;
+            }
+        }
+        return headers.getContentLength() <= properties.getMaxEntryBytes();
+    }
+
+    public int maxEntryBytes() {
+        return properties.getMaxEntryBytes();
+    }
+
+    /**
+     * Stores a response accepted by {@link #isStorable}; {@code headers} must
+     * already exclude hop-by-hop and gateway headers. Returns the stored entry, or
+     * {@link CachedResponse#NONE} if it expires at once and has no ETag to
+     * revalidate with.
+     */
+    public CachedResponse store(String key, long routeTtlMs, int status, HttpHeaders headers, byte[] body, int length) {
+        String etag = headers.getETag();
+        long ttlMs = ttlMs(CacheDirectives.of(headers), routeTtlMs, headers);
+        if (ttlMs == 0 && etag == null) {
+            return CachedResponse.NONE;
+        }
+        long now = System.currentTimeMillis();
+        CachedResponse response = CachedResponse.of(status, headers, etag, body, length, now, ttlMs, staleRetentionMs);
+        put(key, response, now);
+        return response;
+    }
+
+    /** Makes {@code stale} fresh again after the backend answered its ETag with a 304. */
+    public CachedResponse revalidated(String key, CachedResponse stale, HttpHeaders notModified, long routeTtlMs) {
+        HttpHeaders freshness = notModified.containsKey(HttpHeaders.CACHE_CONTROL) ? notModified : stale.headers();
+        long now = System.currentTimeMillis();
+        CachedResponse response = stale.revalidated(now,
+                ttlMs(CacheDirectives.of(freshness), routeTtlMs, notModified), staleRetentionMs);
+        put(key, response, now);
+        return response;
+    }
+
+    /**
+     * Registers the caller as the request fetching {@code key} from the backend,
+     * or returns {@code null} if another request already is. The caller must
+     * eventually pass the returned handle to {@link #finishFetch}.
+     */
+    public Sinks.One<CachedResponse> tryLead(String key) {
+        Sinks.One<CachedResponse> lead = Sinks.one();
+        return inflight.putIfAbsent(key, lead) == null ? lead : null;
+    }
+
+    /**
+     * The response fetched by the request leading {@code key}, or
+     * {@link CachedResponse#NONE} if there is none, it was not stored or it took
+     * longer than {@code coalesce-timeout}.
+     */
+    public Mono<CachedResponse> awaitLeader(String key) {
+        Sinks.One<CachedResponse> lead = inflight.get(key);
+        if (lead == null) {
+            return Mono.just(CachedResponse.NONE);
+        }
+        return lead.asMono().timeout(coalesceTimeout, Mono.just(CachedResponse.NONE));
+    }
+
+    /** Hands {@code response} to the waiting requests; only the first call per lead counts. */
+    public void finishFetch(String key, Sinks.One<CachedResponse> lead, CachedResponse response) {
+        if (inflight.remove(key, lead)) {
+            lead.tryEmitValue(response);
+        }
+    }
+
+    public void record(Outcome outcome) {
+        outcomes.get(outcome).increment();
+    }
+
+    private long ttlMs(CacheDirectives directives, long routeTtlMs, HttpHeaders headers) {
+        if (directives.noCache()) {
+            return 0;
+        }
+        long freshness = directives.freshnessSeconds();
+        long ttlMs = Math.min(freshness >= 0 ? freshness * 1000 : routeTtlMs, maxTtlMs);
+        // Time the response already spent in caches upstream counts against its lifetime
+        String age = headers.getFirst(HttpHeaders.AGE);
+        if (age != null) {
+            try {
+                ttlMs -= Long.parseLong(age.trim()) * 1000;
+            } catch (NumberFormatException e) {
+                // An invalid Age is ignored (RFC 9111 5.1)
+            }
+        }
+        return Math.max(0, ttlMs);
+    }
+
+    private void put(String key, CachedResponse response, long now) {
+        local.put(key, response, now);
+        long retainMs = response.retainUntilMs() - now;
+        if (!properties.getShared().isEnabled() || retainMs <= 0) {
+            return;
+        }
+        ByteBuffer value = ByteBuffer.wrap(response.encode());
+        redisTemplate.execute(connection -> connection.stringCommands()
+                        .set(sharedKey(key), value, Expiration.milliseconds(retainMs),
+                                RedisStringCommands.SetOption.upsert()))
+                .subscribe(null, e -> log.debug("Shared response cache write failed for {}: {}", key, e.toString()));
+    }
+
+    private ByteBuffer sharedKey(String key) {
+        return ByteBuffer.wrap((properties.getShared().getKeyPrefix() + key).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.apigateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "auth")
+public class AuthProperties {
+
+    /** What happens to a request whose bearer token or API key fails validation. */
+    private InvalidCredentials invalidCredentials = InvalidCredentials.REJECT;
+    private Jwt jwt = new Jwt();
+    private ApiKeys apiKeys = new ApiKeys();
+    private Cache cache = new Cache();
+
+    public enum InvalidCredentials {
+        /** Answer 401. */
+        REJECT,
+        /** Drop the credential and continue as an anonymous request. */
+        ANONYMOUS
+    }
+
+    @Data
+    public static class Jwt {
+        /** HS256 key; prefix with {@code base64:} for a base64-encoded key. */
+        private String hmacSecret;
+        /** RS256 public keys by {@code kid}, each a PEM string or the path of a PEM file. */
+        private Map<String, String> rsaPublicKeys = new HashMap<>();
+        /** Required {@code iss}, if set. */
+        private String issuer;
+        /** Required entry of {@code aud}, if set. */
+        private String audience;
+        private Duration clockSkew = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class ApiKeys {
+        /** Valid keys as SHA-256 hex digests, mapped to the owning client. */
+        private Map<String, String> sha256 = new HashMap<>();
+        /** Optional file of {@code sha256hex=owner} lines, loaded at startup. */
+        private String file;
+    }
+
+    @Data
+    public static class Cache {
+        private int maxEntries = 100_000;
+        /** Share of {@code max-entries} rejected credentials may hold, so a flood of bad tokens cannot evict good ones. */
+        private double negativeShare = 0.1;
+        /** Verified credentials are re-checked at least this often, even if the token lives longer. */
+        private Duration maxTtl = Duration.ofMinutes(5);
+        /** How long a rejected credential is remembered, so repeats skip the signature check. */
+        private Duration negativeTtl = Duration.ofSeconds(30);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.apigateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "events.publisher")
+public class EventPublisherProperties {
+
+    /** Ring buffer slots, rounded up to a power of two. */
+    private int capacity = 8192;
+    private int drainBatchSize = 256;
+    private OverflowPolicy overflow = OverflowPolicy.DROP_OLDEST;
+    /** With {@code SAMPLE}, one in this many events is kept while the buffer is full. */
+    private int sampleRate = 10;
+    /** With {@code SPILL}, overflow events waiting for the drainer to write them to disk. */
+    private int spillBufferCapacity = 4096;
+    private String spillDirectory = "event-spill";
+    private long spillMaxBytes = 256L * 1024 * 1024;
+    private Map<String, Topic> topics = new HashMap<>();
+
+    public enum OverflowPolicy {
+        DROP_OLDEST,
+        SAMPLE,
+        SPILL
+    }
+
+    /**
+     * Producer overrides for one topic. Unset fields keep the values from
+     * {@code spring.kafka.producer}.
+     */
+    @Data
+    public static class Topic {
+        private Integer lingerMs;
+        private Integer batchSize;
+        private String compressionType;
+        private String acks;
+    }
+}
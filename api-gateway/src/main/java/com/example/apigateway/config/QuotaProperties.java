@@ -0,0 +1,28 @@
+package com.example.apigateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "quota")
+public class QuotaProperties {
+
+    private boolean enabled = true;
+    private long syncIntervalMs = 1000;
+    private Duration idleEviction = Duration.ofMinutes(10);
+    private Map<String, Tier> tiers = new HashMap<>();
+
+    /** Requests allowed per calendar period (UTC); 0 leaves the period unlimited. */
+    @Data
+    public static class Tier {
+        private long hourly;
+        private long daily;
+        private long monthly;
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.apigateway.config;
+
+import com.example.apigateway.model.LimitDimension;
+import com.example.apigateway.model.RateLimitAlgorithm;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "ratelimit")
+public class RateLimitProperties {
+
+    private RateLimitAlgorithm algorithm = RateLimitAlgorithm.SLIDING_WINDOW_COUNTER;
+    private Map<LimitDimension, RateLimitAlgorithm> algorithms = new EnumMap<>(LimitDimension.class);
+    private List<Policy> policies = new ArrayList<>();
+    private String defaultTier = "default";
+    private Map<String, String> apiKeyTiers = new HashMap<>();
+    private Hybrid hybrid = new Hybrid();
+    private Batching batching = new Batching();
+    private Cluster cluster = new Cluster();
+    private Resilience resilience = new Resilience();
+
+    public RateLimitAlgorithm algorithmFor(LimitDimension dimension) {
+        return algorithms.getOrDefault(dimension, algorithm);
+    }
+
+    /**
+     * One limit on one dimension. Empty {@code routes} or {@code tiers} apply the
+     * policy to every route or tier; routes are exact paths or {@code /prefix/**}.
+     */
+    @Data
+    public static class Policy {
+        private String id;
+        private LimitDimension dimension;
+        private int limit;
+        private Duration window = Duration.ofMinutes(1);
+        private RateLimitAlgorithm algorithm;
+        private List<String> routes = new ArrayList<>();
+        private List<String> tiers = new ArrayList<>();
+    }
+
+    /**
+     * Near-cache mode: dimensions listed in {@code leaseSize} are decided from
+     * locally leased quota; the rest still go through the Redis script.
+     */
+    @Data
+    public static class Hybrid {
+        private boolean enabled;
+        private long syncIntervalMs = 1000;
+        private Map<LimitDimension, Integer> leaseSize = new EnumMap<>(LimitDimension.class);
+
+        public boolean isLocal(LimitDimension dimension) {
+            return enabled && leaseSize.containsKey(dimension);
+        }
+
+        public int leaseSizeFor(LimitDimension dimension) {
+            return leaseSize.getOrDefault(dimension, 1);
+        }
+    }
+
+    /**
+     * Micro-batching: decisions arriving within {@code maxWaitMicros} (or until
+     * {@code maxBatchSize} are pending) share a single script invocation.
+     */
+    @Data
+    public static class Batching {
+        private boolean enabled;
+        private int maxBatchSize = 64;
+        private long maxWaitMicros = 500;
+    }
+
+    /**
+     * Redis Cluster mode: a request's keys are grouped by hash slot and each group
+     * is checked by its own script call. Dimensions listed in {@code hotKeyShards}
+     * spread each counter over that many sub-keys, each with its share of the limit.
+     */
+    @Data
+    public static class Cluster {
+        private boolean enabled;
+        private Map<LimitDimension, Integer> hotKeyShards = new EnumMap<>(LimitDimension.class);
+
+        public int shardsFor(LimitDimension dimension) {
+            return enabled ? Math.max(1, hotKeyShards.getOrDefault(dimension, 1)) : 1;
+        }
+    }
+
+    /**
+     * What happens when Redis is slow or failing. Decisions that exceed
+     * {@code timeout} or fail count against the breaker; while it is open, or when
+     * a call fails, {@code mode} decides the request without Redis.
+     */
+    @Data
+    public static class Resilience {
+        private FailureMode mode = FailureMode.LOCAL;
+        private Duration timeout = Duration.ofMillis(50);
+        private Breaker breaker = new Breaker();
+        private Fallback fallback = new Fallback();
+    }
+
+    public enum FailureMode {
+        FAIL_OPEN,
+        FAIL_CLOSED,
+        LOCAL
+    }
+
+    /** Opens when {@code failureRateThreshold}% of at least {@code minimumCalls} calls in a window of {@code windowSize} fail. */
+    @Data
+    public static class Breaker {
+        private int failureRateThreshold = 50;
+        private int minimumCalls = 20;
+        private int windowSize = 100;
+        private Duration openDuration = Duration.ofSeconds(5);
+        private int halfOpenCalls = 5;
+        /** Reopens the breaker if the half-open probes have not all succeeded by then. */
+        private Duration halfOpenTimeout = Duration.ofSeconds(10);
+    }
+
+    /**
+     * In-process limiter used in {@code LOCAL} mode: each node enforces its share
+     * of every limit, dividing by the gateway nodes last seen heartbeating in
+     * Redis, or by {@code nodes} until the first heartbeat.
+     */
+    @Data
+    public static class Fallback {
+        private int nodes = 1;
+        private long heartbeatIntervalMs = 5000;
+        private int maxKeys = 100000;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.apigateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "response-cache")
+public class ResponseCacheProperties {
+
+    private boolean enabled;
+    /**
+     * GET routes that may be cached, as an exact path or {@code /prefix/**}. Listing a
+     * route declares its responses the same for every caller.
+     */
+    private List<Route> routes = new ArrayList<>();
+    /** Request headers that select a variant; responses that vary on any other header are not stored. */
+    private List<String> keyHeaders = List.of("Accept", "Accept-Encoding");
+    /**
+     * Request headers that carry the caller's credentials. A response to a request
+     * with any of them is stored only if it is marked {@code public},
+     * {@code s-maxage} or {@code must-revalidate}.
+     */
+    private List<String> credentialHeaders = List.of("Authorization", "X-API-KEY", "Cookie");
+    private int maxEntries = 10_000;
+    /** Off-heap bytes for cached bodies on this node. */
+    private long maxBytes = 64L * 1024 * 1024;
+    private int maxEntryBytes = 256 * 1024;
+    /** Upper bound on any freshness lifetime, including the backend's own max-age. */
+    private Duration maxTtl = Duration.ofMinutes(10);
+    /** How long a stale response with an ETag is kept for revalidation. */
+    private Duration staleRetention = Duration.ofMinutes(10);
+    /** How long concurrent misses wait for the first one's response before going upstream themselves. */
+    private Duration coalesceTimeout = Duration.ofSeconds(5);
+    private Shared shared = new Shared();
+
+    /** A cacheable route and the lifetime used when the backend sends no {@code max-age}. */
+    @Data
+    public static class Route {
+        private String path;
+        private Duration ttl = Duration.ofSeconds(30);
+    }
+
+    /** Optional Redis tier shared by all gateway nodes, read on a local miss. */
+    @Data
+    public static class Shared {
+        private boolean enabled;
+        private String keyPrefix = "cache:response:";
+        /** Budget for a shared-tier read; a slower read counts as a miss. */
+        private Duration timeout = Duration.ofMillis(20);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.apigateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "upstream")
+public class UpstreamProperties {
+
+    /**
+     * Connection pool and deduplication settings by route id. Each listed route gets
+     * its own pool; other routes share the {@code spring.cloud.gateway.httpclient} pool.
+     */
+    private Map<String, Route> routes = new HashMap<>();
+
+    @Data
+    public static class Route {
+        /** Connections to the route's backend; with {@code http2}, HTTP/2 connections. */
+        private int maxConnections = 500;
+        /** Requests waiting for a connection before new ones fail with 503; -1 is unbounded. */
+        private int pendingAcquireMaxCount = 1000;
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(1);
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+        /** Unlimited when not set. */
+        private Duration maxLifeTime;
+        /** How often idle and expired connections are closed in the background; 0 only on acquire. */
+        private Duration evictionInterval = Duration.ofSeconds(10);
+        /** Negotiate HTTP/2 (h2 over TLS, h2c otherwise) and multiplex requests over the connections. */
+        private boolean http2;
+        private int maxConcurrentStreams = 100;
+        private Dedup dedup = new Dedup();
+        private Concurrency concurrency = new Concurrency();
+    }
+
+    /**
+     * Identical concurrent requests share one upstream call. Requests are identical
+     * when method, path, query and every key header match, so requests of different
+     * callers are never merged as long as their credentials are key headers.
+     */
+    @Data
+    public static class Dedup {
+        private boolean enabled;
+        private List<String> methods = List.of("GET");
+        private List<String> keyHeaders = List.of("Authorization", "X-API-KEY", "Cookie", "Accept", "Accept-Encoding");
+        /** Larger responses are not shared; the waiting requests then go upstream themselves. */
+        private int maxBodyBytes = 1024 * 1024;
+        /** How long a duplicate waits for the first request's response before going upstream itself. */
+        private Duration timeout = Duration.ofSeconds(5);
+    }
+
+    /**
+     * Adaptive cap on the route's in-flight requests. After each window the limit
+     * follows the ratio of baseline to recent latency: it grows while latency holds
+     * and shrinks once recent latency exceeds {@code tolerance} times the baseline,
+     * or backs off when the backend answers 503/504 or fails. Requests over
+     * the limit get 503 at once instead of queueing for a connection.
+     */
+    @Data
+    public static class Concurrency {
+        private boolean enabled;
+        private int initialLimit = 20;
+        private int minLimit = 4;
+        private int maxLimit = 500;
+        /** How far recent latency may exceed the baseline before the limit shrinks. */
+        private double tolerance = 1.5;
+        /** Weight of each window's estimate in the new limit, from 0 to 1. */
+        private double smoothing = 0.2;
+        /** Factor the limit is multiplied by after a window with a 503, 504 or failed request. */
+        private double backoffRatio = 0.9;
+        private Duration window = Duration.ofMillis(250);
+        private int minWindowSamples = 10;
+        /**
+         * The baseline is the lowest window average; above it, it follows higher averages
+         * with the weight of an average over this many windows.
+         */
+        private int baselineWindow = 600;
+        /** Share of the limit anonymous requests may hold, so they are shed before authenticated ones. */
+        private double anonymousShare = 0.5;
+        /** Share of the limit requests with one API key may hold. */
+        private double apiKeyShare = 0.5;
+    }
+}
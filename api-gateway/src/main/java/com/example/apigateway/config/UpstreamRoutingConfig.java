@@ -0,0 +1,20 @@
+package com.example.apigateway.config;
+
+import org.springframework.cloud.gateway.config.GatewayProperties;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Gateway registers {@link NettyWriteResponseFilter} only while its own routing
+ * filter is enabled. That one is disabled in favour of {@code UpstreamRoutingFilter},
+ * so the write filter, which streams the proxied response body, is declared here.
+ */
+@Configuration
+public class UpstreamRoutingConfig {
+
+    @Bean
+    public NettyWriteResponseFilter nettyWriteResponseFilter(GatewayProperties properties) {
+        return new NettyWriteResponseFilter(properties.getStreamingMediaTypes());
+    }
+}
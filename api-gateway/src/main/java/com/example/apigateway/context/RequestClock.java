@@ -0,0 +1,27 @@
+package com.example.apigateway.context;
+
+import com.example.events.RequestEvent;
+
+import java.time.Instant;
+
+/**
+ * Wall-clock timestamps derived from {@link System#nanoTime()} anchored once at
+ * startup: monotonic within the process and cheaper than {@link Instant#now()}.
+ * They can drift from NTP-adjusted time over very long uptimes.
+ */
+public final class RequestClock {
+
+    private static final long ANCHOR_NANOS = System.nanoTime();
+    private static final long ANCHOR_EPOCH_MICROS = RequestEvent.toEpochMicros(Instant.now());
+
+    private RequestClock() {
+    }
+
+    public static long nanoTime() {
+        return System.nanoTime();
+    }
+
+    public static long epochMicros(long nanoTime) {
+        return ANCHOR_EPOCH_MICROS + (nanoTime - ANCHOR_NANOS) / 1_000;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.apigateway.context;
+
+import com.example.events.RequestEvent;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Per-request state shared by the gateway filters. Created once when the request
+ * enters the chain; filters enrich it and {@code ObservabilityFilter} turns it into
+ * the single {@link RequestEvent} published for the request.
+ */
+@Getter
+public final class RequestContext {
+
+    private static final String ATTRIBUTE = RequestContext.class.getName();
+    private static final String UNKNOWN_IP = "unknown";
+    private static final int STATUS_TOO_MANY_REQUESTS = 429;
+
+    private final long startNanos;
+    private final long timestampMicros;
+    private final long requestIdHigh;
+    private final long requestIdLow;
+    private final String ip;
+    private final String path;
+    private final String method;
+    @Setter
+    private String userId;
+    @Setter
+    private String apiKey;
+    @Setter
+    private boolean blocked;
+    /** A credential failed validation; answered with 401 once the deny list and IP limits passed. */
+    @Setter
+    private boolean credentialsRejected;
+
+    private RequestContext(ServerHttpRequest request) {
+        this.startNanos = RequestClock.nanoTime();
+        this.timestampMicros = RequestClock.epochMicros(startNanos);
+        this.requestIdHigh = RequestIds.high(timestampMicros);
+        this.requestIdLow = RequestIds.low();
+        this.ip = clientIp(request);
+        this.path = request.getPath().value();
+        this.method = request.getMethod().name();
+    }
+
+    /** Returns the exchange's context, creating it if no filter has yet. */
+    public static RequestContext of(ServerWebExchange exchange) {
+        RequestContext context = exchange.getAttribute(ATTRIBUTE);
+        if (context == null) {
+            context = new RequestContext(exchange.getRequest());
+            exchange.getAttributes().put(ATTRIBUTE, context);
+        }
+        return context;
+    }
+
+    public RequestEvent toEvent(int status) {
+        return RequestEvent.builder()
+                .timestampMicros(timestampMicros)
+                .requestIdHigh(requestIdHigh)
+                .requestIdLow(requestIdLow)
+                .ip(ip)
+                .userId(userId)
+                .apiKey(apiKey)
+                .endpoint(path)
+                .method(method)
+                .status(status)
+                .latencyMs((RequestClock.nanoTime() - startNanos) / 1_000_000)
+                .type(blocked || status == STATUS_TOO_MANY_REQUESTS ? RequestEvent.EventType.BLOCKED : RequestEvent.EventType.ALLOWED)
+                .build();
+    }
+
+    private static String clientIp(ServerHttpRequest request) {
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        return remoteAddress != null && remoteAddress.getAddress() != null
+                ? remoteAddress.getAddress().getHostAddress()
+                : UNKNOWN_IP;
+    }
+}
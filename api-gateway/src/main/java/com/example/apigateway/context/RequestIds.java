@@ -0,0 +1,29 @@
+package com.example.apigateway.context;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Time-ordered 128-bit request ids in the UUIDv7 layout: 48 bits of epoch millis,
+ * the sub-millisecond micros in {@code rand_a} and 62 random bits from
+ * {@link ThreadLocalRandom}. Unlike {@code UUID.randomUUID()} this never touches
+ * {@code SecureRandom} and allocates nothing.
+ */
+public final class RequestIds {
+
+    private static final long VERSION_7 = 0x7000L;
+    private static final long VARIANT_MASK = 0x3FFF_FFFF_FFFF_FFFFL;
+    private static final long VARIANT_RFC4122 = 0x8000_0000_0000_0000L;
+
+    private RequestIds() {
+    }
+
+    public static long high(long epochMicros) {
+        long millis = epochMicros / 1_000;
+        long subMillis = epochMicros % 1_000;
+        return (millis << 16) | VERSION_7 | subMillis;
+    }
+
+    public static long low() {
+        return (ThreadLocalRandom.current().nextLong() & VARIANT_MASK) | VARIANT_RFC4122;
+    }
+}
@@ -1,51 +1,78 @@
 package com.example.apigateway.filter;
 
+import com.example.apigateway.auth.RequestAuthenticator;
+import com.example.apigateway.config.AuthProperties;
+import com.example.apigateway.context.RequestContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Authenticates the bearer token and API key, when present, and records the
+ * principals on the {@link RequestContext}. Requests without credentials pass as
+ * anonymous. Invalid credentials are marked for rejection unless
+ * {@code auth.invalid-credentials} is {@code anonymous}; {@link RateLimitFilter}
+ * answers them with 401 after the deny list and IP limits, so guessing
+ * credentials is throttled like any other traffic.
+ */
 @Component
 public class AuthFilter implements GlobalFilter, Ordered {
 
-    private static final String BEARER_PREFIX = "Bearer ";
-    private static final String VALID_TOKEN = "valid-token";
-    private static final String HEADER_AUTHORIZATION = "Authorization";
     private static final String HEADER_API_KEY = "X-API-KEY";
-    private static final String ATTR_USER_ID = "userId";
-    private static final String ATTR_API_KEY = "apiKey";
 
-    @Override
-    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
-        extractAndValidateAuth(exchange);
-        return chain.filter(exchange);
+    private final RequestAuthenticator authenticator;
+    private final AuthProperties properties;
+    private final Timer duration;
+
+    public AuthFilter(RequestAuthenticator authenticator, AuthProperties properties, MeterRegistry meterRegistry) {
+        this.authenticator = authenticator;
+        this.properties = properties;
+        this.duration = FilterTimers.register(meterRegistry, "auth");
     }
 
-    private void extractAndValidateAuth(ServerWebExchange exchange) {
-        String authHeader = exchange.getRequest().getHeaders().getFirst(HEADER_AUTHORIZATION);
-        String apiKey = exchange.getRequest().getHeaders().getFirst(HEADER_API_KEY);
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        long start = System.nanoTime();
+        HttpHeaders headers = exchange.getRequest().getHeaders();
+        String authHeader = headers.getFirst(HttpHeaders.AUTHORIZATION);
+        String apiKey = headers.getFirst(HEADER_API_KEY);
+        RequestContext context = RequestContext.of(exchange);
+        boolean invalid = false;
 
-        if (isValidBearerToken(authHeader)) {
-            exchange.getAttributes().put(ATTR_USER_ID, "user-123");
+        if (authHeader != null && !authHeader.isEmpty()) {
+            String userId = authenticator.authenticateBearer(authHeader);
+            if (userId != null) {
+                context.setUserId(userId);
+            } else {
+                invalid = true;
+            }
         }
 
         if (apiKey != null && !apiKey.isEmpty()) {
-            exchange.getAttributes().put(ATTR_API_KEY, apiKey);
+            if (authenticator.authenticateApiKey(apiKey) != null) {
+                context.setApiKey(apiKey);
+            } else {
+                invalid = true;
+            }
         }
-    }
 
-    private boolean isValidBearerToken(String authHeader) {
-        if (authHeader == null || !authHeader.startsWith(BEARER_PREFIX)) {
-            return false;
+        if (invalid && properties.getInvalidCredentials() == AuthProperties.InvalidCredentials.REJECT) {
+            context.setCredentialsRejected(true);
         }
-        String token = authHeader.substring(BEARER_PREFIX.length());
-        return VALID_TOKEN.equals(token);
+        duration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return chain.filter(exchange);
     }
 
     @Override
     public int getOrder() {
-        return -2;
+        return -6;
     }
 }
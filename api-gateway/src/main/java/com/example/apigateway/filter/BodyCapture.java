@@ -0,0 +1,55 @@
+package com.example.apigateway.filter;
+
+import org.springframework.core.io.buffer.DataBuffer;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/** Copies a proxied response body as it streams past, giving up once it exceeds a limit. */
+final class BodyCapture {
+
+    private final int limit;
+    private byte[] bytes;
+    private int length;
+
+    BodyCapture(int limit, long contentLength) {
+        this.limit = limit;
+        this.bytes = new byte[(int) Math.min(limit, contentLength >= 0 ? contentLength : 4096)];
+    }
+
+    void append(DataBuffer buffer) {
+        if (bytes == null) {
+            return;
+        }
+        int readable = buffer.readableByteCount();
+        if (length + readable > limit) {
+            bytes = null;
+            return;
+        }
+        if (length + readable > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.min(limit, Math.max(bytes.length * 2, length + readable)));
+        }
+        // Views over the readable bytes: the buffer's read position is untouched for the writer
+        try (DataBuffer.ByteBufferIterator views = buffer.readableByteBuffers()) {
+            while (views.hasNext()) {
+                ByteBuffer view = views.next();
+                int chunk = view.remaining();
+                view.get(bytes, length, chunk);
+                length += chunk;
+            }
+        }
+    }
+
+    boolean overflowed() {
+        return bytes == null;
+    }
+
+    /** The captured bytes, valid up to {@link #length()}; {@code null} once overflowed. */
+    byte[] bytes() {
+        return bytes;
+    }
+
+    int length() {
+        return length;
+    }
+}
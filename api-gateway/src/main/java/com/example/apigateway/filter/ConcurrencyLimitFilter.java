@@ -0,0 +1,81 @@
+package com.example.apigateway.filter;
+
+import com.example.apigateway.context.RequestContext;
+import com.example.apigateway.upstream.ConcurrencyLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Sheds requests with 503 once a route's in-flight limit is reached, before they
+ * queue for a backend connection. Runs after the response cache and deduplication,
+ * so only requests that will really go upstream hold a permit, and times each
+ * one until its response has been written, which is the latency the
+ * {@link ConcurrencyLimiter} adapts to. Shed requests are not marked blocked: the
+ * caller did nothing wrong, the backend is full.
+ */
+@Component
+public class ConcurrencyLimitFilter implements GlobalFilter, Ordered {
+
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private final ConcurrencyLimiter limiter;
+    private final Timer duration;
+
+    public ConcurrencyLimitFilter(ConcurrencyLimiter limiter, MeterRegistry meterRegistry) {
+        this.limiter = limiter;
+        this.duration = FilterTimers.register(meterRegistry, "concurrency");
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        if (route == null || !limiter.isLimited(route.getId())) {
+            return chain.filter(exchange);
+        }
+        long start = System.nanoTime();
+        RequestContext context = RequestContext.of(exchange);
+        boolean authenticated = context.getUserId() != null || context.getApiKey() != null;
+        ConcurrencyLimiter.Permit permit = limiter.tryAcquire(route.getId(), context.getApiKey(), authenticated);
+        duration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (permit == null) {
+            exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+            return exchange.getResponse().setComplete();
+        }
+        return chain.filter(exchange).doFinally(signal -> {
+            switch (signal) {
+                case ON_COMPLETE -> permit.release(isDropped(exchange.getResponse().getStatusCode()));
+                case ON_ERROR -> permit.release(true);
+                default -> permit.abandon();
+            }
+        });
+    }
+
+    // The backend shedding or timing out is the overload signal; other errors are the caller's or the backend's bugs
+    private static boolean isDropped(HttpStatusCode status) {
+        return status != null
+                && (status.value() == HttpStatus.SERVICE_UNAVAILABLE.value()
+                    || status.value() == HttpStatus.GATEWAY_TIMEOUT.value());
+    }
+
+    @Override
+    public int getOrder() {
+        // Before NettyWriteResponseFilter, so the permit is held until the body is written
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+    }
+}
@@ -1,76 +1,56 @@
 package com.example.apigateway.filter;
 
-import com.example.apigateway.model.RequestEvent;
+import com.example.apigateway.context.RequestContext;
 import com.example.apigateway.service.KafkaEventPublisher;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.core.Ordered;
-import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import java.time.Instant;
-import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Opens the {@link RequestContext} before any other filter runs and publishes
+ * exactly one event per request once the exchange has finished, whether it was
+ * proxied, blocked, failed or cancelled.
+ */
 @Component
-@RequiredArgsConstructor
 public class ObservabilityFilter implements GlobalFilter, Ordered {
 
-    private static final String ATTR_REQUEST_ID = "requestId";
-    private static final String ATTR_USER_ID = "userId";
-    private static final String ATTR_API_KEY = "apiKey";
-    private static final int STATUS_RATE_LIMITED = 429;
     private static final int DEFAULT_ERROR_STATUS = 500;
 
     private final KafkaEventPublisher kafkaPublisher;
+    private final Timer duration;
+
+    public ObservabilityFilter(KafkaEventPublisher kafkaPublisher, MeterRegistry meterRegistry) {
+        this.kafkaPublisher = kafkaPublisher;
+        this.duration = FilterTimers.register(meterRegistry, "observability");
+    }
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
-        long startTime = System.currentTimeMillis();
-        String requestId = UUID.randomUUID().toString();
-        exchange.getAttributes().put(ATTR_REQUEST_ID, requestId);
+        RequestContext context = RequestContext.of(exchange);
 
         return chain.filter(exchange)
-                .then(Mono.fromRunnable(() -> publishEvent(exchange, requestId, startTime)));
-    }
-
-    private void publishEvent(ServerWebExchange exchange, String requestId, long startTime) {
-        long latency = System.currentTimeMillis() - startTime;
-        ServerHttpRequest request = exchange.getRequest();
-        int status = getResponseStatus(exchange);
-
-        RequestEvent event = RequestEvent.builder()
-                .timestamp(Instant.now().toString())
-                .requestId(requestId)
-                .ip(extractClientIp(request))
-                .userId(exchange.getAttribute(ATTR_USER_ID))
-                .apiKey(exchange.getAttribute(ATTR_API_KEY))
-                .endpoint(request.getPath().value())
-                .method(request.getMethod().name())
-                .status(status)
-                .latencyMs(latency)
-                .type(status == STATUS_RATE_LIMITED ? "BLOCKED" : "ALLOWED")
-                .build();
-
-        kafkaPublisher.publishEvent(event);
+                .doFinally(signal -> {
+                    long start = System.nanoTime();
+                    kafkaPublisher.publishEvent(context.toEvent(getResponseStatus(exchange)));
+                    duration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                });
     }
 
     private int getResponseStatus(ServerWebExchange exchange) {
-        return exchange.getResponse().getStatusCode() != null
-                ? exchange.getResponse().getStatusCode().value()
-                : DEFAULT_ERROR_STATUS;
-    }
-
-    private String extractClientIp(ServerHttpRequest request) {
-        return request.getRemoteAddress() != null
-                ? request.getRemoteAddress().getAddress().getHostAddress()
-                : "unknown";
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        return status != null ? status.value() : DEFAULT_ERROR_STATUS;
     }
 
     @Override
     public int getOrder() {
-        return Ordered.LOWEST_PRECEDENCE;
+        return Ordered.HIGHEST_PRECEDENCE;
     }
 }
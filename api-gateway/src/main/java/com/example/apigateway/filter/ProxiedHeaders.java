@@ -0,0 +1,52 @@
+package com.example.apigateway.filter;
+
+import org.springframework.http.HttpHeaders;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The backend's part of a proxied response's headers, for replaying the response
+ * to other requests. Whatever was set before the request went upstream came from
+ * the gateway's own filters and belongs to that one request.
+ */
+final class ProxiedHeaders {
+
+    // Hop-by-hop (RFC 9110 7.6.1) or recomputed for every replayed response
+    private static final List<String> EXCLUDED = List.of(HttpHeaders.CONNECTION, "Keep-Alive",
+            HttpHeaders.TRANSFER_ENCODING, HttpHeaders.TE, HttpHeaders.TRAILER, HttpHeaders.UPGRADE,
+            HttpHeaders.PROXY_AUTHENTICATE, HttpHeaders.PROXY_AUTHORIZATION, HttpHeaders.AGE,
+            HttpHeaders.CONTENT_LENGTH);
+
+    private final List<String> gatewayHeaders;
+
+    private ProxiedHeaders(List<String> gatewayHeaders) {
+        this.gatewayHeaders = gatewayHeaders;
+    }
+
+    /** Call before the request goes upstream, once the gateway's own headers are set. */
+    static ProxiedHeaders snapshot(HttpHeaders responseHeaders) {
+        return new ProxiedHeaders(new ArrayList<>(responseHeaders.keySet()));
+    }
+
+    HttpHeaders copy(HttpHeaders responseHeaders) {
+        HttpHeaders copy = new HttpHeaders();
+        for (Map.Entry<String, List<String>> header : responseHeaders.entrySet()) {
+            String name = header.getKey();
+            if (!containsIgnoreCase(EXCLUDED, name) && !containsIgnoreCase(gatewayHeaders, name)) {
+                copy.put(name, List.copyOf(header.getValue()));
+            }
+        }
+        return copy;
+    }
+
+    private static boolean containsIgnoreCase(List<String> names, String name) {
+        for (String candidate : names) {
+            if (candidate.equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
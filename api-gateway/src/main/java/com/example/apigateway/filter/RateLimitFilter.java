@@ -1,81 +1,124 @@
 package com.example.apigateway.filter;
 
-import com.example.apigateway.model.RequestEvent;
-import com.example.apigateway.service.KafkaEventPublisher;
+import com.example.apigateway.context.RequestContext;
+import com.example.apigateway.quota.QuotaDecision;
+import com.example.apigateway.quota.QuotaService;
+import com.example.apigateway.service.IpDenyList;
 import com.example.apigateway.service.RedisRateLimiter;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import java.time.Instant;
-import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Component
-@RequiredArgsConstructor
 public class RateLimitFilter implements GlobalFilter, Ordered {
 
-    private static final String ATTR_REQUEST_ID = "requestId";
-    private static final String ATTR_USER_ID = "userId";
-    private static final String ATTR_API_KEY = "apiKey";
+    private static final String HEADER_QUOTA_LIMIT = "X-Quota-Limit";
+    private static final String HEADER_QUOTA_REMAINING = "X-Quota-Remaining";
+    private static final String HEADER_QUOTA_RESET = "X-Quota-Reset";
+    private static final String HEADER_QUOTA_PERIOD = "X-Quota-Period";
+    private static final String INVALID_TOKEN_CHALLENGE = "Bearer error=\"invalid_token\"";
 
     private final RedisRateLimiter rateLimiter;
-    private final KafkaEventPublisher kafkaPublisher;
+    private final IpDenyList denyList;
+    private final QuotaService quotaService;
+    private final Timer duration;
+
+    public RateLimitFilter(RedisRateLimiter rateLimiter, IpDenyList denyList, QuotaService quotaService,
+            MeterRegistry meterRegistry) {
+        this.rateLimiter = rateLimiter;
+        this.denyList = denyList;
+        this.quotaService = quotaService;
+        this.duration = FilterTimers.register(meterRegistry, "ratelimit");
+    }
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
-        String ip = extractClientIp(exchange);
-        String userId = exchange.getAttribute(ATTR_USER_ID);
-        String apiKey = exchange.getAttribute(ATTR_API_KEY);
-        String path = exchange.getRequest().getPath().value();
-        String method = exchange.getRequest().getMethod().name();
+        long start = System.nanoTime();
+        RequestContext context = RequestContext.of(exchange);
+        if (denyList.isDenied(context.getIp())) {
+            recordDuration(start);
+            return reject(exchange, context, HttpStatus.FORBIDDEN);
+        }
+        if (context.isCredentialsRejected()) {
+            return rejectCredentials(exchange, context, start);
+        }
 
-        return rateLimiter.isAllowed(ip, userId, apiKey, path, method)
-                .flatMap(allowed -> allowed
-                        ? chain.filter(exchange)
-                        : handleRateLimitExceeded(exchange, ip, userId, apiKey, path, method));
+        // The quota is decided locally, so an exhausted key never reaches Redis
+        return quotaService.tryAcquire(context.getApiKey())
+                .flatMap(quota -> {
+                    writeQuotaHeaders(exchange, quota);
+                    if (!quota.allowed()) {
+                        recordDuration(start);
+                        return reject(exchange, context, HttpStatus.TOO_MANY_REQUESTS);
+                    }
+                    return rateLimiter.check(context.getIp(), context.getUserId(), context.getApiKey(),
+                                    context.getPath(), context.getMethod())
+                            .flatMap(decision -> {
+                                recordDuration(start);
+                                if (decision.allowed()) {
+                                    return chain.filter(exchange);
+                                }
+                                quotaService.release(context.getApiKey());
+                                return reject(exchange, context, HttpStatus.TOO_MANY_REQUESTS);
+                            });
+                });
     }
 
-    private Mono<Void> handleRateLimitExceeded(ServerWebExchange exchange, String ip,
-            String userId, String apiKey, String path, String method) {
-        exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
-        publishBlockedEvent(exchange, ip, userId, apiKey, path, method);
-        return exchange.getResponse().setComplete();
+    /**
+     * Answers a request with invalid credentials: 429 if it exceeds the limits of an
+     * anonymous request from its IP, otherwise 401. Either way the attempt is counted.
+     */
+    private Mono<Void> rejectCredentials(ServerWebExchange exchange, RequestContext context, long start) {
+        return rateLimiter.check(context.getIp(), null, null, context.getPath(), context.getMethod())
+                .flatMap(decision -> {
+                    recordDuration(start);
+                    if (!decision.allowed()) {
+                        return reject(exchange, context, HttpStatus.TOO_MANY_REQUESTS);
+                    }
+                    exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+                    exchange.getResponse().getHeaders().set(HttpHeaders.WWW_AUTHENTICATE, INVALID_TOKEN_CHALLENGE);
+                    return exchange.getResponse().setComplete();
+                });
     }
 
-    private void publishBlockedEvent(ServerWebExchange exchange, String ip,
-            String userId, String apiKey, String path, String method) {
-        String requestId = exchange.getAttribute(ATTR_REQUEST_ID);
-        if (requestId == null) {
-            requestId = UUID.randomUUID().toString();
-        }
-
-        RequestEvent event = RequestEvent.builder()
-                .timestamp(Instant.now().toString())
-                .requestId(requestId)
-                .ip(ip)
-                .userId(userId)
-                .apiKey(apiKey)
-                .endpoint(path)
-                .method(method)
-                .status(HttpStatus.TOO_MANY_REQUESTS.value())
-                .latencyMs(0)
-                .type("BLOCKED")
-                .build();
+    private void recordDuration(long start) {
+        duration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
 
-        kafkaPublisher.publishEvent(event);
+    private static void writeQuotaHeaders(ServerWebExchange exchange, QuotaDecision quota) {
+        if (!quota.limited()) {
+            return;
+        }
+        HttpHeaders headers = exchange.getResponse().getHeaders();
+        long resetSeconds = Math.floorDiv(quota.resetAtMs() + 999, 1000);
+        headers.set(HEADER_QUOTA_LIMIT, Long.toString(quota.limit()));
+        headers.set(HEADER_QUOTA_REMAINING, Long.toString(quota.remaining()));
+        headers.set(HEADER_QUOTA_RESET, Long.toString(resetSeconds));
+        headers.set(HEADER_QUOTA_PERIOD, quota.period().label());
+        if (!quota.allowed()) {
+            long retryAfter = Math.max(1, resetSeconds - System.currentTimeMillis() / 1000);
+            headers.set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+        }
     }
 
-    private String extractClientIp(ServerWebExchange exchange) {
-        return exchange.getRequest().getRemoteAddress().getAddress().getHostAddress();
+    private Mono<Void> reject(ServerWebExchange exchange, RequestContext context, HttpStatus status) {
+        // ObservabilityFilter publishes the BLOCKED event when the exchange completes
+        context.setBlocked(true);
+        exchange.getResponse().setStatusCode(status);
+        return exchange.getResponse().setComplete();
     }
 
     @Override
     public int getOrder() {
-        return -1;
+        return -5;
     }
 }
@@ -0,0 +1,212 @@
+package com.example.apigateway.filter;
+
+import com.example.apigateway.config.UpstreamProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Sends one upstream request for identical concurrent requests on routes with
+ * {@code upstream.routes.<id>.dedup.enabled}. The first request goes upstream; the
+ * others wait for its response and get a copy of it. Runs after rate limiting, so
+ * every duplicate is still counted, and after the response cache.
+ */
+@Component
+public class RequestDeduplicationFilter implements GlobalFilter, Ordered {
+
+    private final Map<String, RouteDedup> routes = new HashMap<>();
+    private final ConcurrentHashMap<String, Sinks.One<SharedResponse>> inflight = new ConcurrentHashMap<>();
+
+    public RequestDeduplicationFilter(UpstreamProperties properties, MeterRegistry meterRegistry) {
+        properties.getRoutes().forEach((routeId, route) -> {
+            if (route.getDedup().isEnabled()) {
+                routes.put(routeId, new RouteDedup(routeId, route.getDedup(), meterRegistry));
+            }
+        });
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (routes.isEmpty()) {
+            return chain.filter(exchange);
+        }
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        RouteDedup dedup = route != null ? routes.get(route.getId()) : null;
+        ServerHttpRequest request = exchange.getRequest();
+        if (dedup == null || !dedup.methods.contains(request.getMethod().name())) {
+            return chain.filter(exchange);
+        }
+
+        String key = dedup.key(request);
+        Sinks.One<SharedResponse> lead = Sinks.one();
+        Sinks.One<SharedResponse> existing = inflight.putIfAbsent(key, lead);
+        if (existing != null) {
+            return existing.asMono()
+                    .timeout(dedup.timeout, Mono.just(SharedResponse.NONE))
+                    .flatMap(shared -> {
+                        if (shared == SharedResponse.NONE) {
+                            dedup.fallback.increment();
+                            return chain.filter(exchange);
+                        }
+                        dedup.joined.increment();
+                        return shared.writeTo(exchange.getResponse());
+                    });
+        }
+
+        dedup.leader.increment();
+        SharingResponse response = new SharingResponse(exchange.getResponse(), key, lead, dedup.maxBodyBytes);
+        return chain.filter(exchange.mutate().response(response).build())
+                .doFinally(signal -> finish(key, lead, SharedResponse.NONE));
+    }
+
+    private void finish(String key, Sinks.One<SharedResponse> lead, SharedResponse response) {
+        if (inflight.remove(key, lead)) {
+            lead.tryEmitValue(response);
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        // Before NettyWriteResponseFilter, so the response it writes is the decorated one,
+        // and before the concurrency limit, so duplicates waiting for a response hold no permit
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 2;
+    }
+
+    /** A route's deduplication settings and its {@code gateway.upstream.dedup} counters. */
+    private static final class RouteDedup {
+
+        private final String routeId;
+        private final Set<String> methods;
+        private final List<String> keyHeaders;
+        private final int maxBodyBytes;
+        private final Duration timeout;
+        private final Counter leader;
+        private final Counter joined;
+        private final Counter fallback;
+
+        RouteDedup(String routeId, UpstreamProperties.Dedup dedup, MeterRegistry meterRegistry) {
+            this.routeId = routeId;
+            this.methods = Set.copyOf(dedup.getMethods().stream().map(m -> m.toUpperCase(Locale.ROOT)).toList());
+            this.keyHeaders = List.copyOf(dedup.getKeyHeaders());
+            this.maxBodyBytes = dedup.getMaxBodyBytes();
+            this.timeout = dedup.getTimeout();
+            this.leader = counter(meterRegistry, routeId, "leader");
+            this.joined = counter(meterRegistry, routeId, "joined");
+            this.fallback = counter(meterRegistry, routeId, "fallback");
+        }
+
+        String key(ServerHttpRequest request) {
+            StringBuilder key = new StringBuilder(128)
+                    .append(routeId).append(' ')
+                    .append(request.getMethod().name()).append(' ')
+                    .append(request.getPath().value());
+            String query = request.getURI().getRawQuery();
+            if (query != null) {
+                key.append('?').append(query);
+            }
+            HttpHeaders headers = request.getHeaders();
+            for (String name : keyHeaders) {
+                key.append('\n');
+                List<String> values = headers.get(name);
+                if (values != null) {
+                    key.append(String.join(",", values));
+                }
+            }
+            return key.toString();
+        }
+
+        private static Counter counter(MeterRegistry meterRegistry, String routeId, String outcome) {
+            return Counter.builder("gateway.upstream.dedup")
+                    .description("Deduplicated requests: sent upstream (leader), answered with the leader's "
+                            + "response (joined) or sent upstream after the leader's response could not be shared")
+                    .tag("route", routeId)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry);
+        }
+    }
+
+    /** A leader's response as handed to its duplicates. */
+    private record SharedResponse(int status, HttpHeaders headers, byte[] body, int length) {
+
+        static final SharedResponse NONE = new SharedResponse(0, HttpHeaders.EMPTY, new byte[0], 0);
+
+        Mono<Void> writeTo(ServerHttpResponse response) {
+            response.setStatusCode(HttpStatusCode.valueOf(status));
+            HttpHeaders target = response.getHeaders();
+            target.putAll(headers);
+            target.setContentLength(length);
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(ByteBuffer.wrap(body, 0, length))));
+        }
+    }
+
+    /** Copies the leader's response for its duplicates while it is written to the leader's client. */
+    private final class SharingResponse extends ServerHttpResponseDecorator {
+
+        private final String key;
+        private final Sinks.One<SharedResponse> lead;
+        private final int maxBodyBytes;
+        private final ProxiedHeaders proxiedHeaders;
+
+        SharingResponse(ServerHttpResponse delegate, String key, Sinks.One<SharedResponse> lead, int maxBodyBytes) {
+            super(delegate);
+            this.key = key;
+            this.lead = lead;
+            this.maxBodyBytes = maxBodyBytes;
+            this.proxiedHeaders = ProxiedHeaders.snapshot(delegate.getHeaders());
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            long contentLength = getHeaders().getContentLength();
+            if (contentLength > maxBodyBytes) {
+                finish(key, lead, SharedResponse.NONE);
+                return super.writeWith(body);
+            }
+            BodyCapture capture = new BodyCapture(maxBodyBytes, contentLength);
+            return super.writeWith(Flux.from(body).doOnNext(capture::append))
+                    .doOnSuccess(done -> finish(key, lead, capture.overflowed()
+                            ? SharedResponse.NONE
+                            : new SharedResponse(status(), proxiedHeaders.copy(getHeaders()),
+                                    capture.bytes(), capture.length())));
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            // Streamed responses are not shared
+            finish(key, lead, SharedResponse.NONE);
+            return super.writeAndFlushWith(body);
+        }
+
+        private int status() {
+            HttpStatusCode status = getStatusCode();
+            return status != null ? status.value() : 200;
+        }
+    }
+}
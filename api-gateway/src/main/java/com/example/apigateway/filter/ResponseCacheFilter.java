@@ -0,0 +1,277 @@
+package com.example.apigateway.filter;
+
+import com.example.apigateway.cache.CacheDirectives;
+import com.example.apigateway.cache.CachedResponse;
+import com.example.apigateway.cache.ResponseCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Answers GET requests on cacheable routes from the {@link ResponseCache}. Runs
+ * after {@link AuthFilter} and {@link RateLimitFilter}, so a cached response is
+ * still authenticated, rate-limited and counted against quotas, and inside
+ * {@link ObservabilityFilter}, so every hit publishes its event like a proxied
+ * request. Responses to requests with credentials are stored only when the
+ * backend marks them shareable. Stale responses with an ETag are revalidated
+ * with {@code If-None-Match}; a request sent with {@code no-store} bypasses the
+ * cache and one with {@code no-cache} or {@code max-age=0} is never answered
+ * from a stale copy.
+ */
+@Component
+public class ResponseCacheFilter implements GlobalFilter, Ordered {
+
+    static final String HEADER_CACHE = "X-Cache";
+
+    private final ResponseCache cache;
+    private final Timer duration;
+
+    public ResponseCacheFilter(ResponseCache cache, MeterRegistry meterRegistry) {
+        this.cache = cache;
+        this.duration = FilterTimers.register(meterRegistry, "cache");
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!cache.isEnabled() || request.getMethod() != HttpMethod.GET) {
+            return chain.filter(exchange);
+        }
+        long routeTtlMs = cache.routeTtlMs(request.getPath().value());
+        if (routeTtlMs < 0) {
+            return chain.filter(exchange);
+        }
+
+        long start = System.nanoTime();
+        CacheDirectives directives = CacheDirectives.of(request.getHeaders());
+        if (directives.noStore() || request.getHeaders().containsKey(HttpHeaders.RANGE)) {
+            cache.record(ResponseCache.Outcome.BYPASS);
+            recordDuration(start);
+            return chain.filter(exchange);
+        }
+        Lookup lookup = new Lookup(exchange, chain, cache.key(request), routeTtlMs, start,
+                directives.noCache() || directives.maxAgeSeconds() == 0, cache.hasCredentials(request.getHeaders()));
+        CachedResponse local = cache.getLocal(lookup.key);
+        if (local != null) {
+            return lookup.answer(local, ResponseCache.Outcome.HIT);
+        }
+        return cache.getShared(lookup.key)
+                .flatMap(shared -> shared == CachedResponse.NONE
+                        ? lookup.fetch(null)
+                        : lookup.answer(shared, ResponseCache.Outcome.SHARED_HIT));
+    }
+
+    private void recordDuration(long start) {
+        duration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /** Writes {@code response} as this exchange's response, or a 304 if the client already holds it. */
+    private static Mono<Void> serve(ServerWebExchange exchange, ServerHttpResponse target, CachedResponse response) {
+        HttpHeaders headers = target.getHeaders();
+        headers.remove(HttpHeaders.TRANSFER_ENCODING);
+        headers.putAll(response.headers());
+        headers.set(HttpHeaders.AGE, Long.toString(response.ageSeconds(System.currentTimeMillis())));
+        headers.set(HEADER_CACHE, "HIT");
+        if (response.etag() != null && etagMatches(exchange.getRequest().getHeaders().getIfNoneMatch(), response.etag())) {
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            target.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return target.setComplete();
+        }
+        target.setStatusCode(HttpStatusCode.valueOf(response.status()));
+        headers.setContentLength(response.size());
+        // Wrapping a direct buffer: Netty writes the cached bytes without copying them to the heap
+        return target.writeWith(Mono.just(target.bufferFactory().wrap(response.bodyView())));
+    }
+
+    /**
+     * {@code request} asking the backend for {@code etag} with {@code If-None-Match}.
+     * The headers are a copy: {@code mutate().headers(..)} would write through to the
+     * client's request, which later decides whether the client gets a 304.
+     */
+    private static ServerHttpRequest conditional(ServerHttpRequest request, String etag) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(request.getHeaders());
+        headers.setIfNoneMatch(etag);
+        HttpHeaders readOnly = HttpHeaders.readOnlyHttpHeaders(headers);
+        return new ServerHttpRequestDecorator(request) {
+            @Override
+            public HttpHeaders getHeaders() {
+                return readOnly;
+            }
+        };
+    }
+
+    private static boolean etagMatches(List<String> ifNoneMatch, String etag) {
+        String opaque = opaque(etag);
+        for (String candidate : ifNoneMatch) {
+            if (candidate.equals("*") || opaque(candidate).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // If-None-Match uses the weak comparison (RFC 9110 13.1.2)
+    private static String opaque(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    @Override
+    public int getOrder() {
+        // Before NettyWriteResponseFilter, so the response it writes is the decorated one,
+        // and before deduplication, which only sees requests the cache could not answer
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 3;
+    }
+
+    /** One cacheable request, from lookup until its response is written. */
+    private final class Lookup {
+
+        private final ServerWebExchange exchange;
+        private final GatewayFilterChain chain;
+        private final String key;
+        private final long routeTtlMs;
+        private final long start;
+        private final boolean mustRevalidate;
+        private final boolean credentialed;
+
+        Lookup(ServerWebExchange exchange, GatewayFilterChain chain, String key, long routeTtlMs, long start,
+                boolean mustRevalidate, boolean credentialed) {
+            this.exchange = exchange;
+            this.chain = chain;
+            this.key = key;
+            this.routeTtlMs = routeTtlMs;
+            this.start = start;
+            this.mustRevalidate = mustRevalidate;
+            this.credentialed = credentialed;
+        }
+
+        Mono<Void> answer(CachedResponse response, ResponseCache.Outcome outcome) {
+            if (response.isFresh(System.currentTimeMillis()) && !mustRevalidate) {
+                cache.record(outcome);
+                recordDuration(start);
+                return serve(exchange, exchange.getResponse(), response);
+            }
+            return fetch(response.etag() != null ? response : null);
+        }
+
+        /**
+         * Sends the request upstream, revalidating {@code stale} if given, unless
+         * another request for the same key is already doing so; then waits for
+         * that one's response instead.
+         */
+        Mono<Void> fetch(CachedResponse stale) {
+            Sinks.One<CachedResponse> lead = cache.tryLead(key);
+            if (lead == null) {
+                return cache.awaitLeader(key).flatMap(fetched -> {
+                    recordDuration(start);
+                    if (fetched == CachedResponse.NONE) {
+                        cache.record(ResponseCache.Outcome.MISS);
+                        return chain.filter(exchange);
+                    }
+                    cache.record(ResponseCache.Outcome.COALESCED);
+                    return serve(exchange, exchange.getResponse(), fetched);
+                });
+            }
+
+            ServerWebExchange upstream = exchange;
+            if (stale != null) {
+                upstream = exchange.mutate().request(conditional(exchange.getRequest(), stale.etag())).build();
+            }
+            HttpHeaders headers = exchange.getResponse().getHeaders();
+            headers.set(HEADER_CACHE, "MISS");
+            CachingResponse response = new CachingResponse(upstream.getResponse(), lead, stale,
+                    ProxiedHeaders.snapshot(headers));
+            recordDuration(start);
+            return chain.filter(upstream.mutate().response(response).build())
+                    .doFinally(signal -> cache.finishFetch(key, lead, CachedResponse.NONE));
+        }
+
+        /**
+         * Stores the backend's response while it is written to the client, or, when
+         * the backend confirmed a stale response with a 304, writes that instead.
+         */
+        private final class CachingResponse extends ServerHttpResponseDecorator {
+
+            private final Sinks.One<CachedResponse> lead;
+            private final CachedResponse stale;
+            private final ProxiedHeaders proxiedHeaders;
+
+            CachingResponse(ServerHttpResponse delegate, Sinks.One<CachedResponse> lead, CachedResponse stale,
+                    ProxiedHeaders proxiedHeaders) {
+                super(delegate);
+                this.lead = lead;
+                this.stale = stale;
+                this.proxiedHeaders = proxiedHeaders;
+            }
+
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                int status = status();
+                if (stale != null && status == HttpStatus.NOT_MODIFIED.value()) {
+                    return Flux.from(body).doOnNext(DataBufferUtils::release).then(Mono.defer(this::serveRevalidated));
+                }
+                cache.record(ResponseCache.Outcome.MISS);
+                if (!cache.isStorable(status, getHeaders(), credentialed)) {
+                    cache.finishFetch(key, lead, CachedResponse.NONE);
+                    return super.writeWith(body);
+                }
+                BodyCapture capture = new BodyCapture(cache.maxEntryBytes(), getHeaders().getContentLength());
+                return super.writeWith(Flux.from(body).doOnNext(capture::append))
+                        .doOnSuccess(done -> cache.finishFetch(key, lead, capture.overflowed()
+                                ? CachedResponse.NONE
+                                : cache.store(key, routeTtlMs, status, proxiedHeaders.copy(getHeaders()),
+                                        capture.bytes(), capture.length())));
+            }
+
+            @Override
+            public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+                // Streamed responses are never stored
+                cache.record(ResponseCache.Outcome.MISS);
+                cache.finishFetch(key, lead, CachedResponse.NONE);
+                return super.writeAndFlushWith(body);
+            }
+
+            @Override
+            public Mono<Void> setComplete() {
+                if (stale != null && status() == HttpStatus.NOT_MODIFIED.value()) {
+                    return serveRevalidated();
+                }
+                return super.setComplete();
+            }
+
+            private Mono<Void> serveRevalidated() {
+                CachedResponse refreshed = cache.revalidated(key, stale, getHeaders(), routeTtlMs);
+                cache.record(ResponseCache.Outcome.REVALIDATED);
+                cache.finishFetch(key, lead, refreshed);
+                return serve(exchange, getDelegate(), refreshed);
+            }
+
+            private int status() {
+                HttpStatusCode status = getStatusCode();
+                return status != null ? status.value() : HttpStatus.OK.value();
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.apigateway.filter;
+
+import com.example.apigateway.config.UpstreamProperties;
+import com.example.apigateway.upstream.RouteHttpClients;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.RouteMetadataUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Gateway's {@link NettyRoutingFilter} with a connection pool per route listed under
+ * {@code upstream.routes}. Replaces the default routing filter, which is disabled
+ * with {@code spring.cloud.gateway.global-filter.netty-routing.enabled: false}.
+ * A request that finds its route's pool and pending-acquire queue full, or waits
+ * longer than {@code pending-acquire-timeout}, fails fast with 503.
+ */
+@Component
+public class UpstreamRoutingFilter extends NettyRoutingFilter {
+
+    private static final String POOL_EXCEPTION_PREFIX = "PoolAcquire";
+
+    private final RouteHttpClients routeClients;
+    private final Map<String, Counter> rejected = new HashMap<>();
+
+    public UpstreamRoutingFilter(HttpClient httpClient, ObjectProvider<List<HttpHeadersFilter>> headersFiltersProvider,
+            HttpClientProperties properties, RouteHttpClients routeClients, UpstreamProperties upstreamProperties,
+            MeterRegistry meterRegistry) {
+        super(httpClient, headersFiltersProvider, properties);
+        this.routeClients = routeClients;
+        for (String routeId : upstreamProperties.getRoutes().keySet()) {
+            rejected.put(routeId, Counter.builder("gateway.upstream.pool.rejected")
+                    .description("Requests failed with 503 because the route's connection pool was exhausted")
+                    .tag("route", routeId)
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        return super.filter(exchange, chain).onErrorMap(UpstreamRoutingFilter::isPoolExhausted, e -> {
+            Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+            Counter counter = route != null ? rejected.get(route.getId()) : null;
+            if (counter != null) {
+                counter.increment();
+            }
+            return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Upstream connection pool exhausted", e);
+        });
+    }
+
+    @Override
+    protected HttpClient getHttpClient(Route route, ServerWebExchange exchange) {
+        HttpClient client = routeClients.get(route.getId());
+        if (client == null) {
+            return super.getHttpClient(route, exchange);
+        }
+        Object connectTimeout = route.getMetadata().get(RouteMetadataUtils.CONNECT_TIMEOUT_ATTR);
+        return connectTimeout != null
+                ? client.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, Integer.parseInt(connectTimeout.toString()))
+                : client;
+    }
+
+    // Reactor Netty's pool exceptions (pending limit, acquire timeout) are shaded internal classes
+    private static boolean isPoolExhausted(Throwable error) {
+        for (Throwable e = error; e != null; e = e.getCause()) {
+            if (e.getClass().getSimpleName().startsWith(POOL_EXCEPTION_PREFIX)) {
+                return true;
+            }
+            if (e.getCause() == e) {
+                break;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.apigateway.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum LimitDimension {
+    IP("ratelimit:ip:"),
+    USER("ratelimit:user:"),
+    API_KEY("ratelimit:apikey:"),
+    PATH("ratelimit:path:"),
+    METHOD("ratelimit:method:");
+
+    private final String keyPrefix;
+
+    public String key(String id) {
+        return keyPrefix + id;
+    }
+}
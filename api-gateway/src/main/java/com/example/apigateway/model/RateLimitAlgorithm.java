@@ -0,0 +1,20 @@
+package com.example.apigateway.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum RateLimitAlgorithm {
+    SLIDING_LOG("sliding_log", ""),
+    SLIDING_WINDOW_COUNTER("sliding_window_counter", ":swc"),
+    GCRA("gcra", ":gcra"),
+    TOKEN_BUCKET("token_bucket", ":tb");
+
+    private final String scriptName;
+    private final String keySuffix;
+
+    public String key(String baseKey) {
+        return baseKey + keySuffix;
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.apigateway.policy;
+
+import com.example.apigateway.config.RateLimitProperties;
+import com.example.apigateway.model.RateLimitAlgorithm;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable lookup structure built from {@link RateLimitProperties}. Every
+ * route/tier combination is resolved ahead of time into a {@link PolicySet},
+ * so {@link #match} only does a map lookup and a few prefix comparisons.
+ */
+public final class CompiledPolicies {
+
+    private static final String ANY_ROUTE = "/**";
+    private static final String PREFIX_WILDCARD = "/**";
+
+    private final Map<String, PolicySet[]> exactRoutes;
+    private final String[] prefixes;
+    private final PolicySet[][] prefixPolicies;
+    private final PolicySet[] defaultPolicies;
+    private final Map<String, Integer> apiKeyTiers;
+    private final int defaultTier;
+    private final int ruleCount;
+
+    private CompiledPolicies(Map<String, PolicySet[]> exactRoutes, String[] prefixes, PolicySet[][] prefixPolicies,
+            PolicySet[] defaultPolicies, Map<String, Integer> apiKeyTiers, int defaultTier, int ruleCount) {
+        this.exactRoutes = exactRoutes;
+        this.prefixes = prefixes;
+        this.prefixPolicies = prefixPolicies;
+        this.defaultPolicies = defaultPolicies;
+        this.apiKeyTiers = apiKeyTiers;
+        this.defaultTier = defaultTier;
+        this.ruleCount = ruleCount;
+    }
+
+    public PolicySet match(String path, String apiKey) {
+        int tier = resolveTier(apiKey);
+        PolicySet[] byTier = exactRoutes.get(path);
+        if (byTier != null) {
+            return byTier[tier];
+        }
+        for (int i = 0; i < prefixes.length; i++) {
+            if (matchesPrefix(path, prefixes[i])) {
+                return prefixPolicies[i][tier];
+            }
+        }
+        return defaultPolicies[tier];
+    }
+
+    public int ruleCount() {
+        return ruleCount;
+    }
+
+    private int resolveTier(String apiKey) {
+        if (apiKey == null) {
+            return defaultTier;
+        }
+        Integer tier = apiKeyTiers.get(apiKey);
+        return tier != null ? tier : defaultTier;
+    }
+
+    private static boolean matchesPrefix(String path, String prefix) {
+        return path.startsWith(prefix)
+                && (path.length() == prefix.length() || path.charAt(prefix.length()) == '/');
+    }
+
+    public static CompiledPolicies compile(RateLimitProperties properties) {
+        List<String> tiers = collectTiers(properties);
+        Map<String, Integer> tierIndex = new HashMap<>();
+        for (int i = 0; i < tiers.size(); i++) {
+            tierIndex.put(tiers.get(i), i);
+        }
+
+        List<RuleSpec> rules = new ArrayList<>();
+        Set<String> ids = new HashSet<>();
+        Set<String> exactPaths = new LinkedHashSet<>();
+        Set<String> prefixPaths = new LinkedHashSet<>();
+
+        for (RateLimitProperties.Policy policy : properties.getPolicies()) {
+            CompiledRule rule = compileRule(policy, properties, ids);
+            List<String> routes = policy.getRoutes().isEmpty() ? List.of(ANY_ROUTE) : policy.getRoutes();
+            for (String route : routes) {
+                if (route.equals(ANY_ROUTE)) {
+                    rules.add(new RuleSpec(rule, null, false, Set.copyOf(policy.getTiers())));
+                } else if (route.endsWith(PREFIX_WILDCARD)) {
+                    String prefix = route.substring(0, route.length() - PREFIX_WILDCARD.length());
+                    checkLiteral(route, prefix);
+                    prefixPaths.add(prefix);
+                    rules.add(new RuleSpec(rule, prefix, true, Set.copyOf(policy.getTiers())));
+                } else {
+                    checkLiteral(route, route);
+                    exactPaths.add(route);
+                    rules.add(new RuleSpec(rule, route, false, Set.copyOf(policy.getTiers())));
+                }
+            }
+        }
+
+        Map<String, PolicySet[]> exactRoutes = new HashMap<>();
+        for (String path : exactPaths) {
+            exactRoutes.put(path, resolve(rules, path, false, tiers));
+        }
+
+        String[] prefixes = prefixPaths.stream()
+                .sorted(Comparator.comparingInt(String::length).reversed())
+                .toArray(String[]::new);
+        PolicySet[][] prefixPolicies = new PolicySet[prefixes.length][];
+        for (int i = 0; i < prefixes.length; i++) {
+            prefixPolicies[i] = resolve(rules, prefixes[i], true, tiers);
+        }
+
+        Map<String, Integer> apiKeyTiers = new HashMap<>();
+        properties.getApiKeyTiers().forEach((apiKey, tier) -> apiKeyTiers.put(apiKey, tierIndex.get(tier)));
+
+        return new CompiledPolicies(Map.copyOf(exactRoutes), prefixes, prefixPolicies,
+                resolve(rules, null, false, tiers), Map.copyOf(apiKeyTiers),
+                tierIndex.get(properties.getDefaultTier()), properties.getPolicies().size());
+    }
+
+    private static CompiledRule compileRule(RateLimitProperties.Policy policy, RateLimitProperties properties,
+            Set<String> ids) {
+        if (policy.getId() == null || !ids.add(policy.getId())) {
+            throw new IllegalArgumentException("Rate limit policy id missing or duplicated: " + policy.getId());
+        }
+        if (policy.getDimension() == null || policy.getLimit() <= 0 || policy.getWindow().toMillis() <= 0) {
+            throw new IllegalArgumentException("Rate limit policy " + policy.getId()
+                    + " needs a dimension, a positive limit and a positive window");
+        }
+        RateLimitAlgorithm algorithm = policy.getAlgorithm() != null
+                ? policy.getAlgorithm()
+                : properties.algorithmFor(policy.getDimension());
+        int shards = properties.getCluster().shardsFor(policy.getDimension());
+        if (shards > policy.getLimit()) {
+            throw new IllegalArgumentException("Rate limit policy " + policy.getId() + " has a limit of "
+                    + policy.getLimit() + ", too low to split into " + shards + " hot key shards");
+        }
+        return CompiledRule.of(policy.getId(), policy.getDimension(), algorithm,
+                policy.getLimit(), policy.getWindow().toMillis(), shards);
+    }
+
+    private static void checkLiteral(String route, String literal) {
+        if (literal.indexOf('*') >= 0 || literal.indexOf('{') >= 0) {
+            throw new IllegalArgumentException("Unsupported route pattern " + route
+                    + " (use an exact path, a /** prefix or /**)");
+        }
+    }
+
+    /**
+     * Rules that apply to a concrete exact path or prefix: global rules, every
+     * prefix rule that also covers it, and (for exact paths) rules declared for it.
+     * A {@code null} target resolves the rules for paths matching no route.
+     */
+    private static PolicySet[] resolve(List<RuleSpec> rules, String target, boolean targetIsPrefix,
+            List<String> tiers) {
+        PolicySet[] byTier = new PolicySet[tiers.size()];
+        for (int t = 0; t < tiers.size(); t++) {
+            Map<String, CompiledRule> applicable = new LinkedHashMap<>();
+            for (RuleSpec spec : rules) {
+                if (spec.appliesTo(target, targetIsPrefix) && spec.appliesToTier(tiers.get(t))) {
+                    applicable.putIfAbsent(spec.rule().id(), spec.rule());
+                }
+            }
+            byTier[t] = new PolicySet(applicable.values().toArray(CompiledRule[]::new));
+        }
+        return byTier;
+    }
+
+    private static List<String> collectTiers(RateLimitProperties properties) {
+        Set<String> tiers = new LinkedHashSet<>();
+        tiers.add(properties.getDefaultTier());
+        tiers.addAll(properties.getApiKeyTiers().values());
+        for (RateLimitProperties.Policy policy : properties.getPolicies()) {
+            tiers.addAll(policy.getTiers());
+        }
+        return new ArrayList<>(tiers);
+    }
+
+    private record RuleSpec(CompiledRule rule, String route, boolean prefix, Set<String> tiers) {
+
+        boolean appliesTo(String target, boolean targetIsPrefix) {
+            if (route == null) {
+                return true;
+            }
+            if (target == null) {
+                return false;
+            }
+            return prefix ? matchesPrefix(target, route) : !targetIsPrefix && route.equals(target);
+        }
+
+        boolean appliesToTier(String tier) {
+            return tiers.isEmpty() || tiers.contains(tier);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.apigateway.policy;
+
+import com.example.apigateway.model.LimitDimension;
+import com.example.apigateway.model.RateLimitAlgorithm;
+
+/**
+ * One compiled policy. Keys carry the dimension value as a Redis Cluster hash
+ * tag, so every rule on the same value lands in one slot. A rule split into
+ * {@code shards} sub-keys gives each sub-key {@code limitArg}, its share of the
+ * limit, and tags it with the shard number so the sub-keys spread across slots.
+ */
+public record CompiledRule(
+        String id,
+        LimitDimension dimension,
+        RateLimitAlgorithm algorithm,
+        int limit,
+        long windowMs,
+        int shards,
+        String keySuffix,
+        String limitArg,
+        String windowArg) {
+
+    static CompiledRule of(String id, LimitDimension dimension, RateLimitAlgorithm algorithm, int limit, long windowMs,
+            int shards) {
+        return new CompiledRule(id, dimension, algorithm, limit, windowMs, shards,
+                ":" + id + algorithm.getKeySuffix(),
+                String.valueOf((limit + shards - 1) / shards),
+                String.valueOf(windowMs));
+    }
+
+    public String key(String value) {
+        return dimension.getKeyPrefix() + '{' + value + '}' + keySuffix;
+    }
+
+    public String key(String value, int shard) {
+        return dimension.getKeyPrefix() + '{' + value + ':' + shard + '}' + keySuffix;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.apigateway.policy;
+
+public final class PolicySet {
+
+    private final CompiledRule[] rules;
+
+    PolicySet(CompiledRule[] rules) {
+        this.rules = rules;
+    }
+
+    public int size() {
+        return rules.length;
+    }
+
+    public CompiledRule get(int index) {
+        return rules[index];
+    }
+}
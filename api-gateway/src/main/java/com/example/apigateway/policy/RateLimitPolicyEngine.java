@@ -0,0 +1,36 @@
+package com.example.apigateway.policy;
+
+import com.example.apigateway.config.RateLimitProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+public class RateLimitPolicyEngine {
+
+    private final RateLimitProperties properties;
+    private volatile CompiledPolicies policies;
+
+    public RateLimitPolicyEngine(RateLimitProperties properties) {
+        this.properties = properties;
+        this.policies = CompiledPolicies.compile(properties);
+        log.info("Loaded {} rate limit policies", policies.ruleCount());
+    }
+
+    public PolicySet match(String path, String apiKey) {
+        return policies.match(path, apiKey);
+    }
+
+    @EventListener(RefreshScopeRefreshedEvent.class)
+    public void reload() {
+        try {
+            CompiledPolicies compiled = CompiledPolicies.compile(properties);
+            policies = compiled;
+            log.info("Reloaded {} rate limit policies", compiled.ruleCount());
+        } catch (IllegalArgumentException e) {
+            log.error("Rejected rate limit policy reload, keeping previous policies: {}", e.getMessage());
+        }
+    }
+}
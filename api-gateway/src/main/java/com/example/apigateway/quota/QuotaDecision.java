@@ -0,0 +1,22 @@
+package com.example.apigateway.quota;
+
+/**
+ * Outcome of a quota check. {@code period} is the period closest to exhaustion
+ * (or the exhausted one), and {@code null} when the key has no quota.
+ */
+public record QuotaDecision(boolean allowed, QuotaPeriod period, long limit, long remaining, long resetAtMs) {
+
+    public static final QuotaDecision UNLIMITED = new QuotaDecision(true, null, 0, 0, 0);
+
+    static QuotaDecision allowed(QuotaPeriod period, long limit, long remaining, long resetAtMs) {
+        return new QuotaDecision(true, period, limit, remaining, resetAtMs);
+    }
+
+    static QuotaDecision exhausted(QuotaPeriod period, long limit, long resetAtMs) {
+        return new QuotaDecision(false, period, limit, 0, resetAtMs);
+    }
+
+    public boolean limited() {
+        return period != null;
+    }
+}
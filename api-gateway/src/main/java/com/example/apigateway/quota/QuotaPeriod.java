@@ -0,0 +1,27 @@
+package com.example.apigateway.quota;
+
+import java.util.Locale;
+
+/** Calendar periods an API key's quota is counted over, in UTC. */
+public enum QuotaPeriod {
+
+    HOURLY("h"),
+    DAILY("d"),
+    MONTHLY("m");
+
+    private final String keySegment;
+    private final String label;
+
+    QuotaPeriod(String keySegment) {
+        this.keySegment = keySegment;
+        this.label = name().toLowerCase(Locale.ROOT);
+    }
+
+    String keySegment() {
+        return keySegment;
+    }
+
+    public String label() {
+        return label;
+    }
+}
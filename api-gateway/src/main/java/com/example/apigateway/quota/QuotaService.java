@@ -0,0 +1,255 @@
+package com.example.apigateway.quota;
+
+import com.example.apigateway.auth.ApiKeyStore;
+import com.example.apigateway.config.QuotaProperties;
+import com.example.apigateway.config.RateLimitProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hourly, daily and monthly request quotas per API key.
+ * <p>
+ * Each key costs one integer counter per period in Redis
+ * ({@code quota:{digest}:h:<hour>}, {@code :d:<day>}, {@code :m:<month>}), expiring
+ * an hour after its period ends. Requests are admitted from local state and
+ * counted in memory; every {@code quota.sync-interval-ms} each active key's
+ * unsynced count is added to its counters in one script call, which also returns
+ * the cluster-wide totals and re-reads the key's metadata. A key can therefore
+ * overshoot its quota by what the other nodes admit within one sync interval, and
+ * requests admitted just before a period ends may be counted in the next one.
+ * <p>
+ * Key metadata lives in the hash {@code apikey:{digest}}, where {@code digest} is
+ * the SHA-256 of the key: field {@code tier} names a {@code quota.tiers} entry and
+ * {@code hourly}, {@code daily} and {@code monthly} override its limits. Without
+ * metadata the tier comes from {@code ratelimit.api-key-tiers} or
+ * {@code ratelimit.default-tier}, which also stands in for a tier that
+ * {@code quota.tiers} doesn't define. Only the first request for a key waits on Redis,
+ * and for at most {@code ratelimit.resilience.timeout}; past that the key starts
+ * on those fallback limits and the next scheduled sync reconciles it.
+ */
+@Service
+@Slf4j
+public class QuotaService {
+
+    private static final String METADATA_PREFIX = "apikey:";
+    private static final String COUNTER_PREFIX = "quota:";
+    private static final long COUNTER_GRACE_SECONDS = 3600;
+    private static final Mono<QuotaDecision> UNLIMITED = Mono.just(QuotaDecision.UNLIMITED);
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final QuotaProperties properties;
+    private final RateLimitProperties rateLimitProperties;
+    @SuppressWarnings("rawtypes")
+    private final RedisScript<List> syncScript = RedisScript.of(
+            new ClassPathResource("scripts/quota_sync.lua"), List.class);
+    private final ConcurrentHashMap<String, QuotaUsage> usages = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Mono<QuotaUsage>> loading = new ConcurrentHashMap<>();
+    private final Map<QuotaPeriod, Counter> rejected = new EnumMap<>(QuotaPeriod.class);
+    private final Counter syncFailures;
+    private final Counter unknownTiers;
+    private final Set<String> reportedTiers = ConcurrentHashMap.newKeySet();
+    private volatile QuotaWindows windows = QuotaWindows.at(System.currentTimeMillis());
+
+    public QuotaService(ReactiveStringRedisTemplate redisTemplate, QuotaProperties properties,
+            RateLimitProperties rateLimitProperties, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+        this.rateLimitProperties = rateLimitProperties;
+        Gauge.builder("gateway.quota.keys", usages, Map::size)
+                .description("API keys with quota state on this node")
+                .register(meterRegistry);
+        for (QuotaPeriod period : QuotaPeriod.values()) {
+            rejected.put(period, Counter.builder("gateway.quota.rejected")
+                    .description("Requests rejected because an API key quota is exhausted")
+                    .tag("period", period.label())
+                    .register(meterRegistry));
+        }
+        this.syncFailures = Counter.builder("gateway.quota.sync.failures")
+                .description("Quota syncs with Redis that failed and will be retried")
+                .register(meterRegistry);
+        this.unknownTiers = Counter.builder("gateway.quota.unknown.tier")
+                .description("Key metadata loads naming a tier missing from quota.tiers; the default tier applies")
+                .register(meterRegistry);
+    }
+
+    /** Counts one request against {@code apiKey}'s quota unless a period is exhausted. */
+    public Mono<QuotaDecision> tryAcquire(String apiKey) {
+        if (apiKey == null || !properties.isEnabled()) {
+            return UNLIMITED;
+        }
+        QuotaUsage usage = usages.get(apiKey);
+        if (usage != null) {
+            return Mono.just(decide(usage));
+        }
+        return loading.computeIfAbsent(apiKey, this::load).map(this::decide);
+    }
+
+    /** Returns a request counted by {@link #tryAcquire} that was rejected further on. */
+    public void release(String apiKey) {
+        QuotaUsage usage = apiKey != null ? usages.get(apiKey) : null;
+        if (usage != null) {
+            usage.release();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${quota.sync-interval-ms:1000}")
+    public void sync() {
+        long now = System.currentTimeMillis();
+        QuotaWindows current = windows(now);
+        long idleMs = properties.getIdleEviction().toMillis();
+        List<Mono<Void>> syncs = new ArrayList<>();
+
+        usages.forEach((apiKey, usage) -> {
+            if (!usage.syncing.compareAndSet(false, true)) {
+                return;
+            }
+            if (now - usage.lastAccessMs > idleMs && usage.pending.get() == 0 && usages.remove(apiKey, usage)) {
+                // A request racing the removal may still have been counted
+                if (usage.pending.get() == 0) {
+                    return;
+                }
+            }
+            syncs.add(sync(usage, current, now));
+        });
+
+        if (!syncs.isEmpty()) {
+            Flux.merge(syncs).subscribe();
+        }
+    }
+
+    private QuotaDecision decide(QuotaUsage usage) {
+        long now = System.currentTimeMillis();
+        QuotaDecision decision = usage.tryAcquire(windows(now), now);
+        if (!decision.allowed()) {
+            rejected.get(decision.period()).increment();
+        }
+        return decision;
+    }
+
+    private Mono<QuotaUsage> load(String apiKey) {
+        long now = System.currentTimeMillis();
+        QuotaUsage usage = new QuotaUsage(apiKey, "{" + ApiKeyStore.sha256Hex(apiKey) + "}", fallbackLimits(apiKey));
+        usage.lastAccessMs = now;
+        usage.syncing.set(true);
+        // Nothing is flushed by the first sync, so cancelling it on timeout loses no requests
+        return sync(usage, windows(now), now)
+                .timeout(rateLimitProperties.getResilience().getTimeout(), Mono.fromRunnable(() -> {
+                    log.warn("Quota load timed out for an API key, using fallback limits until the next sync");
+                    syncFailures.increment();
+                }))
+                .then(Mono.fromSupplier(() -> {
+                    usages.put(apiKey, usage);
+                    return usage;
+                }))
+                .doFinally(signal -> loading.remove(apiKey))
+                .cache();
+    }
+
+    /** Flushes the unsynced count and refreshes totals and limits; never fails. */
+    private Mono<Void> sync(QuotaUsage usage, QuotaWindows current, long now) {
+        long requests = usage.pending.get();
+        usage.flushing = requests;
+        usage.pending.addAndGet(-requests);
+        return redisTemplate.execute(syncScript, keys(usage, current), args(requests, current, now))
+                .next()
+                .doOnNext(result -> {
+                    usage.synced(limits(usage.apiKey, result), current, totals(result));
+                    usage.flushing = 0;
+                })
+                .onErrorResume(e -> {
+                    log.warn("Quota sync failed for an API key, retrying next interval: {}", e.getMessage());
+                    syncFailures.increment();
+                    usage.pending.addAndGet(requests);
+                    usage.flushing = 0;
+                    return Mono.empty();
+                })
+                .doFinally(signal -> usage.syncing.set(false))
+                .then();
+    }
+
+    private QuotaWindows windows(long now) {
+        QuotaWindows current = windows;
+        if (!current.covers(now)) {
+            current = QuotaWindows.at(now);
+            windows = current;
+        }
+        return current;
+    }
+
+    private static List<String> keys(QuotaUsage usage, QuotaWindows current) {
+        List<String> keys = new ArrayList<>(4);
+        keys.add(METADATA_PREFIX + usage.hashTag);
+        for (QuotaPeriod period : QuotaPeriod.values()) {
+            keys.add(COUNTER_PREFIX + usage.hashTag + ":" + period.keySegment() + ":" + current.index(period));
+        }
+        return keys;
+    }
+
+    private static List<String> args(long requests, QuotaWindows current, long now) {
+        List<String> args = new ArrayList<>(4);
+        args.add(String.valueOf(requests));
+        for (QuotaPeriod period : QuotaPeriod.values()) {
+            args.add(String.valueOf((current.endMs(period) - now) / 1000 + COUNTER_GRACE_SECONDS));
+        }
+        return args;
+    }
+
+    private long[] limits(String apiKey, List<?> result) {
+        String tier = String.valueOf(result.get(0));
+        long[] limits = tier.isEmpty() ? fallbackLimits(apiKey) : tierLimits(tier);
+        for (QuotaPeriod period : QuotaPeriod.values()) {
+            String override = String.valueOf(result.get(1 + period.ordinal()));
+            if (!override.isEmpty()) {
+                limits[period.ordinal()] = Long.parseLong(override);
+            }
+        }
+        return limits;
+    }
+
+    private static long[] totals(List<?> result) {
+        long[] totals = new long[QuotaPeriod.values().length];
+        for (QuotaPeriod period : QuotaPeriod.values()) {
+            totals[period.ordinal()] = ((Number) result.get(4 + period.ordinal())).longValue();
+        }
+        return totals;
+    }
+
+    private long[] fallbackLimits(String apiKey) {
+        return tierLimits(rateLimitProperties.getApiKeyTiers()
+                .getOrDefault(apiKey, rateLimitProperties.getDefaultTier()));
+    }
+
+    private long[] tierLimits(String tier) {
+        QuotaProperties.Tier limits = properties.getTiers().get(tier);
+        String defaultTier = rateLimitProperties.getDefaultTier();
+        if (limits == null && !tier.equals(defaultTier)) {
+            // A typo in key metadata must not leave the key without a quota
+            unknownTiers.increment();
+            if (reportedTiers.add(tier)) {
+                log.warn("Quota tier '{}' is not configured, applying tier '{}'", tier, defaultTier);
+            }
+            limits = properties.getTiers().get(defaultTier);
+        }
+        if (limits == null) {
+            // No quota configured for the default tier either
+            return new long[QuotaPeriod.values().length];
+        }
+        return new long[]{limits.getHourly(), limits.getDaily(), limits.getMonthly()};
+    }
+}
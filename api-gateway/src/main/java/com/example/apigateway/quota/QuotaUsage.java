@@ -0,0 +1,80 @@
+package com.example.apigateway.quota;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One API key's quota state on this node: the limits and cluster-wide totals as
+ * of the last sync, plus requests admitted locally since then. A request is
+ * admitted while {@code totals + unsynced} stays under every limit.
+ */
+final class QuotaUsage {
+
+    private static final QuotaPeriod[] PERIODS = QuotaPeriod.values();
+
+    final String apiKey;
+    final String hashTag;
+    final AtomicLong pending = new AtomicLong();
+    final AtomicBoolean syncing = new AtomicBoolean();
+    volatile long flushing;
+    volatile long lastAccessMs;
+    private volatile long[] limits;
+    private volatile Totals totals = Totals.NONE;
+
+    QuotaUsage(String apiKey, String hashTag, long[] limits) {
+        this.apiKey = apiKey;
+        this.hashTag = hashTag;
+        this.limits = limits;
+    }
+
+    QuotaDecision tryAcquire(QuotaWindows windows, long nowMs) {
+        lastAccessMs = nowMs;
+        long[] currentLimits = limits;
+        Totals currentTotals = totals;
+        while (true) {
+            long admitted = pending.get();
+            long unsynced = admitted + flushing;
+            QuotaPeriod tightest = null;
+            long tightestRemaining = Long.MAX_VALUE;
+            for (QuotaPeriod period : PERIODS) {
+                long limit = currentLimits[period.ordinal()];
+                if (limit <= 0) {
+                    continue;
+                }
+                long remaining = limit - currentTotals.count(period, windows) - unsynced;
+                if (remaining <= 0) {
+                    return QuotaDecision.exhausted(period, limit, windows.endMs(period));
+                }
+                if (remaining < tightestRemaining) {
+                    tightest = period;
+                    tightestRemaining = remaining;
+                }
+            }
+            if (pending.compareAndSet(admitted, admitted + 1)) {
+                return tightest == null
+                        ? QuotaDecision.UNLIMITED
+                        : QuotaDecision.allowed(tightest, currentLimits[tightest.ordinal()], tightestRemaining - 1,
+                                windows.endMs(tightest));
+            }
+        }
+    }
+
+    void release() {
+        pending.decrementAndGet();
+    }
+
+    /** Installs limits and totals read at {@code windows}; totals already include any flushed requests. */
+    void synced(long[] newLimits, QuotaWindows windows, long[] counts) {
+        limits = newLimits;
+        totals = new Totals(windows, counts);
+    }
+
+    private record Totals(QuotaWindows windows, long[] counts) {
+
+        static final Totals NONE = new Totals(null, new long[PERIODS.length]);
+
+        long count(QuotaPeriod period, QuotaWindows current) {
+            return windows != null && windows.index(period) == current.index(period) ? counts[period.ordinal()] : 0;
+        }
+    }
+}
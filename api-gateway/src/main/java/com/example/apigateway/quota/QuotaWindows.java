@@ -0,0 +1,44 @@
+package com.example.apigateway.quota;
+
+import java.time.LocalDate;
+
+/**
+ * The hour, day and month containing one instant, as period indexes and end
+ * times. Valid until the current hour ends, which is the soonest boundary.
+ */
+final class QuotaWindows {
+
+    private static final long HOUR_MS = 3_600_000L;
+    private static final long DAY_MS = 86_400_000L;
+
+    private final long[] indexes;
+    private final long[] endsMs;
+
+    private QuotaWindows(long[] indexes, long[] endsMs) {
+        this.indexes = indexes;
+        this.endsMs = endsMs;
+    }
+
+    static QuotaWindows at(long nowMs) {
+        long hour = nowMs / HOUR_MS;
+        long day = nowMs / DAY_MS;
+        LocalDate date = LocalDate.ofEpochDay(day);
+        long month = date.getYear() * 12L + date.getMonthValue() - 1;
+        long monthEnd = date.withDayOfMonth(1).plusMonths(1).toEpochDay() * DAY_MS;
+        return new QuotaWindows(
+                new long[]{hour, day, month},
+                new long[]{(hour + 1) * HOUR_MS, (day + 1) * DAY_MS, monthEnd});
+    }
+
+    boolean covers(long nowMs) {
+        return nowMs < endsMs[0];
+    }
+
+    long index(QuotaPeriod period) {
+        return indexes[period.ordinal()];
+    }
+
+    long endMs(QuotaPeriod period) {
+        return endsMs[period.ordinal()];
+    }
+}
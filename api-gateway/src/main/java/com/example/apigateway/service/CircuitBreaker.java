@@ -0,0 +1,143 @@
+package com.example.apigateway.service;
+
+import com.example.apigateway.config.RateLimitProperties;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Count-based circuit breaker. While closed, outcomes are tallied in windows of
+ * {@code windowSize} calls and the breaker opens once the failure rate reaches
+ * the threshold. After {@code openDuration} it lets {@code halfOpenCalls} probes
+ * through: if they all succeed it closes, and any failure opens it again, as does
+ * not finishing the probes within {@code halfOpenTimeout}.
+ * Permission checks while closed read one volatile field.
+ */
+final class CircuitBreaker {
+
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureRateThreshold;
+    private final int minimumCalls;
+    private final int windowSize;
+    private final long openDurationNanos;
+    private final int halfOpenCalls;
+    private final long halfOpenTimeoutNanos;
+    private final BiConsumer<State, State> onTransition;
+
+    private volatile State state = State.CLOSED;
+    private volatile long openUntilNanos;
+    private volatile long halfOpenUntilNanos;
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicInteger probesStarted = new AtomicInteger();
+    private final AtomicInteger probesSucceeded = new AtomicInteger();
+
+    CircuitBreaker(RateLimitProperties.Breaker config, BiConsumer<State, State> onTransition) {
+        this.failureRateThreshold = config.getFailureRateThreshold();
+        this.minimumCalls = config.getMinimumCalls();
+        this.windowSize = Math.max(config.getWindowSize(), config.getMinimumCalls());
+        this.openDurationNanos = config.getOpenDuration().toNanos();
+        this.halfOpenCalls = Math.max(1, config.getHalfOpenCalls());
+        this.halfOpenTimeoutNanos = config.getHalfOpenTimeout().toNanos();
+        this.onTransition = onTransition;
+    }
+
+    State state() {
+        return state;
+    }
+
+    /** Whether a call may go to Redis; every permitted call must end in exactly one {@code on*} call. */
+    boolean tryAcquire() {
+        State current = state;
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN) {
+            if (System.nanoTime() - openUntilNanos < 0) {
+                return false;
+            }
+            transition(State.OPEN, State.HALF_OPEN);
+            if (state != State.HALF_OPEN) {
+                return false;
+            }
+        }
+        if (System.nanoTime() - halfOpenUntilNanos >= 0) {
+            // Probes that never report back (lost or cancelled callers) must not pin the breaker half-open
+            transition(State.HALF_OPEN, State.OPEN);
+            return false;
+        }
+        return acquireProbe();
+    }
+
+    void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (probesSucceeded.incrementAndGet() >= halfOpenCalls) {
+                transition(State.HALF_OPEN, State.CLOSED);
+            }
+            return;
+        }
+        record(false);
+    }
+
+    void onFailure() {
+        if (state == State.HALF_OPEN) {
+            transition(State.HALF_OPEN, State.OPEN);
+            return;
+        }
+        record(true);
+    }
+
+    /** The call ended without an outcome (cancelled, or never reached Redis); frees its half-open probe. */
+    void onCancel() {
+        if (state == State.HALF_OPEN) {
+            probesStarted.decrementAndGet();
+        }
+    }
+
+    // Only reserves while below the budget, so refused callers never inflate the count
+    private boolean acquireProbe() {
+        for (int started = probesStarted.get(); started < halfOpenCalls; started = probesStarted.get()) {
+            if (probesStarted.compareAndSet(started, started + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void record(boolean failed) {
+        int failedCalls = failed ? failures.incrementAndGet() : failures.get();
+        int total = calls.incrementAndGet();
+        if (failed && total >= minimumCalls && failedCalls * 100L >= (long) failureRateThreshold * total) {
+            transition(State.CLOSED, State.OPEN);
+        } else if (total >= windowSize) {
+            resetWindow();
+        }
+    }
+
+    private void resetWindow() {
+        calls.set(0);
+        failures.set(0);
+    }
+
+    private synchronized boolean transition(State from, State to) {
+        if (state != from) {
+            return false;
+        }
+        resetWindow();
+        probesStarted.set(0);
+        probesSucceeded.set(0);
+        if (to == State.OPEN) {
+            openUntilNanos = System.nanoTime() + openDurationNanos;
+        } else if (to == State.HALF_OPEN) {
+            halfOpenUntilNanos = System.nanoTime() + halfOpenTimeoutNanos;
+        }
+        state = to;
+        onTransition.accept(from, to);
+        return true;
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.apigateway.service;
+
+import com.example.events.RequestEvent;
+import com.example.events.codec.RequestEventCodec;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Overflow store for events the publisher could not buffer in memory. Events are
+ * appended length-prefixed in the binary codec format to {@code spill-*.bin}
+ * files and replayed (then deleted) once the publisher catches up. Files left
+ * behind by a previous run are replayed too. {@code spill-max-bytes} bounds the
+ * bytes appended and not yet replayed.
+ */
+@Slf4j
+final class EventSpillFile {
+
+    private static final String PREFIX = "spill-";
+    private static final String SUFFIX = ".bin";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private final long maxBytes;
+    private final AtomicLong pendingBytes = new AtomicLong();
+    /** Bytes appended to each file not yet replayed, oldest file first. */
+    private final Map<Path, Long> files = new LinkedHashMap<>();
+    private long sequence;
+    private Path current;
+    private DataOutputStream out;
+
+    EventSpillFile(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        for (Path file : spillFiles()) {
+            try {
+                long size = Files.size(file);
+                files.put(file, size);
+                pendingBytes.addAndGet(size);
+            } catch (IOException e) {
+                log.warn("Cannot read spill file {}: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    synchronized boolean append(RequestEvent event) {
+        byte[] record = RequestEventCodec.encode(event);
+        if (pendingBytes.get() + record.length + Integer.BYTES > maxBytes) {
+            return false;
+        }
+        try {
+            if (out == null) {
+                Files.createDirectories(directory);
+                Path file = directory.resolve(PREFIX + System.currentTimeMillis() + "-" + sequence++ + SUFFIX);
+                out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE));
+                current = file;
+                files.put(file, 0L);
+            }
+            out.writeInt(record.length);
+            out.write(record);
+            files.merge(current, (long) record.length + Integer.BYTES, Long::sum);
+            pendingBytes.addAndGet(record.length + Integer.BYTES);
+            return true;
+        } catch (IOException e) {
+            log.error("Failed to spill event: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    boolean hasPending() {
+        return pendingBytes.get() > 0;
+    }
+
+    synchronized void flush() {
+        if (out != null) {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                log.error("Failed to flush spill file: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Closes the file being written and hands the events of every file closed so
+     * far to {@code sink}, then deletes those files. Appends made meanwhile go to a
+     * new file, which is left for the next replay.
+     */
+    int replay(Consumer<RequestEvent> sink) {
+        Map<Path, Long> closed;
+        synchronized (this) {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    log.error("Failed to close spill file: {}", e.getMessage());
+                }
+                out = null;
+                current = null;
+            }
+            closed = new LinkedHashMap<>(files);
+            files.clear();
+        }
+
+        int replayed = 0;
+        for (Map.Entry<Path, Long> spilled : closed.entrySet()) {
+            Path file = spilled.getKey();
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE))) {
+                while (true) {
+                    int length;
+                    try {
+                        length = in.readInt();
+                    } catch (EOFException end) {
+                        break;
+                    }
+                    byte[] record = new byte[length];
+                    in.readFully(record);
+                    sink.accept(RequestEventCodec.decode(record));
+                    replayed++;
+                }
+            } catch (IOException | RuntimeException e) {
+                log.error("Dropping unreadable spill file {}: {}", file, e.getMessage());
+            }
+            // Its events were handed on, so they no longer count even if the file stays behind
+            pendingBytes.addAndGet(-spilled.getValue());
+            try {
+                Files.delete(file);
+            } catch (IOException e) {
+                log.error("Failed to delete spill file {}: {}", file, e.getMessage());
+            }
+        }
+        return replayed;
+    }
+
+    private List<Path> spillFiles() {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> spills = new ArrayList<>();
+            files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+            }).sorted().forEach(spills::add);
+            return spills;
+        } catch (IOException e) {
+            log.error("Failed to list spill directory {}: {}", directory, e.getMessage());
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.apigateway.service;
+
+import com.example.apigateway.config.RateLimitProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Counts live gateway nodes: each node heartbeats into a Redis sorted set and
+ * reads back how many others did within three intervals. The last count is kept
+ * while Redis is down, which is exactly when the fallback limiter needs it.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class GatewayMembership {
+
+    private static final String NODES_KEY = "gateway:nodes";
+    private static final int MISSED_HEARTBEATS = 3;
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final RateLimitProperties properties;
+    private final RedisScript<Long> heartbeatScript = RedisScript.of(
+            new ClassPathResource("scripts/gateway_heartbeat.lua"), Long.class);
+    private final String nodeId = UUID.randomUUID().toString();
+    private volatile int knownNodes;
+
+    /** Live nodes including this one, or the configured count before the first heartbeat. */
+    public int nodes() {
+        int known = knownNodes;
+        return known > 0 ? known : Math.max(1, properties.getResilience().getFallback().getNodes());
+    }
+
+    @Scheduled(fixedDelayString = "${ratelimit.resilience.fallback.heartbeat-interval-ms:5000}")
+    public void heartbeat() {
+        long now = System.currentTimeMillis();
+        long ttlMs = properties.getResilience().getFallback().getHeartbeatIntervalMs() * MISSED_HEARTBEATS;
+        redisTemplate.execute(heartbeatScript, List.of(NODES_KEY),
+                        List.of(String.valueOf(now), nodeId, String.valueOf(ttlMs)))
+                .next()
+                .subscribe(count -> {
+                    if (count.intValue() != knownNodes) {
+                        log.info("Gateway nodes: {}", count);
+                        knownNodes = count.intValue();
+                    }
+                }, error -> log.debug("Gateway heartbeat failed, keeping {} nodes: {}", nodes(), error.getMessage()));
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.apigateway.service;
+
+import com.example.events.IpBan;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.PartitionOffset;
+import org.springframework.kafka.annotation.TopicPartition;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Feeds the compacted {@code ip-bans} topic into the {@link IpDenyList}. Every
+ * gateway instance assigns itself the partitions in
+ * {@code gateway.deny-list.partitions} from offset 0, so it rebuilds the full deny
+ * list on startup and then follows updates. Without a consumer group nothing is
+ * committed and no group is left behind on the broker per restart.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class IpBanListener {
+
+    private final IpDenyList denyList;
+
+    @KafkaListener(id = "ip-ban-listener", idIsGroup = false, batch = "true",
+            topicPartitions = @TopicPartition(topic = IpBan.TOPIC, partitions = "${gateway.deny-list.partitions:0}",
+                    partitionOffsets = @PartitionOffset(partition = "*", initialOffset = "0")),
+            properties = {
+                    "enable.auto.commit=false",
+                    "key.deserializer=org.apache.kafka.common.serialization.StringDeserializer",
+                    "value.deserializer=org.apache.kafka.common.serialization.StringDeserializer"
+            })
+    public void onBans(List<ConsumerRecord<String, String>> records) {
+        Map<String, Long> updates = new HashMap<>();
+        for (ConsumerRecord<String, String> record : records) {
+            if (record.key() == null) {
+                continue;
+            }
+            try {
+                updates.put(record.key(), record.value() != null ? IpBan.decode(record.value()).expiresAtMs() : null);
+            } catch (RuntimeException e) {
+                log.warn("Ignoring malformed ban for {}: {}", record.key(), e.getMessage());
+            }
+        }
+        if (!updates.isEmpty()) {
+            denyList.apply(updates);
+        }
+    }
+}
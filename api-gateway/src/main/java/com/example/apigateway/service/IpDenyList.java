@@ -0,0 +1,134 @@
+package com.example.apigateway.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Local set of banned client IPs, checked by {@code RateLimitFilter} before any
+ * Redis call. Readers see an immutable snapshot through a volatile field, so
+ * lookups take no lock: an empty set costs one read, and a Bloom filter in front
+ * of the exact map answers most non-banned IPs without touching the map. Updates
+ * arrive in batches from {@link IpBanListener} and replace the snapshot. Each ban
+ * carries its own expiry, which lookups honour even before the entry is purged.
+ */
+@Component
+@Slf4j
+public class IpDenyList {
+
+    private static final int BITS_PER_ENTRY = 16;
+    private static final int BLOOM_HASHES = 4;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private final Counter rejected;
+
+    public IpDenyList(MeterRegistry meterRegistry) {
+        Gauge.builder("gateway.denylist.size", this, list -> list.snapshot.size())
+                .description("Client IPs currently banned")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("gateway.denylist.rejected")
+                .description("Requests rejected because the client IP is banned")
+                .register(meterRegistry);
+    }
+
+    public boolean isDenied(String ip) {
+        Snapshot current = snapshot;
+        if (current.size() == 0 || ip == null || !current.mightContain(ip)) {
+            return false;
+        }
+        Long expiresAtMs = current.bans().get(ip);
+        if (expiresAtMs == null || expiresAtMs <= System.currentTimeMillis()) {
+            return false;
+        }
+        rejected.increment();
+        return true;
+    }
+
+    /** Applies ban expiries by IP; a {@code null} expiry lifts the ban. */
+    public synchronized void apply(Map<String, Long> updates) {
+        long now = System.currentTimeMillis();
+        Map<String, Long> bans = new HashMap<>(snapshot.bans());
+        updates.forEach((ip, expiresAtMs) -> {
+            if (expiresAtMs == null || expiresAtMs <= now) {
+                bans.remove(ip);
+            } else {
+                bans.put(ip, expiresAtMs);
+            }
+        });
+        publish(bans, now);
+    }
+
+    @Scheduled(fixedDelayString = "${gateway.deny-list.purge-interval-ms:10000}")
+    public synchronized void purgeExpired() {
+        long now = System.currentTimeMillis();
+        if (snapshot.bans().values().stream().anyMatch(expiresAtMs -> expiresAtMs <= now)) {
+            publish(new HashMap<>(snapshot.bans()), now);
+        }
+    }
+
+    public int size() {
+        return snapshot.size();
+    }
+
+    private void publish(Map<String, Long> bans, long now) {
+        bans.values().removeIf(expiresAtMs -> expiresAtMs <= now);
+        int previous = snapshot.size();
+        snapshot = Snapshot.of(bans);
+        if (previous != bans.size()) {
+            log.info("Deny list now holds {} IPs", bans.size());
+        }
+    }
+
+    private record Snapshot(Map<String, Long> bans, long[] bloom, int bloomMask) {
+
+        static final Snapshot EMPTY = new Snapshot(Map.of(), new long[1], 63);
+
+        static Snapshot of(Map<String, Long> bans) {
+            if (bans.isEmpty()) {
+                return EMPTY;
+            }
+            int bits = Integer.highestOneBit(Math.max(64, bans.size() * BITS_PER_ENTRY) - 1) << 1;
+            long[] bloom = new long[bits / Long.SIZE];
+            int mask = bits - 1;
+            for (String ip : bans.keySet()) {
+                int h1 = mix(ip.hashCode());
+                int h2 = Integer.rotateLeft(h1, 16) | 1;
+                for (int i = 0; i < BLOOM_HASHES; i++) {
+                    int bit = (h1 + i * h2) & mask;
+                    bloom[bit >>> 6] |= 1L << bit;
+                }
+            }
+            return new Snapshot(Map.copyOf(bans), bloom, mask);
+        }
+
+        int size() {
+            return bans.size();
+        }
+
+        boolean mightContain(String ip) {
+            int h1 = mix(ip.hashCode());
+            int h2 = Integer.rotateLeft(h1, 16) | 1;
+            for (int i = 0; i < BLOOM_HASHES; i++) {
+                int bit = (h1 + i * h2) & bloomMask;
+                if ((bloom[bit >>> 6] & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int mix(int hash) {
+            int h = hash ^ (hash >>> 16);
+            h *= 0x85ebca6b;
+            h ^= h >>> 13;
+            h *= 0xc2b2ae35;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -1,43 +1,281 @@
 package com.example.apigateway.service;
 
-import com.example.apigateway.model.RequestEvent;
-import lombok.RequiredArgsConstructor;
+import com.example.apigateway.config.EventPublisherProperties;
+import com.example.events.RequestEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.SmartLifecycle;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands request events to Kafka without ever blocking the calling request.
+ * Events go into a bounded ring buffer drained by a single background thread;
+ * when the ring is full the configured overflow policy decides what is lost.
+ * With {@code SPILL}, overflow goes to a second bounded ring that the drainer
+ * writes to disk, so callers never wait on file I/O. Spilled events are replayed
+ * only after a send has succeeded, and while sends keep succeeding.
+ */
 @Service
 @Slf4j
-@RequiredArgsConstructor
-public class KafkaEventPublisher {
+public class KafkaEventPublisher implements SmartLifecycle {
 
     private static final String TOPIC_REQUESTS = "api-requests";
     private static final String TOPIC_BLOCKED = "api-blocked";
     private static final String TOPIC_ALERTS = "security-alerts";
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SPILL_FLUSH_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int EVICTION_ATTEMPTS = 4;
+
+    private final KafkaTemplate<String, RequestEvent> kafkaTemplate;
+    private final EventPublisherProperties properties;
+    private final EventRingBuffer<RequestEvent> ring;
+    private final EventRingBuffer<RequestEvent> overflow;
+    private final EventSpillFile spill;
+    private final Map<RequestEvent.EventType, Route> routes = new EnumMap<>(RequestEvent.EventType.class);
+    private final Map<String, KafkaTemplate<String, RequestEvent>> topicTemplates = new HashMap<>();
+    private final AtomicLong overflowed = new AtomicLong();
+    private final Counter evicted;
+    private final Counter sampledOut;
+    private final Counter spillRejected;
+    private final Counter sendFailed;
+    private final Counter spilled;
+    private volatile boolean running;
+    private volatile boolean delivering;
+    private Thread drainer;
+
+    public KafkaEventPublisher(KafkaTemplate<String, RequestEvent> kafkaTemplate,
+            EventPublisherProperties properties, MeterRegistry meterRegistry) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.properties = properties;
+        this.ring = new EventRingBuffer<>(properties.getCapacity());
+        this.overflow = new EventRingBuffer<>(properties.getSpillBufferCapacity());
+        this.spill = new EventSpillFile(Path.of(properties.getSpillDirectory()), properties.getSpillMaxBytes());
+
+        routes.put(RequestEvent.EventType.ALLOWED, route(TOPIC_REQUESTS, meterRegistry));
+        routes.put(RequestEvent.EventType.BLOCKED, route(TOPIC_BLOCKED, meterRegistry));
+        routes.put(RequestEvent.EventType.SECURITY_ALERT, route(TOPIC_ALERTS, meterRegistry));
 
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+        Gauge.builder("events.publisher.queue.depth", ring, EventRingBuffer::size)
+                .description("Events waiting in the publisher ring buffer")
+                .register(meterRegistry);
+        this.evicted = dropCounter("evicted", meterRegistry);
+        this.sampledOut = dropCounter("sampled", meterRegistry);
+        this.spillRejected = dropCounter("spill_full", meterRegistry);
+        this.sendFailed = dropCounter("send_failed", meterRegistry);
+        this.spilled = Counter.builder("events.publisher.spilled")
+                .description("Events written to the local spill file on overflow")
+                .register(meterRegistry);
+    }
 
     public void publishEvent(RequestEvent event) {
-        String topic = resolveTopic(event.getType());
-
-        kafkaTemplate.send(topic, event.getRequestId(), event)
-                .whenComplete((result, ex) -> {
-                    if (ex != null) {
-                        log.error("Failed to publish event to {}: {}", topic, ex.getMessage());
-                    } else {
-                        log.debug("Event published to {} partition={} offset={}",
-                                topic,
-                                result.getRecordMetadata().partition(),
-                                result.getRecordMetadata().offset());
-                    }
-                });
-    }
-
-    private String resolveTopic(String eventType) {
-        return switch (eventType) {
-            case "BLOCKED" -> TOPIC_BLOCKED;
-            case "SECURITY_ALERT" -> TOPIC_ALERTS;
-            default -> TOPIC_REQUESTS;
-        };
+        if (ring.offer(event)) {
+            return;
+        }
+        switch (properties.getOverflow()) {
+            case DROP_OLDEST -> offerEvictingOldest(event);
+            case SAMPLE -> {
+                if (overflowed.incrementAndGet() % properties.getSampleRate() == 0) {
+                    offerEvictingOldest(event);
+                } else {
+                    sampledOut.increment();
+                }
+            }
+            case SPILL -> {
+                if (!overflow.offer(event)) {
+                    spillRejected.increment();
+                }
+            }
+        }
+    }
+
+    private void offerEvictingOldest(RequestEvent event) {
+        for (int i = 0; i < EVICTION_ATTEMPTS; i++) {
+            if (ring.poll() != null) {
+                evicted.increment();
+            }
+            if (ring.offer(event)) {
+                return;
+            }
+        }
+        evicted.increment();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        drainer = new Thread(this::drainLoop, "kafka-event-publisher");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (drainer != null) {
+            LockSupport.unpark(drainer);
+            try {
+                drainer.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        kafkaTemplate.flush();
+        for (KafkaTemplate<String, RequestEvent> template : topicTemplates.values()) {
+            template.flush();
+            if (template.getProducerFactory() instanceof DisposableBean factory) {
+                try {
+                    factory.destroy();
+                } catch (Exception e) {
+                    log.warn("Failed to close topic producer: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void drainLoop() {
+        int batchSize = properties.getDrainBatchSize();
+        long lastSpillFlush = System.nanoTime();
+        while (running) {
+            spillOverflow();
+            int sent = 0;
+            RequestEvent event;
+            while (sent < batchSize && (event = ring.poll()) != null) {
+                send(event);
+                sent++;
+            }
+            if (sent > 0) {
+                continue;
+            }
+            if (delivering && spill.hasPending()) {
+                int replayed = spill.replay(this::replay);
+                log.info("Replayed {} spilled events", replayed);
+            } else {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+            if (System.nanoTime() - lastSpillFlush > SPILL_FLUSH_NANOS) {
+                spill.flush();
+                lastSpillFlush = System.nanoTime();
+            }
+        }
+
+        RequestEvent event;
+        while ((event = ring.poll()) != null) {
+            send(event);
+        }
+        spillOverflow();
+        spill.flush();
+    }
+
+    private void spillOverflow() {
+        RequestEvent event;
+        while ((event = overflow.poll()) != null) {
+            if (spill.append(event)) {
+                spilled.increment();
+            } else {
+                spillRejected.increment();
+            }
+        }
+    }
+
+    /** Sends a replayed event, or spills it again once a send has failed during the replay. */
+    private void replay(RequestEvent event) {
+        if (delivering) {
+            send(event);
+        } else if (!spill.append(event)) {
+            spillRejected.increment();
+        }
+    }
+
+    private void send(RequestEvent event) {
+        Route route = routes.get(event.getType());
+        long start = System.nanoTime();
+        try {
+            route.template().send(route.topic(), event.requestId(), event)
+                    .whenComplete((result, ex) -> {
+                        long elapsed = System.nanoTime() - start;
+                        delivering = ex == null;
+                        if (ex == null) {
+                            route.sent().record(elapsed, TimeUnit.NANOSECONDS);
+                        } else {
+                            route.failed().record(elapsed, TimeUnit.NANOSECONDS);
+                            sendFailed.increment();
+                            log.error("Failed to publish event to {}: {}", route.topic(), ex.getMessage());
+                        }
+                    });
+        } catch (RuntimeException e) {
+            delivering = false;
+            route.failed().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            sendFailed.increment();
+            log.error("Failed to publish event to {}: {}", route.topic(), e.getMessage());
+        }
+    }
+
+    private Route route(String topic, MeterRegistry meterRegistry) {
+        return new Route(topic, templateFor(topic),
+                sendTimer(topic, "success", meterRegistry), sendTimer(topic, "failure", meterRegistry));
+    }
+
+    private static Timer sendTimer(String topic, String outcome, MeterRegistry meterRegistry) {
+        return Timer.builder("events.publisher.send.latency")
+                .description("Time from handing an event to the producer until the broker acknowledged or failed it")
+                .tag("topic", topic)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private KafkaTemplate<String, RequestEvent> templateFor(String topic) {
+        EventPublisherProperties.Topic config = properties.getTopics().get(topic);
+        if (config == null) {
+            return kafkaTemplate;
+        }
+        Map<String, Object> overrides = new HashMap<>();
+        if (config.getLingerMs() != null) {
+            overrides.put(ProducerConfig.LINGER_MS_CONFIG, config.getLingerMs());
+        }
+        if (config.getBatchSize() != null) {
+            overrides.put(ProducerConfig.BATCH_SIZE_CONFIG, config.getBatchSize());
+        }
+        if (config.getCompressionType() != null) {
+            overrides.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, config.getCompressionType());
+        }
+        if (config.getAcks() != null) {
+            overrides.put(ProducerConfig.ACKS_CONFIG, config.getAcks());
+        }
+        if (overrides.isEmpty()) {
+            return kafkaTemplate;
+        }
+        KafkaTemplate<String, RequestEvent> template = new KafkaTemplate<>(kafkaTemplate.getProducerFactory(), overrides);
+        topicTemplates.put(topic, template);
+        return template;
+    }
+
+    private static Counter dropCounter(String reason, MeterRegistry meterRegistry) {
+        return Counter.builder("events.publisher.dropped")
+                .description("Events lost before reaching Kafka")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private record Route(String topic, KafkaTemplate<String, RequestEvent> template, Timer sent, Timer failed) {
     }
 }
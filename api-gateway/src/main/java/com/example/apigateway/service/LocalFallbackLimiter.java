@@ -0,0 +1,118 @@
+package com.example.apigateway.service;
+
+import com.example.apigateway.policy.CompiledRule;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-process sliding window counters for deciding while Redis is unavailable.
+ * Each node enforces {@code limit / nodes} of every rule (further divided among
+ * hot key shards), so the cluster-wide total stays near the configured limit
+ * when traffic is spread evenly across nodes. Beyond {@code maxKeys}, idle windows
+ * are dropped first, then the least recently used down to 90% of the bound, so
+ * the keys still under load keep their counts.
+ */
+final class LocalFallbackLimiter {
+
+    private final ConcurrentHashMap<String, Window> windows = new ConcurrentHashMap<>();
+    private final int maxKeys;
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    LocalFallbackLimiter(int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    /** Returns -1 if every limit had room, otherwise the index of the first that did not. */
+    int tryAcquire(List<RedisRateLimiter.Limit> limits, int nodes, long now) {
+        if (windows.size() > maxKeys && evicting.compareAndSet(false, true)) {
+            try {
+                evict(now);
+            } finally {
+                evicting.set(false);
+            }
+        }
+        Window[] acquired = new Window[limits.size()];
+        for (int i = 0; i < limits.size(); i++) {
+            RedisRateLimiter.Limit limit = limits.get(i);
+            CompiledRule rule = limit.rule();
+            long share = Math.max(1, rule.limit() / ((long) nodes * limit.shards()));
+            Window window = windows.computeIfAbsent(limit.key(), key -> new Window(rule.windowMs()));
+            if (!window.tryTake(share, now)) {
+                for (int j = 0; j < i; j++) {
+                    acquired[j].giveBack(now);
+                }
+                return i;
+            }
+            acquired[i] = window;
+        }
+        return -1;
+    }
+
+    int size() {
+        return windows.size();
+    }
+
+    private void evict(long now) {
+        windows.values().removeIf(window -> window.isIdle(now));
+        int excess = windows.size() - maxKeys * 9 / 10;
+        if (excess <= 0) {
+            return;
+        }
+        long[] lastUsed = windows.values().stream().mapToLong(window -> window.lastUsed).toArray();
+        if (excess >= lastUsed.length) {
+            windows.clear();
+            return;
+        }
+        Arrays.sort(lastUsed);
+        long cutoff = lastUsed[excess - 1];
+        windows.values().removeIf(window -> window.lastUsed <= cutoff);
+    }
+
+    /** Current and previous fixed window counts; the previous is weighted by its overlap. */
+    private static final class Window {
+
+        private final long windowMs;
+        private long index = Long.MIN_VALUE;
+        private long current;
+        private long previous;
+        private volatile long lastUsed;
+
+        Window(long windowMs) {
+            this.windowMs = windowMs;
+        }
+
+        synchronized boolean tryTake(long limit, long now) {
+            lastUsed = now;
+            roll(now);
+            double weight = (double) (windowMs - now % windowMs) / windowMs;
+            if (current + previous * weight >= limit) {
+                return false;
+            }
+            current++;
+            return true;
+        }
+
+        synchronized void giveBack(long now) {
+            roll(now);
+            if (current > 0) {
+                current--;
+            }
+        }
+
+        synchronized boolean isIdle(long now) {
+            return now / windowMs > index + 1;
+        }
+
+        private void roll(long now) {
+            long nowIndex = now / windowMs;
+            if (nowIndex != index) {
+                previous = nowIndex == index + 1 ? current : 0;
+                current = 0;
+                index = nowIndex;
+            }
+        }
+    }
+}
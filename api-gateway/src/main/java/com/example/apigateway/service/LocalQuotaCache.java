@@ -0,0 +1,206 @@
+package com.example.apigateway.service;
+
+import com.example.apigateway.config.RateLimitProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Per-node near cache for rate limit keys. Each key holds a chunk of quota
+ * leased from Redis and spends it with CAS operations, so Redis is only hit
+ * once per {@code leaseSize} requests. Leases are reserved atomically in Redis,
+ * which keeps the cluster-wide error per window below {@code nodes * leaseSize}.
+ * A request is blocked only once Redis has refused a lease for its window.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class LocalQuotaCache {
+
+    private static final String LEASE_SEGMENT = ":lease:";
+    private static final Mono<Boolean> ALLOWED = Mono.just(true);
+    private static final Mono<Boolean> BLOCKED = Mono.just(false);
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final RateLimitProperties properties;
+    private final RedisScript<Long> leaseScript = RedisScript.of(
+            new ClassPathResource("scripts/lease_quota.lua"), Long.class);
+    private final RedisScript<Long> returnScript = RedisScript.of(
+            new ClassPathResource("scripts/return_quota.lua"), Long.class);
+    private final ConcurrentHashMap<String, LocalQuota> quotas = new ConcurrentHashMap<>();
+
+    public Mono<Boolean> tryAcquire(String key, int limit, long windowMs, int leaseSize, long now) {
+        long window = now / windowMs;
+        LocalQuota quota = quotas.computeIfAbsent(key, LocalQuota::new);
+        Boolean leased = acquireLeased(quota, window, windowMs, now);
+        if (leased != null) {
+            return leased ? ALLOWED : BLOCKED;
+        }
+        // Concurrent waiters share one lease; those it did not cover lease again. Each round
+        // reserves quota in Redis or marks the window exhausted, so the retries end.
+        return quota.lease(() -> requestLease(quota, window, limit, windowMs, leaseSize, now))
+                .then(Mono.defer(() -> tryAcquire(key, limit, windowMs, leaseSize,
+                        Math.max(now, quota.window.get() * windowMs))));
+    }
+
+    /**
+     * Decides from the quota already leased, without Redis: {@code true} if a token was
+     * taken, {@code false} if Redis refused the window, {@code null} if a lease is needed.
+     */
+    public Boolean tryAcquireLeased(String key, long windowMs, long now) {
+        return acquireLeased(quotas.computeIfAbsent(key, LocalQuota::new), now / windowMs, windowMs, now);
+    }
+
+    public void release(String key, long now) {
+        LocalQuota quota = quotas.get(key);
+        if (quota != null && quota.window.get() == now / quota.windowMs) {
+            quota.tokens.incrementAndGet();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ratelimit.hybrid.sync-interval-ms:1000}")
+    public void syncIdleQuotas() {
+        long now = System.currentTimeMillis();
+        long idleMs = properties.getHybrid().getSyncIntervalMs();
+        List<Mono<Long>> returns = new ArrayList<>();
+
+        quotas.forEach((key, quota) -> {
+            if (now - quota.lastAccess < idleMs || !quotas.remove(key, quota)) {
+                return;
+            }
+            long unused = quota.tokens.getAndSet(0);
+            if (unused > 0 && quota.window.get() == now / quota.windowMs) {
+                returns.add(redisTemplate.execute(returnScript,
+                        List.of(leaseKey(key, quota.window.get())), List.of(String.valueOf(unused))).next());
+            }
+        });
+
+        if (!returns.isEmpty()) {
+            Flux.merge(returns)
+                    .doOnError(e -> log.error("Failed to return unused quota: {}", e.getMessage()))
+                    .subscribe();
+        }
+    }
+
+    private static Boolean acquireLeased(LocalQuota quota, long window, long windowMs, long now) {
+        quota.advance(window, windowMs, now);
+        if (quota.tryTake()) {
+            return Boolean.TRUE;
+        }
+        return quota.isExhausted(window) ? Boolean.FALSE : null;
+    }
+
+    private Mono<Long> requestLease(LocalQuota quota, long window, int limit, long windowMs, int leaseSize, long now) {
+        List<String> keys = List.of(leaseKey(quota.key, window), leaseKey(quota.key, window - 1));
+        List<String> args = List.of(
+                String.valueOf(limit),
+                String.valueOf(leaseSize),
+                String.valueOf(windowMs),
+                String.valueOf(now - window * windowMs));
+
+        return redisTemplate.execute(leaseScript, keys, args)
+                .next()
+                .defaultIfEmpty(0L)
+                .flatMap(granted -> quota.credit(window, granted)
+                        ? Mono.just(granted)
+                        : returnLease(quota.key, window, granted).thenReturn(0L));
+    }
+
+    /** Gives back a grant that arrived after its window ended, so that window is not overcounted. */
+    private Mono<Long> returnLease(String key, long window, long granted) {
+        return redisTemplate.execute(returnScript, List.of(leaseKey(key, window)), List.of(String.valueOf(granted)))
+                .next()
+                .onErrorResume(e -> {
+                    log.error("Failed to return stale quota lease: {}", e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private static String leaseKey(String key, long window) {
+        return key + LEASE_SEGMENT + window;
+    }
+
+    private static final class LocalQuota {
+
+        private final String key;
+        private final AtomicLong tokens = new AtomicLong();
+        private final AtomicLong window = new AtomicLong(-1);
+        private final AtomicReference<Mono<Long>> inFlight = new AtomicReference<>();
+        private volatile long exhaustedWindow = -1;
+        private volatile long windowMs;
+        private volatile long lastAccess;
+
+        private LocalQuota(String key) {
+            this.key = key;
+        }
+
+        private void advance(long newWindow, long newWindowMs, long now) {
+            lastAccess = now;
+            windowMs = newWindowMs;
+            long current = window.get();
+            if (newWindow > current && window.compareAndSet(current, newWindow)) {
+                // Leftover tokens belong to a window Redis has already moved past
+                tokens.set(0);
+            }
+        }
+
+        private boolean tryTake() {
+            long available;
+            do {
+                available = tokens.get();
+                if (available <= 0) {
+                    return false;
+                }
+            } while (!tokens.compareAndSet(available, available - 1));
+            return true;
+        }
+
+        private boolean isExhausted(long currentWindow) {
+            return exhaustedWindow == currentWindow;
+        }
+
+        /** Adds a grant to the current window; {@code false} if the grant is for a window already left. */
+        private boolean credit(long leasedWindow, long granted) {
+            if (granted <= 0) {
+                exhaustedWindow = leasedWindow;
+                return true;
+            }
+            if (window.get() != leasedWindow) {
+                return false;
+            }
+            tokens.addAndGet(granted);
+            return true;
+        }
+
+        private Mono<Long> lease(Supplier<Mono<Long>> leaser) {
+            Mono<Long> pending = inFlight.get();
+            if (pending != null) {
+                return pending;
+            }
+            AtomicReference<Mono<Long>> self = new AtomicReference<>();
+            // Cleared before waiters see the grant, so those it did not cover start a new lease
+            Mono<Long> created = leaser.get()
+                    .doOnTerminate(() -> inFlight.compareAndSet(self.get(), null))
+                    .cache();
+            self.set(created);
+            if (inFlight.compareAndSet(null, created)) {
+                return created;
+            }
+            Mono<Long> winner = inFlight.get();
+            return winner != null ? winner : created;
+        }
+    }
+}
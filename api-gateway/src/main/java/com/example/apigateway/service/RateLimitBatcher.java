@@ -0,0 +1,182 @@
+package com.example.apigateway.service;
+
+import com.example.apigateway.config.RateLimitProperties;
+import com.example.apigateway.policy.CompiledRule;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.concurrent.Queues;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gathers concurrent rate limit decisions and evaluates them with one
+ * {@code rate_limit_batch.lua} call per hash slot (a single call outside
+ * cluster mode), then fans the verdicts back out.
+ * A batch is flushed when it reaches {@code maxBatchSize} or when the first
+ * pending decision has waited {@code maxWaitMicros}. Submitters and the timer
+ * only signal a drain; whichever thread wins {@code wip} polls the queue alone,
+ * as its single consumer, until no signal is left.
+ */
+@Service
+@Slf4j
+public class RateLimitBatcher {
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final RateLimitScripts scripts;
+    private final RateLimitProperties properties;
+    private final RateLimitMetrics metrics;
+    private final DistributionSummary batchSize;
+    private final Timer addedWait;
+    private final Queue<Pending> queue = Queues.<Pending>unboundedMultiproducer().get();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicInteger wip = new AtomicInteger();
+    private final Scheduler scheduler = Schedulers.parallel();
+
+    public RateLimitBatcher(ReactiveStringRedisTemplate redisTemplate, RateLimitScripts scripts,
+            RateLimitProperties properties, RateLimitMetrics metrics, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.scripts = scripts;
+        this.properties = properties;
+        this.metrics = metrics;
+        this.batchSize = DistributionSummary.builder("ratelimit.batch.size")
+                .description("Rate limit decisions evaluated per script invocation")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.addedWait = Timer.builder("ratelimit.batch.wait")
+                .description("Time a decision waited for its batch to be flushed")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /** Queues limits that all hash to {@code slot}; each flush sends one script call per slot. */
+    Mono<RateLimitDecision> submit(List<RedisRateLimiter.Limit> limits, int slot) {
+        Pending request = new Pending(limits, slot, Sinks.one(), System.nanoTime());
+        queue.offer(request);
+
+        int size = pending.incrementAndGet();
+        if (size >= properties.getBatching().getMaxBatchSize()) {
+            drain();
+        } else if (size == 1) {
+            scheduleFlush();
+        }
+        return request.verdict().asMono();
+    }
+
+    private void scheduleFlush() {
+        scheduler.schedule(this::drain, properties.getBatching().getMaxWaitMicros(), TimeUnit.MICROSECONDS);
+    }
+
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            List<Pending> batch;
+            while (!(batch = poll()).isEmpty()) {
+                flush(batch);
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private List<Pending> poll() {
+        int maxBatchSize = properties.getBatching().getMaxBatchSize();
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+        Pending request;
+        while (batch.size() < maxBatchSize && (request = queue.poll()) != null) {
+            batch.add(request);
+        }
+        pending.addAndGet(-batch.size());
+        return batch;
+    }
+
+    private void flush(List<Pending> batch) {
+        long flushedAt = System.nanoTime();
+        for (Pending waiting : batch) {
+            addedWait.record(flushedAt - waiting.enqueuedAt(), TimeUnit.NANOSECONDS);
+        }
+        batchSize.record(batch.size());
+
+        int slot = batch.get(0).slot();
+        for (Pending waiting : batch) {
+            if (waiting.slot() != slot) {
+                Map<Integer, List<Pending>> bySlot = new LinkedHashMap<>();
+                for (Pending grouped : batch) {
+                    bySlot.computeIfAbsent(grouped.slot(), s -> new ArrayList<>()).add(grouped);
+                }
+                bySlot.values().forEach(this::execute);
+                return;
+            }
+        }
+        execute(batch);
+    }
+
+    private void execute(List<Pending> batch) {
+        List<String> keys = new ArrayList<>();
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(Instant.now().toEpochMilli()));
+        args.add(String.valueOf(batch.size()));
+
+        for (Pending request : batch) {
+            args.add(String.valueOf(request.limits().size()));
+            for (RedisRateLimiter.Limit limit : request.limits()) {
+                CompiledRule rule = limit.rule();
+                keys.add(limit.key());
+                args.add(rule.algorithm().getScriptName());
+                args.add(rule.limitArg());
+                args.add(rule.windowArg());
+            }
+        }
+
+        long start = System.nanoTime();
+        redisTemplate.execute(scripts.getBatchScript(), keys, args)
+                // Lettuce may emit the verdict table as one list or element by element
+                .concatMapIterable(result -> result instanceof List<?> list ? list : List.of(result))
+                .collectList()
+                .subscribe(
+                        verdicts -> {
+                            metrics.batchScriptLatency().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                            complete(batch, verdicts);
+                        },
+                        error -> fail(batch, error));
+    }
+
+    private void complete(List<Pending> batch, List<?> verdicts) {
+        if (verdicts.size() != batch.size()) {
+            fail(batch, new IllegalStateException(
+                    "Batch script returned " + verdicts.size() + " verdicts for " + batch.size() + " requests"));
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            Pending request = batch.get(i);
+            request.verdict().tryEmitValue(
+                    RedisRateLimiter.verdict(request.limits(), ((Number) verdicts.get(i)).longValue()));
+        }
+    }
+
+    private void fail(List<Pending> batch, Throwable error) {
+        log.error("Rate limit batch of {} failed: {}", batch.size(), error.getMessage());
+        for (Pending request : batch) {
+            request.verdict().tryEmitError(error);
+        }
+    }
+
+    private record Pending(List<RedisRateLimiter.Limit> limits, int slot, Sinks.One<RateLimitDecision> verdict, long enqueuedAt) {
+    }
+}
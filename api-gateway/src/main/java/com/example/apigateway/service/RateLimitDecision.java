@@ -0,0 +1,26 @@
+package com.example.apigateway.service;
+
+import com.example.apigateway.model.LimitDimension;
+
+/**
+ * Outcome of a rate limit check. A blocked decision names the dimension of the
+ * first limit that was exceeded, or {@code null} when no single limit decided it
+ * (failing closed without Redis). Instances are shared, so deciding allocates nothing.
+ */
+public record RateLimitDecision(boolean allowed, LimitDimension dimension) {
+
+    public static final RateLimitDecision ALLOWED = new RateLimitDecision(true, null);
+    public static final RateLimitDecision BLOCKED = new RateLimitDecision(false, null);
+
+    private static final RateLimitDecision[] BLOCKED_BY = new RateLimitDecision[LimitDimension.values().length];
+
+    static {
+        for (LimitDimension dimension : LimitDimension.values()) {
+            BLOCKED_BY[dimension.ordinal()] = new RateLimitDecision(false, dimension);
+        }
+    }
+
+    public static RateLimitDecision blockedBy(LimitDimension dimension) {
+        return BLOCKED_BY[dimension.ordinal()];
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.apigateway.service;
+
+import com.example.apigateway.config.RateLimitProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Guards Redis rate limit decisions with a latency budget and a circuit breaker.
+ * A decision that fails or exceeds {@code ratelimit.resilience.timeout} is
+ * answered by the failure mode instead, and while the breaker is open Redis is
+ * not called at all. In {@code LOCAL} mode that answer comes from
+ * {@link LocalFallbackLimiter}, scaled by {@link GatewayMembership#nodes()}.
+ */
+@Component
+@Slf4j
+public class RateLimitFallback {
+
+    private static final Mono<RateLimitDecision> ALLOWED = Mono.just(RateLimitDecision.ALLOWED);
+    private static final Mono<RateLimitDecision> BLOCKED = Mono.just(RateLimitDecision.BLOCKED);
+
+    enum Cause {
+        OPEN,
+        TIMEOUT,
+        ERROR
+    }
+
+    private final RateLimitProperties.Resilience config;
+    private final GatewayMembership membership;
+    private final CircuitBreaker breaker;
+    private final LocalFallbackLimiter localLimiter;
+    private final Duration timeout;
+    private final MeterRegistry meterRegistry;
+    private final Counter[][] decisions = new Counter[Cause.values().length][2];
+
+    public RateLimitFallback(RateLimitProperties properties, GatewayMembership membership, MeterRegistry meterRegistry) {
+        this.config = properties.getResilience();
+        this.membership = membership;
+        this.timeout = config.getTimeout();
+        this.meterRegistry = meterRegistry;
+        this.breaker = new CircuitBreaker(config.getBreaker(), this::onTransition);
+        this.localLimiter = new LocalFallbackLimiter(config.getFallback().getMaxKeys());
+
+        Gauge.builder("ratelimit.breaker.state", breaker, b -> b.state().ordinal())
+                .description("Redis circuit breaker state: 0 closed, 1 open, 2 half-open")
+                .register(meterRegistry);
+        Gauge.builder("ratelimit.fallback.nodes", membership, GatewayMembership::nodes)
+                .description("Gateway nodes the fallback limiter divides each limit by")
+                .register(meterRegistry);
+        Gauge.builder("ratelimit.fallback.keys", localLimiter, LocalFallbackLimiter::size)
+                .description("Keys held by the in-process fallback limiter")
+                .register(meterRegistry);
+        for (Cause cause : Cause.values()) {
+            decisions[cause.ordinal()][0] = decisionCounter(cause, "blocked");
+            decisions[cause.ordinal()][1] = decisionCounter(cause, "allowed");
+        }
+    }
+
+    /** Runs the Redis decision if the breaker allows it, falling back on failure, timeout or an open breaker. */
+    Mono<RateLimitDecision> decide(List<RedisRateLimiter.Limit> limits, long now,
+            Supplier<Mono<RateLimitDecision>> redisDecision) {
+        if (!breaker.tryAcquire()) {
+            return fallback(limits, now, Cause.OPEN);
+        }
+        return redisDecision.get()
+                .timeout(timeout)
+                .doOnNext(verdict -> breaker.onSuccess())
+                .onErrorResume(error -> {
+                    breaker.onFailure();
+                    Cause cause = error instanceof TimeoutException ? Cause.TIMEOUT : Cause.ERROR;
+                    log.debug("Redis rate limit decision failed ({}): {}", cause, error.getMessage());
+                    return fallback(limits, now, cause);
+                })
+                .doFinally(signal -> {
+                    if (signal == SignalType.CANCEL) {
+                        breaker.onCancel();
+                    }
+                });
+    }
+
+    private Mono<RateLimitDecision> fallback(List<RedisRateLimiter.Limit> limits, long now, Cause cause) {
+        Mono<RateLimitDecision> decision = switch (config.getMode()) {
+            case FAIL_OPEN -> ALLOWED;
+            case FAIL_CLOSED -> BLOCKED;
+            case LOCAL -> {
+                int exceeded = localLimiter.tryAcquire(limits, membership.nodes(), now);
+                yield exceeded < 0 ? ALLOWED
+                        : Mono.just(RateLimitDecision.blockedBy(limits.get(exceeded).rule().dimension()));
+            }
+        };
+        decisions[cause.ordinal()][decision == ALLOWED ? 1 : 0].increment();
+        return decision;
+    }
+
+    private void onTransition(CircuitBreaker.State from, CircuitBreaker.State to) {
+        if (to == CircuitBreaker.State.OPEN) {
+            log.warn("Redis circuit breaker opened ({} -> {}); deciding rate limits with {}", from, to, config.getMode());
+        } else {
+            log.info("Redis circuit breaker {} -> {}", from, to);
+        }
+        Counter.builder("ratelimit.breaker.transitions")
+                .description("Redis circuit breaker state changes")
+                .tag("from", from.name().toLowerCase(Locale.ROOT))
+                .tag("to", to.name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private Counter decisionCounter(Cause cause, String outcome) {
+        return Counter.builder("ratelimit.fallback.decisions")
+                .description("Rate limit decisions made without Redis")
+                .tag("cause", cause.name().toLowerCase(Locale.ROOT))
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.apigateway.service;
+
+import com.example.apigateway.model.LimitDimension;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Rate limiter meters, all registered up front and tagged only by limit dimension
+ * and script, so recording a decision is an array lookup and never creates a meter.
+ * Allowed requests count once per limit they passed; blocked requests count once,
+ * against the dimension that tripped ({@code unknown} when failing closed).
+ */
+@Component
+public class RateLimitMetrics {
+
+    private static final String UNKNOWN_DIMENSION = "unknown";
+
+    private final Counter[] allowed = new Counter[LimitDimension.values().length];
+    private final Counter[] blocked = new Counter[LimitDimension.values().length + 1];
+    private final Timer scriptLatency;
+    private final Timer batchScriptLatency;
+
+    public RateLimitMetrics(MeterRegistry meterRegistry) {
+        for (LimitDimension dimension : LimitDimension.values()) {
+            String tag = dimension.name().toLowerCase(Locale.ROOT);
+            allowed[dimension.ordinal()] = decisionCounter(meterRegistry, tag, "allowed");
+            blocked[dimension.ordinal()] = decisionCounter(meterRegistry, tag, "blocked");
+        }
+        blocked[LimitDimension.values().length] = decisionCounter(meterRegistry, UNKNOWN_DIMENSION, "blocked");
+        this.scriptLatency = scriptTimer(meterRegistry, "rate_limit");
+        this.batchScriptLatency = scriptTimer(meterRegistry, "rate_limit_batch");
+    }
+
+    void record(List<RedisRateLimiter.Limit> limits, RateLimitDecision decision) {
+        if (!decision.allowed()) {
+            LimitDimension dimension = decision.dimension();
+            blocked[dimension != null ? dimension.ordinal() : blocked.length - 1].increment();
+            return;
+        }
+        for (int i = 0; i < limits.size(); i++) {
+            allowed[limits.get(i).rule().dimension().ordinal()].increment();
+        }
+    }
+
+    /** Round trip of one {@code rate_limit.lua} call. */
+    Timer scriptLatency() {
+        return scriptLatency;
+    }
+
+    /** Round trip of one {@code rate_limit_batch.lua} call, however many decisions it carried. */
+    Timer batchScriptLatency() {
+        return batchScriptLatency;
+    }
+
+    private static Counter decisionCounter(MeterRegistry meterRegistry, String dimension, String outcome) {
+        return Counter.builder("ratelimit.decisions")
+                .description("Rate limit checks by limit dimension; blocked counts only the dimension that tripped")
+                .tag("dimension", dimension)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static Timer scriptTimer(MeterRegistry meterRegistry, String script) {
+        return Timer.builder("ratelimit.redis.script.latency")
+                .description("Round trip of a rate limit script call to Redis")
+                .tag("script", script)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
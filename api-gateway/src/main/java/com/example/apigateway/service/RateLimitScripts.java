@@ -0,0 +1,45 @@
+package com.example.apigateway.service;
+
+import com.example.apigateway.model.RateLimitAlgorithm;
+import lombok.Getter;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Builds the rate limit scripts by prepending every algorithm module to a driver,
+ * so a single EVAL can mix algorithms across the keys of one request.
+ */
+@Component
+@Getter
+public class RateLimitScripts {
+
+    private static final String ALGORITHM_REGISTRY = "local algorithms = {}\n";
+
+    private final RedisScript<Long> rateLimitScript = compose("scripts/rate_limit.lua", Long.class);
+    @SuppressWarnings("rawtypes")
+    private final RedisScript<List> batchScript = compose("scripts/rate_limit_batch.lua", List.class);
+
+    static <T> RedisScript<T> compose(String driverPath, Class<T> resultType) {
+        StringBuilder source = new StringBuilder(ALGORITHM_REGISTRY);
+        for (RateLimitAlgorithm algorithm : RateLimitAlgorithm.values()) {
+            source.append(read("scripts/algorithms/" + algorithm.getScriptName() + ".lua")).append('\n');
+        }
+        source.append(read(driverPath));
+        return RedisScript.of(source.toString(), resultType);
+    }
+
+    private static String read(String path) {
+        try {
+            return StreamUtils.copyToString(new ClassPathResource(path).getInputStream(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load rate limit script " + path, e);
+        }
+    }
+}
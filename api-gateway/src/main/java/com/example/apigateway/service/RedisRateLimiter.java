@@ -1,80 +1,238 @@
 package com.example.apigateway.service;
 
+import com.example.apigateway.config.RateLimitProperties;
+import com.example.apigateway.model.LimitDimension;
+import com.example.apigateway.policy.CompiledRule;
+import com.example.apigateway.policy.PolicySet;
+import com.example.apigateway.policy.RateLimitPolicyEngine;
+import io.lettuce.core.cluster.SlotHash;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
-import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 @Service("customRedisRateLimiter")
-@Slf4j
 @RequiredArgsConstructor
 public class RedisRateLimiter {
 
-    private static final int LIMIT_IP = 100;
-    private static final int LIMIT_USER = 500;
-    private static final int LIMIT_API_KEY = 1000;
-    private static final int LIMIT_ENDPOINT = 1000;
-    private static final int LIMIT_METHOD = 2000;
-    private static final int WINDOW_MS = 60000;
+    private static final Mono<RateLimitDecision> ALLOWED = Mono.just(RateLimitDecision.ALLOWED);
 
     private final ReactiveStringRedisTemplate redisTemplate;
-    private final RedisScript<Long> rateLimitScript = RedisScript.of(
-            new ClassPathResource("scripts/sliding_window.lua"), Long.class);
+    private final LocalQuotaCache localQuotaCache;
+    private final RateLimitProperties properties;
+    private final RateLimitScripts scripts;
+    private final RateLimitPolicyEngine policyEngine;
+    private final RateLimitBatcher batcher;
+    private final RateLimitFallback fallback;
+    private final RateLimitMetrics metrics;
 
-    public Mono<Boolean> isAllowed(String ip, String userId, String apiKey, String path, String method) {
+    public Mono<RateLimitDecision> check(String ip, String userId, String apiKey, String path, String method) {
         long now = Instant.now().toEpochMilli();
-        List<String> keys = buildKeys(ip, userId, apiKey, path, method);
-        List<String> args = buildArgs(now, userId, apiKey);
+        PolicySet policies = policyEngine.match(path, apiKey);
+        List<Limit> limits = buildLimits(policies, ip, userId, apiKey, path, method);
+        if (limits.isEmpty()) {
+            return ALLOWED;
+        }
+
+        RateLimitDecision leased = decideFromLeases(now, limits);
+        if (leased != null) {
+            metrics.record(limits, leased);
+            return Mono.just(leased);
+        }
+        return fallback.decide(limits, now, () -> decide(now, limits))
+                .doOnNext(decision -> metrics.record(limits, decision));
+    }
+
+    /**
+     * Answers a hybrid request whose limits are all local from the quota this node
+     * has already leased. No Redis call is made, so the decision skips the breaker
+     * and timeout. Returns {@code null} when a limit needs a lease or Redis.
+     */
+    private RateLimitDecision decideFromLeases(long now, List<Limit> limits) {
+        RateLimitProperties.Hybrid hybrid = properties.getHybrid();
+        if (!hybrid.isEnabled()) {
+            return null;
+        }
+        for (Limit limit : limits) {
+            if (!hybrid.isLocal(limit.rule().dimension())) {
+                return null;
+            }
+        }
+        for (int i = 0; i < limits.size(); i++) {
+            CompiledRule rule = limits.get(i).rule();
+            Boolean acquired = localQuotaCache.tryAcquireLeased(limits.get(i).key(), rule.windowMs(), now);
+            if (!Boolean.TRUE.equals(acquired)) {
+                releaseLocally(now, limits, i);
+                return acquired == null ? null : RateLimitDecision.blockedBy(rule.dimension());
+            }
+        }
+        return RateLimitDecision.ALLOWED;
+    }
+
+    private Mono<RateLimitDecision> decide(long now, List<Limit> limits) {
+        RateLimitProperties.Hybrid hybrid = properties.getHybrid();
+        if (!hybrid.isEnabled()) {
+            return evaluateInRedis(now, limits);
+        }
+
+        List<Limit> local = new ArrayList<>();
+        List<Limit> global = new ArrayList<>();
+        for (Limit limit : limits) {
+            (hybrid.isLocal(limit.rule().dimension()) ? local : global).add(limit);
+        }
+
+        return acquireLocally(now, local, 0)
+                .flatMap(decision -> decision.allowed() && !global.isEmpty()
+                        ? evaluateInRedis(now, global).doOnNext(verdict -> {
+                            if (!verdict.allowed()) {
+                                releaseLocally(now, local, local.size());
+                            }
+                        })
+                        : Mono.just(decision));
+    }
+
+    /**
+     * Checks the limits in Redis. In cluster mode each hash slot gets its own
+     * script call and the request passes only if every slot allows it; a slot
+     * that allowed it still counts the request when another slot blocks it.
+     */
+    private Mono<RateLimitDecision> evaluateInRedis(long now, List<Limit> limits) {
+        if (!properties.getCluster().isEnabled()) {
+            return evaluateSlot(now, limits, 0);
+        }
+        int slot = limits.get(0).slot();
+        Map<Integer, List<Limit>> bySlot = null;
+        for (int i = 1; i < limits.size(); i++) {
+            if (limits.get(i).slot() != slot) {
+                bySlot = groupBySlot(limits);
+                break;
+            }
+        }
+        if (bySlot == null) {
+            return evaluateSlot(now, limits, slot);
+        }
+        List<Mono<RateLimitDecision>> verdicts = new ArrayList<>(bySlot.size());
+        bySlot.forEach((groupSlot, group) -> verdicts.add(evaluateSlot(now, group, groupSlot)));
+        return Flux.merge(verdicts)
+                .filter(verdict -> !verdict.allowed())
+                .next()
+                .defaultIfEmpty(RateLimitDecision.ALLOWED);
+    }
 
-        return redisTemplate.execute(rateLimitScript, keys, args)
+    private Mono<RateLimitDecision> evaluateSlot(long now, List<Limit> limits, int slot) {
+        if (properties.getBatching().isEnabled()) {
+            return batcher.submit(limits, slot);
+        }
+        long start = System.nanoTime();
+        return redisTemplate.execute(scripts.getRateLimitScript(), buildKeys(limits), buildArgs(now, limits))
                 .next()
-                .map(result -> result == 0)
-                .onErrorResume(this::handleRedisError);
+                .map(result -> {
+                    metrics.scriptLatency().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    return verdict(limits, result);
+                });
     }
 
-    private List<String> buildKeys(String ip, String userId, String apiKey, String path, String method) {
-        List<String> keys = new ArrayList<>();
-        keys.add("ratelimit:ip:" + ip);
+    /** Maps a script verdict, 0 or the 1-based index of the key that tripped, to a decision. */
+    static RateLimitDecision verdict(List<Limit> limits, long result) {
+        if (result == 0) {
+            return RateLimitDecision.ALLOWED;
+        }
+        return result > 0 && result <= limits.size()
+                ? RateLimitDecision.blockedBy(limits.get((int) result - 1).rule().dimension())
+                : RateLimitDecision.BLOCKED;
+    }
 
-        if (userId != null) {
-            keys.add("ratelimit:user:" + userId);
+    private static Map<Integer, List<Limit>> groupBySlot(List<Limit> limits) {
+        Map<Integer, List<Limit>> bySlot = new LinkedHashMap<>();
+        for (Limit limit : limits) {
+            bySlot.computeIfAbsent(limit.slot(), slot -> new ArrayList<>(limits.size())).add(limit);
         }
-        if (apiKey != null) {
-            keys.add("ratelimit:apikey:" + apiKey);
+        return bySlot;
+    }
+
+    private Mono<RateLimitDecision> acquireLocally(long now, List<Limit> local, int index) {
+        if (index == local.size()) {
+            return ALLOWED;
         }
+        Limit limit = local.get(index);
+        CompiledRule rule = limit.rule();
+        int leaseSize = properties.getHybrid().leaseSizeFor(rule.dimension());
 
-        keys.add("ratelimit:path:" + path);
-        keys.add("ratelimit:method:" + method);
-        return keys;
+        return localQuotaCache.tryAcquire(limit.key(), rule.limit(), rule.windowMs(), leaseSize, now)
+                .flatMap(acquired -> {
+                    if (!acquired) {
+                        releaseLocally(now, local, index);
+                        return Mono.just(RateLimitDecision.blockedBy(rule.dimension()));
+                    }
+                    return acquireLocally(now, local, index + 1);
+                });
     }
 
-    private List<String> buildArgs(long now, String userId, String apiKey) {
-        List<String> args = new ArrayList<>();
-        args.add(String.valueOf(WINDOW_MS));
-        args.add(String.valueOf(now));
-        args.add(String.valueOf(LIMIT_IP));
+    private void releaseLocally(long now, List<Limit> local, int count) {
+        for (int i = 0; i < count; i++) {
+            localQuotaCache.release(local.get(i).key(), now);
+        }
+    }
 
-        if (userId != null) {
-            args.add(String.valueOf(LIMIT_USER));
+    List<Limit> buildLimits(PolicySet policies, String ip, String userId, String apiKey,
+            String path, String method) {
+        boolean cluster = properties.getCluster().isEnabled();
+        List<Limit> limits = new ArrayList<>(policies.size());
+        for (int i = 0; i < policies.size(); i++) {
+            CompiledRule rule = policies.get(i);
+            String value = dimensionValue(rule.dimension(), ip, userId, apiKey, path, method);
+            if (value != null) {
+                boolean sharded = rule.shards() > 1 && !properties.getHybrid().isLocal(rule.dimension());
+                String key = sharded
+                        ? rule.key(value, ThreadLocalRandom.current().nextInt(rule.shards()))
+                        : rule.key(value);
+                limits.add(new Limit(rule, key, cluster ? SlotHash.getSlot(key) : 0, sharded ? rule.shards() : 1));
+            }
         }
-        if (apiKey != null) {
-            args.add(String.valueOf(LIMIT_API_KEY));
+        return limits;
+    }
+
+    private static String dimensionValue(LimitDimension dimension, String ip, String userId, String apiKey,
+            String path, String method) {
+        return switch (dimension) {
+            case IP -> ip;
+            case USER -> userId;
+            case API_KEY -> apiKey;
+            case PATH -> path;
+            case METHOD -> method;
+        };
+    }
+
+    List<String> buildKeys(List<Limit> limits) {
+        List<String> keys = new ArrayList<>(limits.size());
+        for (Limit limit : limits) {
+            keys.add(limit.key());
         }
+        return keys;
+    }
 
-        args.add(String.valueOf(LIMIT_ENDPOINT));
-        args.add(String.valueOf(LIMIT_METHOD));
+    List<String> buildArgs(long now, List<Limit> limits) {
+        List<String> args = new ArrayList<>(limits.size() * 3 + 1);
+        args.add(String.valueOf(now));
+        for (Limit limit : limits) {
+            CompiledRule rule = limit.rule();
+            args.add(rule.algorithm().getScriptName());
+            args.add(rule.limitArg());
+            args.add(rule.windowArg());
+        }
         return args;
     }
 
-    private Mono<Boolean> handleRedisError(Throwable e) {
-        log.error("Redis rate limiter error: {}", e.getMessage());
-        return Mono.just(true);
+    /** One rule applied to one request; {@code shards} is how many sub-keys share the rule's limit. */
+    record Limit(CompiledRule rule, String key, int slot, int shards) {
     }
 }
@@ -0,0 +1,191 @@
+package com.example.apigateway.upstream;
+
+import com.example.apigateway.config.UpstreamProperties;
+import com.example.apigateway.context.RequestClock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-flight request limits for the routes under {@code upstream.routes} with
+ * {@code concurrency.enabled}. Each route's limit adapts to the backend's latency
+ * ({@link GradientLimit}). Anonymous requests may hold only {@code anonymous-share}
+ * of it and each API key only {@code api-key-share}, so as the limit falls anonymous
+ * traffic is shed first and no single key can take the whole route.
+ */
+@Component
+@Slf4j
+public class ConcurrencyLimiter {
+
+    private final Map<String, RouteLimiter> routes = new HashMap<>();
+
+    public ConcurrencyLimiter(UpstreamProperties properties, MeterRegistry meterRegistry) {
+        properties.getRoutes().forEach((routeId, route) -> {
+            if (route.getConcurrency().isEnabled()) {
+                routes.put(routeId, new RouteLimiter(routeId, route.getConcurrency(), meterRegistry));
+            }
+        });
+    }
+
+    public boolean isLimited(String routeId) {
+        return routes.containsKey(routeId);
+    }
+
+    /**
+     * A permit for one request on a limited route, or {@code null} if the request
+     * must be shed. Every permit must be released or abandoned exactly once.
+     */
+    public Permit tryAcquire(String routeId, String apiKey, boolean authenticated) {
+        RouteLimiter route = routes.get(routeId);
+        return route != null ? route.tryAcquire(apiKey, authenticated) : null;
+    }
+
+    /** One admitted request; its latency is measured from acquisition to release. */
+    public static final class Permit {
+
+        private final RouteLimiter route;
+        private final String apiKey;
+        private final long startNanos;
+
+        private Permit(RouteLimiter route, String apiKey, long startNanos) {
+            this.route = route;
+            this.apiKey = apiKey;
+            this.startNanos = startNanos;
+        }
+
+        /** The request finished; {@code dropped} if the backend shed or failed it. */
+        public void release(boolean dropped) {
+            long now = RequestClock.nanoTime();
+            int inFlight = route.release(apiKey);
+            route.limit.onSample(now - startNanos, inFlight, dropped, now);
+        }
+
+        /** The request was cancelled; frees the permit without a latency sample. */
+        public void abandon() {
+            route.release(apiKey);
+        }
+    }
+
+    private static final class RouteLimiter {
+
+        private final GradientLimit limit;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final Map<String, Integer> apiKeys = new ConcurrentHashMap<>();
+        private final double anonymousShare;
+        private final double apiKeyShare;
+        private final Counter rejectedAnonymous;
+        private final Counter rejectedAuthenticated;
+        private final Counter rejectedApiKey;
+
+        RouteLimiter(String routeId, UpstreamProperties.Concurrency config, MeterRegistry meterRegistry) {
+            Counter increases = changeCounter(meterRegistry, routeId, "increase");
+            Counter decreases = changeCounter(meterRegistry, routeId, "decrease");
+            this.limit = new GradientLimit(config, (from, to) -> {
+                (to > from ? increases : decreases).increment();
+                log.debug("Concurrency limit of route {} changed from {} to {}", routeId, from, to);
+            });
+            this.anonymousShare = config.getAnonymousShare();
+            this.apiKeyShare = config.getApiKeyShare();
+            this.rejectedAnonymous = rejectedCounter(meterRegistry, routeId, "anonymous");
+            this.rejectedAuthenticated = rejectedCounter(meterRegistry, routeId, "limit");
+            this.rejectedApiKey = rejectedCounter(meterRegistry, routeId, "api_key");
+
+            Gauge.builder("gateway.concurrency.limit", limit, GradientLimit::limit)
+                    .description("Current in-flight request limit of the route")
+                    .tag("route", routeId)
+                    .register(meterRegistry);
+            Gauge.builder("gateway.concurrency.in_flight", inFlight, AtomicInteger::get)
+                    .description("Requests on the route holding a concurrency permit")
+                    .tag("route", routeId)
+                    .register(meterRegistry);
+            Gauge.builder("gateway.concurrency.latency", limit, GradientLimit::recentRttSeconds)
+                    .description("Average latency the route's limit was last adjusted on")
+                    .tag("route", routeId)
+                    .tag("window", "recent")
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+            Gauge.builder("gateway.concurrency.latency", limit, GradientLimit::baselineSeconds)
+                    .description("Average latency the route's limit was last adjusted on")
+                    .tag("route", routeId)
+                    .tag("window", "baseline")
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+        }
+
+        Permit tryAcquire(String apiKey, boolean authenticated) {
+            int current = limit.limit();
+            if (apiKey != null && !acquireApiKey(apiKey, share(current, apiKeyShare))) {
+                rejectedApiKey.increment();
+                return null;
+            }
+            if (!acquire(authenticated ? current : share(current, anonymousShare))) {
+                releaseApiKey(apiKey);
+                (authenticated ? rejectedAuthenticated : rejectedAnonymous).increment();
+                return null;
+            }
+            return new Permit(this, apiKey, RequestClock.nanoTime());
+        }
+
+        /** Frees a permit and returns the requests that were in flight, this one included. */
+        int release(String apiKey) {
+            releaseApiKey(apiKey);
+            return inFlight.getAndDecrement();
+        }
+
+        private boolean acquire(int max) {
+            for (int current = inFlight.get(); current < max; current = inFlight.get()) {
+                if (inFlight.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean acquireApiKey(String apiKey, int max) {
+            boolean[] acquired = new boolean[1];
+            apiKeys.compute(apiKey, (key, count) -> {
+                int held = count != null ? count : 0;
+                if (held >= max) {
+                    return count;
+                }
+                acquired[0] = true;
+                return held + 1;
+            });
+            return acquired[0];
+        }
+
+        private void releaseApiKey(String apiKey) {
+            if (apiKey != null) {
+                // Keys with nothing in flight are removed, so the map holds only active keys
+                apiKeys.computeIfPresent(apiKey, (key, count) -> count > 1 ? count - 1 : null);
+            }
+        }
+
+        private static int share(int limit, double share) {
+            return Math.max(1, (int) Math.ceil(limit * share));
+        }
+
+        private static Counter changeCounter(MeterRegistry meterRegistry, String routeId, String direction) {
+            return Counter.builder("gateway.concurrency.limit.changes")
+                    .description("Adjustments of the route's adaptive concurrency limit")
+                    .tag("route", routeId)
+                    .tag("direction", direction)
+                    .register(meterRegistry);
+        }
+
+        private static Counter rejectedCounter(MeterRegistry meterRegistry, String routeId, String reason) {
+            return Counter.builder("gateway.concurrency.rejected")
+                    .description("Requests shed with 503 by the route's concurrency limit, by the share they exceeded")
+                    .tag("route", routeId)
+                    .tag("reason", reason)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.apigateway.upstream;
+
+import com.example.apigateway.config.UpstreamProperties;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Concurrency limit that tracks the backend's latency. Samples are averaged per
+ * window; at the end of a window the limit is scaled by
+ * {@code tolerance * baseline / recent} (between 0.5 and 1) and grown by its
+ * square root, so it climbs while latency holds and falls once requests start to
+ * queue. The baseline is the lowest window average seen, drifting slowly toward
+ * higher averages so that a backend that became slower for good is learned. A
+ * window with a dropped request (503, 504 or failure) multiplies the limit by
+ * {@code backoffRatio} instead. A window that used less than half the limit says
+ * nothing about capacity and leaves it unchanged. Reading the limit is one
+ * volatile read; samples are recorded under the instance lock.
+ */
+final class GradientLimit {
+
+    // Gradient bounds: the limit shrinks by at most half per window and grows only by its square root
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double MAX_GRADIENT = 1.0;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final double backoffRatio;
+    private final long windowNanos;
+    private final int minWindowSamples;
+    private final double baselineAlpha;
+    private final BiConsumer<Integer, Integer> onChange;
+
+    private volatile int limit;
+    private double estimate;
+    private volatile double baselineNanos;
+    private volatile double recentRttNanos;
+
+    private long windowStartNanos = System.nanoTime();
+    private long windowSumNanos;
+    private int windowSamples;
+    private int windowMaxInFlight;
+    private boolean windowDropped;
+
+    GradientLimit(UpstreamProperties.Concurrency config, BiConsumer<Integer, Integer> onChange) {
+        this.minLimit = Math.max(1, config.getMinLimit());
+        this.maxLimit = Math.max(minLimit, config.getMaxLimit());
+        this.tolerance = Math.max(1.0, config.getTolerance());
+        this.smoothing = Math.min(1.0, Math.max(0.0, config.getSmoothing()));
+        this.backoffRatio = Math.min(1.0, Math.max(0.0, config.getBackoffRatio()));
+        this.windowNanos = config.getWindow().toNanos();
+        this.minWindowSamples = Math.max(1, config.getMinWindowSamples());
+        this.baselineAlpha = 2.0 / (Math.max(1, config.getBaselineWindow()) + 1);
+        this.onChange = onChange;
+        this.estimate = clamp(config.getInitialLimit());
+        this.limit = (int) estimate;
+    }
+
+    int limit() {
+        return limit;
+    }
+
+    /** Baseline latency in seconds, 0 until the first window closed. */
+    double baselineSeconds() {
+        return baselineNanos / 1e9;
+    }
+
+    /** Average latency of the last closed window in seconds. */
+    double recentRttSeconds() {
+        return recentRttNanos / 1e9;
+    }
+
+    /**
+     * Records one finished request.
+     *
+     * @param rttNanos how long it held its permit
+     * @param inFlight requests in flight when it finished, itself included
+     * @param dropped  whether the backend shed or failed it
+     */
+    synchronized void onSample(long rttNanos, int inFlight, boolean dropped, long nowNanos) {
+        windowSumNanos += rttNanos;
+        windowSamples++;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlight);
+        windowDropped |= dropped;
+        if (nowNanos - windowStartNanos < windowNanos || windowSamples < minWindowSamples) {
+            return;
+        }
+
+        double recent = (double) windowSumNanos / windowSamples;
+        boolean anyDropped = windowDropped;
+        int maxInFlight = windowMaxInFlight;
+        windowStartNanos = nowNanos;
+        windowSumNanos = 0;
+        windowSamples = 0;
+        windowMaxInFlight = 0;
+        windowDropped = false;
+
+        recentRttNanos = recent;
+        baselineNanos = baselineNanos == 0 || recent < baselineNanos
+                ? recent
+                : baselineNanos + (recent - baselineNanos) * baselineAlpha;
+
+        double next;
+        if (anyDropped) {
+            next = estimate * backoffRatio;
+        } else if (maxInFlight * 2 < estimate) {
+            return;
+        } else {
+            double gradient = Math.max(MIN_GRADIENT, Math.min(MAX_GRADIENT, tolerance * baselineNanos / recent));
+            next = estimate * (1 - smoothing) + (estimate * gradient + Math.sqrt(estimate)) * smoothing;
+        }
+        estimate = clamp(next);
+        int previous = limit;
+        limit = (int) estimate;
+        if (limit != previous) {
+            onChange.accept(previous, limit);
+        }
+    }
+
+    private double clamp(double value) {
+        return Math.max(minLimit, Math.min(maxLimit, value));
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.apigateway.upstream;
+
+import com.example.apigateway.config.UpstreamProperties;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientFactory;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.Http2AllocationStrategy;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.List;
+
+/**
+ * Builds a route's {@link HttpClient} exactly like the gateway's shared one
+ * (timeouts, SSL, proxy, customizers from {@code spring.cloud.gateway.httpclient}),
+ * but on a connection pool of its own, sized by {@link UpstreamProperties.Route}.
+ */
+final class RouteHttpClientFactory extends HttpClientFactory {
+
+    private final String poolName;
+    private final UpstreamProperties.Route route;
+    private ConnectionProvider connectionProvider;
+
+    RouteHttpClientFactory(HttpClientProperties properties, ServerProperties serverProperties,
+            HttpClientSslConfigurer sslConfigurer, List<HttpClientCustomizer> customizers,
+            String poolName, UpstreamProperties.Route route) {
+        super(properties, serverProperties, sslConfigurer, customizers);
+        this.poolName = poolName;
+        this.route = route;
+    }
+
+    HttpClient create() {
+        HttpClient client = createInstance();
+        return route.isHttp2() ? client.protocol(HttpProtocol.H2, HttpProtocol.H2C, HttpProtocol.HTTP11) : client;
+    }
+
+    ConnectionProvider connectionProvider() {
+        return connectionProvider;
+    }
+
+    @Override
+    protected ConnectionProvider buildConnectionProvider(HttpClientProperties properties) {
+        ConnectionProvider.Builder builder = ConnectionProvider.builder(poolName)
+                .maxConnections(route.getMaxConnections())
+                .pendingAcquireMaxCount(route.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(route.getPendingAcquireTimeout())
+                .maxIdleTime(route.getMaxIdleTime())
+                .evictInBackground(route.getEvictionInterval())
+                // reactor.netty.connection.provider.* meters, tagged name=<poolName>
+                .metrics(true);
+        if (route.getMaxLifeTime() != null) {
+            builder.maxLifeTime(route.getMaxLifeTime());
+        }
+        if (route.isHttp2()) {
+            builder.allocationStrategy(Http2AllocationStrategy.builder()
+                    .maxConnections(route.getMaxConnections())
+                    .minConnections(1)
+                    .maxConcurrentStreams(route.getMaxConcurrentStreams())
+                    .build());
+        }
+        connectionProvider = builder.build();
+        return connectionProvider;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.apigateway.upstream;
+
+import com.example.apigateway.config.UpstreamProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import org.springframework.stereotype.Component;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One {@link HttpClient}, with its own connection pool, per route listed under
+ * {@code upstream.routes}. A slow backend then exhausts only its own route's
+ * connections and pending-acquire queue, and each pool's meters carry the name
+ * {@code route-<id>}.
+ */
+@Component
+@Slf4j
+public class RouteHttpClients implements DisposableBean {
+
+    private final Map<String, HttpClient> clients = new HashMap<>();
+    private final List<ConnectionProvider> providers = new ArrayList<>();
+
+    public RouteHttpClients(UpstreamProperties properties, HttpClientProperties httpClientProperties,
+            ServerProperties serverProperties, HttpClientSslConfigurer sslConfigurer,
+            ObjectProvider<HttpClientCustomizer> customizers) {
+        List<HttpClientCustomizer> customizerList = customizers.orderedStream().toList();
+        properties.getRoutes().forEach((routeId, route) -> {
+            RouteHttpClientFactory factory = new RouteHttpClientFactory(httpClientProperties, serverProperties,
+                    sslConfigurer, customizerList, "route-" + routeId, route);
+            clients.put(routeId, factory.create());
+            providers.add(factory.connectionProvider());
+            log.info("Route {} uses its own connection pool: max {} connections, {} pending, http2 {}",
+                    routeId, route.getMaxConnections(), route.getPendingAcquireMaxCount(), route.isHttp2());
+        });
+    }
+
+    /** The route's client, or {@code null} if the route uses the shared pool. */
+    public HttpClient get(String routeId) {
+        return clients.get(routeId);
+    }
+
+    @Override
+    public void destroy() {
+        providers.forEach(ConnectionProvider::dispose);
+    }
+}
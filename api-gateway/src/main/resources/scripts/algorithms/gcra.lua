@@ -0,0 +1,22 @@
+-- GCRA: a single string key holding the theoretical arrival time (TAT).
+-- Requests are spaced window / limit apart, with a burst of up to `limit`.
+
+algorithms['gcra'] = {
+    check = function(key, limit, window, now)
+        local interval = window / limit
+        local tat = tonumber(redis.call('GET', key) or now)
+        if tat < now then
+            tat = now
+        end
+
+        local new_tat = tat + interval
+        if new_tat - now > window then
+            return false
+        end
+        return true, new_tat
+    end,
+
+    commit = function(key, limit, window, now, new_tat)
+        redis.call('SET', key, string.format('%.3f', new_tat), 'PX', math.ceil(new_tat - now))
+    end
+}
@@ -0,0 +1,19 @@
+-- Sliding log: one ZSET member per admitted request.
+-- Exact, but memory and work grow with the limit.
+
+algorithms['sliding_log'] = {
+    check = function(key, limit, window, now)
+        redis.call('ZREMRANGEBYSCORE', key, '-inf', now - window)
+        local count = redis.call('ZCARD', key)
+        if count >= limit then
+            return false
+        end
+        return true, count
+    end,
+
+    commit = function(key, limit, window, now, count)
+        -- Suffix with the count so same-millisecond requests don't collapse into one member
+        redis.call('ZADD', key, now, now .. '-' .. count)
+        redis.call('PEXPIRE', key, window) -- Auto-cleanup key if idle
+    end
+}
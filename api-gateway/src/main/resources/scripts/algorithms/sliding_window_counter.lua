@@ -0,0 +1,30 @@
+-- Sliding window counter: one hash holding the current and previous fixed
+-- window counts. The previous count is weighted by its overlap with the
+-- sliding window, which approximates the sliding log in O(1) memory.
+-- Fields: w = current window index, c = current count, p = previous count
+
+algorithms['sliding_window_counter'] = {
+    check = function(key, limit, window, now)
+        local current_window = math.floor(now / window)
+        local fields = redis.call('HMGET', key, 'w', 'c', 'p')
+        local stored_window = tonumber(fields[1]) or current_window
+        local current = tonumber(fields[2]) or 0
+        local previous = tonumber(fields[3]) or 0
+
+        if stored_window ~= current_window then
+            previous = (stored_window == current_window - 1) and current or 0
+            current = 0
+        end
+
+        local weight = (window - (now % window)) / window
+        if current + previous * weight >= limit then
+            return false
+        end
+        return true, { current_window, current + 1, previous }
+    end,
+
+    commit = function(key, limit, window, now, state)
+        redis.call('HSET', key, 'w', state[1], 'c', state[2], 'p', state[3])
+        redis.call('PEXPIRE', key, window * 2) -- Next window still reads this one as previous
+    end
+}
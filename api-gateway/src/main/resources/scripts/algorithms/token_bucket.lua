@@ -0,0 +1,22 @@
+-- Token bucket: one hash holding the token count and last refill time.
+-- Refills at limit / window tokens per ms, up to a capacity of `limit`.
+-- Fields: t = tokens, ts = last refill timestamp
+
+algorithms['token_bucket'] = {
+    check = function(key, limit, window, now)
+        local fields = redis.call('HMGET', key, 't', 'ts')
+        local tokens = tonumber(fields[1]) or limit
+        local last = tonumber(fields[2]) or now
+
+        tokens = math.min(limit, tokens + (now - last) * limit / window)
+        if tokens < 1 then
+            return false
+        end
+        return true, tokens - 1
+    end,
+
+    commit = function(key, limit, window, now, tokens)
+        redis.call('HSET', key, 't', tokens, 'ts', now)
+        redis.call('PEXPIRE', key, window) -- A full bucket needs no state
+    end
+}
@@ -0,0 +1,11 @@
+-- KEYS: [nodes_key]
+-- ARGV: [now_ms, node_id, ttl_ms]
+-- Returns: number of gateway nodes that heartbeated within ttl_ms
+
+local now = tonumber(ARGV[1])
+local ttl = tonumber(ARGV[3])
+
+redis.call('ZADD', KEYS[1], now, ARGV[2])
+redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', now - ttl)
+redis.call('PEXPIRE', KEYS[1], ttl)
+return redis.call('ZCARD', KEYS[1])
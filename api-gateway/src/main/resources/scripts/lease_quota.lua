@@ -0,0 +1,23 @@
+-- KEYS: [current_window_key, previous_window_key]
+-- ARGV: [limit, lease_size, window_ms, elapsed_in_window_ms]
+-- Returns: number of tokens granted to the calling node (0 if exhausted)
+
+local limit = tonumber(ARGV[1])
+local lease = tonumber(ARGV[2])
+local window = tonumber(ARGV[3])
+local elapsed = tonumber(ARGV[4])
+
+local current = tonumber(redis.call('GET', KEYS[1]) or '0')
+local previous = tonumber(redis.call('GET', KEYS[2]) or '0')
+
+-- Weight the previous window by how much of it still overlaps the sliding window
+local used = current + math.floor(previous * (window - elapsed) / window)
+
+local granted = math.min(lease, limit - used)
+if granted <= 0 then
+    return 0
+end
+
+redis.call('INCRBY', KEYS[1], granted)
+redis.call('PEXPIRE', KEYS[1], window * 2) -- Must outlive the next window, which reads it as previous
+return granted
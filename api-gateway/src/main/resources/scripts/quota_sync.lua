@@ -0,0 +1,23 @@
+-- KEYS: [metadata_key, hourly_key, daily_key, monthly_key]
+-- ARGV: [requests, hourly_ttl_s, daily_ttl_s, monthly_ttl_s]
+-- Returns: [tier, hourly_limit, daily_limit, monthly_limit, hourly_total, daily_total, monthly_total]
+-- Metadata fields that are not set come back as ''.
+
+local requests = tonumber(ARGV[1])
+local metadata = redis.call('HMGET', KEYS[1], 'tier', 'hourly', 'daily', 'monthly')
+
+local result = {}
+for i = 1, 4 do
+    result[i] = metadata[i] or ''
+end
+
+for i = 2, 4 do
+    if requests ~= 0 then
+        result[i + 3] = redis.call('INCRBY', KEYS[i], requests)
+        redis.call('EXPIRE', KEYS[i], tonumber(ARGV[i]))
+    else
+        result[i + 3] = tonumber(redis.call('GET', KEYS[i]) or '0')
+    end
+end
+
+return result
@@ -0,0 +1,34 @@
+-- KEYS: [key1, key2, ...]
+-- ARGV: [current_timestamp, algorithm1, limit1, window_ms1, algorithm2, limit2, window_ms2, ...]
+-- Returns: 0 if allowed, otherwise the 1-based index of the first key whose limit
+--          was exceeded, so the caller can tell which dimension tripped
+--
+-- The algorithm modules under scripts/algorithms/ are prepended to this script
+-- by RateLimitScripts and register themselves in the `algorithms` table.
+
+local now = tonumber(ARGV[1])
+local n_keys = #KEYS
+local states = {}
+
+-- First pass: Check every limit without modifying anything
+for i = 1, n_keys do
+    local base = (i - 1) * 3 + 1
+    local algorithm = algorithms[ARGV[base + 1]]
+    local limit = tonumber(ARGV[base + 2])
+    local window = tonumber(ARGV[base + 3])
+
+    local allowed, state = algorithm.check(KEYS[i], limit, window, now)
+    if not allowed then
+        return i -- Blocked by KEYS[i]
+    end
+    states[i] = state
+end
+
+-- Second pass: Record the request (only if no limit exceeded)
+for i = 1, n_keys do
+    local base = (i - 1) * 3 + 1
+    local algorithm = algorithms[ARGV[base + 1]]
+    algorithm.commit(KEYS[i], tonumber(ARGV[base + 2]), tonumber(ARGV[base + 3]), now, states[i])
+end
+
+return 0 -- Allowed
@@ -0,0 +1,50 @@
+-- KEYS: keys of every request in the batch, request after request
+-- ARGV: [current_timestamp, n_requests,
+--        n_keys1, algorithm, limit, window_ms, algorithm, limit, window_ms, ...,
+--        n_keys2, ...]
+-- Returns: one verdict per request, in order: 0 if allowed, otherwise the 1-based
+--          index, within that request's keys, of the first limit exceeded
+--
+-- Same per-request semantics as rate_limit.lua; requests are evaluated in
+-- arrival order so later requests in the batch see earlier admissions.
+
+local now = tonumber(ARGV[1])
+local n_requests = tonumber(ARGV[2])
+local verdicts = {}
+local key_index = 1
+local arg_index = 3
+
+for r = 1, n_requests do
+    local n_keys = tonumber(ARGV[arg_index])
+    arg_index = arg_index + 1
+
+    local states = {}
+    local verdict = 0
+
+    -- First pass: Check every limit of this request
+    for i = 0, n_keys - 1 do
+        local base = arg_index + i * 3
+        local algorithm = algorithms[ARGV[base]]
+        local allowed, state = algorithm.check(KEYS[key_index + i], tonumber(ARGV[base + 1]), tonumber(ARGV[base + 2]), now)
+        if not allowed then
+            verdict = i + 1 -- Blocked by this request's (i + 1)th key
+            break
+        end
+        states[i + 1] = state
+    end
+
+    -- Second pass: Record the request (only if no limit exceeded)
+    if verdict == 0 then
+        for i = 0, n_keys - 1 do
+            local base = arg_index + i * 3
+            local algorithm = algorithms[ARGV[base]]
+            algorithm.commit(KEYS[key_index + i], tonumber(ARGV[base + 1]), tonumber(ARGV[base + 2]), now, states[i + 1])
+        end
+    end
+
+    verdicts[r] = verdict
+    key_index = key_index + n_keys
+    arg_index = arg_index + n_keys * 3
+end
+
+return verdicts
@@ -0,0 +1,9 @@
+-- KEYS: [window_key]
+-- ARGV: [unused_tokens]
+-- Returns: remaining count for the window (0 if the window already expired)
+
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return 0 -- Never recreate an expired window key without a TTL
+end
+
+return redis.call('DECRBY', KEYS[1], tonumber(ARGV[1]))
@@ -0,0 +1,64 @@
+package com.example.apigateway.auth;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CredentialCacheTest {
+
+    private static final long NOW = 1_000_000;
+    private static final long TTL = 60_000;
+
+    @Test
+    void evictsOldestEntriesWhenFull() {
+        CredentialCache<String> cache = new CredentialCache<>(3, 3);
+        for (int i = 0; i < 4; i++) {
+            cache.put("token-" + i, "user-" + i, NOW + TTL, NOW);
+        }
+
+        assertThat(cache.size()).isEqualTo(3);
+        assertThat(cache.get("token-0", NOW)).isNull();
+        assertThat(cache.get("token-3", NOW).value()).isEqualTo("user-3");
+    }
+
+    @Test
+    void rejectedCredentialsCannotPushOutValidOnes() {
+        CredentialCache<String> cache = new CredentialCache<>(10, 2);
+        for (int i = 0; i < 5; i++) {
+            cache.put("valid-" + i, "user-" + i, NOW + TTL, NOW);
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            cache.put("forged-" + i, null, NOW + TTL, NOW);
+        }
+
+        assertThat(cache.size()).isEqualTo(7);
+        for (int i = 0; i < 5; i++) {
+            assertThat(cache.get("valid-" + i, NOW).value()).isEqualTo("user-" + i);
+        }
+        // The newest rejections are still remembered
+        assertThat(cache.get("forged-999", NOW)).isNotNull();
+        assertThat(cache.get("forged-997", NOW)).isNull();
+    }
+
+    @Test
+    void replacingARejectionFreesItsNegativeSlot() {
+        CredentialCache<String> cache = new CredentialCache<>(10, 1);
+        cache.put("key", null, NOW + TTL, NOW);
+        cache.put("key", "client", NOW + TTL, NOW);
+        cache.put("other", null, NOW + TTL, NOW);
+
+        assertThat(cache.get("key", NOW).value()).isEqualTo("client");
+        assertThat(cache.get("other", NOW)).isNotNull();
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    void expiredEntriesAreDroppedOnAccess() {
+        CredentialCache<String> cache = new CredentialCache<>(10, 10);
+        cache.put("token", "user", NOW + 10, NOW);
+
+        assertThat(cache.get("token", NOW + 10)).isNull();
+        assertThat(cache.size()).isZero();
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.apigateway.filter;
+
+import com.example.apigateway.auth.RequestAuthenticator;
+import com.example.apigateway.config.AuthProperties;
+import com.example.apigateway.context.RequestContext;
+import com.example.apigateway.quota.QuotaDecision;
+import com.example.apigateway.quota.QuotaService;
+import com.example.apigateway.service.IpDenyList;
+import com.example.apigateway.service.RateLimitDecision;
+import com.example.apigateway.service.RedisRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AuthFilterTest {
+
+    private static final String IP = "10.0.0.9";
+
+    private final RequestAuthenticator authenticator = mock(RequestAuthenticator.class);
+    private final RedisRateLimiter rateLimiter = mock(RedisRateLimiter.class);
+    private final IpDenyList denyList = mock(IpDenyList.class);
+    private final QuotaService quotaService = mock(QuotaService.class);
+    private final AuthProperties properties = new AuthProperties();
+    private final AtomicBoolean forwarded = new AtomicBoolean();
+
+    @Test
+    void invalidCredentialsFromABannedIpGetTheBan() {
+        when(denyList.isDenied(IP)).thenReturn(true);
+
+        MockServerWebExchange exchange = run(invalidBearer());
+
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+        verify(rateLimiter, never()).check(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void invalidCredentialsCountAgainstTheIpLimit() {
+        when(rateLimiter.check(eq(IP), isNull(), isNull(), anyString(), anyString()))
+                .thenReturn(Mono.just(RateLimitDecision.ALLOWED), Mono.just(RateLimitDecision.BLOCKED));
+
+        MockServerWebExchange first = run(invalidBearer());
+        assertThat(first.getResponse().getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(first.getResponse().getHeaders().getFirst(HttpHeaders.WWW_AUTHENTICATE))
+                .isEqualTo("Bearer error=\"invalid_token\"");
+        assertThat(RequestContext.of(first).isBlocked()).isFalse();
+
+        MockServerWebExchange second = run(invalidBearer());
+        assertThat(second.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(RequestContext.of(second).isBlocked()).isTrue();
+
+        assertThat(forwarded).isFalse();
+        verify(quotaService, never()).tryAcquire(any());
+    }
+
+    @Test
+    void anonymousModeForwardsInvalidCredentialsWithoutThem() {
+        properties.setInvalidCredentials(AuthProperties.InvalidCredentials.ANONYMOUS);
+        when(quotaService.tryAcquire(null)).thenReturn(Mono.just(QuotaDecision.UNLIMITED));
+        when(rateLimiter.check(eq(IP), isNull(), isNull(), anyString(), anyString()))
+                .thenReturn(Mono.just(RateLimitDecision.ALLOWED));
+
+        MockServerWebExchange exchange = run(invalidBearer());
+
+        assertThat(forwarded).isTrue();
+        assertThat(RequestContext.of(exchange).isCredentialsRejected()).isFalse();
+    }
+
+    private MockServerWebExchange run(MockServerHttpRequest request) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AuthFilter authFilter = new AuthFilter(authenticator, properties, meterRegistry);
+        RateLimitFilter rateLimitFilter = new RateLimitFilter(rateLimiter, denyList, quotaService, meterRegistry);
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+
+        authFilter.filter(exchange, authenticated -> rateLimitFilter.filter(authenticated, limited -> {
+            forwarded.set(true);
+            return Mono.empty();
+        })).block();
+        return exchange;
+    }
+
+    private MockServerHttpRequest invalidBearer() {
+        when(authenticator.authenticateBearer("Bearer forged")).thenReturn(null);
+        return MockServerHttpRequest.get("/api/v1/orders")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer forged")
+                .remoteAddress(new InetSocketAddress(IP, 40000))
+                .build();
+    }
+}
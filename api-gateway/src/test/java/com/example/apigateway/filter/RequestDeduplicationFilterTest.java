@@ -0,0 +1,167 @@
+package com.example.apigateway.filter;
+
+import com.example.apigateway.config.UpstreamProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+class RequestDeduplicationFilterTest {
+
+    private static final String ROUTE_ID = "users";
+    private static final String PATH = "/api/v1/users";
+    private static final Route ROUTE = Route.async().id(ROUTE_ID).uri("http://backend").predicate(exchange -> true)
+            .build();
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final UpstreamProperties.Dedup dedup = new UpstreamProperties.Dedup();
+    private final AtomicInteger backendCalls = new AtomicInteger();
+
+    @Test
+    void concurrentDuplicatesShareOneUpstreamResponse() {
+        RequestDeduplicationFilter filter = filter();
+        MockServerWebExchange leader = exchange(MockServerHttpRequest.get(PATH));
+        MockServerWebExchange duplicate = exchange(MockServerHttpRequest.get(PATH));
+
+        runConcurrently(filter, leader, duplicate, respond("users", Duration.ofMillis(200)));
+
+        assertThat(backendCalls).hasValue(1);
+        assertThat(duplicate.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(duplicate.getResponse().getHeaders().getFirst("X-Backend")).isEqualTo("1");
+        assertThat(duplicate.getResponse().getBodyAsString().block()).isEqualTo("users-1");
+        assertThat(outcome("leader")).isOne();
+        assertThat(outcome("joined")).isOne();
+    }
+
+    @Test
+    void requestsWithDifferentCredentialsAreNotShared() {
+        RequestDeduplicationFilter filter = filter();
+        MockServerWebExchange alice = exchange(MockServerHttpRequest.get(PATH)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer alice"));
+        MockServerWebExchange bob = exchange(MockServerHttpRequest.get(PATH)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer bob"));
+
+        runConcurrently(filter, alice, bob, respond("users", Duration.ofMillis(200)));
+
+        assertThat(backendCalls).hasValue(2);
+        assertThat(outcome("leader")).isEqualTo(2);
+    }
+
+    @Test
+    void differentQueriesAreNotShared() {
+        RequestDeduplicationFilter filter = filter();
+
+        runConcurrently(filter, exchange(MockServerHttpRequest.get(PATH + "?page=1")),
+                exchange(MockServerHttpRequest.get(PATH + "?page=2")), respond("users", Duration.ofMillis(200)));
+
+        assertThat(backendCalls).hasValue(2);
+    }
+
+    @Test
+    void methodsNotListedGoUpstreamEveryTime() {
+        RequestDeduplicationFilter filter = filter();
+
+        runConcurrently(filter, exchange(MockServerHttpRequest.post(PATH)), exchange(MockServerHttpRequest.post(PATH)),
+                respond("created", Duration.ofMillis(200)));
+
+        assertThat(backendCalls).hasValue(2);
+        assertThat(registry.find("gateway.upstream.dedup").tag("outcome", "leader").counter().count()).isZero();
+    }
+
+    @Test
+    void responseTooLargeToShareSendsTheDuplicateUpstream() {
+        dedup.setMaxBodyBytes(4);
+        RequestDeduplicationFilter filter = filter();
+        MockServerWebExchange duplicate = exchange(MockServerHttpRequest.get(PATH));
+
+        runConcurrently(filter, exchange(MockServerHttpRequest.get(PATH)), duplicate,
+                respond("users", Duration.ofMillis(200)));
+
+        assertThat(backendCalls).hasValue(2);
+        assertThat(duplicate.getResponse().getBodyAsString().block()).isEqualTo("users-2");
+        assertThat(outcome("fallback")).isOne();
+    }
+
+    @Test
+    void duplicateGoesUpstreamWhenTheLeaderFails() {
+        RequestDeduplicationFilter filter = filter();
+        MockServerWebExchange duplicate = exchange(MockServerHttpRequest.get(PATH));
+        GatewayFilterChain failingFirst = exchange -> backendCalls.get() == 0
+                ? Mono.delay(Duration.ofMillis(200)).then(Mono.fromRunnable(backendCalls::incrementAndGet))
+                        .then(Mono.error(new IllegalStateException("connection reset")))
+                : respond("users", Duration.ZERO).filter(exchange);
+
+        Mono.when(filter.filter(exchange(MockServerHttpRequest.get(PATH)), failingFirst).onErrorResume(e -> Mono.empty()),
+                        Mono.delay(Duration.ofMillis(50)).then(filter.filter(duplicate, failingFirst)))
+                .block(Duration.ofSeconds(5));
+
+        assertThat(duplicate.getResponse().getBodyAsString().block()).isEqualTo("users-2");
+        assertThat(outcome("fallback")).isOne();
+    }
+
+    @Test
+    void laterIdenticalRequestIsNotJoinedToAFinishedOne() {
+        RequestDeduplicationFilter filter = filter();
+        GatewayFilterChain backend = respond("users", Duration.ZERO);
+
+        filter.filter(exchange(MockServerHttpRequest.get(PATH)), backend).block(Duration.ofSeconds(5));
+        MockServerWebExchange later = exchange(MockServerHttpRequest.get(PATH));
+        filter.filter(later, backend).block(Duration.ofSeconds(5));
+
+        assertThat(backendCalls).hasValue(2);
+        assertThat(later.getResponse().getBodyAsString().block()).isEqualTo("users-2");
+    }
+
+    private void runConcurrently(RequestDeduplicationFilter filter, MockServerWebExchange first,
+            MockServerWebExchange second, GatewayFilterChain backend) {
+        Mono.when(filter.filter(first, backend), Mono.delay(Duration.ofMillis(50)).then(filter.filter(second, backend)))
+                .block(Duration.ofSeconds(5));
+    }
+
+    /** A backend answering {@code body-<call>} after {@code latency}. */
+    private GatewayFilterChain respond(String body, Duration latency) {
+        return exchange -> Mono.delay(latency).then(Mono.defer(() -> {
+            int call = backendCalls.incrementAndGet();
+            byte[] bytes = (body + "-" + call).getBytes(StandardCharsets.UTF_8);
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.OK);
+            response.getHeaders().set("X-Backend", String.valueOf(call));
+            response.getHeaders().setContentLength(bytes.length);
+            DataBuffer buffer = response.bufferFactory().wrap(bytes);
+            return response.writeWith(Mono.just(buffer));
+        }));
+    }
+
+    private double outcome(String outcome) {
+        return registry.get("gateway.upstream.dedup").tag("route", ROUTE_ID).tag("outcome", outcome).counter().count();
+    }
+
+    private static MockServerWebExchange exchange(MockServerHttpRequest.BaseBuilder<?> request) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        exchange.getAttributes().put(GATEWAY_ROUTE_ATTR, ROUTE);
+        return exchange;
+    }
+
+    private RequestDeduplicationFilter filter() {
+        dedup.setEnabled(true);
+        UpstreamProperties properties = new UpstreamProperties();
+        UpstreamProperties.Route route = new UpstreamProperties.Route();
+        route.setDedup(dedup);
+        properties.getRoutes().put(ROUTE_ID, route);
+        return new RequestDeduplicationFilter(properties, registry);
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.apigateway.filter;
+
+import com.example.apigateway.cache.ResponseCache;
+import com.example.apigateway.config.ResponseCacheProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCacheFilterTest {
+
+    private static final String PATH = "/api/v1/users";
+    private static final String ETAG = "\"v1\"";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ResponseCacheFilter filter = new ResponseCacheFilter(cache(), registry);
+    private final AtomicInteger backendCalls = new AtomicInteger();
+    private final List<String> conditionalEtags = new ArrayList<>();
+
+    @Test
+    void credentialedResponseIsNotStoredWithoutASharedDirective() {
+        GatewayFilterChain backend = respond("max-age=60", Duration.ZERO);
+
+        run(request().header(HttpHeaders.AUTHORIZATION, "Bearer alice"), backend);
+        MockServerWebExchange second = run(request().header(HttpHeaders.AUTHORIZATION, "Bearer bob"), backend);
+
+        assertThat(backendCalls).hasValue(2);
+        assertThat(second.getResponse().getHeaders().getFirst(ResponseCacheFilter.HEADER_CACHE)).isEqualTo("MISS");
+    }
+
+    @Test
+    void apiKeyCountsAsACredential() {
+        GatewayFilterChain backend = respond("max-age=60", Duration.ZERO);
+
+        run(request().header("X-API-KEY", "key-a"), backend);
+        run(request().header("X-API-KEY", "key-b"), backend);
+
+        assertThat(backendCalls).hasValue(2);
+    }
+
+    @Test
+    void credentialedResponseMarkedPublicIsShared() {
+        GatewayFilterChain backend = respond("public, max-age=60", Duration.ZERO);
+
+        run(request().header(HttpHeaders.AUTHORIZATION, "Bearer alice"), backend);
+        MockServerWebExchange second = run(request().header(HttpHeaders.AUTHORIZATION, "Bearer bob"), backend);
+
+        assertThat(backendCalls).hasValue(1);
+        assertThat(second.getResponse().getHeaders().getFirst(ResponseCacheFilter.HEADER_CACHE)).isEqualTo("HIT");
+        assertThat(second.getResponse().getBodyAsString().block()).isEqualTo("users-1");
+    }
+
+    @Test
+    void anonymousResponseIsStored() {
+        GatewayFilterChain backend = respond("max-age=60", Duration.ZERO);
+
+        run(request(), backend);
+        MockServerWebExchange second = run(request(), backend);
+
+        assertThat(backendCalls).hasValue(1);
+        assertThat(second.getResponse().getBodyAsString().block()).isEqualTo("users-1");
+        assertThat(outcome("hit")).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentMissesShareOneUpstreamCall() {
+        GatewayFilterChain backend = respond("max-age=60", Duration.ofMillis(200));
+        MockServerWebExchange leader = MockServerWebExchange.from(request());
+        MockServerWebExchange follower = MockServerWebExchange.from(request());
+
+        Mono.when(filter.filter(leader, backend),
+                        Mono.delay(Duration.ofMillis(50)).then(filter.filter(follower, backend)))
+                .block(Duration.ofSeconds(5));
+
+        assertThat(backendCalls).hasValue(1);
+        assertThat(follower.getResponse().getBodyAsString().block()).isEqualTo("users-1");
+        assertThat(outcome("coalesced")).isEqualTo(1);
+    }
+
+    @Test
+    void staleResponseIsRevalidatedWithItsEtag() {
+        GatewayFilterChain backend = respond("max-age=0", Duration.ZERO);
+
+        run(request(), backend);
+        MockServerWebExchange revalidated = run(request(), backend);
+        MockServerWebExchange fresh = run(request(), backend);
+
+        assertThat(conditionalEtags).containsExactly(ETAG);
+        assertThat(backendCalls).hasValue(2);
+        assertThat(revalidated.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(revalidated.getResponse().getBodyAsString().block()).isEqualTo("users-1");
+        assertThat(fresh.getResponse().getHeaders().getFirst(ResponseCacheFilter.HEADER_CACHE)).isEqualTo("HIT");
+        assertThat(outcome("revalidated")).isEqualTo(1);
+    }
+
+    private MockServerWebExchange run(MockServerHttpRequest.BaseBuilder<?> request, GatewayFilterChain backend) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        filter.filter(exchange, backend).block(Duration.ofSeconds(5));
+        return exchange;
+    }
+
+    /**
+     * A backend answering with {@code cacheControl} and an ETag, and with a 304
+     * that makes the response fresh for a minute when asked for that ETag.
+     */
+    private GatewayFilterChain respond(String cacheControl, Duration latency) {
+        return exchange -> Mono.delay(latency).then(Mono.defer(() -> {
+            int call = backendCalls.incrementAndGet();
+            ServerHttpResponse response = exchange.getResponse();
+            String ifNoneMatch = exchange.getRequest().getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH);
+            if (ifNoneMatch != null) {
+                conditionalEtags.add(ifNoneMatch);
+            }
+            if (ETAG.equals(ifNoneMatch)) {
+                response.setStatusCode(HttpStatus.NOT_MODIFIED);
+                response.getHeaders().setCacheControl("max-age=60");
+                return response.setComplete();
+            }
+            byte[] body = ("users-" + call).getBytes(StandardCharsets.UTF_8);
+            response.setStatusCode(HttpStatus.OK);
+            response.getHeaders().setCacheControl(cacheControl);
+            response.getHeaders().setETag(ETAG);
+            response.getHeaders().setContentLength(body.length);
+            DataBuffer buffer = response.bufferFactory().wrap(body);
+            return response.writeWith(Mono.just(buffer));
+        }));
+    }
+
+    private double outcome(String outcome) {
+        return registry.get("gateway.cache.requests").tag("outcome", outcome).counter().count();
+    }
+
+    private static MockServerHttpRequest.BaseBuilder<?> request() {
+        return MockServerHttpRequest.get(PATH);
+    }
+
+    private ResponseCache cache() {
+        ResponseCacheProperties properties = new ResponseCacheProperties();
+        properties.setEnabled(true);
+        ResponseCacheProperties.Route route = new ResponseCacheProperties.Route();
+        route.setPath(PATH);
+        properties.setRoutes(List.of(route));
+        return new ResponseCache(properties, null, registry);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.apigateway.quota;
+
+import com.example.apigateway.config.QuotaProperties;
+import com.example.apigateway.config.RateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class QuotaServiceTest {
+
+    private static final String API_KEY = "secret-key";
+
+    private final ReactiveStringRedisTemplate redisTemplate = mock(ReactiveStringRedisTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void slowRedisLoadFallsBackToTheTierLimits() {
+        // Redis never answers the first sync
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyList())).thenReturn(Flux.never());
+        QuotaService quotaService = quotaService(Duration.ofMillis(50));
+
+        long start = System.nanoTime();
+        QuotaDecision first = quotaService.tryAcquire(API_KEY).block(Duration.ofSeconds(1));
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(500));
+        assertThat(first.allowed()).isTrue();
+        assertThat(first.period()).isEqualTo(QuotaPeriod.HOURLY);
+        assertThat(first.limit()).isEqualTo(2);
+        assertThat(quotaService.tryAcquire(API_KEY).block().allowed()).isTrue();
+        assertThat(quotaService.tryAcquire(API_KEY).block().allowed()).isFalse();
+        assertThat(meterRegistry.counter("gateway.quota.sync.failures").count()).isOne();
+    }
+
+    @Test
+    void laterSyncReconcilesAKeyLoadedOnFallbackLimits() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyList()))
+                .thenReturn(Flux.never())
+                // The key's metadata raises the hourly limit; 5 requests already counted elsewhere
+                .thenReturn(Flux.just(List.of("", "10", "", "", 5L, 5L, 5L)));
+        QuotaService quotaService = quotaService(Duration.ofMillis(50));
+        assertThat(quotaService.tryAcquire(API_KEY).block().limit()).isEqualTo(2);
+
+        quotaService.sync();
+
+        QuotaDecision decision = quotaService.tryAcquire(API_KEY).block();
+        assertThat(decision.limit()).isEqualTo(10);
+        assertThat(decision.remaining()).isEqualTo(10 - 5 - 1);
+    }
+
+    @Test
+    void unknownTierFallsBackToTheDefaultTier() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyList()))
+                .thenReturn(Flux.just(List.of("enterprize", "", "", "", 0L, 0L, 0L)));
+        QuotaService quotaService = quotaService(Duration.ofSeconds(1));
+
+        assertThat(quotaService.tryAcquire(API_KEY).block().limit()).isEqualTo(2);
+        assertThat(quotaService.tryAcquire(API_KEY).block().allowed()).isTrue();
+        assertThat(quotaService.tryAcquire(API_KEY).block().allowed()).isFalse();
+        assertThat(meterRegistry.counter("gateway.quota.unknown.tier").count()).isOne();
+    }
+
+    private QuotaService quotaService(Duration timeout) {
+        QuotaProperties.Tier tier = new QuotaProperties.Tier();
+        tier.setHourly(2);
+        QuotaProperties properties = new QuotaProperties();
+        properties.getTiers().put("default", tier);
+        RateLimitProperties rateLimitProperties = new RateLimitProperties();
+        rateLimitProperties.getResilience().setTimeout(timeout);
+        return new QuotaService(redisTemplate, properties, rateLimitProperties, meterRegistry);
+    }
+}
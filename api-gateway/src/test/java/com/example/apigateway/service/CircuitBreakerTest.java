@@ -0,0 +1,95 @@
+package com.example.apigateway.service;
+
+import com.example.apigateway.config.RateLimitProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+
+    private static final int HALF_OPEN_CALLS = 5;
+
+    @Test
+    void opensOnceFailureRateReachesThreshold() {
+        CircuitBreaker breaker = breaker(Duration.ofSeconds(10), Duration.ofSeconds(10));
+
+        for (int i = 0; i < 10; i++) {
+            breaker.onSuccess();
+        }
+        for (int i = 0; i < 9; i++) {
+            breaker.onFailure();
+        }
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+        breaker.onFailure();
+
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void refusedCallersDoNotUseUpHalfOpenProbes() throws InterruptedException {
+        CircuitBreaker breaker = openBreaker(Duration.ofMillis(10), Duration.ofSeconds(10));
+        Thread.sleep(20);
+
+        long permitted = IntStream.range(0, 100).filter(i -> breaker.tryAcquire()).count();
+        assertThat(permitted).isEqualTo(HALF_OPEN_CALLS);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+
+        // One probe is cancelled; its slot goes to the next caller, and the breaker still closes
+        breaker.onCancel();
+        for (int i = 0; i < HALF_OPEN_CALLS - 1; i++) {
+            breaker.onSuccess();
+        }
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onSuccess();
+
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void reopensWhenProbesDoNotFinishInTime() throws InterruptedException {
+        CircuitBreaker breaker = openBreaker(Duration.ofMillis(10), Duration.ofMillis(30));
+        Thread.sleep(20);
+        IntStream.range(0, HALF_OPEN_CALLS).forEach(i -> breaker.tryAcquire());
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+
+        Thread.sleep(40);
+
+        assertThat(breaker.tryAcquire()).isFalse();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void anyFailedProbeReopens() throws InterruptedException {
+        CircuitBreaker breaker = openBreaker(Duration.ofMillis(10), Duration.ofSeconds(10));
+        Thread.sleep(20);
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onFailure();
+
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    private static CircuitBreaker openBreaker(Duration openDuration, Duration halfOpenTimeout) {
+        CircuitBreaker breaker = breaker(openDuration, halfOpenTimeout);
+        for (int i = 0; i < 20; i++) {
+            breaker.onFailure();
+        }
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        return breaker;
+    }
+
+    private static CircuitBreaker breaker(Duration openDuration, Duration halfOpenTimeout) {
+        RateLimitProperties.Breaker config = new RateLimitProperties.Breaker();
+        config.setFailureRateThreshold(50);
+        config.setMinimumCalls(20);
+        config.setWindowSize(100);
+        config.setOpenDuration(openDuration);
+        config.setHalfOpenCalls(HALF_OPEN_CALLS);
+        config.setHalfOpenTimeout(halfOpenTimeout);
+        return new CircuitBreaker(config, (from, to) -> { });
+    }
+}
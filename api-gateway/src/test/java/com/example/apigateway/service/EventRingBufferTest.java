@@ -0,0 +1,87 @@
+package com.example.apigateway.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventRingBufferTest {
+
+    @Test
+    void roundsCapacityUpToAPowerOfTwo() {
+        assertThat(new EventRingBuffer<>(1000).capacity()).isEqualTo(1024);
+        assertThat(new EventRingBuffer<>(1024).capacity()).isEqualTo(1024);
+    }
+
+    @Test
+    void refusesOffersWhenFullAndKeepsFifoOrder() {
+        EventRingBuffer<Integer> ring = new EventRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(ring.offer(i)).isTrue();
+        }
+        assertThat(ring.offer(4)).isFalse();
+        assertThat(ring.size()).isEqualTo(4);
+
+        assertThat(ring.poll()).isZero();
+        assertThat(ring.offer(4)).isTrue();
+        for (int i = 1; i <= 4; i++) {
+            assertThat(ring.poll()).isEqualTo(i);
+        }
+        assertThat(ring.poll()).isNull();
+    }
+
+    @Test
+    void concurrentOffersAndPollsHandOutEachElementOnce() throws InterruptedException {
+        EventRingBuffer<Integer> ring = new EventRingBuffer<>(64);
+        int producers = 4;
+        int perProducer = 50_000;
+        Set<Integer> seen = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(producers);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            executor.execute(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    // Like DROP_OLDEST: a full ring is made room for by polling from the producer
+                    if (!ring.offer(base + i)) {
+                        Integer oldest = ring.poll();
+                        if (oldest != null && !seen.add(oldest)) {
+                            duplicates.incrementAndGet();
+                        }
+                        if (!ring.offer(base + i)) {
+                            refused.incrementAndGet();
+                        }
+                    }
+                }
+                done.countDown();
+            });
+        }
+        while (done.getCount() > 0) {
+            Integer element = ring.poll();
+            if (element != null && !seen.add(element)) {
+                duplicates.incrementAndGet();
+            }
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        Integer element;
+        while ((element = ring.poll()) != null) {
+            if (!seen.add(element)) {
+                duplicates.incrementAndGet();
+            }
+        }
+
+        assertThat(duplicates).hasValue(0);
+        assertThat(seen.size() + refused.get()).isEqualTo(producers * perProducer);
+    }
+}
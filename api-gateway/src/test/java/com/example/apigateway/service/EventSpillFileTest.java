@@ -0,0 +1,110 @@
+package com.example.apigateway.service;
+
+import com.example.events.RequestEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventSpillFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysAppendedEventsInOrderAndDeletesTheFiles() throws IOException {
+        EventSpillFile spill = new EventSpillFile(directory, 1024 * 1024);
+        spill.append(event(1));
+        spill.append(event(2));
+
+        List<RequestEvent> replayed = new ArrayList<>();
+        assertThat(spill.replay(replayed::add)).isEqualTo(2);
+
+        assertThat(replayed).containsExactly(event(1), event(2));
+        assertThat(spill.hasPending()).isFalse();
+        assertThat(spillFiles()).isEmpty();
+    }
+
+    @Test
+    void eventsAppendedDuringReplayWaitForTheNextOne() {
+        EventSpillFile spill = new EventSpillFile(directory, 1024 * 1024);
+        spill.append(event(1));
+
+        List<RequestEvent> replayed = new ArrayList<>();
+        spill.replay(replayed::add);
+        spill.append(event(2));
+        assertThat(spill.hasPending()).isTrue();
+
+        spill.replay(replayed::add);
+        assertThat(replayed).containsExactly(event(1), event(2));
+        assertThat(spill.hasPending()).isFalse();
+    }
+
+    @Test
+    void appendWhileReplayingIsNeitherReadNorDeleted() throws IOException {
+        EventSpillFile spill = new EventSpillFile(directory, 1024 * 1024);
+        spill.append(event(1));
+
+        // The sink runs after the snapshot, so this append lands in a file the replay must not touch
+        spill.replay(event -> spill.append(event(2)));
+
+        assertThat(spill.hasPending()).isTrue();
+        assertThat(spillFiles()).hasSize(1);
+        List<RequestEvent> replayed = new ArrayList<>();
+        spill.replay(replayed::add);
+        assertThat(replayed).containsExactly(event(2));
+    }
+
+    @Test
+    void refusesAppendsBeyondMaxBytesUntilReplayed() {
+        EventSpillFile spill = new EventSpillFile(directory, 200);
+        int accepted = 0;
+        while (spill.append(event(accepted))) {
+            accepted++;
+        }
+        assertThat(accepted).isPositive();
+
+        spill.replay(event -> { });
+        assertThat(spill.append(event(0))).isTrue();
+    }
+
+    @Test
+    void replaysFilesLeftByAPreviousRun() {
+        EventSpillFile previous = new EventSpillFile(directory, 1024 * 1024);
+        previous.append(event(1));
+        previous.flush();
+
+        EventSpillFile spill = new EventSpillFile(directory, 1024 * 1024);
+        assertThat(spill.hasPending()).isTrue();
+        List<RequestEvent> replayed = new ArrayList<>();
+        spill.replay(replayed::add);
+        assertThat(replayed).containsExactly(event(1));
+    }
+
+    private List<Path> spillFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.toList();
+        }
+    }
+
+    private static RequestEvent event(int id) {
+        return RequestEvent.builder()
+                .timestampMicros(1_700_000_000_000_000L + id)
+                .requestIdHigh(id)
+                .requestIdLow(id)
+                .ip("10.0.0." + id)
+                .endpoint("/api/v1/orders")
+                .method("GET")
+                .status(200)
+                .latencyMs(id)
+                .type(RequestEvent.EventType.ALLOWED)
+                .build();
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.apigateway.service;
+
+import com.example.events.IpBan;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.TopicPartitionOffset;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IpBanListenerTest {
+
+    @Test
+    void readsEveryBanPartitionFromTheStartWithoutAGroup() {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(ListenerConfig.class)) {
+            MessageListenerContainer container = context.getBean(KafkaListenerEndpointRegistry.class)
+                    .getListenerContainer("ip-ban-listener");
+
+            assertThat(container.getGroupId()).isNull();
+            assertThat(container.getContainerProperties().getTopicPartitions())
+                    .containsExactly(new TopicPartitionOffset(IpBan.TOPIC, 0, 0L));
+        }
+    }
+
+    @Configuration
+    @EnableKafka
+    @Import(IpBanListener.class)
+    static class ListenerConfig {
+
+        @Bean
+        IpDenyList ipDenyList() {
+            return new IpDenyList(new SimpleMeterRegistry());
+        }
+
+        @Bean
+        ConcurrentKafkaListenerContainerFactory<String, String> kafkaListenerContainerFactory() {
+            ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
+            factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(Map.of("bootstrap.servers", "localhost:1")));
+            // Never connects; only the endpoint the annotation describes is checked
+            factory.setAutoStartup(false);
+            return factory;
+        }
+    }
+}
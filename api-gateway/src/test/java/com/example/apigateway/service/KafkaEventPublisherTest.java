@@ -0,0 +1,119 @@
+package com.example.apigateway.service;
+
+import com.example.apigateway.config.EventPublisherProperties;
+import com.example.events.RequestEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class KafkaEventPublisherTest {
+
+    @TempDir
+    Path spillDirectory;
+
+    private final AtomicBoolean brokerUp = new AtomicBoolean();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private KafkaEventPublisher publisher;
+
+    @AfterEach
+    void stop() {
+        if (publisher != null) {
+            publisher.stop();
+        }
+    }
+
+    @Test
+    void overflowIsWrittenByTheDrainerNotTheCaller() throws IOException {
+        publisher = publisher();
+
+        for (int i = 0; i < 8; i++) {
+            publisher.publishEvent(event(i));
+        }
+
+        // Four fit the ring and four the spill buffer; nothing has touched the disk yet
+        assertThat(spillFiles()).isEmpty();
+        assertThat(meterRegistry.counter("events.publisher.dropped", "reason", "spill_full").count()).isZero();
+        publisher.publishEvent(event(8));
+        assertThat(meterRegistry.counter("events.publisher.dropped", "reason", "spill_full").count()).isOne();
+
+        publisher.start();
+        await().atMost(Duration.ofSeconds(5))
+                .until(() -> meterRegistry.counter("events.publisher.spilled").count() == 4);
+    }
+
+    @Test
+    void spilledEventsWaitForASuccessfulSend() {
+        publisher = publisher();
+        for (int i = 0; i < 8; i++) {
+            publisher.publishEvent(event(i));
+        }
+        publisher.start();
+        await().atMost(Duration.ofSeconds(5))
+                .until(() -> meterRegistry.counter("events.publisher.spilled").count() == 4);
+
+        // Kafka keeps failing: the ring is empty, but the spill is not replayed
+        await().during(Duration.ofMillis(200)).atMost(Duration.ofSeconds(1))
+                .until(() -> !spillFiles().isEmpty());
+        assertThat(meterRegistry.timer("events.publisher.send.latency", "topic", "api-requests", "outcome", "failure")
+                .count()).isEqualTo(4);
+
+        brokerUp.set(true);
+        publisher.publishEvent(event(9));
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> spillFiles().isEmpty());
+        assertThat(meterRegistry.timer("events.publisher.send.latency", "topic", "api-requests", "outcome", "success")
+                .count()).isEqualTo(5);
+    }
+
+    private KafkaEventPublisher publisher() {
+        EventPublisherProperties properties = new EventPublisherProperties();
+        properties.setCapacity(4);
+        properties.setSpillBufferCapacity(4);
+        properties.setOverflow(EventPublisherProperties.OverflowPolicy.SPILL);
+        properties.setSpillDirectory(spillDirectory.toString());
+
+        @SuppressWarnings("unchecked")
+        KafkaTemplate<String, RequestEvent> template = mock(KafkaTemplate.class);
+        when(template.send(anyString(), any(), any(RequestEvent.class))).thenAnswer(invocation -> brokerUp.get()
+                ? CompletableFuture.completedFuture(mock(SendResult.class))
+                : CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+        return new KafkaEventPublisher(template, properties, meterRegistry);
+    }
+
+    private List<Path> spillFiles() throws IOException {
+        try (Stream<Path> files = Files.list(spillDirectory)) {
+            return files.toList();
+        }
+    }
+
+    private static RequestEvent event(int id) {
+        return RequestEvent.builder()
+                .requestIdHigh(id)
+                .requestIdLow(id)
+                .ip("10.0.0." + id)
+                .endpoint("/api/v1/orders")
+                .method("GET")
+                .status(200)
+                .type(RequestEvent.EventType.ALLOWED)
+                .build();
+    }
+}
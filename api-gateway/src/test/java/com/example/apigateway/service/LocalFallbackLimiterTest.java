@@ -0,0 +1,51 @@
+package com.example.apigateway.service;
+
+import com.example.apigateway.model.LimitDimension;
+import com.example.apigateway.model.RateLimitAlgorithm;
+import com.example.apigateway.policy.CompiledRule;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalFallbackLimiterTest {
+
+    private static final long WINDOW_MS = 60_000;
+    private static final long NOW = 10 * WINDOW_MS;
+    private static final CompiledRule RULE = new CompiledRule("ip", LimitDimension.IP,
+            RateLimitAlgorithm.SLIDING_WINDOW_COUNTER, 3, WINDOW_MS, 1, ":ip:swc", "3", String.valueOf(WINDOW_MS));
+
+    @Test
+    void dividesEachLimitAmongNodes() {
+        LocalFallbackLimiter limiter = new LocalFallbackLimiter(100);
+        List<RedisRateLimiter.Limit> limits = limits("10.0.0.1");
+
+        assertThat(limiter.tryAcquire(limits, 3, NOW)).isEqualTo(-1);
+        assertThat(limiter.tryAcquire(limits, 3, NOW)).isZero();
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedKeysWhenFull() {
+        LocalFallbackLimiter limiter = new LocalFallbackLimiter(10);
+        List<RedisRateLimiter.Limit> hot = limits("hot");
+        // Exhausts the hot key's share, then keeps it the most recently used
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire(hot, 1, NOW);
+        }
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire(limits("cold-" + i), 1, NOW + i);
+            assertThat(limiter.tryAcquire(hot, 1, NOW + i)).isZero();
+        }
+
+        limiter.tryAcquire(limits("new"), 1, NOW + 10);
+
+        assertThat(limiter.size()).isLessThanOrEqualTo(10);
+        // The hot key's count survived the eviction, so it is still limited
+        assertThat(limiter.tryAcquire(hot, 1, NOW + 10)).isZero();
+    }
+
+    private static List<RedisRateLimiter.Limit> limits(String ip) {
+        return List.of(new RedisRateLimiter.Limit(RULE, RULE.key(ip), 0, 1));
+    }
+}
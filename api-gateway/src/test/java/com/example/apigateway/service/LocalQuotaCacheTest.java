@@ -0,0 +1,103 @@
+package com.example.apigateway.service;
+
+import com.example.apigateway.config.RateLimitProperties;
+import com.example.apigateway.support.LuaRedisTemplate;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalQuotaCacheTest {
+
+    private static final String KEY = "ratelimit:ip:{10.0.0.1}:ip:swc";
+    private static final int LIMIT = 100;
+    private static final int LEASE_SIZE = 10;
+    private static final long WINDOW_MS = 60_000;
+    private static final long WINDOW = 5;
+    private static final long NOW = WINDOW * WINDOW_MS + WINDOW_MS / 2;
+
+    @Test
+    void admissionsAcrossNodesStayWithinLeaseBound() {
+        int nodes = 4;
+        LuaRedisTemplate redis = new LuaRedisTemplate(Duration.ofMillis(2));
+        List<LocalQuotaCache> caches = IntStream.range(0, nodes)
+                .mapToObj(i -> new LocalQuotaCache(redis, new RateLimitProperties()))
+                .toList();
+
+        // Every node sees the whole limit's worth of concurrent requests at once
+        long admitted = Flux.range(0, nodes * LIMIT)
+                .flatMap(i -> caches.get(i % nodes).tryAcquire(KEY, LIMIT, WINDOW_MS, LEASE_SIZE, NOW), nodes * LIMIT)
+                .filter(Boolean::booleanValue)
+                .count()
+                .block(Duration.ofSeconds(10));
+
+        assertThat(admitted).isLessThanOrEqualTo(LIMIT + (long) nodes * LEASE_SIZE);
+        // Quota can only be stranded in leases a node had no more requests for
+        assertThat(admitted).isGreaterThanOrEqualTo(LIMIT - (long) nodes * LEASE_SIZE);
+        assertThat(redis.get(KEY + ":lease:" + WINDOW)).isEqualTo(String.valueOf(LIMIT));
+    }
+
+    @Test
+    void waitersBeyondOneLeaseAreAdmittedWhileQuotaRemains() {
+        LocalQuotaCache cache = new LocalQuotaCache(new LuaRedisTemplate(Duration.ofMillis(5)), new RateLimitProperties());
+
+        List<Boolean> verdicts = Flux.range(0, 3 * LEASE_SIZE)
+                .flatMap(i -> cache.tryAcquire(KEY, LIMIT, WINDOW_MS, LEASE_SIZE, NOW))
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertThat(verdicts).hasSize(3 * LEASE_SIZE).containsOnly(true);
+    }
+
+    @Test
+    void blocksOnceRedisRefusesTheWindow() {
+        LocalQuotaCache cache = new LocalQuotaCache(new LuaRedisTemplate(Duration.ZERO), new RateLimitProperties());
+
+        long admitted = Flux.range(0, LIMIT + 20)
+                .concatMap(i -> cache.tryAcquire(KEY, LIMIT, WINDOW_MS, LEASE_SIZE, NOW))
+                .filter(Boolean::booleanValue)
+                .count()
+                .block(Duration.ofSeconds(10));
+
+        assertThat(admitted).isEqualTo(LIMIT);
+    }
+
+    @Test
+    void leasedDecisionsNeverCallRedis() {
+        LuaRedisTemplate redis = new LuaRedisTemplate(Duration.ZERO);
+        LocalQuotaCache cache = new LocalQuotaCache(redis, new RateLimitProperties());
+
+        assertThat(cache.tryAcquireLeased(KEY, WINDOW_MS, NOW)).isNull();
+        assertThat(cache.tryAcquire(KEY, LEASE_SIZE, WINDOW_MS, LEASE_SIZE, NOW).block()).isTrue();
+        for (int i = 1; i < LEASE_SIZE; i++) {
+            assertThat(cache.tryAcquireLeased(KEY, WINDOW_MS, NOW)).isTrue();
+        }
+        assertThat(cache.tryAcquireLeased(KEY, WINDOW_MS, NOW)).isNull();
+
+        // The whole limit was one lease, so Redis now refuses the window
+        assertThat(cache.tryAcquire(KEY, LEASE_SIZE, WINDOW_MS, LEASE_SIZE, NOW).block()).isFalse();
+        assertThat(cache.tryAcquireLeased(KEY, WINDOW_MS, NOW)).isFalse();
+        assertThat(redis.get(KEY + ":lease:" + WINDOW)).isEqualTo(String.valueOf(LEASE_SIZE));
+    }
+
+    @Test
+    void grantForAWindowAlreadyLeftIsReturned() {
+        LuaRedisTemplate redis = new LuaRedisTemplate(Duration.ofMillis(50));
+        LocalQuotaCache cache = new LocalQuotaCache(redis, new RateLimitProperties());
+
+        CompletableFuture<Boolean> first = cache.tryAcquire(KEY, LIMIT, WINDOW_MS, LEASE_SIZE, NOW).toFuture();
+        // Moves the key into the next window while the first lease is still in flight
+        Mono<Boolean> second = cache.tryAcquire(KEY, LIMIT, WINDOW_MS, LEASE_SIZE, NOW + WINDOW_MS);
+
+        assertThat(second.block(Duration.ofSeconds(5))).isTrue();
+        assertThat(first.join()).isTrue();
+        assertThat(redis.get(KEY + ":lease:" + WINDOW)).isEqualTo("0");
+        assertThat(redis.get(KEY + ":lease:" + (WINDOW + 1))).isEqualTo(String.valueOf(LEASE_SIZE));
+    }
+}
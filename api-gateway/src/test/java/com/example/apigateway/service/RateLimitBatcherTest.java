@@ -0,0 +1,115 @@
+package com.example.apigateway.service;
+
+import com.example.apigateway.config.RateLimitProperties;
+import com.example.apigateway.model.LimitDimension;
+import com.example.apigateway.model.RateLimitAlgorithm;
+import com.example.apigateway.policy.CompiledRule;
+import com.example.apigateway.support.LuaRedisTemplate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitBatcherTest {
+
+    private static final long WINDOW_MS = 86_400_000;
+
+    @Test
+    void everyConcurrentSubmissionCompletesExactlyOnce() throws Exception {
+        int threads = 8;
+        int perThread = 500;
+        int limit = threads * perThread / 2;
+        CompiledRule rule = rule(limit);
+        List<RedisRateLimiter.Limit> limits = List.of(new RedisRateLimiter.Limit(rule, rule.key("10.0.0.1"), 0, 1));
+        RateLimitBatcher batcher = batcher(new LuaRedisTemplate(Duration.ofMillis(1)), 16, 200);
+
+        AtomicInteger allowed = new AtomicInteger();
+        AtomicInteger completions = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Mono<RateLimitDecision>> verdicts = new ArrayList<>();
+        List<Future<List<Mono<RateLimitDecision>>>> submitted = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            submitted.add(executor.submit(() -> {
+                start.await();
+                List<Mono<RateLimitDecision>> mine = new ArrayList<>(perThread);
+                for (int i = 0; i < perThread; i++) {
+                    mine.add(batcher.submit(limits, 0));
+                }
+                return mine;
+            }));
+        }
+        start.countDown();
+        for (var future : submitted) {
+            verdicts.addAll(future.get(10, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        for (Mono<RateLimitDecision> verdict : verdicts) {
+            verdict.doOnNext(decision -> {
+                completions.incrementAndGet();
+                if (decision.allowed()) {
+                    allowed.incrementAndGet();
+                }
+            }).block(Duration.ofSeconds(10));
+        }
+
+        assertThat(completions).hasValue(threads * perThread);
+        // A decision evaluated twice would use up a second token and admit fewer
+        assertThat(allowed).hasValue(limit);
+    }
+
+    @Test
+    void partialBatchIsFlushedByTheTimer() {
+        CompiledRule rule = rule(10);
+        List<RedisRateLimiter.Limit> limits = List.of(new RedisRateLimiter.Limit(rule, rule.key("10.0.0.2"), 0, 1));
+        RateLimitBatcher batcher = batcher(new LuaRedisTemplate(Duration.ZERO), 64, 1_000);
+
+        RateLimitDecision decision = batcher.submit(limits, 0).block(Duration.ofSeconds(5));
+
+        assertThat(decision).isEqualTo(RateLimitDecision.ALLOWED);
+    }
+
+    @Test
+    void reportsTheDimensionThatTrippedPerRequest() {
+        CompiledRule ip = new CompiledRule("ip", LimitDimension.IP, RateLimitAlgorithm.TOKEN_BUCKET, 5, WINDOW_MS,
+                1, ":ip:tb", "5", String.valueOf(WINDOW_MS));
+        CompiledRule user = new CompiledRule("user", LimitDimension.USER, RateLimitAlgorithm.TOKEN_BUCKET, 1, WINDOW_MS,
+                1, ":user:tb", "1", String.valueOf(WINDOW_MS));
+        List<RedisRateLimiter.Limit> limits = List.of(
+                new RedisRateLimiter.Limit(ip, ip.key("10.0.0.3"), 0, 1),
+                new RedisRateLimiter.Limit(user, user.key("alice"), 0, 1));
+        RateLimitBatcher batcher = batcher(new LuaRedisTemplate(Duration.ZERO), 2, 1_000);
+
+        Mono<RateLimitDecision> first = batcher.submit(limits, 0);
+        Mono<RateLimitDecision> second = batcher.submit(limits, 0);
+
+        assertThat(first.block(Duration.ofSeconds(5))).isEqualTo(RateLimitDecision.ALLOWED);
+        assertThat(second.block(Duration.ofSeconds(5))).isEqualTo(RateLimitDecision.blockedBy(LimitDimension.USER));
+    }
+
+    private static CompiledRule rule(int limit) {
+        return new CompiledRule("ip", LimitDimension.IP, RateLimitAlgorithm.TOKEN_BUCKET, limit, WINDOW_MS, 1,
+                ":ip:tb", String.valueOf(limit), String.valueOf(WINDOW_MS));
+    }
+
+    private static RateLimitBatcher batcher(LuaRedisTemplate redis, int maxBatchSize, long maxWaitMicros) {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.getBatching().setEnabled(true);
+        properties.getBatching().setMaxBatchSize(maxBatchSize);
+        properties.getBatching().setMaxWaitMicros(maxWaitMicros);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        return new RateLimitBatcher(redis, new RateLimitScripts(), properties, new RateLimitMetrics(registry), registry);
+    }
+}
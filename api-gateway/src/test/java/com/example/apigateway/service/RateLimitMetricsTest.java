@@ -0,0 +1,90 @@
+package com.example.apigateway.service;
+
+import com.example.apigateway.model.LimitDimension;
+import com.example.apigateway.model.RateLimitAlgorithm;
+import com.example.apigateway.policy.CompiledRule;
+import com.example.apigateway.support.LuaRedisTemplate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitMetricsTest {
+
+    private static final long WINDOW_MS = 60_000;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final RateLimitMetrics metrics = new RateLimitMetrics(registry);
+    private final List<RedisRateLimiter.Limit> limits = List.of(limit("ip", LimitDimension.IP, 5, "10.0.0.1"),
+            limit("user", LimitDimension.USER, 1, "alice"));
+
+    @Test
+    void everyMeterIsRegisteredUpFront() {
+        // allowed and blocked per dimension, blocked for unknown, and two script timers
+        assertThat(registry.getMeters()).hasSize(LimitDimension.values().length * 2 + 1 + 2);
+
+        metrics.record(limits, RateLimitDecision.ALLOWED);
+        metrics.record(limits, RateLimitDecision.BLOCKED);
+
+        assertThat(registry.getMeters()).hasSize(LimitDimension.values().length * 2 + 1 + 2);
+    }
+
+    @Test
+    void allowedRequestCountsOncePerLimitItPassed() {
+        metrics.record(limits, RateLimitDecision.ALLOWED);
+
+        assertThat(decisions("ip", "allowed")).isOne();
+        assertThat(decisions("user", "allowed")).isOne();
+        assertThat(decisions("path", "allowed")).isZero();
+    }
+
+    @Test
+    void blockedRequestCountsOnlyTheDimensionThatTripped() {
+        metrics.record(limits, RateLimitDecision.blockedBy(LimitDimension.USER));
+        metrics.record(limits, RateLimitDecision.BLOCKED);
+
+        assertThat(decisions("user", "blocked")).isOne();
+        assertThat(decisions("ip", "blocked")).isZero();
+        assertThat(decisions("ip", "allowed")).isZero();
+        assertThat(decisions("unknown", "blocked")).isOne();
+    }
+
+    @Test
+    void scriptReturnsTheIndexOfTheKeyThatTripped() {
+        LuaRedisTemplate redis = new LuaRedisTemplate(Duration.ZERO);
+        RedisRateLimiter limiter = new RedisRateLimiter(redis, null, null, null, null, null, null, null);
+        RateLimitScripts scripts = new RateLimitScripts();
+        long now = System.currentTimeMillis();
+
+        Long first = redis.execute(scripts.getRateLimitScript(), limiter.buildKeys(limits),
+                limiter.buildArgs(now, limits)).blockFirst();
+        Long second = redis.execute(scripts.getRateLimitScript(), limiter.buildKeys(limits),
+                limiter.buildArgs(now, limits)).blockFirst();
+
+        assertThat(first).isZero();
+        assertThat(second).isEqualTo(2);
+        assertThat(RedisRateLimiter.verdict(limits, second)).isEqualTo(RateLimitDecision.blockedBy(LimitDimension.USER));
+    }
+
+    @Test
+    void verdictOutsideTheKeysFailsClosedWithoutADimension() {
+        assertThat(RedisRateLimiter.verdict(limits, 0)).isEqualTo(RateLimitDecision.ALLOWED);
+        assertThat(RedisRateLimiter.verdict(limits, 1)).isEqualTo(RateLimitDecision.blockedBy(LimitDimension.IP));
+        assertThat(RedisRateLimiter.verdict(limits, 3)).isEqualTo(RateLimitDecision.BLOCKED);
+        assertThat(RedisRateLimiter.verdict(limits, -1)).isEqualTo(RateLimitDecision.BLOCKED);
+    }
+
+    private double decisions(String dimension, String outcome) {
+        return registry.get("ratelimit.decisions").tag("dimension", dimension).tag("outcome", outcome).counter()
+                .count();
+    }
+
+    private static RedisRateLimiter.Limit limit(String id, LimitDimension dimension, int limit, String value) {
+        CompiledRule rule = new CompiledRule(id, dimension, RateLimitAlgorithm.TOKEN_BUCKET, limit, WINDOW_MS, 1,
+                ":" + id + ":tb", String.valueOf(limit), String.valueOf(WINDOW_MS));
+        return new RedisRateLimiter.Limit(rule, rule.key(value), 0, 1);
+    }
+}
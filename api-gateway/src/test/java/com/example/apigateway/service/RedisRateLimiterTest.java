@@ -0,0 +1,143 @@
+package com.example.apigateway.service;
+
+import com.example.apigateway.config.RateLimitProperties;
+import com.example.apigateway.model.LimitDimension;
+import com.example.apigateway.model.RateLimitAlgorithm;
+import com.example.apigateway.policy.RateLimitPolicyEngine;
+import com.example.apigateway.support.LuaRedisTemplate;
+import io.lettuce.core.cluster.SlotHash;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class RedisRateLimiterTest {
+
+    private static final String IP = "10.0.0.1";
+    private static final String PATH = "/api/v1/orders";
+
+    private final RateLimitProperties properties = new RateLimitProperties();
+    private final List<List<String>> scriptCalls = new ArrayList<>();
+    private final LuaRedisTemplate redis = new LuaRedisTemplate(Duration.ZERO) {
+        @Override
+        public <T> Flux<T> execute(RedisScript<T> script, List<String> keys, List<?> args) {
+            synchronized (scriptCalls) {
+                scriptCalls.add(List.copyOf(keys));
+            }
+            return super.execute(script, keys, args);
+        }
+    };
+
+    @Test
+    void rulesOnTheSameValueShareOneScriptCall() {
+        properties.getCluster().setEnabled(true);
+        policy("ip-second", LimitDimension.IP, 10, Duration.ofSeconds(1));
+        policy("ip-minute", LimitDimension.IP, 100, Duration.ofMinutes(1));
+
+        assertThat(limiter().check(IP, null, null, PATH, "GET").block()).isEqualTo(RateLimitDecision.ALLOWED);
+
+        assertThat(scriptCalls).singleElement().satisfies(keys -> assertThat(keys).hasSize(2));
+    }
+
+    @Test
+    void eachSlotIsCheckedByItsOwnScriptCall() {
+        properties.getCluster().setEnabled(true);
+        policy("ip", LimitDimension.IP, 10, Duration.ofMinutes(1));
+        policy("user", LimitDimension.USER, 10, Duration.ofMinutes(1));
+
+        limiter().check(IP, "alice", null, PATH, "GET").block();
+
+        assertThat(scriptCalls).hasSize(2).allSatisfy(keys -> assertThat(keys).hasSize(1));
+        assertThat(scriptCalls.stream().map(keys -> SlotHash.getSlot(keys.get(0))).distinct()).hasSize(2);
+    }
+
+    @Test
+    void withoutClusterModeAllKeysGoInOneScriptCall() {
+        policy("ip", LimitDimension.IP, 10, Duration.ofMinutes(1));
+        policy("user", LimitDimension.USER, 10, Duration.ofMinutes(1));
+
+        limiter().check(IP, "alice", null, PATH, "GET").block();
+
+        assertThat(scriptCalls).singleElement().satisfies(keys -> assertThat(keys).hasSize(2));
+    }
+
+    @Test
+    void slotThatBlocksDeniesTheRequestAndNamesItsDimension() {
+        properties.getCluster().setEnabled(true);
+        policy("ip", LimitDimension.IP, 10, Duration.ofMinutes(1));
+        policy("user", LimitDimension.USER, 1, Duration.ofMinutes(1));
+        RedisRateLimiter limiter = limiter();
+
+        RateLimitDecision first = limiter.check(IP, "alice", null, PATH, "GET").block();
+        RateLimitDecision second = limiter.check(IP, "alice", null, PATH, "GET").block();
+
+        assertThat(first).isEqualTo(RateLimitDecision.ALLOWED);
+        assertThat(second).isEqualTo(RateLimitDecision.blockedBy(LimitDimension.USER));
+    }
+
+    @Test
+    void hotKeyIsSplitIntoShardsThatShareTheLimit() {
+        properties.getCluster().setEnabled(true);
+        properties.getCluster().getHotKeyShards().put(LimitDimension.PATH, 4);
+        policy("path", LimitDimension.PATH, 8, Duration.ofMinutes(1));
+        RedisRateLimiter limiter = limiter();
+
+        int allowed = 0;
+        for (int i = 0; i < 50; i++) {
+            if (limiter.check(IP, null, null, PATH, "GET").block().allowed()) {
+                allowed++;
+            }
+        }
+
+        Set<String> keys = scriptCalls.stream().flatMap(List::stream).collect(Collectors.toSet());
+        assertThat(keys).hasSizeBetween(2, 4)
+                .allSatisfy(key -> assertThat(key).matches("ratelimit:path:\\{" + PATH + ":[0-3]}:path.*"));
+        // Each shard admits a quarter of the limit
+        assertThat(allowed).isEqualTo(2 * keys.size());
+    }
+
+    @Test
+    void buildLimitsRecordsTheShardCountOnlyForShardedRules() {
+        properties.getCluster().setEnabled(true);
+        properties.getCluster().getHotKeyShards().put(LimitDimension.PATH, 4);
+        policy("ip", LimitDimension.IP, 10, Duration.ofMinutes(1));
+        policy("path", LimitDimension.PATH, 8, Duration.ofMinutes(1));
+        RateLimitPolicyEngine policies = new RateLimitPolicyEngine(properties);
+
+        List<RedisRateLimiter.Limit> limits = limiter().buildLimits(policies.match(PATH, null), IP, null, null, PATH,
+                "GET");
+
+        assertThat(limits).extracting(RedisRateLimiter.Limit::shards).containsExactly(1, 4);
+        assertThat(limits).allSatisfy(limit -> assertThat(limit.slot()).isEqualTo(SlotHash.getSlot(limit.key())));
+        assertThat(limits.get(1).rule().limitArg()).isEqualTo("2");
+    }
+
+    private void policy(String id, LimitDimension dimension, int limit, Duration window) {
+        RateLimitProperties.Policy policy = new RateLimitProperties.Policy();
+        policy.setId(id);
+        policy.setDimension(dimension);
+        policy.setLimit(limit);
+        policy.setWindow(window);
+        policy.setAlgorithm(RateLimitAlgorithm.TOKEN_BUCKET);
+        properties.getPolicies().add(policy);
+    }
+
+    private RedisRateLimiter limiter() {
+        // Generous budget: the first script call compiles the Lua
+        properties.getResilience().setTimeout(Duration.ofSeconds(5));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        return new RedisRateLimiter(redis, mock(LocalQuotaCache.class), properties, new RateLimitScripts(),
+                new RateLimitPolicyEngine(properties), null,
+                new RateLimitFallback(properties, mock(GatewayMembership.class), registry),
+                new RateLimitMetrics(registry));
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.apigateway.support;
+
+import org.luaj.vm2.Globals;
+import org.luaj.vm2.LuaError;
+import org.luaj.vm2.LuaTable;
+import org.luaj.vm2.LuaValue;
+import org.luaj.vm2.Varargs;
+import org.luaj.vm2.lib.VarArgFunction;
+import org.luaj.vm2.lib.jse.JsePlatform;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Runs the gateway's Lua scripts against an in-memory keyspace, one script at a
+ * time like Redis. Supports the string and hash commands the quota and rate
+ * limit scripts use; TTLs are accepted and ignored. Each reply is delayed by {@code latency} on another
+ * thread, so callers overlap as they would against a real server.
+ * The connection factory is never started, so no connection is attempted.
+ */
+public class LuaRedisTemplate extends ReactiveStringRedisTemplate {
+
+    private final Map<String, String> store = new HashMap<>();
+    private final Map<String, Map<String, String>> hashes = new HashMap<>();
+    private final Map<String, LuaValue> compiled = new HashMap<>();
+    private final Globals globals = JsePlatform.standardGlobals();
+    private final Duration latency;
+
+    public LuaRedisTemplate(Duration latency) {
+        super(new LettuceConnectionFactory());
+        this.latency = latency;
+        LuaTable redis = new LuaTable();
+        redis.set("call", new VarArgFunction() {
+            @Override
+            public Varargs invoke(Varargs args) {
+                return redisCall(args);
+            }
+        });
+        globals.set("redis", redis);
+    }
+
+    @Override
+    public <T> Flux<T> execute(RedisScript<T> script, List<String> keys, List<?> args) {
+        return Mono.fromCallable(() -> run(script, keys, args))
+                .delaySubscription(latency)
+                .flux();
+    }
+
+    public synchronized String get(String key) {
+        return store.get(key);
+    }
+
+    public synchronized Map<String, String> hgetall(String key) {
+        return Map.copyOf(hashes.getOrDefault(key, Map.of()));
+    }
+
+    public synchronized Set<String> keys() {
+        Set<String> keys = new TreeSet<>(store.keySet());
+        keys.addAll(hashes.keySet());
+        return keys;
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized <T> T run(RedisScript<T> script, List<String> keys, List<?> args) {
+        LuaValue chunk = compiled.computeIfAbsent(script.getScriptAsString(), source -> globals.load(source));
+        globals.set("KEYS", table(keys));
+        globals.set("ARGV", table(args));
+        LuaValue result = chunk.call();
+        if (result.isnil() || result == LuaValue.FALSE) {
+            return null;
+        }
+        if (Long.class.equals(script.getResultType())) {
+            return (T) Long.valueOf(result.tolong());
+        }
+        if (List.class.equals(script.getResultType())) {
+            List<Long> values = new ArrayList<>();
+            for (int i = 1; i <= result.length(); i++) {
+                values.add(result.get(i).tolong());
+            }
+            return (T) values;
+        }
+        throw new IllegalArgumentException("Unsupported script result type " + script.getResultType());
+    }
+
+    private Varargs redisCall(Varargs args) {
+        String command = args.arg1().tojstring().toUpperCase(Locale.ROOT);
+        String key = args.arg(2).tojstring();
+        return switch (command) {
+            case "GET" -> store.containsKey(key) ? LuaValue.valueOf(store.get(key)) : LuaValue.FALSE;
+            case "SET" -> {
+                store.put(key, args.arg(3).tojstring());
+                yield LuaValue.valueOf("OK");
+            }
+            case "EXISTS" -> LuaValue.valueOf(store.containsKey(key) || hashes.containsKey(key) ? 1 : 0);
+            case "INCRBY" -> add(key, args.arg(3).tolong());
+            case "DECRBY" -> add(key, -args.arg(3).tolong());
+            case "HMGET" -> hmget(key, args);
+            case "HSET" -> hset(key, args);
+            case "PEXPIRE", "EXPIRE" -> LuaValue.valueOf(store.containsKey(key) || hashes.containsKey(key) ? 1 : 0);
+            default -> throw new LuaError("Unsupported command " + command);
+        };
+    }
+
+    private LuaValue add(String key, long delta) {
+        long value = Long.parseLong(store.getOrDefault(key, "0")) + delta;
+        store.put(key, Long.toString(value));
+        return LuaValue.valueOf((double) value);
+    }
+
+    private LuaValue hmget(String key, Varargs args) {
+        Map<String, String> hash = hashes.getOrDefault(key, Map.of());
+        LuaTable values = new LuaTable();
+        for (int i = 3; i <= args.narg(); i++) {
+            String value = hash.get(args.arg(i).tojstring());
+            values.set(i - 2, value != null ? LuaValue.valueOf(value) : LuaValue.FALSE);
+        }
+        return values;
+    }
+
+    private LuaValue hset(String key, Varargs args) {
+        Map<String, String> hash = hashes.computeIfAbsent(key, k -> new HashMap<>());
+        int added = 0;
+        for (int i = 3; i < args.narg(); i += 2) {
+            if (hash.put(args.arg(i).tojstring(), args.arg(i + 1).tojstring()) == null) {
+                added++;
+            }
+        }
+        return LuaValue.valueOf(added);
+    }
+
+    private static LuaTable table(List<?> values) {
+        LuaTable table = new LuaTable();
+        for (int i = 0; i < values.size(); i++) {
+            table.set(i + 1, LuaValue.valueOf(String.valueOf(values.get(i))));
+        }
+        return table;
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.apigateway.upstream;
+
+import com.example.apigateway.config.UpstreamProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimiterTest {
+
+    private static final String ROUTE = "backend_service";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ConcurrencyLimiter limiter = new ConcurrencyLimiter(properties(), meterRegistry);
+
+    @Test
+    void onlyConfiguredRoutesAreLimited() {
+        assertThat(limiter.isLimited(ROUTE)).isTrue();
+        assertThat(limiter.isLimited("other")).isFalse();
+        assertThat(limiter.tryAcquire("other", null, true)).isNull();
+    }
+
+    @Test
+    void anonymousRequestsGetOnlyTheirShare() {
+        List<ConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            permits.add(limiter.tryAcquire(ROUTE, null, false));
+        }
+        assertThat(permits).doesNotContainNull();
+        assertThat(limiter.tryAcquire(ROUTE, null, false)).isNull();
+
+        // Authenticated requests may still use the rest of the limit
+        for (int i = 0; i < 5; i++) {
+            permits.add(limiter.tryAcquire(ROUTE, null, true));
+        }
+        assertThat(permits).doesNotContainNull();
+        assertThat(limiter.tryAcquire(ROUTE, null, true)).isNull();
+
+        assertThat(rejected("anonymous")).isEqualTo(1);
+        assertThat(rejected("limit")).isEqualTo(1);
+        assertThat(inFlight()).isEqualTo(10);
+    }
+
+    @Test
+    void eachApiKeyGetsOnlyItsShare() {
+        List<ConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            permits.add(limiter.tryAcquire(ROUTE, "key-1", true));
+        }
+        assertThat(permits).doesNotContainNull();
+        assertThat(limiter.tryAcquire(ROUTE, "key-1", true)).isNull();
+        assertThat(limiter.tryAcquire(ROUTE, "key-2", true)).isNotNull();
+        assertThat(rejected("api_key")).isEqualTo(1);
+
+        permits.get(0).release(false);
+        assertThat(limiter.tryAcquire(ROUTE, "key-1", true)).isNotNull();
+    }
+
+    @Test
+    void rejectedRequestsGiveBackTheirApiKeySlot() {
+        List<ConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            permits.add(limiter.tryAcquire(ROUTE, "key-" + i, true));
+        }
+        // Over the route limit: key-a gets a key slot, then loses it again with the route permit
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire(ROUTE, "key-a", true)).isNull();
+        }
+        assertThat(rejected("limit")).isEqualTo(5);
+
+        permits.get(0).abandon();
+        assertThat(limiter.tryAcquire(ROUTE, "key-a", true)).isNotNull();
+    }
+
+    @Test
+    void releaseAndAbandonReturnEveryPermit() {
+        List<ConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            permits.add(limiter.tryAcquire(ROUTE, i % 2 == 0 ? "key-" + i % 3 : null, true));
+        }
+        assertThat(permits).doesNotContainNull();
+        assertThat(inFlight()).isEqualTo(10);
+
+        for (int i = 0; i < permits.size(); i++) {
+            if (i % 2 == 0) {
+                permits.get(i).release(i % 4 == 0);
+            } else {
+                permits.get(i).abandon();
+            }
+        }
+
+        assertThat(inFlight()).isZero();
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.tryAcquire(ROUTE, null, true)).isNotNull();
+        }
+    }
+
+    private double rejected(String reason) {
+        return meterRegistry.counter("gateway.concurrency.rejected", "route", ROUTE, "reason", reason).count();
+    }
+
+    private double inFlight() {
+        return meterRegistry.get("gateway.concurrency.in_flight").tag("route", ROUTE).gauge().value();
+    }
+
+    private static UpstreamProperties properties() {
+        UpstreamProperties.Concurrency concurrency = new UpstreamProperties.Concurrency();
+        concurrency.setEnabled(true);
+        concurrency.setInitialLimit(10);
+        concurrency.setMinLimit(4);
+        concurrency.setAnonymousShare(0.5);
+        concurrency.setApiKeyShare(0.3);
+        // Long enough that no window closes during a test, so the limit stays at 10
+        concurrency.setWindow(Duration.ofHours(1));
+        UpstreamProperties.Route route = new UpstreamProperties.Route();
+        route.setConcurrency(concurrency);
+        UpstreamProperties properties = new UpstreamProperties();
+        properties.getRoutes().put(ROUTE, route);
+        return properties;
+    }
+}
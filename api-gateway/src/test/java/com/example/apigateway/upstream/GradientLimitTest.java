@@ -0,0 +1,116 @@
+package com.example.apigateway.upstream;
+
+import com.example.apigateway.config.UpstreamProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GradientLimitTest {
+
+    private static final long WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final int SAMPLES = 10;
+
+    private final List<int[]> changes = new ArrayList<>();
+    private final GradientLimit limit = new GradientLimit(config(), (from, to) -> changes.add(new int[] {from, to}));
+    private long now = System.nanoTime();
+
+    @Test
+    void growsWhileLatencyHolds() {
+        int previous = limit.limit();
+        for (int i = 0; i < 10; i++) {
+            window(10, limit.limit(), false);
+            assertThat(limit.limit()).isGreaterThanOrEqualTo(previous);
+            previous = limit.limit();
+        }
+
+        assertThat(limit.limit()).isGreaterThan(20);
+        assertThat(limit.baselineSeconds()).isEqualTo(0.010);
+        assertThat(changes).allSatisfy(change -> assertThat(change[1]).isGreaterThan(change[0]));
+    }
+
+    @Test
+    void shrinksOnceRequestsQueue() {
+        for (int i = 0; i < 5; i++) {
+            window(10, limit.limit(), false);
+        }
+        int settled = limit.limit();
+
+        for (int i = 0; i < 5; i++) {
+            window(40, limit.limit(), false);
+        }
+
+        assertThat(limit.limit()).isLessThan(settled);
+        assertThat(limit.recentRttSeconds()).isEqualTo(0.040);
+        // The baseline drifts toward the new latency only slowly
+        assertThat(limit.baselineSeconds()).isLessThan(0.012);
+    }
+
+    @Test
+    void dropBacksOffByTheRatio() {
+        window(10, 20, true);
+
+        assertThat(limit.limit()).isEqualTo(18);
+        assertThat(changes).containsExactly(new int[] {20, 18});
+    }
+
+    @Test
+    void appLimitedWindowsLeaveTheLimitAlone() {
+        window(10, 20, false);
+        int before = limit.limit();
+
+        for (int i = 0; i < 5; i++) {
+            window(100, 5, false);
+        }
+
+        assertThat(limit.limit()).isEqualTo(before);
+    }
+
+    @Test
+    void staysWithinMinAndMax() {
+        for (int i = 0; i < 50; i++) {
+            window(10, limit.limit(), true);
+        }
+        assertThat(limit.limit()).isEqualTo(4);
+
+        for (int i = 0; i < 500; i++) {
+            window(10, limit.limit(), false);
+        }
+        assertThat(limit.limit()).isEqualTo(40);
+    }
+
+    @Test
+    void waitsForEnoughSamplesBeforeClosingAWindow() {
+        now += WINDOW_NANOS;
+        for (int i = 0; i < SAMPLES - 1; i++) {
+            limit.onSample(TimeUnit.MILLISECONDS.toNanos(10), 20, true, now);
+        }
+        assertThat(limit.limit()).isEqualTo(20);
+
+        limit.onSample(TimeUnit.MILLISECONDS.toNanos(10), 20, false, now);
+        assertThat(limit.limit()).isEqualTo(18);
+    }
+
+    /** One full window of samples with the given latency; the last closes it. */
+    private void window(long rttMillis, int inFlight, boolean dropped) {
+        for (int i = 0; i < SAMPLES; i++) {
+            now += WINDOW_NANOS / SAMPLES;
+            limit.onSample(TimeUnit.MILLISECONDS.toNanos(rttMillis), inFlight, dropped && i == 0, now);
+        }
+    }
+
+    private static UpstreamProperties.Concurrency config() {
+        UpstreamProperties.Concurrency config = new UpstreamProperties.Concurrency();
+        config.setEnabled(true);
+        config.setInitialLimit(20);
+        config.setMinLimit(4);
+        config.setMaxLimit(40);
+        config.setWindow(Duration.ofNanos(WINDOW_NANOS));
+        config.setMinWindowSamples(SAMPLES);
+        return config;
+    }
+}
@@ -1,32 +1,59 @@
 package com.example.audit;
 
+import com.example.events.RequestEvent;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Service;
 
-import java.io.FileWriter;
-import java.io.IOException;
-import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * Appends {@code api-requests} batches to the {@link AuditLog}. Offsets are
+ * acknowledged only once the log reports the batch durable under the configured
+ * fsync policy.
+ */
 @Service
 @Slf4j
+@RequiredArgsConstructor
 public class AuditConsumer {
 
-    @Value("${audit.file.path:audit_log.json}")
-    private String auditFilePath;
+    private static final String LISTENER_ID = "audit-listener";
 
-    @KafkaListener(topics = "api-requests", groupId = "audit-group")
-    public void logRequest(String message) {
-        writeToAuditLog(message);
-    }
+    private final AuditLog auditLog;
+    private final List<Acknowledgment> unsynced = new ArrayList<>();
 
-    private void writeToAuditLog(String message) {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(auditFilePath, true))) {
-            writer.println(message);
-            log.debug("Audit log written: {} bytes", message.length());
-        } catch (IOException e) {
+    @KafkaListener(id = LISTENER_ID, topics = "api-requests", groupId = "audit-group", batch = "true")
+    public void logRequests(List<RequestEvent> events, Acknowledgment ack) {
+        unsynced.add(ack);
+        try {
+            if (auditLog.append(events)) {
+                acknowledgeAll();
+            }
+            log.debug("Audit log appended: {} events", events.size());
+        } catch (RuntimeException e) {
+            // Leave the offsets uncommitted; the container error handler redelivers the batch
+            unsynced.remove(ack);
             log.error("Failed to write audit log: {}", e.getMessage());
+            throw e;
+        }
+    }
+
+    @EventListener(condition = "event.listenerId.startsWith('" + LISTENER_ID + "')")
+    public void onIdle(ListenerContainerIdleEvent event) {
+        if (!unsynced.isEmpty() && auditLog.syncIfDue()) {
+            acknowledgeAll();
+        }
+    }
+
+    private void acknowledgeAll() {
+        for (Acknowledgment ack : unsynced) {
+            ack.acknowledge();
         }
+        unsynced.clear();
     }
 }
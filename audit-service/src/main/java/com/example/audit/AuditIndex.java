@@ -0,0 +1,306 @@
+package com.example.audit;
+
+import com.example.events.RequestEvent;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Index of one {@link AuditSegment}, stored next to it in two files. The block
+ * table ({@code .idx}) grows with the segment: every {@value #RECORDS_PER_BLOCK}
+ * records form a block with one entry
+ * <pre>
+ * start(8) end(8) minTimestampMicros(8) maxTimestampMicros(8) records(4)
+ * </pre>
+ * The key table ({@code .keys}) is written when the segment is sealed: one entry
+ * per distinct ip, userId, apiKey and requestId hash, sorted by hash, pointing at
+ * the ascending numbers of the blocks that hold the key. A lookup is a binary
+ * search, so its cost does not depend on how many blocks the segment has. Until
+ * then the segment's writer answers lookups from memory.
+ */
+final class AuditIndex {
+
+    static final int RECORDS_PER_BLOCK = 256;
+    static final int KEY_ENTRY_BYTES = Long.BYTES + 2 * Integer.BYTES;
+
+    private static final String SUFFIX = ".idx";
+    private static final String KEYS_SUFFIX = ".keys";
+    private static final int BLOCKS_MAGIC = 0x41494458; // "AIDX"
+    private static final int KEYS_MAGIC = 0x414b4559; // "AKEY"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+    private static final int KEYS_HEADER_BYTES = HEADER_BYTES + Integer.BYTES;
+    private static final int ENTRY_BYTES = 4 * Long.BYTES + Integer.BYTES;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    static final String FIELD_IP = "ip";
+    static final String FIELD_USER = "user";
+    static final String FIELD_API_KEY = "key";
+    static final String FIELD_REQUEST = "req";
+
+    private AuditIndex() {
+    }
+
+    static Path pathFor(Path segment) {
+        return sibling(segment, SUFFIX);
+    }
+
+    static Path keysPathFor(Path segment) {
+        return sibling(segment, KEYS_SUFFIX);
+    }
+
+    static long hash(String field, String value) {
+        long hash = FNV_OFFSET;
+        for (byte b : (field + '\0' + value).getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /** Whether a sealed segment has both index files in the current format; older ones are rebuilt. */
+    static boolean isComplete(Path segment) throws IOException {
+        return hasHeader(pathFor(segment), BLOCKS_MAGIC) && hasHeader(keysPathFor(segment), KEYS_MAGIC);
+    }
+
+    static List<Block> readBlocks(Path index) throws IOException {
+        if (!hasHeader(index, BLOCKS_MAGIC)) {
+            return List.of();
+        }
+        try (FileChannel channel = FileChannel.open(index, StandardOpenOption.READ)) {
+            int entries = (int) ((channel.size() - HEADER_BYTES) / ENTRY_BYTES);
+            ByteBuffer buffer = ByteBuffer.allocate(entries * ENTRY_BYTES);
+            while (buffer.hasRemaining() && channel.read(buffer, HEADER_BYTES + buffer.position()) > 0) {
+                // keep reading until the complete entries are in
+            }
+            buffer.flip();
+            List<Block> blocks = new ArrayList<>(entries);
+            for (int i = 0; i < entries; i++) {
+                blocks.add(new Block(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong(),
+                        buffer.getInt()));
+            }
+            return blocks;
+        }
+    }
+
+    /** The sealed segment's key table, or {@code null} if it has none. */
+    static Keys readKeys(Path segment) throws IOException {
+        Path path = keysPathFor(segment);
+        if (!hasHeader(path, KEYS_MAGIC)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping outlives the channel; the page cache holds whatever lookups touch
+            MappedByteBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new Keys(table, table.getInt(HEADER_BYTES));
+        }
+    }
+
+    /** Blocks in both ascending lists. */
+    static int[] intersect(int[] a, int[] b) {
+        int[] both = new int[Math.min(a.length, b.length)];
+        int n = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                both[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(both, n);
+    }
+
+    private static Path sibling(Path segment, String suffix) {
+        String name = segment.getFileName().toString();
+        return segment.resolveSibling(name.substring(0, name.lastIndexOf('.')) + suffix);
+    }
+
+    private static boolean hasHeader(Path path, int magic) throws IOException {
+        if (!Files.exists(path)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+                // a header shorter than HEADER_BYTES is not ours
+            }
+            return !header.hasRemaining() && header.getInt(0) == magic && header.getInt(Integer.BYTES) == VERSION;
+        }
+    }
+
+    private static ByteBuffer header(int magic) {
+        return ByteBuffer.allocate(HEADER_BYTES).putInt(magic).putInt(VERSION).flip();
+    }
+
+    record Block(long start, long end, long minTimestampMicros, long maxTimestampMicros, int records) {
+
+        boolean overlaps(long fromMicros, long toMicros) {
+            return maxTimestampMicros >= fromMicros && minTimestampMicros <= toMicros;
+        }
+
+        void writeTo(ByteBuffer buffer) {
+            buffer.putLong(start).putLong(end).putLong(minTimestampMicros).putLong(maxTimestampMicros)
+                    .putInt(records);
+        }
+    }
+
+    /** A sealed segment's key table, read through a shared read-only mapping. */
+    static final class Keys {
+
+        private final ByteBuffer table;
+        private final int entries;
+
+        private Keys(ByteBuffer table, int entries) {
+            this.table = table;
+            this.entries = entries;
+        }
+
+        /** Ascending blocks holding {@code hash}; empty if none do. */
+        int[] blocks(long hash) {
+            int low = 0;
+            int high = entries - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                long found = table.getLong(entry(mid));
+                if (found < hash) {
+                    low = mid + 1;
+                } else if (found > hash) {
+                    high = mid - 1;
+                } else {
+                    int entry = entry(mid);
+                    int offset = table.getInt(entry + Long.BYTES);
+                    int[] blocks = new int[table.getInt(entry + Long.BYTES + Integer.BYTES)];
+                    int postings = KEYS_HEADER_BYTES + entries * KEY_ENTRY_BYTES + offset * Integer.BYTES;
+                    for (int i = 0; i < blocks.length; i++) {
+                        blocks[i] = table.getInt(postings + i * Integer.BYTES);
+                    }
+                    return blocks;
+                }
+            }
+            return new int[0];
+        }
+
+        private static int entry(int index) {
+            return KEYS_HEADER_BYTES + index * KEY_ENTRY_BYTES;
+        }
+    }
+
+    /** Appends block entries to a segment's index as the segment grows. */
+    static final class Writer {
+
+        private final Path segment;
+        private final FileChannel channel;
+        private final ByteBuffer entry = ByteBuffer.allocate(ENTRY_BYTES);
+        private final KeyPostings postings = new KeyPostings();
+        private int block;
+        private long start = -1;
+        private long end;
+        private long minTimestamp = Long.MAX_VALUE;
+        private long maxTimestamp = Long.MIN_VALUE;
+        private int records;
+        private long indexedEnd;
+
+        Writer(Path segment) throws IOException {
+            this.segment = segment;
+            this.channel = FileChannel.open(pathFor(segment), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            ByteBuffer header = header(BLOCKS_MAGIC);
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+        }
+
+        /** Adds one record; once the block is full its entry is written. */
+        void add(RequestEvent event, long position, int length) throws IOException {
+            if (start < 0) {
+                start = position;
+            }
+            end = position + length;
+            minTimestamp = Math.min(minTimestamp, event.getTimestampMicros());
+            maxTimestamp = Math.max(maxTimestamp, event.getTimestampMicros());
+            addKey(FIELD_IP, event.getIp());
+            addKey(FIELD_USER, event.getUserId());
+            addKey(FIELD_API_KEY, event.getApiKey());
+            addKey(FIELD_REQUEST, event.requestId());
+            if (++records == RECORDS_PER_BLOCK) {
+                finishBlock();
+            }
+        }
+
+        /** Offset up to which the segment is covered by written entries. */
+        long indexedEnd() {
+            return indexedEnd;
+        }
+
+        /**
+         * Ascending blocks holding {@code hash}, possibly including the unfinished
+         * block, whose records lie past {@link #indexedEnd()}.
+         */
+        int[] blocks(long hash) {
+            return postings.blocks(hash);
+        }
+
+        void finishBlock() throws IOException {
+            if (records == 0) {
+                return;
+            }
+            entry.clear();
+            new Block(start, end, minTimestamp, maxTimestamp, records).writeTo(entry);
+            entry.flip();
+            while (entry.hasRemaining()) {
+                channel.write(entry);
+            }
+            indexedEnd = end;
+            block++;
+            start = -1;
+            minTimestamp = Long.MAX_VALUE;
+            maxTimestamp = Long.MIN_VALUE;
+            records = 0;
+        }
+
+        /**
+         * Finishes the block table and writes the key table, through a temporary
+         * file so a crash never leaves a partial one behind.
+         */
+        void close() throws IOException {
+            finishBlock();
+            channel.force(true);
+            channel.close();
+
+            Path keys = keysPathFor(segment);
+            Path partial = keys.resolveSibling(keys.getFileName() + ".tmp");
+            try (FileChannel out = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer header = ByteBuffer.allocate(KEYS_HEADER_BYTES)
+                        .put(header(KEYS_MAGIC)).putInt(postings.keys()).flip();
+                while (header.hasRemaining()) {
+                    out.write(header);
+                }
+                postings.writeTo(out);
+                out.force(true);
+            }
+            Files.move(partial, keys, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        private void addKey(String field, String value) {
+            if (value != null) {
+                postings.add(hash(field, value), block);
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.audit;
+
+import com.example.events.RequestEvent;
+import com.example.events.codec.JsonRequestEventCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Append-only audit storage. Batches of events are encoded as JSON lines into one
+ * buffer and written with a single positional {@code FileChannel} write into the
+ * active {@link AuditSegment}, which is rotated by size or age. Durability follows
+ * {@link AuditProperties#getFsync()}; {@link #append} and {@link #syncIfDue} report
+ * whether everything appended so far has reached the disk.
+ */
+@Component
+@Slf4j
+public class AuditLog implements DisposableBean {
+
+    private static final int INITIAL_BUFFER_SIZE = 256 * 1024;
+    private static final byte NEWLINE = '\n';
+
+    private final AuditProperties properties;
+    private final Path directory;
+    private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private AuditSegment active;
+    private long nextSequence;
+    private boolean dirty;
+    private long lastSyncMs = System.currentTimeMillis();
+
+    public AuditLog(AuditProperties properties) throws IOException {
+        this.properties = properties;
+        this.directory = Path.of(properties.getDirectory());
+        Files.createDirectories(directory);
+        this.nextSequence = recoverSegments() + 1;
+    }
+
+    public synchronized boolean append(List<RequestEvent> events) {
+        try {
+            long now = System.currentTimeMillis();
+            if (active == null || active.isOlderThan(properties.getSegmentAge().toMillis(), now)) {
+                rotate();
+            }
+            buffer.clear();
+            for (RequestEvent event : events) {
+                if (event == null) {
+                    continue;
+                }
+                byte[] record = JsonRequestEventCodec.encode(event);
+                int length = record.length + 1;
+                if (!active.fits(buffer.position() + length) && (buffer.position() > 0 || active.size() > 0)) {
+                    writeBuffer();
+                    rotate();
+                }
+                ensureCapacity(length);
+                active.index(event, active.size() + buffer.position(), length);
+                buffer.put(record).put(NEWLINE);
+            }
+            writeBuffer();
+            return syncAfterAppend(now);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to audit segment", e);
+        }
+    }
+
+    /** Forces pending data when the fsync interval has elapsed. */
+    public synchronized boolean syncIfDue() {
+        if (!dirty) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        if (properties.getFsync() == AuditProperties.FsyncPolicy.INTERVAL
+                && now - lastSyncMs < properties.getFsyncInterval().toMillis()) {
+            return false;
+        }
+        try {
+            sync(now);
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to sync audit segment", e);
+        }
+    }
+
+    /** The segment being written, or {@code null} before the first append. */
+    public synchronized ActiveSegment activeSegment() {
+        return active == null ? null : new ActiveSegment(active.sequence(), active.size(), active.indexedEnd());
+    }
+
+    /**
+     * Blocks of the active segment {@code sequence} that hold every key in
+     * {@code keyHashes}, or {@code null} if that segment has been sealed since.
+     */
+    public synchronized int[] activeBlocks(long sequence, long[] keyHashes) {
+        if (active == null || active.sequence() != sequence) {
+            return null;
+        }
+        int[] blocks = active.blocks(keyHashes[0]);
+        for (int i = 1; i < keyHashes.length && blocks.length > 0; i++) {
+            blocks = AuditIndex.intersect(blocks, active.blocks(keyHashes[i]));
+        }
+        return blocks;
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    @Override
+    public synchronized void destroy() throws IOException {
+        if (active != null) {
+            active.seal();
+            active = null;
+        }
+    }
+
+    private boolean syncAfterAppend(long now) throws IOException {
+        dirty = true;
+        switch (properties.getFsync()) {
+            case BATCH -> sync(now);
+            case INTERVAL -> {
+                if (now - lastSyncMs >= properties.getFsyncInterval().toMillis()) {
+                    sync(now);
+                }
+            }
+            case NONE -> dirty = false;
+        }
+        return !dirty;
+    }
+
+    private void sync(long now) throws IOException {
+        active.force();
+        dirty = false;
+        lastSyncMs = now;
+    }
+
+    private void writeBuffer() throws IOException {
+        if (buffer.position() == 0) {
+            return;
+        }
+        buffer.flip();
+        active.append(buffer);
+        buffer.clear();
+    }
+
+    private void rotate() throws IOException {
+        if (active != null) {
+            // Sealing forces the segment, so everything written to it is durable
+            active.seal();
+            dirty = false;
+            log.info("Sealed audit segment {} ({} bytes)", active.path().getFileName(), active.size());
+        }
+        active = AuditSegment.create(directory, nextSequence++, properties.getSegmentBytes());
+    }
+
+    private void ensureCapacity(int length) {
+        if (buffer.remaining() < length) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + length));
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+    }
+
+    private long recoverSegments() throws IOException {
+        long lastSequence = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path segment : files.filter(AuditSegment::isSegment).sorted().toList()) {
+                lastSequence = AuditSegment.sequenceOf(segment);
+                if (!AuditIndex.isComplete(segment)) {
+                    log.info("Indexing audit segment {}", segment.getFileName());
+                    AuditSegment.rebuildIndex(segment);
+                }
+            }
+        }
+        if (lastSequence > 0) {
+            // Only the last segment can have been open when the previous run stopped
+            AuditSegment.recover(directory.resolve(AuditSegment.fileName(lastSequence)));
+        }
+        return lastSequence;
+    }
+
+    /**
+     * Readers may use the segment's data up to {@code size}; index entries cover it
+     * up to {@code indexedEnd}, the rest has to be scanned.
+     */
+    public record ActiveSegment(long sequence, long size, long indexedEnd) {
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.audit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "audit.log")
+public class AuditProperties {
+
+    private String directory = "audit-log";
+    /** Segments are pre-allocated to this size and rotated once full. */
+    private long segmentBytes = 128L * 1024 * 1024;
+    /** Segments are also rotated once they are this old, even if not full. */
+    private Duration segmentAge = Duration.ofHours(1);
+    private FsyncPolicy fsync = FsyncPolicy.BATCH;
+    /** With {@code INTERVAL}, how often appended data is forced to disk. */
+    private Duration fsyncInterval = Duration.ofSeconds(1);
+    /** Sealed segment indexes kept loaded for queries, most recently queried first. */
+    private int indexCacheSegments = 512;
+
+    public enum FsyncPolicy {
+        /** Force after every appended batch. */
+        BATCH,
+        /** Force at most once per {@code fsyncInterval}. */
+        INTERVAL,
+        /** Leave flushing to the OS page cache. */
+        NONE
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.audit;
+
+import com.example.events.RequestEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Events in {@code [fromMicros, toMicros]} matching every key that is set.
+ */
+public record AuditQuery(long fromMicros, long toMicros, String ip, String userId, String apiKey,
+        String requestId, int limit) {
+
+    boolean matches(RequestEvent event) {
+        return event.getTimestampMicros() >= fromMicros
+                && event.getTimestampMicros() <= toMicros
+                && (ip == null || ip.equals(event.getIp()))
+                && (userId == null || userId.equals(event.getUserId()))
+                && (apiKey == null || apiKey.equals(event.getApiKey()))
+                && (requestId == null || requestId.equals(event.requestId()));
+    }
+
+    /** Index hashes of the keys this query requires. */
+    long[] keyHashes() {
+        List<Long> hashes = new ArrayList<>(4);
+        addHash(hashes, AuditIndex.FIELD_IP, ip);
+        addHash(hashes, AuditIndex.FIELD_USER, userId);
+        addHash(hashes, AuditIndex.FIELD_API_KEY, apiKey);
+        addHash(hashes, AuditIndex.FIELD_REQUEST, requestId);
+        return hashes.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static void addHash(List<Long> hashes, String field, String value) {
+        if (value != null) {
+            hashes.add(AuditIndex.hash(field, value));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.audit;
+
+import com.example.events.RequestEvent;
+import com.example.events.codec.JsonRequestEventCodec;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+
+/**
+ * {@code GET /api/audit/events?ip=...&userId=...&apiKey=...&requestId=...&from=...&to=...&limit=...}
+ * streams matching audit events as newline-delimited JSON, oldest first.
+ */
+@RestController
+@RequestMapping("/api/audit")
+@RequiredArgsConstructor
+public class AuditQueryController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final int MAX_LIMIT = 10_000;
+
+    private final AuditSearcher searcher;
+
+    @GetMapping("/events")
+    public ResponseEntity<StreamingResponseBody> events(@RequestParam(required = false) String ip,
+            @RequestParam(required = false) String userId,
+            @RequestParam(required = false) String apiKey,
+            @RequestParam(required = false) String requestId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(defaultValue = "1000") int limit) {
+        Instant end = to != null ? to : Instant.now();
+        Instant start = from != null ? from : Instant.EPOCH;
+        if (start.isAfter(end)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must not be after to");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_LIMIT);
+        }
+        AuditQuery query = new AuditQuery(RequestEvent.toEpochMicros(start), RequestEvent.toEpochMicros(end),
+                ip, userId, apiKey, requestId, limit);
+
+        StreamingResponseBody body = output -> {
+            OutputStream out = new BufferedOutputStream(output);
+            searcher.search(query, event -> write(out, event));
+            out.flush();
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    private static void write(OutputStream out, RequestEvent event) {
+        try {
+            out.write(JsonRequestEventCodec.encode(event));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
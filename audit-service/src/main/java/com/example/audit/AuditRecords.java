@@ -0,0 +1,102 @@
+package com.example.audit;
+
+import com.example.events.RequestEvent;
+import com.example.events.codec.JsonRequestEventCodec;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Streams the JSON-line records of a byte range of a segment through a fixed-size
+ * buffer, so even a full segment scan never holds more than one chunk in memory.
+ */
+@Slf4j
+final class AuditRecords {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private AuditRecords() {
+    }
+
+    @FunctionalInterface
+    interface Visitor {
+        /** Returns {@code false} to stop reading. */
+        boolean visit(RequestEvent event, long position, int length) throws IOException;
+    }
+
+    @FunctionalInterface
+    interface IndexingVisitor {
+        void visit(RequestEvent event, long position, int length) throws IOException;
+    }
+
+    static void forEachLine(FileChannel channel, long start, long end, IndexingVisitor visitor) throws IOException {
+        forEach(channel, start, end, (event, position, length) -> {
+            visitor.visit(event, position, length);
+            return true;
+        });
+    }
+
+    /** Visits every complete line in {@code [start, end)}; returns {@code false} if the visitor stopped early. */
+    static boolean forEach(FileChannel channel, long start, long end, Visitor visitor) throws IOException {
+        byte[] chunk = new byte[CHUNK_SIZE];
+        ByteBuffer buffer = ByteBuffer.wrap(chunk);
+        long chunkStart = start;
+        int carried = 0;
+
+        while (chunkStart + carried < end) {
+            int toRead = (int) Math.min(chunk.length - carried, end - chunkStart - carried);
+            buffer.clear().position(carried).limit(carried + toRead);
+            int read = 0;
+            while (buffer.hasRemaining()) {
+                int n = channel.read(buffer, chunkStart + carried + read);
+                if (n < 0) {
+                    break;
+                }
+                read += n;
+            }
+            int filled = carried + read;
+            if (read == 0) {
+                break;
+            }
+
+            int lineStart = 0;
+            for (int i = 0; i < filled; i++) {
+                byte b = chunk[i];
+                if (b == 0) {
+                    // Pre-allocated, unwritten tail of the active segment
+                    return true;
+                }
+                if (b == '\n') {
+                    RequestEvent event = decode(chunk, lineStart, i - lineStart);
+                    if (event != null && !visitor.visit(event, chunkStart + lineStart, i - lineStart + 1)) {
+                        return false;
+                    }
+                    lineStart = i + 1;
+                }
+            }
+
+            carried = filled - lineStart;
+            if (lineStart == 0 && carried == chunk.length) {
+                // A single line longer than the chunk: grow instead of looping forever
+                chunk = Arrays.copyOf(chunk, chunk.length * 2);
+                buffer = ByteBuffer.wrap(chunk);
+                continue;
+            }
+            System.arraycopy(chunk, lineStart, chunk, 0, carried);
+            chunkStart += lineStart;
+        }
+        return true;
+    }
+
+    private static RequestEvent decode(byte[] chunk, int offset, int length) {
+        try {
+            return JsonRequestEventCodec.decode(Arrays.copyOfRange(chunk, offset, offset + length));
+        } catch (RuntimeException e) {
+            log.warn("Skipping unreadable audit record: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.audit;
+
+import com.example.events.RequestEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Answers {@link AuditQuery}s from the segment indexes. Sealed segments whose time
+ * range misses the query are skipped without opening them. A query for keys looks
+ * each key up in the segment's key table and reads only the blocks holding all of
+ * them; a query for a time range alone reads the blocks that overlap it. Sealed
+ * indexes are loaded once and kept for the {@code index-cache-segments} most
+ * recently queried segments. The active segment is looked up in its writer's
+ * postings and its unindexed tail is scanned.
+ */
+@Component
+@Slf4j
+public class AuditSearcher {
+
+    private static final int[] ALL_BLOCKS = null;
+
+    private final AuditLog auditLog;
+    private final Map<Long, TimeRange> sealedRanges = new ConcurrentHashMap<>();
+    private final Map<Long, SealedIndex> sealedIndexes;
+
+    public AuditSearcher(AuditLog auditLog, AuditProperties properties) {
+        this.auditLog = auditLog;
+        int cacheSegments = properties.getIndexCacheSegments();
+        this.sealedIndexes = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, SealedIndex> eldest) {
+                return size() > cacheSegments;
+            }
+        });
+    }
+
+    /** Streams matching events to {@code sink} in log order; returns how many were emitted. */
+    public int search(AuditQuery query, Consumer<RequestEvent> sink) throws IOException {
+        AuditLog.ActiveSegment active = auditLog.activeSegment();
+        long[] keyHashes = query.keyHashes();
+        int[] emitted = {0};
+
+        for (Path segment : segments()) {
+            long sequence = AuditSegment.sequenceOf(segment);
+            if (active != null && sequence > active.sequence()) {
+                // Rotated after the snapshot; its events are newer than this query's view
+                break;
+            }
+            boolean isActive = active != null && active.sequence() == sequence;
+            TimeRange cached = sealedRanges.get(sequence);
+            if (!isActive && cached != null && !cached.overlaps(query.fromMicros(), query.toMicros())) {
+                continue;
+            }
+
+            List<AuditIndex.Block> blocks = isActive ? AuditIndex.readBlocks(AuditIndex.pathFor(segment)) : null;
+            int[] candidates = isActive && keyHashes.length > 0
+                    ? auditLog.activeBlocks(sequence, keyHashes)
+                    : ALL_BLOCKS;
+            if (!isActive || (keyHashes.length > 0 && candidates == null)) {
+                // Sealed, possibly since the snapshot was taken
+                SealedIndex index = sealedIndex(sequence, segment);
+                if (!index.range().overlaps(query.fromMicros(), query.toMicros())) {
+                    continue;
+                }
+                blocks = index.blocks();
+                candidates = keyHashes.length > 0 ? index.lookup(keyHashes) : ALL_BLOCKS;
+            }
+
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                AuditRecords.Visitor visitor = (event, position, length) -> {
+                    if (query.matches(event)) {
+                        sink.accept(event);
+                        emitted[0]++;
+                    }
+                    return emitted[0] < query.limit();
+                };
+                long readableEnd = isActive ? active.size() : channel.size();
+                int count = candidates == ALL_BLOCKS ? blocks.size() : candidates.length;
+                for (int i = 0; i < count; i++) {
+                    int number = candidates == ALL_BLOCKS ? i : candidates[i];
+                    if (number >= blocks.size()) {
+                        // The active segment's unfinished block, covered by the tail scan
+                        break;
+                    }
+                    AuditIndex.Block block = blocks.get(number);
+                    if (block.end() > readableEnd || !block.overlaps(query.fromMicros(), query.toMicros())) {
+                        continue;
+                    }
+                    if (!AuditRecords.forEach(channel, block.start(), block.end(), visitor)) {
+                        return emitted[0];
+                    }
+                }
+                if (isActive && !AuditRecords.forEach(channel, active.indexedEnd(), readableEnd, visitor)) {
+                    return emitted[0];
+                }
+            } catch (IOException e) {
+                // Segments are never deleted while running, but don't fail the query on one bad file
+                log.warn("Skipping audit segment {}: {}", segment.getFileName(), e.getMessage());
+            }
+        }
+        return emitted[0];
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(auditLog.directory())) {
+            return files.filter(AuditSegment::isSegment).sorted().toList();
+        }
+    }
+
+    private SealedIndex sealedIndex(long sequence, Path segment) throws IOException {
+        SealedIndex index = sealedIndexes.get(sequence);
+        if (index == null) {
+            List<AuditIndex.Block> blocks = AuditIndex.readBlocks(AuditIndex.pathFor(segment));
+            index = new SealedIndex(blocks, AuditIndex.readKeys(segment), TimeRange.of(blocks));
+            // Sealing writes the key table last; without it the segment may still be growing
+            if (index.keys() != null) {
+                sealedIndexes.put(sequence, index);
+                sealedRanges.put(sequence, index.range());
+            }
+        }
+        return index;
+    }
+
+    private record SealedIndex(List<AuditIndex.Block> blocks, AuditIndex.Keys keys, TimeRange range) {
+
+        /** Blocks holding every key, or all blocks if the key table is missing. */
+        int[] lookup(long[] keyHashes) {
+            if (keys == null) {
+                return ALL_BLOCKS;
+            }
+            int[] found = keys.blocks(keyHashes[0]);
+            for (int i = 1; i < keyHashes.length && found.length > 0; i++) {
+                found = AuditIndex.intersect(found, keys.blocks(keyHashes[i]));
+            }
+            return found;
+        }
+    }
+
+    private record TimeRange(long minMicros, long maxMicros) {
+
+        static TimeRange of(List<AuditIndex.Block> blocks) {
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            for (AuditIndex.Block block : blocks) {
+                min = Math.min(min, block.minTimestampMicros());
+                max = Math.max(max, block.maxTimestampMicros());
+            }
+            return new TimeRange(min, max);
+        }
+
+        boolean overlaps(long fromMicros, long toMicros) {
+            return maxMicros >= fromMicros && minMicros <= toMicros;
+        }
+    }
+}
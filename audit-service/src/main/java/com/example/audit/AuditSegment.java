@@ -0,0 +1,153 @@
+package com.example.audit;
+
+import com.example.events.RequestEvent;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One audit log file of JSON lines plus its {@link AuditIndex}. A new segment is
+ * pre-allocated to its full size, so appends never change the file length and
+ * {@code force(false)} only has to flush data blocks. Sealing truncates the
+ * unused tail.
+ */
+final class AuditSegment {
+
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".log";
+    private static final int RECOVERY_BUFFER_SIZE = 64 * 1024;
+
+    private final long sequence;
+    private final Path path;
+    private final FileChannel channel;
+    private final long createdAtMs;
+    private final long capacity;
+    private final AuditIndex.Writer index;
+    private long size;
+
+    private AuditSegment(long sequence, Path path, FileChannel channel, long capacity, AuditIndex.Writer index) {
+        this.sequence = sequence;
+        this.path = path;
+        this.channel = channel;
+        this.createdAtMs = System.currentTimeMillis();
+        this.capacity = capacity;
+        this.index = index;
+    }
+
+    static AuditSegment create(Path directory, long sequence, long capacity) throws IOException {
+        Path path = directory.resolve(fileName(sequence));
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.write(ByteBuffer.wrap(new byte[1]), capacity - 1);
+        return new AuditSegment(sequence, path, channel, capacity, new AuditIndex.Writer(path));
+    }
+
+    /**
+     * Seals a segment left open by a previous run: the log ends at the first zero
+     * byte of the pre-allocated tail, or at the last complete line. Its index may
+     * be behind or ahead of the data, so it is rebuilt.
+     */
+    static void recover(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(RECOVERY_BUFFER_SIZE);
+            long position = 0;
+            long lastLineEnd = 0;
+            boolean done = false;
+            while (!done && channel.read(buffer.clear(), position) > 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    byte b = buffer.get();
+                    position++;
+                    if (b == 0) {
+                        done = true;
+                        break;
+                    }
+                    if (b == '\n') {
+                        lastLineEnd = position;
+                    }
+                }
+            }
+            channel.truncate(lastLineEnd);
+            channel.force(true);
+        }
+        rebuildIndex(path);
+    }
+
+    static void rebuildIndex(Path path) throws IOException {
+        AuditIndex.Writer index = new AuditIndex.Writer(path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            AuditRecords.forEachLine(channel, 0, channel.size(),
+                    (event, position, length) -> index.add(event, position, length));
+        } finally {
+            index.close();
+        }
+    }
+
+    static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+    }
+
+    static long sequenceOf(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    static String fileName(long sequence) {
+        return PREFIX + String.format("%020d", sequence) + SUFFIX;
+    }
+
+    boolean fits(int bytes) {
+        return size + bytes <= capacity;
+    }
+
+    boolean isOlderThan(long ageMs, long now) {
+        return now - createdAtMs >= ageMs;
+    }
+
+    long append(ByteBuffer records) throws IOException {
+        long start = size;
+        while (records.hasRemaining()) {
+            size += channel.write(records, size);
+        }
+        return start;
+    }
+
+    void index(RequestEvent event, long position, int length) throws IOException {
+        index.add(event, position, length);
+    }
+
+    long indexedEnd() {
+        return index.indexedEnd();
+    }
+
+    int[] blocks(long hash) {
+        return index.blocks(hash);
+    }
+
+    void force() throws IOException {
+        channel.force(false);
+    }
+
+    void seal() throws IOException {
+        channel.truncate(size);
+        channel.force(true);
+        channel.close();
+        index.close();
+    }
+
+    long sequence() {
+        return sequence;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    long size() {
+        return size;
+    }
+}
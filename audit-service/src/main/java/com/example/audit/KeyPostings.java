@@ -0,0 +1,147 @@
+package com.example.audit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Key hash to block numbers of the segment being written, in flat primitive
+ * arrays: an open-addressing table of hashes whose slots point at a chain of
+ * postings. Blocks are added in ascending order, so each chain is sorted and a
+ * key seen twice in one block is recorded once. Costs about 40 bytes per
+ * distinct key and 8 per posting.
+ */
+final class KeyPostings {
+
+    private static final int INITIAL_CAPACITY = 1 << 12;
+    private static final int NONE = -1;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private long[] hashes = new long[INITIAL_CAPACITY];
+    private int[] heads = new int[INITIAL_CAPACITY];
+    private int[] tails = new int[INITIAL_CAPACITY];
+    private int[] counts = new int[INITIAL_CAPACITY];
+    private int keys;
+    private int[] blocks = new int[INITIAL_CAPACITY];
+    private int[] next = new int[INITIAL_CAPACITY];
+    private int postings;
+
+    void add(long hash, int block) {
+        int slot = slot(hash);
+        if (counts[slot] == 0) {
+            hashes[slot] = hash;
+            heads[slot] = append(block);
+            tails[slot] = heads[slot];
+            counts[slot] = 1;
+            if (++keys * 2 > hashes.length) {
+                resize();
+            }
+            return;
+        }
+        if (blocks[tails[slot]] == block) {
+            return;
+        }
+        int posting = append(block);
+        next[tails[slot]] = posting;
+        tails[slot] = posting;
+        counts[slot]++;
+    }
+
+    /** Ascending blocks holding {@code hash}; empty if none do. */
+    int[] blocks(long hash) {
+        int slot = slot(hash);
+        int[] found = new int[counts[slot]];
+        for (int i = 0, posting = heads[slot]; i < found.length; i++, posting = next[posting]) {
+            found[i] = blocks[posting];
+        }
+        return found;
+    }
+
+    int keys() {
+        return keys;
+    }
+
+    /**
+     * Writes the key table as entries sorted by hash,
+     * {@code hash(8) postingsOffset(4) postingsCount(4)}, followed by the postings.
+     */
+    void writeTo(FileChannel channel) throws IOException {
+        long[] sorted = new long[keys];
+        for (int slot = 0, i = 0; slot < hashes.length; slot++) {
+            if (counts[slot] > 0) {
+                sorted[i++] = hashes[slot];
+            }
+        }
+        Arrays.sort(sorted);
+
+        ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+        int offset = 0;
+        for (long hash : sorted) {
+            int count = counts[slot(hash)];
+            ensureRoom(channel, buffer, AuditIndex.KEY_ENTRY_BYTES);
+            buffer.putLong(hash).putInt(offset).putInt(count);
+            offset += count;
+        }
+        for (long hash : sorted) {
+            for (int posting = heads[slot(hash)]; posting != NONE; posting = next[posting]) {
+                ensureRoom(channel, buffer, Integer.BYTES);
+                buffer.putInt(blocks[posting]);
+            }
+        }
+        flush(channel, buffer);
+    }
+
+    private static void ensureRoom(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush(channel, buffer);
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private int slot(long hash) {
+        int mask = hashes.length - 1;
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+        while (counts[slot] != 0 && hashes[slot] != hash) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private int append(int block) {
+        if (postings == blocks.length) {
+            blocks = Arrays.copyOf(blocks, postings * 2);
+            next = Arrays.copyOf(next, postings * 2);
+        }
+        blocks[postings] = block;
+        next[postings] = NONE;
+        return postings++;
+    }
+
+    private void resize() {
+        long[] oldHashes = hashes;
+        int[] oldHeads = heads;
+        int[] oldTails = tails;
+        int[] oldCounts = counts;
+        hashes = new long[oldHashes.length * 2];
+        heads = new int[hashes.length];
+        tails = new int[hashes.length];
+        counts = new int[hashes.length];
+        for (int i = 0; i < oldHashes.length; i++) {
+            if (oldCounts[i] > 0) {
+                int slot = slot(oldHashes[i]);
+                hashes[slot] = oldHashes[i];
+                heads[slot] = oldHeads[i];
+                tails[slot] = oldTails[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.audit;
+
+import com.example.events.RequestEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuditIndexTest {
+
+    private static final int RECORD_BYTES = 100;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void keyTableListsOnlyTheBlocksHoldingAKey() throws IOException {
+        Path segment = directory.resolve(AuditSegment.fileName(1));
+        AuditIndex.Writer writer = new AuditIndex.Writer(segment);
+        int records = 3 * AuditIndex.RECORDS_PER_BLOCK;
+        for (int i = 0; i < records; i++) {
+            // 10.0.0.1 appears in the first and last block only
+            int block = i / AuditIndex.RECORDS_PER_BLOCK;
+            String ip = block != 1 && i % 10 == 0 ? "10.0.0.1" : "10.0.1." + block;
+            writer.add(event(i, ip), (long) i * RECORD_BYTES, RECORD_BYTES);
+        }
+        writer.close();
+
+        AuditIndex.Keys keys = AuditIndex.readKeys(segment);
+        assertThat(keys.blocks(AuditIndex.hash(AuditIndex.FIELD_IP, "10.0.0.1"))).containsExactly(0, 2);
+        assertThat(keys.blocks(AuditIndex.hash(AuditIndex.FIELD_IP, "10.0.1.1"))).containsExactly(1);
+        assertThat(keys.blocks(AuditIndex.hash(AuditIndex.FIELD_REQUEST, event(300, null).requestId())))
+                .containsExactly(1);
+        assertThat(keys.blocks(AuditIndex.hash(AuditIndex.FIELD_IP, "192.168.0.1"))).isEmpty();
+
+        List<AuditIndex.Block> blocks = AuditIndex.readBlocks(AuditIndex.pathFor(segment));
+        assertThat(blocks).hasSize(3);
+        assertThat(blocks.get(1).start()).isEqualTo((long) AuditIndex.RECORDS_PER_BLOCK * RECORD_BYTES);
+        assertThat(blocks.get(2).end()).isEqualTo((long) records * RECORD_BYTES);
+        assertThat(AuditIndex.isComplete(segment)).isTrue();
+    }
+
+    @Test
+    void writerAnswersLookupsBeforeTheSegmentIsSealed() throws IOException {
+        AuditIndex.Writer writer = new AuditIndex.Writer(directory.resolve(AuditSegment.fileName(1)));
+        for (int i = 0; i < AuditIndex.RECORDS_PER_BLOCK + 1; i++) {
+            writer.add(event(i, "10.0.0.1"), (long) i * RECORD_BYTES, RECORD_BYTES);
+        }
+
+        // The second block is unfinished and lies past indexedEnd
+        assertThat(writer.blocks(AuditIndex.hash(AuditIndex.FIELD_IP, "10.0.0.1"))).containsExactly(0, 1);
+        assertThat(writer.indexedEnd()).isEqualTo((long) AuditIndex.RECORDS_PER_BLOCK * RECORD_BYTES);
+        writer.close();
+    }
+
+    @Test
+    void postingsSurviveGrowth() {
+        KeyPostings postings = new KeyPostings();
+        int keys = 100_000;
+        for (int i = 0; i < keys; i++) {
+            postings.add(AuditIndex.hash(AuditIndex.FIELD_REQUEST, "r" + i), i / 1000);
+            postings.add(AuditIndex.hash(AuditIndex.FIELD_IP, "ip" + i % 3), i / 1000);
+        }
+
+        assertThat(postings.keys()).isEqualTo(keys + 3);
+        assertThat(postings.blocks(AuditIndex.hash(AuditIndex.FIELD_REQUEST, "r54321"))).containsExactly(54);
+        assertThat(postings.blocks(AuditIndex.hash(AuditIndex.FIELD_IP, "ip1"))).hasSize(100).startsWith(0, 1, 2);
+    }
+
+    @Test
+    void indexesWithoutTheCurrentHeaderAreIncomplete() throws IOException {
+        Path segment = directory.resolve(AuditSegment.fileName(1));
+        Files.write(AuditIndex.pathFor(segment), new byte[1060]);
+
+        assertThat(AuditIndex.isComplete(segment)).isFalse();
+        assertThat(AuditIndex.readBlocks(AuditIndex.pathFor(segment))).isEmpty();
+        assertThat(AuditIndex.readKeys(segment)).isNull();
+    }
+
+    @Test
+    void intersectsAscendingBlockLists() {
+        assertThat(AuditIndex.intersect(new int[]{0, 2, 5, 9}, new int[]{1, 2, 3, 9, 10})).containsExactly(2, 9);
+        assertThat(AuditIndex.intersect(new int[]{0}, new int[0])).isEmpty();
+    }
+
+    private static RequestEvent event(int i, String ip) {
+        return RequestEvent.builder()
+                .timestampMicros(1_000_000L + i)
+                .requestIdLow(i)
+                .ip(ip)
+                .userId("user-" + i % 7)
+                .endpoint("/api/v1/users")
+                .method("GET")
+                .status(200)
+                .type(RequestEvent.EventType.ALLOWED)
+                .build();
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.audit;
+
+import com.example.events.RequestEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuditSearcherTest {
+
+    private static final int EVENTS = 5_000;
+    private static final int IPS = 10;
+    private static final long START_MICROS = 1_700_000_000_000_000L;
+
+    @TempDir
+    Path directory;
+
+    private AuditLog auditLog;
+    private AuditSearcher searcher;
+
+    @BeforeEach
+    void appendEvents() throws IOException {
+        open();
+        for (int from = 0; from < EVENTS; from += 100) {
+            auditLog.append(IntStream.range(from, from + 100).mapToObj(AuditSearcherTest::event).toList());
+        }
+    }
+
+    @AfterEach
+    void close() throws IOException {
+        auditLog.destroy();
+    }
+
+    @Test
+    void spreadsEventsOverSealedSegmentsAndAnActiveOne() throws IOException {
+        assertThat(segments()).hasSizeGreaterThan(3);
+        assertThat(auditLog.activeSegment().indexedEnd()).isLessThan(auditLog.activeSegment().size());
+    }
+
+    @Test
+    void findsARequestIdWithoutATimeRange() throws IOException {
+        for (int i : new int[]{0, 1234, EVENTS - 1}) {
+            List<RequestEvent> found = search(query(null, null, event(i).requestId(), 0, Long.MAX_VALUE));
+
+            assertThat(found).extracting(RequestEvent::getRequestIdLow).containsExactly((long) i);
+        }
+    }
+
+    @Test
+    void findsEveryEventOfAnIpInLogOrder() throws IOException {
+        List<RequestEvent> found = search(query("10.0.0.3", null, null, 0, Long.MAX_VALUE));
+
+        assertThat(found).extracting(RequestEvent::getRequestIdLow)
+                .containsExactlyElementsOf(IntStream.range(0, EVENTS).filter(i -> i % IPS == 3)
+                        .mapToObj(i -> (long) i).toList());
+    }
+
+    @Test
+    void combinesKeysAndTimeRange() throws IOException {
+        List<RequestEvent> found = search(query("10.0.0.3", "user-1", null,
+                START_MICROS + 1000, START_MICROS + 2999));
+
+        assertThat(found).extracting(RequestEvent::getRequestIdLow)
+                .containsExactlyElementsOf(IntStream.range(1000, 3000).filter(i -> i % IPS == 3 && i % 7 == 1)
+                        .mapToObj(i -> (long) i).toList());
+    }
+
+    @Test
+    void timeRangeAloneReadsTheOverlappingBlocks() throws IOException {
+        List<RequestEvent> found = search(query(null, null, null, START_MICROS + 2500, START_MICROS + 2509));
+
+        assertThat(found).extracting(RequestEvent::getRequestIdLow)
+                .containsExactly(2500L, 2501L, 2502L, 2503L, 2504L, 2505L, 2506L, 2507L, 2508L, 2509L);
+    }
+
+    @Test
+    void stopsAtTheLimit() throws IOException {
+        AuditQuery query = new AuditQuery(0, Long.MAX_VALUE, "10.0.0.3", null, null, null, 5);
+
+        assertThat(search(query)).hasSize(5);
+    }
+
+    @Test
+    void rebuildsMissingKeyTablesAfterARestart() throws IOException {
+        auditLog.destroy();
+        Path sealed = segments().get(0);
+        Files.delete(AuditIndex.keysPathFor(sealed));
+
+        open();
+
+        assertThat(AuditIndex.isComplete(sealed)).isTrue();
+        assertThat(search(query(null, null, event(0).requestId(), 0, Long.MAX_VALUE))).hasSize(1);
+        assertThat(search(query("10.0.0.3", null, null, 0, Long.MAX_VALUE))).hasSize(EVENTS / IPS);
+    }
+
+    private void open() throws IOException {
+        AuditProperties properties = new AuditProperties();
+        properties.setDirectory(directory.toString());
+        properties.setSegmentBytes(256 * 1024);
+        properties.setFsync(AuditProperties.FsyncPolicy.NONE);
+        properties.setIndexCacheSegments(2);
+        auditLog = new AuditLog(properties);
+        searcher = new AuditSearcher(auditLog, properties);
+    }
+
+    private List<RequestEvent> search(AuditQuery query) throws IOException {
+        List<RequestEvent> found = new ArrayList<>();
+        searcher.search(query, found::add);
+        return found;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(AuditSegment::isSegment).sorted().toList();
+        }
+    }
+
+    private static AuditQuery query(String ip, String userId, String requestId, long fromMicros, long toMicros) {
+        return new AuditQuery(fromMicros, toMicros, ip, userId, null, requestId, EVENTS);
+    }
+
+    private static RequestEvent event(int i) {
+        return RequestEvent.builder()
+                .timestampMicros(START_MICROS + i)
+                .requestIdLow(i)
+                .ip("10.0.0." + i % IPS)
+                .userId("user-" + i % 7)
+                .endpoint("/api/v1/users")
+                .method("GET")
+                .status(200)
+                .type(RequestEvent.EventType.ALLOWED)
+                .build();
+    }
+}
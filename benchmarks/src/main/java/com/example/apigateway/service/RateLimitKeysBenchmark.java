@@ -0,0 +1,60 @@
+package com.example.apigateway.service;
+
+import com.example.apigateway.policy.PolicySet;
+import com.example.apigateway.policy.RateLimitPolicyEngine;
+import com.example.benchmarks.GatewayFixtures;
+import com.example.benchmarks.InMemoryRedisTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lives in the limiter's package to reach the package-private key and
+ * argument builders.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RateLimitKeysBenchmark {
+
+    private RedisRateLimiter rateLimiter;
+    private PolicySet policies;
+    private List<RedisRateLimiter.Limit> limits;
+
+    @Setup
+    public void setUp() {
+        rateLimiter = GatewayFixtures.rateLimiter(new InMemoryRedisTemplate());
+        policies = new RateLimitPolicyEngine(GatewayFixtures.rateLimitProperties())
+                .match(GatewayFixtures.PATH, GatewayFixtures.API_KEY);
+        limits = buildLimits();
+    }
+
+    @Benchmark
+    public List<RedisRateLimiter.Limit> buildLimits() {
+        return rateLimiter.buildLimits(policies, GatewayFixtures.CLIENT_IP, "user-123",
+                GatewayFixtures.API_KEY, GatewayFixtures.PATH, "GET");
+    }
+
+    @Benchmark
+    public List<String> buildKeys() {
+        return rateLimiter.buildKeys(limits);
+    }
+
+    @Benchmark
+    public List<String> buildArgs() {
+        return rateLimiter.buildArgs(System.currentTimeMillis(), limits);
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.benchmarks;
+
+import com.example.analytics.AnomalyEngine;
+import com.example.analytics.AnomalyProperties;
+import com.example.analytics.SecurityAlert;
+import com.example.events.RequestEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Events per second through {@link AnomalyEngine} from four threads, as with one
+ * listener thread per partition, for a small and a very large set of client IPs.
+ * Event time advances 10µs per event per thread, so windows roll over during the
+ * run. The run fails if more keys than {@code max-tracked-keys} end up holding
+ * per-key state.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx1g")
+@Threads(4)
+@State(Scope.Benchmark)
+public class AnomalyEngineBenchmark {
+
+    private static final String[] ENDPOINTS = {"/api/v1/resource", "/api/v1/users", "/api/v1/orders", "/login"};
+
+    @Param({"1000", "1000000"})
+    public int distinctIps;
+
+    private final AnomalyProperties properties = new AnomalyProperties();
+    private AnomalyEngine engine;
+    private String[] ips;
+
+    @Setup
+    public void setUp() {
+        engine = new AnomalyEngine(properties);
+        ips = new String[distinctIps];
+        for (int i = 0; i < distinctIps; i++) {
+            ips[i] = "10." + ((i >>> 16) & 0xFF) + "." + ((i >>> 8) & 0xFF) + "." + (i & 0xFF);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (engine.trackedKeys() > properties.getMaxTrackedKeys()) {
+            throw new IllegalStateException("Tracked " + engine.trackedKeys() + " keys, more than max-tracked-keys "
+                    + properties.getMaxTrackedKeys());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Events {
+
+        private RequestEvent event;
+        private long timestampMicros;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            timestampMicros = RequestEvent.toEpochMicros(Instant.now());
+            event = RequestEvent.builder()
+                    .method("GET")
+                    .latencyMs(7)
+                    .type(RequestEvent.EventType.ALLOWED)
+                    .build();
+        }
+    }
+
+    @Benchmark
+    public List<SecurityAlert> process(Events events) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        RequestEvent event = events.event;
+        event.setTimestampMicros(events.timestampMicros += 10);
+        event.setIp(ips[random.nextInt(ips.length)]);
+        event.setEndpoint(ENDPOINTS[random.nextInt(ENDPOINTS.length)]);
+        event.setUserId(random.nextInt(4) == 0 ? null : "user-" + random.nextInt(1000));
+        event.setStatus(random.nextInt(20) == 0 ? 401 : 200);
+        return engine.process(event);
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.benchmarks;
+
+import com.example.audit.AuditLog;
+import com.example.audit.AuditProperties;
+import com.example.events.RequestEvent;
+import com.example.events.codec.JsonRequestEventCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Audit events per second: the previous writer (open, append one line, close per
+ * event) against {@link AuditLog} under each fsync policy, fed Kafka-sized batches.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuditLogBenchmark {
+
+    private static final int BATCH_SIZE = 500;
+
+    @Param({"LEGACY", "BATCH", "INTERVAL", "NONE"})
+    public String writer;
+
+    private Path directory;
+    private Path legacyFile;
+    private AuditLog auditLog;
+    private List<RequestEvent> batch;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("audit-bench");
+        legacyFile = directory.resolve("audit_log.json");
+        if (!"LEGACY".equals(writer)) {
+            AuditProperties properties = new AuditProperties();
+            properties.setDirectory(directory.toString());
+            properties.setFsync(AuditProperties.FsyncPolicy.valueOf(writer));
+            auditLog = new AuditLog(properties);
+        }
+        batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(RequestEvent.builder()
+                    .timestampMicros(RequestEvent.toEpochMicros(Instant.now()))
+                    .requestIdHigh(i)
+                    .requestIdLow(i)
+                    .ip(GatewayFixtures.CLIENT_IP)
+                    .userId("user-123")
+                    .apiKey(GatewayFixtures.API_KEY)
+                    .endpoint(GatewayFixtures.PATH)
+                    .method("GET")
+                    .status(200)
+                    .latencyMs(7)
+                    .type(RequestEvent.EventType.ALLOWED)
+                    .build());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (auditLog != null) {
+            auditLog.destroy();
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public boolean appendBatch() throws IOException {
+        if (auditLog != null) {
+            return auditLog.append(batch);
+        }
+        for (RequestEvent event : batch) {
+            String message = JsonRequestEventCodec.toJson(event);
+            try (PrintWriter out = new PrintWriter(new FileWriter(legacyFile.toFile(), true))) {
+                out.println(message);
+            }
+        }
+        return true;
+    }
+}
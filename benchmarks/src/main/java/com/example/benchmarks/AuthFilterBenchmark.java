@@ -0,0 +1,117 @@
+package com.example.benchmarks;
+
+import com.example.apigateway.auth.ApiKeyStore;
+import com.example.apigateway.auth.RequestAuthenticator;
+import com.example.apigateway.config.AuthProperties;
+import com.example.apigateway.context.RequestContext;
+import com.example.apigateway.filter.AuthFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request authentication cost. {@code authenticate} isolates the credential
+ * check: with a {@code HOT} cache every call is a cache hit, with {@code COLD} the
+ * cache holds one entry and two credentials alternate, so every call verifies the
+ * signature or digests the API key.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthFilterBenchmark {
+
+    private final AuthFilter filter = GatewayFixtures.authFilter();
+
+    @State(Scope.Thread)
+    public static class Credentials {
+
+        private static final String KEY_ID = "benchmark";
+
+        @Param({"HS256", "RS256", "API_KEY"})
+        public String credential;
+
+        @Param({"HOT", "COLD"})
+        public String cache;
+
+        private RequestAuthenticator authenticator;
+        private String[] values;
+        private int next;
+
+        @Setup
+        public void setUp() throws NoSuchAlgorithmException {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            KeyPair rsa = generator.generateKeyPair();
+
+            AuthProperties properties = GatewayFixtures.authProperties();
+            properties.getJwt().getRsaPublicKeys().put(KEY_ID, "-----BEGIN PUBLIC KEY-----\n"
+                    + Base64.getMimeEncoder().encodeToString(rsa.getPublic().getEncoded())
+                    + "\n-----END PUBLIC KEY-----");
+            properties.getApiKeys().getSha256().put(
+                    ApiKeyStore.sha256Hex("other-key"), "benchmark-client");
+            if ("COLD".equals(cache)) {
+                properties.getCache().setMaxEntries(1);
+            }
+            authenticator = GatewayFixtures.authenticator(properties);
+            values = switch (credential) {
+                case "HS256" -> new String[]{
+                        "Bearer " + GatewayFixtures.hs256Token("user-1", GatewayFixtures.HMAC_SECRET),
+                        "Bearer " + GatewayFixtures.hs256Token("user-2", GatewayFixtures.HMAC_SECRET)};
+                case "RS256" -> new String[]{
+                        "Bearer " + GatewayFixtures.rs256Token("user-1", KEY_ID, rsa.getPrivate()),
+                        "Bearer " + GatewayFixtures.rs256Token("user-2", KEY_ID, rsa.getPrivate())};
+                default -> new String[]{GatewayFixtures.API_KEY, "other-key"};
+            };
+        }
+
+        String next() {
+            next ^= 1;
+            return values[next];
+        }
+    }
+
+    @Benchmark
+    public String authenticate(Credentials credentials) {
+        String value = credentials.next();
+        return "API_KEY".equals(credentials.credential)
+                ? credentials.authenticator.authenticateApiKey(value)
+                : credentials.authenticator.authenticateBearer(value);
+    }
+
+    @Benchmark
+    public ServerWebExchange exchangeOnly() {
+        return GatewayFixtures.exchange(true);
+    }
+
+    @Benchmark
+    public Object authenticated() {
+        ServerWebExchange exchange = GatewayFixtures.exchange(true);
+        filter.filter(exchange, GatewayFixtures.TERMINAL_CHAIN).block();
+        return RequestContext.of(exchange).getUserId();
+    }
+
+    @Benchmark
+    public Object anonymous() {
+        ServerWebExchange exchange = GatewayFixtures.exchange(false);
+        filter.filter(exchange, GatewayFixtures.TERMINAL_CHAIN).block();
+        return RequestContext.of(exchange).getUserId();
+    }
+}
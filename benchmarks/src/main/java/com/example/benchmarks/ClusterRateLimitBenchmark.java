@@ -0,0 +1,102 @@
+package com.example.benchmarks;
+
+import com.example.apigateway.config.RateLimitProperties;
+import com.example.apigateway.model.LimitDimension;
+import com.example.apigateway.service.RateLimitDecision;
+import com.example.apigateway.service.RedisRateLimiter;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limit decisions in cluster mode against a three-node {@link InMemoryRedisCluster},
+ * for anonymous traffic from many IPs to one path. Without hot key shards every
+ * request also hits the slots holding the path and GET counters. The
+ * {@code busiestNodeCalls} and {@code quietestNodeCalls} aux counters, script calls
+ * per iteration on the most and least loaded node, should converge as
+ * {@code hotKeyShards} grows; {@code crossSlotErrors} must stay 0.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClusterRateLimitBenchmark {
+
+    private static final int NODES = 3;
+    private static final int DISTINCT_IPS = 10_000;
+
+    @Param({"1", "16"})
+    public int hotKeyShards;
+
+    private InMemoryRedisCluster cluster;
+    private RedisRateLimiter rateLimiter;
+    private String[] ips;
+
+    @Setup
+    public void setUp() {
+        RateLimitProperties properties = GatewayFixtures.rateLimitProperties();
+        properties.getCluster().setEnabled(true);
+        properties.getCluster().getHotKeyShards().put(LimitDimension.PATH, hotKeyShards);
+        properties.getCluster().getHotKeyShards().put(LimitDimension.METHOD, hotKeyShards);
+        cluster = new InMemoryRedisCluster(NODES);
+        rateLimiter = GatewayFixtures.rateLimiter(cluster, properties);
+        ips = new String[DISTINCT_IPS];
+        for (int i = 0; i < DISTINCT_IPS; i++) {
+            ips[i] = "10.1." + (i >>> 8) + "." + (i & 0xFF);
+        }
+    }
+
+    @Benchmark
+    public RateLimitDecision decide(NodeLoad load) {
+        String ip = ips[ThreadLocalRandom.current().nextInt(ips.length)];
+        return rateLimiter.check(ip, null, null, GatewayFixtures.PATH, "GET").block();
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class NodeLoad {
+
+        public long busiestNodeCalls;
+        public long quietestNodeCalls;
+        public long crossSlotErrors;
+        private InMemoryRedisCluster cluster;
+        private long[] baseline;
+        private long crossSlotBaseline;
+
+        @Setup(Level.Iteration)
+        public void start(ClusterRateLimitBenchmark benchmark) {
+            cluster = benchmark.cluster;
+            baseline = cluster.nodeCalls();
+            crossSlotBaseline = cluster.crossSlotErrors();
+        }
+
+        @TearDown(Level.Iteration)
+        public void finish() {
+            long[] calls = cluster.nodeCalls();
+            busiestNodeCalls = 0;
+            quietestNodeCalls = Long.MAX_VALUE;
+            for (int i = 0; i < calls.length; i++) {
+                long iteration = calls[i] - baseline[i];
+                busiestNodeCalls = Math.max(busiestNodeCalls, iteration);
+                quietestNodeCalls = Math.min(quietestNodeCalls, iteration);
+            }
+            crossSlotErrors = cluster.crossSlotErrors() - crossSlotBaseline;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.benchmarks;
+
+import com.example.analytics.AnomalyEngine;
+import com.example.analytics.AnomalyProperties;
+import com.example.events.RequestEvent;
+import com.example.events.codec.RequestEventDeserializer;
+import com.example.events.codec.RequestEventSerializer;
+import com.example.events.consumer.KeyOrderedExecutor;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Time for one listener thread to drain a backlog of {@value #BACKLOG} events from
+ * an embedded Kafka broker, per {@link KeyOrderedExecutor} mode. Each poll is handled
+ * like {@code SecurityAnalyticsConsumer} does (the real {@link AnomalyEngine}, events
+ * of one IP in order) and committed before the next poll, as the container does in
+ * batch ack mode. {@code ioMicros} adds blocking I/O per event, as a Redis or file
+ * write on the listener thread would. Below Java 21 {@code VIRTUAL_THREADS} falls
+ * back to the thread pool, so on the Java 17 build its rows measure the pool.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConsumerLagBenchmark {
+
+    private static final String TOPIC = "api-requests";
+    private static final int PARTITIONS = 3;
+    private static final int BACKLOG = 10_000;
+    private static final int DISTINCT_IPS = 1_000;
+    private static final int MAX_POLL_RECORDS = 500;
+
+    @Param({"SEQUENTIAL", "THREAD_POOL", "VIRTUAL_THREADS"})
+    public KeyOrderedExecutor.Mode mode;
+
+    @Param({"0", "100"})
+    public int ioMicros;
+
+    private EmbeddedKafkaKraftBroker broker;
+    private KeyOrderedExecutor executor;
+    private AnomalyEngine engine;
+    private List<TopicPartition> partitions;
+
+    @Setup
+    public void setUp() throws Exception {
+        broker = new EmbeddedKafkaKraftBroker(1, PARTITIONS, TOPIC);
+        broker.afterPropertiesSet();
+        produceBacklog();
+        executor = KeyOrderedExecutor.create(mode, 8, "bench-lane");
+        engine = new AnomalyEngine(new AnomalyProperties());
+        partitions = new ArrayList<>(PARTITIONS);
+        for (int i = 0; i < PARTITIONS; i++) {
+            partitions.add(new TopicPartition(TOPIC, i));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.close();
+        broker.destroy();
+    }
+
+    @Benchmark
+    public long drain() {
+        long processed = 0;
+        try (KafkaConsumer<String, RequestEvent> consumer = new KafkaConsumer<>(consumerConfig())) {
+            consumer.assign(partitions);
+            consumer.seekToBeginning(partitions);
+            while (processed < BACKLOG) {
+                ConsumerRecords<String, RequestEvent> records = consumer.poll(Duration.ofMillis(100));
+                List<RequestEvent> events = new ArrayList<>(records.count());
+                for (ConsumerRecord<String, RequestEvent> record : records) {
+                    events.add(record.value());
+                }
+                executor.process(events, RequestEvent::getIp, this::handle);
+                consumer.commitSync();
+                processed += events.size();
+            }
+        }
+        return processed;
+    }
+
+    private void handle(RequestEvent event) {
+        engine.process(event);
+        if (ioMicros > 0) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(ioMicros));
+        }
+    }
+
+    private void produceBacklog() {
+        Map<String, Object> config = Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString(),
+                ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, RequestEventSerializer.class,
+                ProducerConfig.LINGER_MS_CONFIG, 5);
+        long now = RequestEvent.toEpochMicros(Instant.now());
+        try (KafkaProducer<String, RequestEvent> producer = new KafkaProducer<>(config)) {
+            for (int i = 0; i < BACKLOG; i++) {
+                RequestEvent event = RequestEvent.builder()
+                        .timestampMicros(now + i)
+                        .requestIdHigh(now)
+                        .requestIdLow(i)
+                        .ip("10.0." + (i % DISTINCT_IPS / 256) + "." + (i % DISTINCT_IPS % 256))
+                        .endpoint(GatewayFixtures.PATH)
+                        .method("GET")
+                        .status(200)
+                        .latencyMs(7)
+                        .type(RequestEvent.EventType.ALLOWED)
+                        .build();
+                producer.send(new ProducerRecord<>(TOPIC, event.requestId(), event));
+            }
+            producer.flush();
+        }
+    }
+
+    private Map<String, Object> consumerConfig() {
+        return Map.of(
+                ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString(),
+                ConsumerConfig.GROUP_ID_CONFIG, "lag-bench-" + UUID.randomUUID(),
+                ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false,
+                ConsumerConfig.MAX_POLL_RECORDS_CONFIG, MAX_POLL_RECORDS,
+                ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+                ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, RequestEventDeserializer.class);
+    }
+}
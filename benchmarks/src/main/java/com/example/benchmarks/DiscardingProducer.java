@@ -0,0 +1,58 @@
+package com.example.benchmarks;
+
+import com.example.events.RequestEvent;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Kafka stand-in that serializes every record like a real producer would and then
+ * drops it. Unlike {@link MockProducer} it keeps no history, so long benchmark
+ * iterations don't measure a growing list.
+ */
+public class DiscardingProducer extends MockProducer<String, RequestEvent> {
+
+    private final Serializer<RequestEvent> valueSerializer;
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+
+    public DiscardingProducer(Serializer<RequestEvent> valueSerializer) {
+        super(true, new StringSerializer(), valueSerializer);
+        this.valueSerializer = valueSerializer;
+    }
+
+    @Override
+    public Future<RecordMetadata> send(ProducerRecord<String, RequestEvent> record, Callback callback) {
+        byte[] value = valueSerializer.serialize(record.topic(), record.value());
+        RecordMetadata metadata = new RecordMetadata(
+                new TopicPartition(record.topic(), 0), 0, 0, 0, 0, value.length);
+        sent.increment();
+        bytes.add(value.length);
+        if (callback != null) {
+            callback.onCompletion(metadata, null);
+        }
+        return CompletableFuture.completedFuture(metadata);
+    }
+
+    @Override
+    public void close(Duration timeout) {
+        // KafkaTemplate closes the producer after every send; keep it reusable
+    }
+
+    public long sentCount() {
+        return sent.sum();
+    }
+
+    public long sentBytes() {
+        return bytes.sum();
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.benchmarks;
+
+import com.example.apigateway.config.EventPublisherProperties;
+import com.example.apigateway.service.KafkaEventPublisher;
+import com.example.events.RequestEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.mock.MockProducerFactory;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@code publishEvent} on the request thread. {@code stalled} never drains
+ * the ring, so every call after the first few thousand goes through the overflow policy.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class EventPublisherBenchmark {
+
+    @Param({"DROP_OLDEST", "SAMPLE"})
+    public EventPublisherProperties.OverflowPolicy overflow;
+
+    @Param({"true", "false"})
+    public boolean stalled;
+
+    private KafkaEventPublisher publisher;
+    private RequestEvent event;
+
+    @Setup
+    public void setUp() {
+        EventPublisherProperties properties = new EventPublisherProperties();
+        properties.setOverflow(overflow);
+        DiscardingProducer producer = GatewayFixtures.producer();
+        publisher = new KafkaEventPublisher(new KafkaTemplate<>(new MockProducerFactory<>(() -> producer)),
+                properties, new SimpleMeterRegistry());
+        if (!stalled) {
+            publisher.start();
+        }
+        event = RequestEvent.builder()
+                .timestampMicros(RequestEvent.toEpochMicros(Instant.now()))
+                .requestIdHigh(1)
+                .requestIdLow(2)
+                .ip(GatewayFixtures.CLIENT_IP)
+                .endpoint(GatewayFixtures.PATH)
+                .method("GET")
+                .status(200)
+                .type(RequestEvent.EventType.ALLOWED)
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (publisher.isRunning()) {
+            publisher.stop();
+        }
+    }
+
+    @Benchmark
+    public void publish() {
+        publisher.publishEvent(event);
+    }
+}
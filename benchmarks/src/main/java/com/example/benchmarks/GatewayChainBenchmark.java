@@ -0,0 +1,103 @@
+package com.example.benchmarks;
+
+import com.example.apigateway.filter.ObservabilityFilter;
+import com.example.apigateway.filter.RateLimitFilter;
+import com.example.apigateway.service.KafkaEventPublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Requests per second through the observability, auth and rate limit filters,
+ * with the Kafka records each request produced reported next to the throughput
+ * ({@code records} should match the request rate, allowed or blocked).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GatewayChainBenchmark {
+
+    @Param({"false", "true"})
+    public boolean blocked;
+
+    private KafkaEventPublisher publisher;
+    private DiscardingProducer producer;
+    private GatewayFilterChain chain;
+
+    @Setup
+    public void setUp() {
+        InMemoryRedisTemplate redis = new InMemoryRedisTemplate(!blocked);
+        producer = GatewayFixtures.producer();
+        publisher = GatewayFixtures.kafkaPublisher(producer);
+        GatewayFilterChain backend = exchange -> {
+            exchange.getResponse().setStatusCode(HttpStatus.OK);
+            return Mono.empty();
+        };
+        chain = link(new ObservabilityFilter(publisher, new SimpleMeterRegistry()),
+                link(GatewayFixtures.authFilter(),
+                        link(new RateLimitFilter(GatewayFixtures.rateLimiter(redis), GatewayFixtures.denyList(),
+                                        GatewayFixtures.quotaService(redis), new SimpleMeterRegistry()),
+                                backend)));
+    }
+
+    @TearDown
+    public void tearDown() {
+        publisher.stop();
+    }
+
+    @Benchmark
+    public ServerWebExchange request(Published published) {
+        ServerWebExchange exchange = GatewayFixtures.exchange(true);
+        chain.filter(exchange).block();
+        return exchange;
+    }
+
+    private static GatewayFilterChain link(GlobalFilter filter, GatewayFilterChain next) {
+        return exchange -> filter.filter(exchange, next);
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Published {
+
+        public long records;
+        private long baseline;
+        private DiscardingProducer producer;
+
+        @Setup(Level.Iteration)
+        public void start(GatewayChainBenchmark benchmark) {
+            producer = benchmark.producer;
+            baseline = producer.sentCount();
+            records = 0;
+        }
+
+        @TearDown(Level.Iteration)
+        public void finish() throws InterruptedException {
+            // Let the publisher thread drain what this iteration enqueued
+            Thread.sleep(50);
+            records = producer.sentCount() - baseline;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.benchmarks;
+
+import com.example.apigateway.auth.ApiKeyStore;
+import com.example.apigateway.auth.RequestAuthenticator;
+import com.example.apigateway.config.AuthProperties;
+import com.example.apigateway.config.EventPublisherProperties;
+import com.example.apigateway.config.QuotaProperties;
+import com.example.apigateway.config.RateLimitProperties;
+import com.example.apigateway.filter.AuthFilter;
+import com.example.apigateway.model.LimitDimension;
+import com.example.apigateway.policy.RateLimitPolicyEngine;
+import com.example.apigateway.quota.QuotaService;
+import com.example.apigateway.service.GatewayMembership;
+import com.example.apigateway.service.IpDenyList;
+import com.example.apigateway.service.KafkaEventPublisher;
+import com.example.apigateway.service.LocalQuotaCache;
+import com.example.apigateway.service.RateLimitBatcher;
+import com.example.apigateway.service.RateLimitFallback;
+import com.example.apigateway.service.RateLimitMetrics;
+import com.example.apigateway.service.RateLimitScripts;
+import com.example.apigateway.service.RedisRateLimiter;
+import com.example.events.codec.RequestEventSerializer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.mock.MockProducerFactory;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.adapter.DefaultServerWebExchange;
+import org.springframework.web.server.i18n.AcceptHeaderLocaleContextResolver;
+import org.springframework.web.server.session.DefaultWebSessionManager;
+import reactor.core.publisher.Mono;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wires gateway components the way Spring would, but on top of the in-memory
+ * Redis and Kafka stand-ins, with the policies shipped in application.yml.
+ */
+public final class GatewayFixtures {
+
+    // Before BEARER_TOKEN, which is minted during class initialisation
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+
+    public static final String PATH = "/api/v1/resource";
+    public static final String CLIENT_IP = "10.0.0.1";
+    public static final String HMAC_SECRET = "benchmark-hs256-secret-0123456789abcdef";
+    public static final String BEARER_TOKEN = "Bearer " + hs256Token("user-123", HMAC_SECRET);
+    public static final String API_KEY = "demo-key";
+    public static final GatewayFilterChain TERMINAL_CHAIN = exchange -> Mono.empty();
+
+    // Shared like in a running server; MockServerWebExchange builds a codec configurer per exchange
+    private static final ServerCodecConfigurer CODECS = ServerCodecConfigurer.create();
+    private static final DefaultWebSessionManager SESSIONS = new DefaultWebSessionManager();
+    private static final AcceptHeaderLocaleContextResolver LOCALES = new AcceptHeaderLocaleContextResolver();
+    private static final MockServerHttpRequest ANONYMOUS_REQUEST = request(false);
+    private static final MockServerHttpRequest AUTHENTICATED_REQUEST = request(true);
+
+    private GatewayFixtures() {
+    }
+
+    public static RateLimitProperties rateLimitProperties() {
+        RateLimitProperties properties = new RateLimitProperties();
+        List<RateLimitProperties.Policy> policies = new ArrayList<>();
+        policies.add(policy("ip", LimitDimension.IP, 100));
+        policies.add(policy("user", LimitDimension.USER, 500));
+        policies.add(policy("apikey", LimitDimension.API_KEY, 1000));
+        policies.add(policy("path", LimitDimension.PATH, 1000));
+        policies.add(policy("method", LimitDimension.METHOD, 2000));
+        properties.setPolicies(policies);
+        return properties;
+    }
+
+    public static RedisRateLimiter rateLimiter(InMemoryRedisTemplate redis) {
+        return rateLimiter(redis, rateLimitProperties());
+    }
+
+    public static RedisRateLimiter rateLimiter(ReactiveStringRedisTemplate redis, RateLimitProperties properties) {
+        RateLimitScripts scripts = new RateLimitScripts();
+        RateLimitMetrics metrics = new RateLimitMetrics(new SimpleMeterRegistry());
+        return new RedisRateLimiter(redis,
+                new LocalQuotaCache(redis, properties),
+                properties,
+                scripts,
+                new RateLimitPolicyEngine(properties),
+                new RateLimitBatcher(redis, scripts, properties, metrics, new SimpleMeterRegistry()),
+                new RateLimitFallback(properties, new GatewayMembership(redis, properties), new SimpleMeterRegistry()),
+                metrics);
+    }
+
+    /** The default tier with limits no benchmark run reaches, so every request is counted and admitted. */
+    public static QuotaService quotaService(InMemoryRedisTemplate redis) {
+        QuotaProperties.Tier tier = new QuotaProperties.Tier();
+        tier.setHourly(1_000_000_000_000L);
+        tier.setDaily(1_000_000_000_000L);
+        tier.setMonthly(1_000_000_000_000L);
+        QuotaProperties properties = new QuotaProperties();
+        properties.getTiers().put("default", tier);
+        return new QuotaService(redis, properties, rateLimitProperties(), new SimpleMeterRegistry());
+    }
+
+    /** HS256 with {@link #HMAC_SECRET}, {@link #API_KEY} registered, as in application.yml otherwise. */
+    public static AuthProperties authProperties() {
+        AuthProperties properties = new AuthProperties();
+        properties.getJwt().setHmacSecret(HMAC_SECRET);
+        properties.getApiKeys().getSha256().put(ApiKeyStore.sha256Hex(API_KEY), "benchmark-client");
+        return properties;
+    }
+
+    public static AuthFilter authFilter() {
+        AuthProperties properties = authProperties();
+        return new AuthFilter(authenticator(properties), properties, new SimpleMeterRegistry());
+    }
+
+    public static RequestAuthenticator authenticator(AuthProperties properties) {
+        return new RequestAuthenticator(properties, new ApiKeyStore(properties), new SimpleMeterRegistry());
+    }
+
+    public static String hs256Token(String subject, String secret) {
+        String signingInput = signingInput("{\"alg\":\"HS256\",\"typ\":\"JWT\"}", subject);
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return signingInput + "." + BASE64_URL.encodeToString(mac.doFinal(signingInput.getBytes(StandardCharsets.US_ASCII)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static String rs256Token(String subject, String keyId, PrivateKey key) {
+        String signingInput = signingInput("{\"alg\":\"RS256\",\"kid\":\"" + keyId + "\"}", subject);
+        try {
+            Signature signature = Signature.getInstance("SHA256withRSA");
+            signature.initSign(key);
+            signature.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+            return signingInput + "." + BASE64_URL.encodeToString(signature.sign());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String signingInput(String header, String subject) {
+        long exp = System.currentTimeMillis() / 1000 + TimeUnit.DAYS.toSeconds(1);
+        String claims = "{\"sub\":\"" + subject + "\",\"exp\":" + exp + "}";
+        return BASE64_URL.encodeToString(header.getBytes(StandardCharsets.UTF_8)) + "."
+                + BASE64_URL.encodeToString(claims.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static IpDenyList denyList(String... bannedIps) {
+        IpDenyList denyList = new IpDenyList(new SimpleMeterRegistry());
+        Map<String, Long> bans = new HashMap<>();
+        for (String ip : bannedIps) {
+            bans.put(ip, System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1));
+        }
+        denyList.apply(bans);
+        return denyList;
+    }
+
+    public static DiscardingProducer producer() {
+        return new DiscardingProducer(new RequestEventSerializer());
+    }
+
+    public static KafkaEventPublisher kafkaPublisher(DiscardingProducer producer) {
+        KafkaEventPublisher publisher = new KafkaEventPublisher(
+                new KafkaTemplate<>(new MockProducerFactory<>(() -> producer)),
+                new EventPublisherProperties(),
+                new SimpleMeterRegistry());
+        publisher.start();
+        return publisher;
+    }
+
+    public static ServerWebExchange exchange(boolean authenticated) {
+        return new DefaultServerWebExchange(authenticated ? AUTHENTICATED_REQUEST : ANONYMOUS_REQUEST,
+                new MockServerHttpResponse(), SESSIONS, CODECS, LOCALES);
+    }
+
+    private static MockServerHttpRequest request(boolean authenticated) {
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get(PATH)
+                .remoteAddress(new InetSocketAddress(CLIENT_IP, 52000));
+        if (authenticated) {
+            request.header("Authorization", BEARER_TOKEN).header("X-API-KEY", API_KEY);
+        }
+        return request.build();
+    }
+
+    private static RateLimitProperties.Policy policy(String id, LimitDimension dimension, int limit) {
+        RateLimitProperties.Policy policy = new RateLimitProperties.Policy();
+        policy.setId(id);
+        policy.setDimension(dimension);
+        policy.setLimit(limit);
+        policy.setWindow(Duration.ofMinutes(1));
+        return policy;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.benchmarks;
+
+import io.lettuce.core.cluster.SlotHash;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link InMemoryRedisTemplate} that behaves like a Redis Cluster with the hash
+ * slots split evenly across {@code nodes} masters: a script whose keys span
+ * slots fails with CROSSSLOT, and every call is counted against the node that
+ * owns its slot, so hot-slot skew shows up in {@link #nodeCalls()}.
+ */
+public class InMemoryRedisCluster extends InMemoryRedisTemplate {
+
+    private final int nodes;
+    private final AtomicLongArray nodeCalls;
+    private final LongAdder crossSlotErrors = new LongAdder();
+
+    public InMemoryRedisCluster(int nodes) {
+        this.nodes = nodes;
+        this.nodeCalls = new AtomicLongArray(nodes);
+    }
+
+    @Override
+    public <T> Flux<T> execute(RedisScript<T> script, List<String> keys, List<?> args) {
+        int slot = keys.isEmpty() ? 0 : SlotHash.getSlot(keys.get(0));
+        for (int i = 1; i < keys.size(); i++) {
+            if (SlotHash.getSlot(keys.get(i)) != slot) {
+                crossSlotErrors.increment();
+                return Flux.error(new RedisSystemException(
+                        "CROSSSLOT Keys in request don't hash to the same slot", null));
+            }
+        }
+        nodeCalls.incrementAndGet(slot * nodes / SlotHash.SLOT_COUNT);
+        return super.execute(script, keys, args);
+    }
+
+    public long[] nodeCalls() {
+        long[] calls = new long[nodes];
+        for (int i = 0; i < nodes; i++) {
+            calls[i] = nodeCalls.get(i);
+        }
+        return calls;
+    }
+
+    public long crossSlotErrors() {
+        return crossSlotErrors.sum();
+    }
+}
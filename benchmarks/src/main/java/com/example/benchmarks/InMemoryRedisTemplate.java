@@ -0,0 +1,55 @@
+package com.example.benchmarks;
+
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Redis stand-in that answers every script (single or batched) with the same
+ * verdict, "allowed" by default, without leaving the JVM. Quota syncs see an
+ * API key without metadata or recorded usage.
+ * The connection factory is never started, so no connection is attempted.
+ */
+public class InMemoryRedisTemplate extends ReactiveStringRedisTemplate {
+
+    private static final String QUOTA_METADATA_PREFIX = "apikey:";
+    private static final Flux<Object> QUOTA_SYNC = Flux.just(List.of("", "", "", "", 0L, 0L, 0L));
+
+    private final long verdict;
+    private final Flux<Object> single;
+    private final LongAdder scriptCalls = new LongAdder();
+
+    public InMemoryRedisTemplate() {
+        this(true);
+    }
+
+    public InMemoryRedisTemplate(boolean allow) {
+        super(new LettuceConnectionFactory());
+        this.verdict = allow ? 0L : 1L;
+        this.single = Flux.just(verdict);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Flux<T> execute(RedisScript<T> script, List<String> keys, List<?> args) {
+        scriptCalls.increment();
+        if (!keys.isEmpty() && keys.get(0).startsWith(QUOTA_METADATA_PREFIX)) {
+            return (Flux<T>) QUOTA_SYNC;
+        }
+        if (List.class.equals(script.getResultType())) {
+            // Batch script: ARGV = [now, n_requests, ...], one verdict per request
+            int requests = Integer.parseInt(String.valueOf(args.get(1)));
+            return (Flux<T>) Flux.just(Collections.nCopies(requests, verdict));
+        }
+        return (Flux<T>) single;
+    }
+
+    public long scriptCalls() {
+        return scriptCalls.sum();
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.benchmarks;
+
+import com.example.apigateway.filter.ObservabilityFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ObservabilityFilterBenchmark {
+
+    private ObservabilityFilter filter;
+
+    @Setup
+    public void setUp() {
+        filter = new ObservabilityFilter(GatewayFixtures.kafkaPublisher(GatewayFixtures.producer()),
+                new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public ServerWebExchange publishAllowed() {
+        ServerWebExchange exchange = GatewayFixtures.exchange(true);
+        exchange.getResponse().setStatusCode(HttpStatus.OK);
+        filter.filter(exchange, GatewayFixtures.TERMINAL_CHAIN).block();
+        return exchange;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.benchmarks;
+
+import com.example.apigateway.config.RateLimitProperties;
+import com.example.apigateway.model.LimitDimension;
+import com.example.apigateway.policy.PolicySet;
+import com.example.apigateway.policy.RateLimitPolicyEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matching a request to its compiled policies must not allocate:
+ * gc.alloc.rate.norm should stay at ~0 B/op for every case.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PolicyMatchBenchmark {
+
+    private RateLimitPolicyEngine engine;
+    private String exactPath;
+    private String prefixedPath;
+    private String unmatchedPath;
+
+    @Setup
+    public void setUp() {
+        RateLimitProperties properties = GatewayFixtures.rateLimitProperties();
+        RateLimitProperties.Policy users = new RateLimitProperties.Policy();
+        users.setId("users-ip");
+        users.setDimension(LimitDimension.IP);
+        users.setLimit(10);
+        users.setRoutes(List.of("/api/v1/users"));
+        RateLimitProperties.Policy premium = new RateLimitProperties.Policy();
+        premium.setId("premium-path");
+        premium.setDimension(LimitDimension.PATH);
+        premium.setLimit(5000);
+        premium.setRoutes(List.of("/api/**"));
+        premium.setTiers(List.of("premium"));
+        properties.getPolicies().add(users);
+        properties.getPolicies().add(premium);
+        properties.setApiKeyTiers(Map.of(GatewayFixtures.API_KEY, "premium"));
+        engine = new RateLimitPolicyEngine(properties);
+
+        // Fresh instances, like paths parsed from a request, so String hash caching can't help
+        exactPath = new String("/api/v1/users".toCharArray());
+        prefixedPath = new String(GatewayFixtures.PATH.toCharArray());
+        unmatchedPath = new String("/health".toCharArray());
+    }
+
+    @Benchmark
+    public PolicySet exactRoute() {
+        return engine.match(exactPath, null);
+    }
+
+    @Benchmark
+    public PolicySet prefixRouteWithTier() {
+        return engine.match(prefixedPath, GatewayFixtures.API_KEY);
+    }
+
+    @Benchmark
+    public PolicySet defaultRoute() {
+        return engine.match(unmatchedPath, null);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.benchmarks;
+
+import com.example.apigateway.context.RequestContext;
+import com.example.apigateway.filter.RateLimitFilter;
+import com.example.apigateway.quota.QuotaDecision;
+import com.example.apigateway.quota.QuotaService;
+import com.example.apigateway.service.IpDenyList;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RateLimitFilterBenchmark {
+
+    private RateLimitFilter filter;
+    private RateLimitFilter banningFilter;
+    private IpDenyList denyList;
+    private QuotaService quotaService;
+
+    @Setup
+    public void setUp() {
+        InMemoryRedisTemplate redis = new InMemoryRedisTemplate();
+        quotaService = GatewayFixtures.quotaService(redis);
+        filter = new RateLimitFilter(GatewayFixtures.rateLimiter(redis), GatewayFixtures.denyList("203.0.113.9"),
+                quotaService, new SimpleMeterRegistry());
+        denyList = GatewayFixtures.denyList(GatewayFixtures.CLIENT_IP);
+        banningFilter = new RateLimitFilter(GatewayFixtures.rateLimiter(redis), denyList, quotaService,
+                new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public ServerWebExchange anonymous() {
+        ServerWebExchange exchange = GatewayFixtures.exchange(false);
+        filter.filter(exchange, GatewayFixtures.TERMINAL_CHAIN).block();
+        return exchange;
+    }
+
+    @Benchmark
+    public ServerWebExchange authenticated() {
+        ServerWebExchange exchange = GatewayFixtures.exchange(true);
+        RequestContext context = RequestContext.of(exchange);
+        context.setUserId("user-123");
+        context.setApiKey(GatewayFixtures.API_KEY);
+        filter.filter(exchange, GatewayFixtures.TERMINAL_CHAIN).block();
+        return exchange;
+    }
+
+    /** A banned client IP is rejected from the local deny list, without any Redis call. */
+    @Benchmark
+    public ServerWebExchange banned() {
+        ServerWebExchange exchange = GatewayFixtures.exchange(false);
+        banningFilter.filter(exchange, GatewayFixtures.TERMINAL_CHAIN).block();
+        return exchange;
+    }
+
+    @Benchmark
+    public boolean denyListHit() {
+        return denyList.isDenied(GatewayFixtures.CLIENT_IP);
+    }
+
+    @Benchmark
+    public boolean denyListMiss() {
+        return denyList.isDenied("198.51.100.7");
+    }
+
+    /** A known API key's quota is decided from local state; Redis is only hit by the periodic sync. */
+    @Benchmark
+    public QuotaDecision quota() {
+        return quotaService.tryAcquire(GatewayFixtures.API_KEY).block();
+    }
+}
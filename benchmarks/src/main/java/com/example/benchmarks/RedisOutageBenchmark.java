@@ -0,0 +1,62 @@
+package com.example.benchmarks;
+
+import com.example.apigateway.config.RateLimitProperties;
+import com.example.apigateway.service.RateLimitDecision;
+import com.example.apigateway.service.RedisRateLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limit decisions while Redis is down ({@code ERROR}) or not answering
+ * ({@code HANG}). The first calls fail or time out and open the breaker; after
+ * that every decision is made in-process, so the score should be far below the
+ * 50ms timeout, with the {@code LOCAL} limiter costing little more than failing open.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RedisOutageBenchmark {
+
+    private static final int DISTINCT_IPS = 10_000;
+
+    @Param({"ERROR", "HANG"})
+    public UnavailableRedisTemplate.Failure failure;
+
+    @Param({"FAIL_OPEN", "LOCAL"})
+    public RateLimitProperties.FailureMode mode;
+
+    private RedisRateLimiter rateLimiter;
+    private String[] ips;
+
+    @Setup
+    public void setUp() {
+        RateLimitProperties properties = GatewayFixtures.rateLimitProperties();
+        properties.getResilience().setMode(mode);
+        rateLimiter = GatewayFixtures.rateLimiter(new UnavailableRedisTemplate(failure), properties);
+        ips = new String[DISTINCT_IPS];
+        for (int i = 0; i < DISTINCT_IPS; i++) {
+            ips[i] = "10.2." + (i >>> 8) + "." + (i & 0xFF);
+        }
+    }
+
+    @Benchmark
+    public RateLimitDecision decide() {
+        String ip = ips[ThreadLocalRandom.current().nextInt(ips.length)];
+        return rateLimiter.check(ip, null, null, GatewayFixtures.PATH, "GET").block();
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.benchmarks;
+
+import com.example.events.RequestEvent;
+import com.example.events.codec.JsonRequestEventCodec;
+import com.example.events.codec.RequestEventCodec;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binary codec against the JSON fallback, plus the {@code readTree} parsing the
+ * consumers used before the shared codec. The encode benchmarks report the payload
+ * size as the {@code bytesPerEvent} aux counter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestEventSerializationBenchmark {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private RequestEvent event;
+    private byte[] binary;
+    private byte[] json;
+
+    @Setup
+    public void setup() {
+        UUID requestId = UUID.randomUUID();
+        event = RequestEvent.builder()
+                .timestampMicros(RequestEvent.toEpochMicros(Instant.now()))
+                .requestIdHigh(requestId.getMostSignificantBits())
+                .requestIdLow(requestId.getLeastSignificantBits())
+                .ip(GatewayFixtures.CLIENT_IP)
+                .userId("user-123")
+                .apiKey(GatewayFixtures.API_KEY)
+                .endpoint(GatewayFixtures.PATH)
+                .method("GET")
+                .status(200)
+                .latencyMs(7)
+                .type(RequestEvent.EventType.ALLOWED)
+                .build();
+        binary = RequestEventCodec.encode(event);
+        json = JsonRequestEventCodec.encode(event);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary(PayloadSize size) {
+        size.bytesPerEvent = binary.length;
+        return RequestEventCodec.encode(event);
+    }
+
+    @Benchmark
+    public RequestEvent decodeBinary() {
+        return RequestEventCodec.decode(binary);
+    }
+
+    @Benchmark
+    public byte[] encodeJson(PayloadSize size) {
+        size.bytesPerEvent = json.length;
+        return JsonRequestEventCodec.encode(event);
+    }
+
+    @Benchmark
+    public RequestEvent decodeJson() {
+        return JsonRequestEventCodec.decode(json);
+    }
+
+    @Benchmark
+    public JsonNode readTreeJson() throws IOException {
+        return mapper.readTree(json);
+    }
+
+    /** Reported as is rather than summed per operation; the benchmark sets it to its payload's size. */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class PayloadSize {
+
+        public long bytesPerEvent;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytesPerEvent = 0;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.benchmarks;
+
+import com.example.apigateway.cache.ResponseCache;
+import com.example.apigateway.config.ResponseCacheProperties;
+import com.example.apigateway.filter.ObservabilityFilter;
+import com.example.apigateway.filter.RateLimitFilter;
+import com.example.apigateway.filter.ResponseCacheFilter;
+import com.example.apigateway.service.KafkaEventPublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Requests per second through the full filter chain for a cacheable GET, with the
+ * cache disabled or answering every request after the first. The backend writes a
+ * {@code bodyBytes} response after {@code backendMicros}, standing in for the
+ * proxied call; hits are still authenticated, rate-limited and published.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseCacheBenchmark {
+
+    @Param({"false", "true"})
+    public boolean cached;
+
+    @Param({"2048"})
+    public int bodyBytes;
+
+    @Param({"200"})
+    public int backendMicros;
+
+    private KafkaEventPublisher publisher;
+    private GatewayFilterChain chain;
+
+    @Setup
+    public void setUp() {
+        InMemoryRedisTemplate redis = new InMemoryRedisTemplate(true);
+        publisher = GatewayFixtures.kafkaPublisher(GatewayFixtures.producer());
+
+        ResponseCacheProperties properties = new ResponseCacheProperties();
+        properties.setEnabled(cached);
+        ResponseCacheProperties.Route route = new ResponseCacheProperties.Route();
+        route.setPath(GatewayFixtures.PATH);
+        properties.getRoutes().add(route);
+        ResponseCache cache = new ResponseCache(properties, redis, new SimpleMeterRegistry());
+
+        byte[] body = new byte[bodyBytes];
+        Arrays.fill(body, (byte) 'x');
+        GatewayFilterChain backend = exchange -> {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(backendMicros));
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.OK);
+            response.getHeaders().set("Cache-Control", "max-age=3600");
+            response.getHeaders().setETag("\"v1\"");
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+        };
+        chain = link(new ObservabilityFilter(publisher, new SimpleMeterRegistry()),
+                link(GatewayFixtures.authFilter(),
+                        link(new RateLimitFilter(GatewayFixtures.rateLimiter(redis), GatewayFixtures.denyList(),
+                                        GatewayFixtures.quotaService(redis), new SimpleMeterRegistry()),
+                                link(new ResponseCacheFilter(cache, new SimpleMeterRegistry()), backend))));
+    }
+
+    @TearDown
+    public void tearDown() {
+        publisher.stop();
+    }
+
+    @Benchmark
+    public ServerWebExchange request() {
+        ServerWebExchange exchange = GatewayFixtures.exchange(true);
+        chain.filter(exchange).block();
+        return exchange;
+    }
+
+    private static GatewayFilterChain link(GlobalFilter filter, GatewayFilterChain next) {
+        return exchange -> filter.filter(exchange, next);
+    }
+}
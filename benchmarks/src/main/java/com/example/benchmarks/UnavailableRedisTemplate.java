@@ -0,0 +1,32 @@
+package com.example.benchmarks;
+
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+/** Redis stand-in for an outage: every script either fails at once or never answers. */
+public class UnavailableRedisTemplate extends ReactiveStringRedisTemplate {
+
+    public enum Failure {
+        ERROR,
+        HANG
+    }
+
+    private final Failure failure;
+
+    public UnavailableRedisTemplate(Failure failure) {
+        super(new LettuceConnectionFactory());
+        this.failure = failure;
+    }
+
+    @Override
+    public <T> Flux<T> execute(RedisScript<T> script, List<String> keys, List<?> args) {
+        return failure == Failure.ERROR
+                ? Flux.error(new RedisConnectionFailureException("Connection refused"))
+                : Flux.never();
+    }
+}
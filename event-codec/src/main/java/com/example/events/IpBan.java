@@ -0,0 +1,30 @@
+package com.example.events;
+
+/**
+ * A ban decision on the compacted {@value #TOPIC} topic. Records are keyed by the
+ * client IP; the value is {@link #encode()}d as {@code expiresAtMs;reason}, and a
+ * tombstone (null value) lifts the ban. Consumers must also honour
+ * {@code expiresAtMs} themselves, since a tombstone may never arrive.
+ */
+public record IpBan(long expiresAtMs, String reason) {
+
+    public static final String TOPIC = "ip-bans";
+
+    private static final char SEPARATOR = ';';
+
+    public boolean isActive(long nowMs) {
+        return expiresAtMs > nowMs;
+    }
+
+    public String encode() {
+        return expiresAtMs + String.valueOf(SEPARATOR) + (reason != null ? reason : "");
+    }
+
+    public static IpBan decode(String value) {
+        int separator = value.indexOf(SEPARATOR);
+        if (separator < 0) {
+            return new IpBan(Long.parseLong(value), "");
+        }
+        return new IpBan(Long.parseLong(value.substring(0, separator)), value.substring(separator + 1));
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class RequestEvent {
+
+    private long timestampMicros;
+    private long requestIdHigh;
+    private long requestIdLow;
+    private String ip;
+    private String userId;
+    private String apiKey;
+    private String endpoint;
+    private String method;
+    private int status;
+    private long latencyMs;
+    private EventType type;
+
+    public enum EventType {
+        ALLOWED, BLOCKED, SECURITY_ALERT
+    }
+
+    public Instant timestamp() {
+        return Instant.ofEpochSecond(
+                Math.floorDiv(timestampMicros, 1_000_000L),
+                Math.floorMod(timestampMicros, 1_000_000L) * 1_000L);
+    }
+
+    public String requestId() {
+        return new UUID(requestIdHigh, requestIdLow).toString();
+    }
+
+    public static long toEpochMicros(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000L + instant.getNano() / 1_000;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.events.codec;
+
+import com.example.events.RequestEvent;
+import com.example.events.RequestEvent.EventType;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * The JSON shape events had before the binary format (ISO timestamp, UUID string
+ * request id). Used as the fallback format while producers and consumers are on
+ * mixed versions, and for human-readable output such as the audit log.
+ */
+public final class JsonRequestEventCodec {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private JsonRequestEventCodec() {
+    }
+
+    public static byte[] encode(RequestEvent event) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        try (JsonGenerator json = FACTORY.createGenerator(out)) {
+            json.writeStartObject();
+            json.writeStringField("timestamp", event.timestamp().toString());
+            json.writeStringField("requestId", event.requestId());
+            json.writeStringField("ip", event.getIp());
+            json.writeStringField("userId", event.getUserId());
+            json.writeStringField("apiKey", event.getApiKey());
+            json.writeStringField("endpoint", event.getEndpoint());
+            json.writeStringField("method", event.getMethod());
+            json.writeNumberField("status", event.getStatus());
+            json.writeNumberField("latencyMs", event.getLatencyMs());
+            json.writeStringField("type", event.getType() != null ? event.getType().name() : null);
+            json.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    public static String toJson(RequestEvent event) {
+        return new String(encode(event), StandardCharsets.UTF_8);
+    }
+
+    public static RequestEvent decode(byte[] data) {
+        RequestEvent event = new RequestEvent();
+        try (JsonParser json = FACTORY.createParser(data)) {
+            if (json.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("RequestEvent JSON must be an object");
+            }
+            while (json.nextToken() == JsonToken.FIELD_NAME) {
+                String field = json.currentName();
+                JsonToken value = json.nextToken();
+                if (value == JsonToken.VALUE_NULL) {
+                    continue;
+                }
+                switch (field) {
+                    case "timestamp" -> event.setTimestampMicros(RequestEvent.toEpochMicros(Instant.parse(json.getText())));
+                    case "requestId" -> setRequestId(event, json.getText());
+                    case "ip" -> event.setIp(json.getText());
+                    case "userId" -> event.setUserId(json.getText());
+                    case "apiKey" -> event.setApiKey(json.getText());
+                    case "endpoint" -> event.setEndpoint(json.getText());
+                    case "method" -> event.setMethod(json.getText());
+                    case "status" -> event.setStatus(json.getIntValue());
+                    case "latencyMs" -> event.setLatencyMs(json.getLongValue());
+                    case "type" -> event.setType(EventType.valueOf(json.getText()));
+                    default -> json.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return event;
+    }
+
+    private static void setRequestId(RequestEvent event, String requestId) {
+        try {
+            UUID uuid = UUID.fromString(requestId);
+            event.setRequestIdHigh(uuid.getMostSignificantBits());
+            event.setRequestIdLow(uuid.getLeastSignificantBits());
+        } catch (IllegalArgumentException e) {
+            // Not a UUID: keep a stable 128-bit id derived from the text
+            UUID uuid = UUID.nameUUIDFromBytes(requestId.getBytes(StandardCharsets.UTF_8));
+            event.setRequestIdHigh(uuid.getMostSignificantBits());
+            event.setRequestIdLow(uuid.getLeastSignificantBits());
+        }
+    }
+}
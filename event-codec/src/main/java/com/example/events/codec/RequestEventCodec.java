@@ -0,0 +1,367 @@
+package com.example.events.codec;
+
+import com.example.events.RequestEvent;
+import com.example.events.RequestEvent.EventType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of {@link RequestEvent}.
+ *
+ * <pre>
+ * Version 1 layout
+ *   magic          1 byte   0xE7 (never '{', so JSON payloads are told apart)
+ *   version        1 byte
+ *   type           1 byte   EventType ordinal
+ *   method         1 byte   id from METHODS, 0 = inline string below
+ *   timestamp      8 bytes  epoch micros
+ *   request id    16 bytes  high, low
+ *   status         varint
+ *   latency ms     varint
+ *   endpoint       varint   id from endpoints-v1.txt, 0 = inline string below
+ *   ip             1 byte   4 or 6 followed by the address bytes, 0 = inline string below
+ *   [method]       string   only if method id is 0
+ *   [endpoint]     string   only if endpoint id is 0
+ *   [ip]           string   only if ip tag is 0
+ *   userId         string
+ *   apiKey         string
+ * strings are a varint of (UTF-8 length + 1), 0 meaning null, then the bytes.
+ * </pre>
+ * The method table, the {@link EventType} ordinals and endpoints-v1.txt are part
+ * of version 1 and frozen: a consumer of that version knows exactly these ids.
+ * Endpoints outside the dictionary are written inline; giving them ids takes a
+ * new format version that consumers learn before producers write it. Ids a
+ * consumer does not know are rejected, never guessed.
+ */
+public final class RequestEventCodec {
+
+    public static final byte MAGIC = (byte) 0xE7;
+    public static final byte VERSION_1 = 1;
+
+    private static final String[] METHODS = {
+            null, "GET", "HEAD", "POST", "PUT", "PATCH", "DELETE", "OPTIONS", "TRACE"
+    };
+    private static final EventType[] TYPES = EventType.values();
+    // Entries of endpoints-v1.txt, plus the reserved id 0
+    private static final int V1_ENDPOINTS = 5;
+    private static final String[] ENDPOINTS = loadEndpoints("META-INF/event-codec/endpoints-v1.txt", V1_ENDPOINTS);
+    private static final Map<String, Integer> ENDPOINT_IDS = index(ENDPOINTS);
+    private static final Map<String, Integer> METHOD_IDS = index(METHODS);
+
+    private static final byte IP_INLINE = 0;
+    private static final byte IP_V4 = 4;
+    private static final byte IP_V6 = 6;
+    private static final int HEADER_SIZE = 28;
+
+    private RequestEventCodec() {
+    }
+
+    public static boolean isBinary(byte[] data) {
+        return data.length > 0 && data[0] == MAGIC;
+    }
+
+    public static byte[] encode(RequestEvent event) {
+        int methodId = idOf(METHOD_IDS, event.getMethod());
+        int endpointId = idOf(ENDPOINT_IDS, event.getEndpoint());
+        byte[] ipBytes = parseIp(event.getIp());
+
+        Output out = new Output(HEADER_SIZE + 64);
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION_1);
+        out.writeByte(event.getType() != null ? event.getType().ordinal() : EventType.ALLOWED.ordinal());
+        out.writeByte(methodId);
+        out.writeLong(event.getTimestampMicros());
+        out.writeLong(event.getRequestIdHigh());
+        out.writeLong(event.getRequestIdLow());
+        out.writeVarLong(event.getStatus());
+        out.writeVarLong(event.getLatencyMs());
+        out.writeVarLong(endpointId);
+
+        if (ipBytes == null) {
+            out.writeByte(IP_INLINE);
+        } else {
+            out.writeByte(ipBytes.length == 4 ? IP_V4 : IP_V6);
+            out.writeBytes(ipBytes);
+        }
+
+        if (methodId == 0) {
+            out.writeString(event.getMethod());
+        }
+        if (endpointId == 0) {
+            out.writeString(event.getEndpoint());
+        }
+        if (ipBytes == null) {
+            out.writeString(event.getIp());
+        }
+        out.writeString(event.getUserId());
+        out.writeString(event.getApiKey());
+        return out.toByteArray();
+    }
+
+    public static RequestEvent decode(byte[] data) {
+        Input in = new Input(data);
+        if ((byte) in.readByte() != MAGIC) {
+            throw new IllegalArgumentException("Not a binary RequestEvent");
+        }
+        int version = in.readByte();
+        if (version != VERSION_1) {
+            throw new IllegalArgumentException("Unsupported RequestEvent format version " + version);
+        }
+
+        RequestEvent event = new RequestEvent();
+        event.setType(lookup(TYPES, in.readByte(), "event type"));
+        int methodId = in.readByte();
+        event.setTimestampMicros(in.readLong());
+        event.setRequestIdHigh(in.readLong());
+        event.setRequestIdLow(in.readLong());
+        event.setStatus((int) in.readVarLong());
+        event.setLatencyMs(in.readVarLong());
+        int endpointId = (int) in.readVarLong();
+
+        int ipTag = in.readByte();
+        if (ipTag == IP_V4) {
+            event.setIp(formatIpv4(in.readBytes(4)));
+        } else if (ipTag == IP_V6) {
+            event.setIp(formatIpv6(in.readBytes(16)));
+        }
+
+        event.setMethod(methodId != 0 ? lookup(METHODS, methodId, "method id") : in.readString());
+        event.setEndpoint(endpointId != 0 ? lookup(ENDPOINTS, endpointId, "endpoint id") : in.readString());
+        if (ipTag == IP_INLINE) {
+            event.setIp(in.readString());
+        }
+        event.setUserId(in.readString());
+        event.setApiKey(in.readString());
+        return event;
+    }
+
+    private static <T> T lookup(T[] values, int id, String what) {
+        if (id < 0 || id >= values.length) {
+            throw new IllegalArgumentException("Unknown " + what + " " + id + " in RequestEvent format version 1");
+        }
+        return values[id];
+    }
+
+    private static int idOf(Map<String, Integer> ids, String value) {
+        if (value == null) {
+            return 0;
+        }
+        Integer id = ids.get(value);
+        return id != null ? id : 0;
+    }
+
+    private static byte[] parseIp(String ip) {
+        if (ip == null) {
+            return null;
+        }
+        byte[] v4 = parseIpv4(ip);
+        if (v4 != null) {
+            return v4;
+        }
+        if (ip.indexOf(':') < 0) {
+            return null;
+        }
+        try {
+            // A literal containing ':' is never resolved through DNS
+            byte[] address = InetAddress.getByName(ip).getAddress();
+            return address.length == 16 ? address : null;
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    private static byte[] parseIpv4(String ip) {
+        byte[] address = new byte[4];
+        int part = 0;
+        int value = 0;
+        int digits = 0;
+        for (int i = 0; i < ip.length(); i++) {
+            char c = ip.charAt(i);
+            if (c == '.') {
+                if (digits == 0 || part == 3) {
+                    return null;
+                }
+                address[part++] = (byte) value;
+                value = 0;
+                digits = 0;
+            } else if (c >= '0' && c <= '9' && digits < 3) {
+                value = value * 10 + (c - '0');
+                digits++;
+                if (value > 255) {
+                    return null;
+                }
+            } else {
+                return null;
+            }
+        }
+        if (part != 3 || digits == 0) {
+            return null;
+        }
+        address[3] = (byte) value;
+        return address;
+    }
+
+    private static String formatIpv4(byte[] address) {
+        return (address[0] & 0xFF) + "." + (address[1] & 0xFF) + "." + (address[2] & 0xFF) + "." + (address[3] & 0xFF);
+    }
+
+    private static String formatIpv6(byte[] address) {
+        try {
+            return InetAddress.getByAddress(address).getHostAddress();
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("Invalid IPv6 address in RequestEvent", e);
+        }
+    }
+
+    private static String[] loadEndpoints(String resource, int expected) {
+        List<String> endpoints = new ArrayList<>();
+        endpoints.add(null); // id 0 is reserved for inline strings
+        InputStream stream = RequestEventCodec.class.getClassLoader().getResourceAsStream(resource);
+        if (stream == null) {
+            throw new IllegalStateException("Missing endpoint dictionary " + resource);
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.strip();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    endpoints.add(line);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (endpoints.size() != expected) {
+            throw new IllegalStateException(resource + " is frozen at " + (expected - 1)
+                    + " entries but has " + (endpoints.size() - 1));
+        }
+        return endpoints.toArray(String[]::new);
+    }
+
+    private static Map<String, Integer> index(String[] values) {
+        Map<String, Integer> ids = new HashMap<>();
+        for (int i = 1; i < values.length; i++) {
+            ids.put(values[i], i);
+        }
+        return Map.copyOf(ids);
+    }
+
+    private static final class Output {
+
+        private byte[] buffer;
+        private int position;
+
+        private Output(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        private void ensure(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+            }
+        }
+
+        private void writeByte(int value) {
+            ensure(1);
+            buffer[position++] = (byte) value;
+        }
+
+        private void writeBytes(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        private void writeLong(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        private void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        private void writeString(String value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length + 1L);
+            writeBytes(bytes);
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+    }
+
+    private static final class Input {
+
+        private final byte[] buffer;
+        private int position;
+
+        private Input(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        private int readByte() {
+            return buffer[position++] & 0xFF;
+        }
+
+        private byte[] readBytes(int length) {
+            byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+            position += length;
+            return bytes;
+        }
+
+        private long readLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (buffer[position++] & 0xFF);
+            }
+            return value;
+        }
+
+        private long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = buffer[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in RequestEvent");
+        }
+
+        private String readString() {
+            int length = (int) readVarLong();
+            if (length == 0) {
+                return null;
+            }
+            String value = new String(buffer, position, length - 1, StandardCharsets.UTF_8);
+            position += length - 1;
+            return value;
+        }
+    }
+}
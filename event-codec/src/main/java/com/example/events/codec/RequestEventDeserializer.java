@@ -0,0 +1,26 @@
+package com.example.events.codec;
+
+import com.example.events.RequestEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+/**
+ * Kafka deserializer for {@link RequestEvent} that accepts both the binary
+ * format and the JSON fallback, told apart by the leading magic byte.
+ */
+public class RequestEventDeserializer implements Deserializer<RequestEvent> {
+
+    @Override
+    public RequestEvent deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            return RequestEventCodec.isBinary(data)
+                    ? RequestEventCodec.decode(data)
+                    : JsonRequestEventCodec.decode(data);
+        } catch (RuntimeException e) {
+            throw new SerializationException("Failed to deserialize RequestEvent from " + topic, e);
+        }
+    }
+}
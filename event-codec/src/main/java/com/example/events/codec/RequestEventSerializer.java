@@ -0,0 +1,37 @@
+package com.example.events.codec;
+
+import com.example.events.RequestEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.util.Map;
+
+/**
+ * Kafka serializer for {@link RequestEvent}. Writes the binary format unless
+ * {@code event.codec.format=json} is set, which keeps consumers that predate
+ * the binary format working during a rollout.
+ */
+public class RequestEventSerializer implements Serializer<RequestEvent> {
+
+    public static final String FORMAT_CONFIG = "event.codec.format";
+
+    private boolean json;
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object format = configs.get(FORMAT_CONFIG);
+        json = format != null && "json".equalsIgnoreCase(format.toString());
+    }
+
+    @Override
+    public byte[] serialize(String topic, RequestEvent event) {
+        if (event == null) {
+            return null;
+        }
+        try {
+            return json ? JsonRequestEventCodec.encode(event) : RequestEventCodec.encode(event);
+        } catch (RuntimeException e) {
+            throw new SerializationException("Failed to serialize RequestEvent for " + topic, e);
+        }
+    }
+}
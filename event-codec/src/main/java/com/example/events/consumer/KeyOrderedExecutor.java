@@ -0,0 +1,157 @@
+package com.example.events.consumer;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Processes a polled batch of records in parallel lanes while keeping records with
+ * the same key in order. Records are split into at most {@code parallelism} lanes
+ * by key hash; the calling listener thread runs the first lane itself and
+ * {@link #process} returns only when every lane has finished, so the container
+ * commits the batch's offsets after all of its records were handled, exactly as
+ * with sequential processing.
+ * <p>
+ * {@link Mode#VIRTUAL_THREADS} runs lanes on virtual threads when the JVM has them
+ * (Java 21+) and falls back to {@link Mode#THREAD_POOL}, a fixed pool of
+ * {@code parallelism - 1} daemon threads, otherwise. Either way at most
+ * {@code parallelism} lanes of one batch run at once.
+ */
+public final class KeyOrderedExecutor implements AutoCloseable {
+
+    public enum Mode {
+        SEQUENTIAL,
+        VIRTUAL_THREADS,
+        THREAD_POOL
+    }
+
+    private final Mode mode;
+    private final int parallelism;
+    private final ExecutorService executor;
+
+    private KeyOrderedExecutor(Mode mode, int parallelism, ExecutorService executor) {
+        this.mode = mode;
+        this.parallelism = parallelism;
+        this.executor = executor;
+    }
+
+    public static KeyOrderedExecutor create(Mode mode, int parallelism, String threadName) {
+        if (mode == Mode.SEQUENTIAL || parallelism <= 1) {
+            return new KeyOrderedExecutor(Mode.SEQUENTIAL, 1, null);
+        }
+        if (mode == Mode.VIRTUAL_THREADS) {
+            ExecutorService virtual = newVirtualThreadExecutor();
+            if (virtual != null) {
+                return new KeyOrderedExecutor(Mode.VIRTUAL_THREADS, parallelism, virtual);
+            }
+        }
+        return new KeyOrderedExecutor(Mode.THREAD_POOL, parallelism,
+                Executors.newFixedThreadPool(parallelism - 1, daemonThreads(threadName)));
+    }
+
+    /** The mode actually in use, after falling back where virtual threads are unavailable. */
+    public Mode mode() {
+        return mode;
+    }
+
+    /**
+     * Hands every record to {@code handler}, in order within each key. A
+     * {@code null} key goes to the first lane. If a handler throws, the remaining
+     * lanes still complete before the first failure is rethrown.
+     */
+    public <T> void process(List<T> records, Function<T, ?> key, Consumer<T> handler) {
+        int lanes = Math.min(parallelism, records.size());
+        if (lanes <= 1) {
+            records.forEach(handler);
+            return;
+        }
+
+        List<List<T>> byLane = new ArrayList<>(lanes);
+        int perLane = records.size() / lanes + 1;
+        for (int i = 0; i < lanes; i++) {
+            byLane.add(new ArrayList<>(perLane));
+        }
+        for (T record : records) {
+            Object k = key.apply(record);
+            byLane.get(k == null ? 0 : Math.floorMod(spread(k.hashCode()), lanes)).add(record);
+        }
+
+        List<Future<?>> running = new ArrayList<>(lanes - 1);
+        for (int i = 1; i < lanes; i++) {
+            List<T> lane = byLane.get(i);
+            if (!lane.isEmpty()) {
+                running.add(executor.submit(() -> lane.forEach(handler)));
+            }
+        }
+
+        RuntimeException failure = null;
+        try {
+            byLane.get(0).forEach(handler);
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        boolean interrupted = false;
+        for (Future<?> lane : running) {
+            while (true) {
+                try {
+                    lane.get();
+                    break;
+                } catch (InterruptedException e) {
+                    // Keep waiting: returning early would let the container commit unprocessed records
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause() instanceof RuntimeException runtime
+                                ? runtime
+                                : new IllegalStateException(e.getCause());
+                    }
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.events.codec;
+
+import com.example.events.RequestEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestEventCodecTest {
+
+    private final RequestEventDeserializer deserializer = new RequestEventDeserializer();
+
+    @Test
+    void roundTripsDictionaryValues() {
+        RequestEvent event = event("GET", "/api/v1/resource", "192.168.1.20");
+
+        byte[] encoded = RequestEventCodec.encode(event);
+
+        assertThat(RequestEventCodec.isBinary(encoded)).isTrue();
+        assertThat(RequestEventCodec.decode(encoded)).isEqualTo(event);
+        // Method, endpoint and address are ids or raw bytes, not strings
+        assertThat(new String(encoded, StandardCharsets.ISO_8859_1)).doesNotContain("/api/v1/resource");
+    }
+
+    @Test
+    void roundTripsValuesOutsideTheDictionariesInline() {
+        RequestEvent event = event("PROPFIND", "/internal/ünïcode/path", "gateway.local");
+
+        assertThat(RequestEventCodec.decode(RequestEventCodec.encode(event))).isEqualTo(event);
+    }
+
+    @Test
+    void roundTripsIpv6AsAddressBytes() {
+        RequestEvent event = event("POST", "/api/v1/protected", "2001:db8:0:0:0:0:0:1");
+
+        RequestEvent decoded = RequestEventCodec.decode(RequestEventCodec.encode(event));
+
+        assertThat(decoded).isEqualTo(event);
+    }
+
+    @Test
+    void roundTripsNullsAndExtremeNumbers() {
+        RequestEvent event = RequestEvent.builder()
+                .timestampMicros(Long.MIN_VALUE)
+                .requestIdHigh(-1L)
+                .requestIdLow(Long.MAX_VALUE)
+                .status(-1)
+                .latencyMs(Long.MAX_VALUE)
+                .type(RequestEvent.EventType.SECURITY_ALERT)
+                .build();
+
+        assertThat(RequestEventCodec.decode(RequestEventCodec.encode(event))).isEqualTo(event);
+    }
+
+    @Test
+    void missingTypeDecodesAsAllowed() {
+        RequestEvent event = event("GET", "/api/v1/resource", "10.0.0.1");
+        event.setType(null);
+
+        assertThat(RequestEventCodec.decode(RequestEventCodec.encode(event)).getType())
+                .isEqualTo(RequestEvent.EventType.ALLOWED);
+    }
+
+    @Test
+    void rejectsUnknownVersions() {
+        byte[] encoded = RequestEventCodec.encode(event("GET", "/api/v1/resource", "10.0.0.1"));
+        encoded[1] = 2;
+
+        assertThatThrownBy(() -> RequestEventCodec.decode(encoded))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("version 2");
+    }
+
+    @Test
+    void endpointsOutsideTheFrozenDictionaryAreWrittenInline() {
+        RequestEvent event = event("GET", "/api/v2/orders", "10.0.0.1");
+
+        byte[] encoded = RequestEventCodec.encode(event);
+
+        assertThat(new String(encoded, StandardCharsets.ISO_8859_1)).contains("/api/v2/orders");
+        assertThat(RequestEventCodec.decode(encoded)).isEqualTo(event);
+    }
+
+    @Test
+    void rejectsIdsMissingFromTheVersion1Tables() {
+        // type, method and endpoint ids one past each version 1 table
+        for (int[] ids : new int[][] {{3, 1, 1}, {0, 9, 1}, {0, 1, 5}}) {
+            assertThatThrownBy(() -> RequestEventCodec.decode(header(ids[0], ids[1], ids[2])))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("Unknown");
+        }
+        assertThat(RequestEventCodec.decode(header(2, 8, 4)).getEndpoint()).isEqualTo("/api/v1/orders");
+    }
+
+    @Test
+    void jsonFallbackRoundTrips() {
+        RequestEvent event = event("DELETE", "/api/v1/resource", "10.0.0.1");
+
+        byte[] json = JsonRequestEventCodec.encode(event);
+
+        assertThat(RequestEventCodec.isBinary(json)).isFalse();
+        assertThat(JsonRequestEventCodec.decode(json)).isEqualTo(event);
+    }
+
+    @Test
+    void deserializerAcceptsBothFormats() {
+        RequestEvent event = event("GET", "/api/v1/resource", "10.0.0.1");
+
+        assertThat(deserializer.deserialize("api-requests", RequestEventCodec.encode(event))).isEqualTo(event);
+        assertThat(deserializer.deserialize("api-requests", JsonRequestEventCodec.encode(event))).isEqualTo(event);
+        assertThat(deserializer.deserialize("api-requests", null)).isNull();
+        assertThatThrownBy(() -> deserializer.deserialize("api-requests", new byte[] {RequestEventCodec.MAGIC}))
+                .isInstanceOf(SerializationException.class);
+    }
+
+    /** A version 1 event with these ids and every other field empty. */
+    private static byte[] header(int type, int method, int endpoint) {
+        byte[] encoded = new byte[35];
+        encoded[0] = RequestEventCodec.MAGIC;
+        encoded[1] = RequestEventCodec.VERSION_1;
+        encoded[2] = (byte) type;
+        encoded[3] = (byte) method;
+        // timestamp, request id, status and latency are zero
+        encoded[30] = (byte) endpoint;
+        // ip tag 0 and null ip, userId and apiKey strings
+        return encoded;
+    }
+
+    private static RequestEvent event(String method, String endpoint, String ip) {
+        return RequestEvent.builder()
+                .timestampMicros(1_700_000_000_123_456L)
+                .requestIdHigh(0x0123456789ABCDEFL)
+                .requestIdLow(0xFEDCBA9876543210L)
+                .ip(ip)
+                .userId("user-42")
+                .apiKey("key-abc")
+                .endpoint(endpoint)
+                .method(method)
+                .status(429)
+                .latencyMs(1234)
+                .type(RequestEvent.EventType.BLOCKED)
+                .build();
+    }
+}
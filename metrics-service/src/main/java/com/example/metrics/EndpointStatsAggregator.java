@@ -0,0 +1,134 @@
+package com.example.metrics;
+
+import com.example.events.RequestEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind per-endpoint counters. Events are added to in-memory
+ * {@link LongAdder}s and {@link #flush()} writes the accumulated deltas to the
+ * {@code stats:endpoint:*} hashes in one pipelined round trip. Deltas that fail
+ * to flush are added back, so nothing is lost while Redis is unavailable. The
+ * latency histograms of {@link LatencyHistogramStore} go out in the same pipeline,
+ * and endpoints beyond its {@code max-endpoints} are counted under the same
+ * {@value LatencyHistogramStore#OTHER_ENDPOINT}, so paths with ids in them or
+ * scanner traffic cannot grow the counters without bound.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class EndpointStatsAggregator {
+
+    private static final String STATS_KEY_PREFIX = "stats:endpoint:";
+    private static final byte[] FIELD_COUNT = "count".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] FIELD_ERRORS = "errors".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] FIELD_TOTAL_LATENCY = "totalLatencyMs".getBytes(StandardCharsets.UTF_8);
+    private static final int ERROR_STATUS_THRESHOLD = 400;
+    private static final String UNKNOWN_ENDPOINT = "unknown";
+
+    private final StringRedisTemplate redisTemplate;
+    private final LatencyHistogramStore latencyHistograms;
+    private final Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+    private final LongAdder pending = new LongAdder();
+
+    public void record(RequestEvent event) {
+        String name = latencyHistograms.trackedEndpoint(
+                event.getEndpoint() != null ? event.getEndpoint() : UNKNOWN_ENDPOINT);
+        EndpointStats endpoint = stats.computeIfAbsent(name, EndpointStats::new);
+        endpoint.count.increment();
+        endpoint.totalLatency.add(event.getLatencyMs());
+        if (event.getStatus() >= ERROR_STATUS_THRESHOLD) {
+            endpoint.errors.increment();
+        }
+        latencyHistograms.record(name, event.getTimestampMicros(), event.getLatencyMs());
+        pending.increment();
+    }
+
+    public long pendingEvents() {
+        return pending.sum();
+    }
+
+    /**
+     * Writes everything recorded so far. Serialized so that a caller never sees an
+     * empty flush while another caller's deltas are still in flight.
+     */
+    public synchronized void flush() {
+        long events = pending.sumThenReset();
+        List<Delta> deltas = new ArrayList<>();
+        for (EndpointStats endpoint : stats.values()) {
+            Delta delta = endpoint.drain();
+            if (delta.count() > 0) {
+                deltas.add(delta);
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        AtomicReference<LatencyHistogramStore.Pending> histograms = new AtomicReference<>();
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                write(connection, deltas);
+                histograms.set(latencyHistograms.write(connection));
+                return null;
+            });
+            histograms.get().commit();
+            log.debug("Flushed stats for {} endpoints ({} events, {} histograms)",
+                    deltas.size(), events, histograms.get().size());
+        } catch (RuntimeException e) {
+            for (Delta delta : deltas) {
+                stats.computeIfAbsent(delta.endpoint(), EndpointStats::new).restore(delta);
+            }
+            pending.add(events);
+            throw e;
+        }
+    }
+
+    private static void write(RedisConnection connection, List<Delta> deltas) {
+        for (Delta delta : deltas) {
+            byte[] key = (STATS_KEY_PREFIX + delta.endpoint()).getBytes(StandardCharsets.UTF_8);
+            connection.hashCommands().hIncrBy(key, FIELD_COUNT, delta.count());
+            connection.hashCommands().hIncrBy(key, FIELD_TOTAL_LATENCY, delta.totalLatency());
+            if (delta.errors() > 0) {
+                connection.hashCommands().hIncrBy(key, FIELD_ERRORS, delta.errors());
+            }
+        }
+    }
+
+    private static final class EndpointStats {
+
+        private final String endpoint;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder totalLatency = new LongAdder();
+
+        private EndpointStats(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        private Delta drain() {
+            return new Delta(endpoint, count.sumThenReset(), errors.sumThenReset(), totalLatency.sumThenReset());
+        }
+
+        private void restore(Delta delta) {
+            count.add(delta.count());
+            errors.add(delta.errors());
+            totalLatency.add(delta.totalLatency());
+        }
+    }
+
+    private record Delta(String endpoint, long count, long errors, long totalLatency) {
+    }
+}
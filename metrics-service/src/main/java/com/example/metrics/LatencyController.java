@@ -0,0 +1,46 @@
+package com.example.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * {@code GET /api/metrics/latency?endpoint=/api/v1/resource&from=...&to=...} returns
+ * latency percentiles (ms) for the endpoint over the range, one hour back by default.
+ */
+@RestController
+@RequestMapping("/api/metrics")
+@RequiredArgsConstructor
+public class LatencyController {
+
+    private static final Duration DEFAULT_RANGE = Duration.ofHours(1);
+
+    private final LatencyHistogramStore store;
+
+    @Value("${metrics.latency.retention:7d}")
+    private Duration retention;
+
+    @GetMapping("/latency")
+    public LatencySummary latency(@RequestParam String endpoint,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        Instant end = to != null ? to : Instant.now();
+        Instant start = from != null ? from : end.minus(DEFAULT_RANGE);
+        if (start.isAfter(end)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must not be after to");
+        }
+        if (Duration.between(start, end).compareTo(retention) > 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Range exceeds the retention of " + retention);
+        }
+        return store.query(endpoint, start.toEpochMilli(), end.toEpochMilli());
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.metrics;
+
+import org.HdrHistogram.AbstractHistogram;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.PackedHistogram;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+
+/**
+ * Per-endpoint latency histograms in fixed time buckets. Each instance keeps the
+ * histograms of the buckets it is still receiving events for and writes them,
+ * compressed, to its own field of {@code latency:endpoint:<endpoint>:<bucket>}.
+ * Queries merge every field of every bucket in the range, which is what makes the
+ * histograms mergeable across metrics-service instances.
+ * <p>
+ * Memory stays bounded: histograms are sparse ({@link PackedHistogram}), flushed
+ * buckets older than the previous one are dropped, and endpoints beyond
+ * {@code maxEndpoints} are folded into {@value #OTHER_ENDPOINT}.
+ */
+@Component
+public class LatencyHistogramStore {
+
+    static final String OTHER_ENDPOINT = "_other";
+
+    private static final String KEY_PREFIX = "latency:endpoint:";
+    private static final int SIGNIFICANT_DIGITS = 2;
+    private static final int COMPRESSION_LEVEL = 6;
+
+    private final StringRedisTemplate redisTemplate;
+    private final long bucketMs;
+    private final Duration retention;
+    private final int maxEndpoints;
+    private final String instanceId = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong generations = new AtomicLong();
+    private final Set<String> endpoints = ConcurrentHashMap.newKeySet();
+    private final Map<BucketKey, BucketHistogram> buckets = new ConcurrentHashMap<>();
+
+    public LatencyHistogramStore(StringRedisTemplate redisTemplate,
+            @Value("${metrics.latency.bucket:1m}") Duration bucket,
+            @Value("${metrics.latency.retention:7d}") Duration retention,
+            @Value("${metrics.latency.max-endpoints:500}") int maxEndpoints) {
+        this.redisTemplate = redisTemplate;
+        this.bucketMs = bucket.toMillis();
+        this.retention = retention;
+        this.maxEndpoints = maxEndpoints;
+    }
+
+    /** Records under {@code endpoint}, which must come from {@link #trackedEndpoint}. */
+    public void record(String endpoint, long timestampMicros, long latencyMs) {
+        BucketKey key = new BucketKey(endpoint, bucketStart(timestampMicros / 1_000));
+        buckets.computeIfAbsent(key, k -> new BucketHistogram(instanceId + ":" + generations.incrementAndGet()))
+                .record(Math.max(0, latencyMs));
+    }
+
+    /** {@code endpoint} while fewer than {@code maxEndpoints} are tracked, else {@value #OTHER_ENDPOINT}. */
+    String trackedEndpoint(String endpoint) {
+        if (endpoints.contains(endpoint)) {
+            return endpoint;
+        }
+        if (endpoints.size() < maxEndpoints && endpoints.add(endpoint)) {
+            return endpoint;
+        }
+        return OTHER_ENDPOINT;
+    }
+
+    /**
+     * Queues the histograms changed since their last write into a pipelined
+     * {@code connection}. The returned handle must be {@link Pending#commit committed}
+     * once the pipeline has succeeded.
+     */
+    Pending write(RedisConnection connection) {
+        List<Written> written = new ArrayList<>();
+        long ttlSeconds = retention.toSeconds();
+        buckets.forEach((key, histogram) -> {
+            Written snapshot = histogram.snapshot();
+            if (snapshot == null) {
+                return;
+            }
+            byte[] redisKey = redisKey(key.endpoint(), key.bucketStart());
+            connection.hashCommands().hSet(redisKey, histogram.field, snapshot.encoded());
+            connection.keyCommands().expire(redisKey, ttlSeconds);
+            written.add(snapshot);
+        });
+        return new Pending(written);
+    }
+
+    public LatencySummary query(String endpoint, long fromMs, long toMs) {
+        List<byte[]> keys = new ArrayList<>();
+        for (long bucket = bucketStart(fromMs); bucket <= toMs; bucket += bucketMs) {
+            keys.add(redisKey(endpoint, bucket));
+        }
+
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (byte[] key : keys) {
+                connection.hashCommands().hGetAll(key);
+            }
+            return null;
+        }, RedisSerializer.byteArray());
+
+        Histogram merged = new Histogram(SIGNIFICANT_DIGITS);
+        for (Object result : results) {
+            if (result instanceof Map<?, ?> fields) {
+                for (Object encoded : fields.values()) {
+                    merged.add(decode((byte[]) encoded));
+                }
+            }
+        }
+        return LatencySummary.of(endpoint, fromMs, toMs, merged);
+    }
+
+    private long bucketStart(long epochMs) {
+        return Math.floorDiv(epochMs, bucketMs) * bucketMs;
+    }
+
+    private static byte[] redisKey(String endpoint, long bucketStart) {
+        return (KEY_PREFIX + endpoint + ":" + bucketStart).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static AbstractHistogram decode(byte[] encoded) {
+        try {
+            return Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(encoded), 0);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt latency histogram in Redis", e);
+        }
+    }
+
+    /** Histograms queued by {@link #write}; committing marks them clean and evicts stale buckets. */
+    final class Pending {
+
+        private final List<Written> written;
+
+        private Pending(List<Written> written) {
+            this.written = written;
+        }
+
+        int size() {
+            return written.size();
+        }
+
+        void commit() {
+            for (Written snapshot : written) {
+                snapshot.histogram().flushedVersion = snapshot.version();
+            }
+            long previousBucket = bucketStart(System.currentTimeMillis()) - bucketMs;
+            buckets.entrySet().removeIf(entry -> entry.getKey().bucketStart() < previousBucket
+                    && entry.getValue().isClean());
+        }
+    }
+
+    private record BucketKey(String endpoint, long bucketStart) {
+    }
+
+    private record Written(BucketHistogram histogram, long version, byte[] encoded) {
+    }
+
+    private static final class BucketHistogram {
+
+        private final byte[] field;
+        private final PackedHistogram histogram = new PackedHistogram(SIGNIFICANT_DIGITS);
+        private long version;
+        private volatile long flushedVersion;
+
+        private BucketHistogram(String field) {
+            this.field = field.getBytes(StandardCharsets.UTF_8);
+        }
+
+        private synchronized void record(long latencyMs) {
+            histogram.recordValue(latencyMs);
+            version++;
+        }
+
+        private synchronized Written snapshot() {
+            if (version == flushedVersion) {
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+            int length = histogram.encodeIntoCompressedByteBuffer(buffer, COMPRESSION_LEVEL);
+            return new Written(this, version, Arrays.copyOf(buffer.array(), length));
+        }
+
+        private synchronized boolean isClean() {
+            return version == flushedVersion;
+        }
+    }
+}
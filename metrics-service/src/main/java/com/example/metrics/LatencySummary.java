@@ -0,0 +1,19 @@
+package com.example.metrics;
+
+import org.HdrHistogram.AbstractHistogram;
+
+import java.time.Instant;
+
+public record LatencySummary(String endpoint, Instant from, Instant to, long count,
+        long p50, long p90, long p99, long p999, long max) {
+
+    static LatencySummary of(String endpoint, long fromMs, long toMs, AbstractHistogram histogram) {
+        return new LatencySummary(endpoint, Instant.ofEpochMilli(fromMs), Instant.ofEpochMilli(toMs),
+                histogram.getTotalCount(),
+                histogram.getValueAtPercentile(50),
+                histogram.getValueAtPercentile(90),
+                histogram.getValueAtPercentile(99),
+                histogram.getValueAtPercentile(99.9),
+                histogram.getMaxValue());
+    }
+}
@@ -1,50 +1,110 @@
 package com.example.metrics;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
+import com.example.events.RequestEvent;
+import com.example.events.consumer.KeyOrderedExecutor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.StringRedisTemplate;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Consumes {@code api-requests} in batches into {@link EndpointStatsAggregator}.
+ * Offsets are acknowledged only after the aggregated stats have been flushed to
+ * Redis, so a crash replays at most the unflushed events. Each poll can be fanned
+ * out by endpoint with {@code metrics.consumer.mode}; the flush and the
+ * acknowledgements stay on the listener thread. Before partitions are revoked the
+ * stats are flushed and acknowledged too, so the next owner does not replay
+ * events whose deltas this instance still writes.
+ */
 @Service
 @Slf4j
-@RequiredArgsConstructor
-public class MetricsConsumer {
+public class MetricsConsumer implements ConsumerAwareRebalanceListener, DisposableBean {
 
-    private static final String STATS_KEY_PREFIX = "stats:endpoint:";
-    private static final String FIELD_COUNT = "count";
-    private static final String FIELD_ERRORS = "errors";
-    private static final String FIELD_TOTAL_LATENCY = "totalLatencyMs";
-    private static final int ERROR_STATUS_THRESHOLD = 400;
+    private static final String LISTENER_ID = "metrics-listener";
 
-    private final StringRedisTemplate redisTemplate;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final EndpointStatsAggregator aggregator;
+    private final KeyOrderedExecutor executor;
+    private final List<Acknowledgment> unflushed = new ArrayList<>();
+    private long lastFlush = System.currentTimeMillis();
 
-    @KafkaListener(topics = "api-requests", groupId = "metrics-group")
-    public void process(String message) {
-        try {
-            JsonNode node = mapper.readTree(message);
-            String endpoint = node.path("endpoint").asText();
-            int status = node.path("status").asInt();
-            long latencyMs = node.path("latencyMs").asLong();
+    @Value("${metrics.flush.max-events:10000}")
+    private long flushMaxEvents;
+
+    @Value("${metrics.flush.interval-ms:1000}")
+    private long flushIntervalMs;
+
+    public MetricsConsumer(EndpointStatsAggregator aggregator,
+            @Value("${metrics.consumer.mode:sequential}") KeyOrderedExecutor.Mode mode,
+            @Value("${metrics.consumer.parallelism:4}") int parallelism) {
+        this.aggregator = aggregator;
+        this.executor = KeyOrderedExecutor.create(mode, parallelism, "metrics-lane");
+        log.info("Aggregating events {} with parallelism {}", executor.mode(), parallelism);
+    }
+
+    @KafkaListener(id = LISTENER_ID, topics = "api-requests", groupId = "metrics-group", batch = "true")
+    public void process(List<RequestEvent> events, Acknowledgment ack) {
+        executor.process(events, MetricsConsumer::endpoint, event -> {
+            // ErrorHandlingDeserializer hands over undecodable records as null
+            if (event != null) {
+                aggregator.record(event);
+            }
+        });
+        unflushed.add(ack);
+
+        if (aggregator.pendingEvents() >= flushMaxEvents
+                || System.currentTimeMillis() - lastFlush >= flushIntervalMs) {
+            flushAndAcknowledge();
+        }
+    }
 
-            String key = STATS_KEY_PREFIX + endpoint;
-            incrementStats(key, status, latencyMs);
+    @EventListener(condition = "event.listenerId.startsWith('" + LISTENER_ID + "')")
+    public void onIdle(ListenerContainerIdleEvent event) {
+        // Published on the consumer thread, so acknowledging here is safe
+        if (!unflushed.isEmpty()) {
+            flushAndAcknowledge();
+        }
+    }
 
-            log.debug("Processed metrics for endpoint: {}", endpoint);
-        } catch (Exception e) {
-            log.error("Failed to process metrics message: {}", e.getMessage());
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        // Called on the consumer thread; the container commits these acks right after
+        if (!unflushed.isEmpty()) {
+            flushAndAcknowledge();
         }
     }
 
-    private void incrementStats(String key, int status, long latencyMs) {
-        redisTemplate.opsForHash().increment(key, FIELD_COUNT, 1);
-        redisTemplate.opsForHash().increment(key, FIELD_TOTAL_LATENCY, latencyMs);
+    @Override
+    public void destroy() {
+        executor.close();
+    }
 
-        if (status >= ERROR_STATUS_THRESHOLD) {
-            redisTemplate.opsForHash().increment(key, FIELD_ERRORS, 1);
+    private void flushAndAcknowledge() {
+        try {
+            aggregator.flush();
+        } catch (RuntimeException e) {
+            log.error("Failed to flush metrics, keeping {} batches unacknowledged: {}",
+                    unflushed.size(), e.getMessage());
+            return;
+        }
+        lastFlush = System.currentTimeMillis();
+        for (Acknowledgment ack : unflushed) {
+            ack.acknowledge();
         }
+        unflushed.clear();
+    }
+
+    private static String endpoint(RequestEvent event) {
+        return event != null ? event.getEndpoint() : null;
     }
 }
@@ -0,0 +1,117 @@
+package com.example.metrics;
+
+import com.example.events.RequestEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisHashCommands;
+import org.springframework.data.redis.connection.RedisKeyCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EndpointStatsAggregatorTest {
+
+    private static final long NOW_MICROS = 1_700_000_000_000_000L;
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    private final RedisConnection connection = mock(RedisConnection.class);
+    private final RedisHashCommands hashCommands = mock(RedisHashCommands.class);
+    private final EndpointStatsAggregator aggregator = new EndpointStatsAggregator(redisTemplate,
+            new LatencyHistogramStore(redisTemplate, Duration.ofMinutes(1), Duration.ofDays(1), 2));
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void pipelineRunsAgainstMockConnection() {
+        when(connection.hashCommands()).thenReturn(hashCommands);
+        when(connection.keyCommands()).thenReturn(mock(RedisKeyCommands.class));
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            invocation.getArgument(0, RedisCallback.class).doInRedis(connection);
+            return List.of();
+        });
+    }
+
+    @Test
+    void flushWritesSummedDeltasOnce() {
+        aggregator.record(event("/api/v1/users", 200, 10));
+        aggregator.record(event("/api/v1/users", 503, 30));
+        aggregator.record(event("/api/v1/orders", 200, 5));
+
+        aggregator.flush();
+        aggregator.flush();
+
+        verify(hashCommands).hIncrBy(key("/api/v1/users"), field("count"), 2);
+        verify(hashCommands).hIncrBy(key("/api/v1/users"), field("totalLatencyMs"), 40);
+        verify(hashCommands).hIncrBy(key("/api/v1/users"), field("errors"), 1);
+        verify(hashCommands).hIncrBy(key("/api/v1/orders"), field("count"), 1);
+        verify(hashCommands, never()).hIncrBy(eq(key("/api/v1/orders")), eq(field("errors")), anyLong());
+        // The second flush had nothing to write
+        verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+        assertThat(aggregator.pendingEvents()).isZero();
+    }
+
+    @Test
+    void failedFlushKeepsItsDeltas() {
+        aggregator.record(event("/api/v1/users", 200, 10));
+        when(redisTemplate.executePipelined(any(RedisCallback.class)))
+                .thenThrow(new RedisConnectionFailureException("down"))
+                .thenAnswer(invocation -> {
+                    invocation.getArgument(0, RedisCallback.class).doInRedis(connection);
+                    return List.of();
+                });
+
+        assertThatThrownBy(aggregator::flush).isInstanceOf(RedisConnectionFailureException.class);
+        assertThat(aggregator.pendingEvents()).isEqualTo(1);
+        aggregator.record(event("/api/v1/users", 200, 20));
+        aggregator.flush();
+
+        verify(hashCommands).hIncrBy(key("/api/v1/users"), field("count"), 2);
+        verify(hashCommands).hIncrBy(key("/api/v1/users"), field("totalLatencyMs"), 30);
+    }
+
+    @Test
+    void endpointsBeyondTheCapAreCountedAsOther() {
+        for (int i = 0; i < 5; i++) {
+            aggregator.record(event("/api/v1/users/" + i, 200, 1));
+        }
+
+        aggregator.flush();
+
+        verify(hashCommands).hIncrBy(key("/api/v1/users/0"), field("count"), 1);
+        verify(hashCommands).hIncrBy(key("/api/v1/users/1"), field("count"), 1);
+        verify(hashCommands).hIncrBy(key(LatencyHistogramStore.OTHER_ENDPOINT), field("count"), 3);
+        verify(hashCommands, never()).hIncrBy(eq(key("/api/v1/users/2")), any(), anyLong());
+    }
+
+    private static RequestEvent event(String endpoint, int status, long latencyMs) {
+        return RequestEvent.builder()
+                .timestampMicros(NOW_MICROS)
+                .endpoint(endpoint)
+                .status(status)
+                .latencyMs(latencyMs)
+                .build();
+    }
+
+    private static byte[] key(String endpoint) {
+        return ("stats:endpoint:" + endpoint).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] field(String name) {
+        return name.getBytes(StandardCharsets.UTF_8);
+    }
+}
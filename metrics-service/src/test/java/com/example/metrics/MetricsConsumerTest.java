@@ -0,0 +1,66 @@
+package com.example.metrics;
+
+import com.example.events.RequestEvent;
+import com.example.events.consumer.KeyOrderedExecutor;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class MetricsConsumerTest {
+
+    private static final List<TopicPartition> REVOKED = List.of(new TopicPartition("api-requests", 0));
+
+    private final EndpointStatsAggregator aggregator = mock(EndpointStatsAggregator.class);
+    private final MetricsConsumer consumer = new MetricsConsumer(aggregator, KeyOrderedExecutor.Mode.SEQUENTIAL, 1);
+    private final Acknowledgment ack = mock(Acknowledgment.class);
+
+    @AfterEach
+    void close() {
+        consumer.destroy();
+    }
+
+    @Test
+    void revocationFlushesAndAcknowledgesBeforeTheCommit() {
+        deferFlushes();
+        consumer.process(List.of(RequestEvent.builder().endpoint("/api/v1/users").build()), ack);
+        verify(ack, never()).acknowledge();
+
+        consumer.onPartitionsRevokedBeforeCommit(mock(Consumer.class), REVOKED);
+
+        verify(aggregator).flush();
+        verify(ack).acknowledge();
+    }
+
+    @Test
+    void failedFlushOnRevocationLeavesOffsetsUncommitted() {
+        deferFlushes();
+        consumer.process(List.of(RequestEvent.builder().endpoint("/api/v1/users").build()), ack);
+        doThrow(new IllegalStateException("down")).when(aggregator).flush();
+
+        consumer.onPartitionsRevokedBeforeCommit(mock(Consumer.class), REVOKED);
+
+        verify(ack, never()).acknowledge();
+    }
+
+    @Test
+    void revocationWithNothingUnflushedDoesNotFlush() {
+        consumer.onPartitionsRevokedBeforeCommit(mock(Consumer.class), REVOKED);
+
+        verify(aggregator, never()).flush();
+    }
+
+    private void deferFlushes() {
+        ReflectionTestUtils.setField(consumer, "flushMaxEvents", Long.MAX_VALUE);
+        ReflectionTestUtils.setField(consumer, "flushIntervalMs", Long.MAX_VALUE);
+    }
+}
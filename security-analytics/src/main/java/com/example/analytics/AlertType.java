@@ -0,0 +1,16 @@
+package com.example.analytics;
+
+public enum AlertType {
+    /** One IP with many failed authentications or many different API keys. */
+    CREDENTIAL_STUFFING,
+    /** Many failed authentications against one endpoint from many IPs. */
+    DISTRIBUTED_CREDENTIAL_STUFFING,
+    /** One IP walking through many distinct endpoints. */
+    SCRAPING,
+    /** One IP that keeps sending requests after being rate limited. */
+    BLOCK_EVASION,
+    /** One IP far above normal request volume. */
+    HEAVY_HITTER,
+    /** One user authenticated from many IPs. */
+    ACCOUNT_SHARING
+}
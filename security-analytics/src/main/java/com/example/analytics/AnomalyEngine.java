@@ -0,0 +1,309 @@
+package com.example.analytics;
+
+import com.example.analytics.sketch.CountMinSketch;
+import com.example.analytics.sketch.Hashing;
+import com.example.analytics.sketch.HyperLogLog;
+import com.example.events.RequestEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Streaming detection over request events with bounded memory.
+ * <p>
+ * Counts per IP, user and endpoint live in count-min sketches, so millions of
+ * distinct keys cost a fixed amount of memory. Two sketch generations approximate a
+ * sliding window: the previous window's count is weighted by how much of it still
+ * overlaps. Keys that reach {@link AnomalyProperties#getTrackThreshold()} also get a
+ * {@link TrackedKey} in a capped primitive-keyed table, holding HyperLogLogs for
+ * distinct counts and the alert cooldowns; idle keys are dropped when the window
+ * rolls over.
+ * <p>
+ * State is split into shards by key hash, each with its own lock, so listener
+ * threads for different partitions rarely contend. Alerts are returned rather than
+ * published so no Kafka call happens under a shard lock.
+ */
+@Component
+@Slf4j
+public class AnomalyEngine {
+
+    private static final int SKETCH_DEPTH = 4;
+    private static final int STATUS_UNAUTHORIZED = 401;
+    private static final int STATUS_FORBIDDEN = 403;
+
+    private static final long SIGNAL_IP_REQUESTS = 0x1L;
+    private static final long SIGNAL_IP_AUTH_FAILURES = 0x2L;
+    private static final long SIGNAL_IP_BLOCKED = 0x3L;
+    private static final long SIGNAL_USER_REQUESTS = 0x4L;
+    private static final long SIGNAL_ENDPOINT_AUTH_FAILURES = 0x5L;
+    private static final long SIGNAL_SEED = 0xC2B2AE3D27D4EB4FL;
+
+    private final AnomalyProperties properties;
+    private final long windowMicros;
+    private final Shard[] shards;
+    private final int shardMask;
+
+    public AnomalyEngine(AnomalyProperties properties) {
+        if (properties.getTrackThreshold() > minCountThreshold(properties)) {
+            throw new IllegalArgumentException("analytics.anomaly.track-threshold must not exceed any count threshold");
+        }
+        this.properties = properties;
+        this.windowMicros = properties.getWindow().toNanos() / 1_000;
+        int shardCount = Integer.highestOneBit(Math.max(1, properties.getShards() * 2 - 1));
+        this.shards = new Shard[shardCount];
+        this.shardMask = shardCount - 1;
+        int trackedPerShard = Math.max(1, properties.getMaxTrackedKeys() / shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(properties.getSketchWidth(), trackedPerShard);
+        }
+    }
+
+    /** Feeds one event through every detector and returns the alerts it triggered. */
+    public List<SecurityAlert> process(RequestEvent event) {
+        long now = event.getTimestampMicros() > 0
+                ? event.getTimestampMicros()
+                : RequestEvent.toEpochMicros(Instant.now());
+        // A blocked request was refused by the gateway (deny list or limits) before any credential was tried
+        boolean authFailure = event.getType() != RequestEvent.EventType.BLOCKED
+                && (event.getStatus() == STATUS_UNAUTHORIZED || event.getStatus() == STATUS_FORBIDDEN);
+        long ipHash = Hashing.hash64(event.getIp() != null ? event.getIp() : "unknown");
+        List<SecurityAlert> alerts = null;
+
+        alerts = processIp(event, ipHash, authFailure, now, alerts);
+        if (event.getUserId() != null) {
+            alerts = processUser(event, ipHash, now, alerts);
+        }
+        if (authFailure && event.getEndpoint() != null) {
+            alerts = processEndpoint(event, ipHash, now, alerts);
+        }
+        return alerts != null ? alerts : List.of();
+    }
+
+    /** Keys currently holding per-key state, across all shards. */
+    public int trackedKeys() {
+        int total = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                total += shard.tracked.size();
+            }
+        }
+        return total;
+    }
+
+    private List<SecurityAlert> processIp(RequestEvent event, long ipHash, boolean authFailure, long now,
+            List<SecurityAlert> alerts) {
+        Shard shard = shardFor(ipHash);
+        synchronized (shard) {
+            shard.advance(now);
+            long requests = shard.add(signal(ipHash, SIGNAL_IP_REQUESTS), now);
+            long failures = authFailure ? shard.add(signal(ipHash, SIGNAL_IP_AUTH_FAILURES), now) : 0;
+            long blocked = event.getType() == RequestEvent.EventType.BLOCKED
+                    ? shard.add(signal(ipHash, SIGNAL_IP_BLOCKED), now) : 0;
+            if (requests < properties.getTrackThreshold()) {
+                return alerts;
+            }
+            TrackedKey ip = shard.track(signal(ipHash, SIGNAL_IP_REQUESTS), true);
+            if (ip == null) {
+                return alerts;
+            }
+            ip.primary.add(Hashing.hash64(event.getEndpoint() != null ? event.getEndpoint() : ""));
+            if (event.getApiKey() != null) {
+                ip.secondary.add(Hashing.hash64(event.getApiKey()));
+            }
+            String subject = event.getIp();
+            alerts = check(shard, ip, AlertType.HEAVY_HITTER, requests, properties.getRequestsPerIp(), subject, event, alerts);
+            alerts = check(shard, ip, AlertType.CREDENTIAL_STUFFING, failures, properties.getAuthFailuresPerIp(), subject, event, alerts);
+            alerts = check(shard, ip, AlertType.CREDENTIAL_STUFFING, ip.secondary.estimate(),
+                    properties.getDistinctApiKeysPerIp(), subject, event, alerts);
+            alerts = check(shard, ip, AlertType.SCRAPING, ip.primary.estimate(),
+                    properties.getDistinctEndpointsPerIp(), subject, event, alerts);
+            return check(shard, ip, AlertType.BLOCK_EVASION, blocked, properties.getBlockedPerIp(), subject, event, alerts);
+        }
+    }
+
+    private List<SecurityAlert> processUser(RequestEvent event, long ipHash, long now, List<SecurityAlert> alerts) {
+        long userHash = Hashing.hash64(event.getUserId());
+        Shard shard = shardFor(userHash);
+        synchronized (shard) {
+            shard.advance(now);
+            long requests = shard.add(signal(userHash, SIGNAL_USER_REQUESTS), now);
+            if (requests < properties.getTrackThreshold()) {
+                return alerts;
+            }
+            TrackedKey user = shard.track(signal(userHash, SIGNAL_USER_REQUESTS), false);
+            if (user == null) {
+                return alerts;
+            }
+            user.primary.add(ipHash);
+            return check(shard, user, AlertType.ACCOUNT_SHARING, user.primary.estimate(),
+                    properties.getDistinctIpsPerUser(), event.getUserId(), event, alerts);
+        }
+    }
+
+    private List<SecurityAlert> processEndpoint(RequestEvent event, long ipHash, long now, List<SecurityAlert> alerts) {
+        long endpointHash = Hashing.hash64(event.getEndpoint());
+        Shard shard = shardFor(endpointHash);
+        synchronized (shard) {
+            shard.advance(now);
+            long failures = shard.add(signal(endpointHash, SIGNAL_ENDPOINT_AUTH_FAILURES), now);
+            if (failures < properties.getTrackThreshold()) {
+                return alerts;
+            }
+            TrackedKey endpoint = shard.track(signal(endpointHash, SIGNAL_ENDPOINT_AUTH_FAILURES), false);
+            if (endpoint == null) {
+                return alerts;
+            }
+            endpoint.primary.add(ipHash);
+            if (failures < properties.getAuthFailuresPerEndpoint()) {
+                return alerts;
+            }
+            return check(shard, endpoint, AlertType.DISTRIBUTED_CREDENTIAL_STUFFING, endpoint.primary.estimate(),
+                    properties.getDistinctIpsPerEndpoint(), event.getEndpoint(), event, alerts);
+        }
+    }
+
+    private List<SecurityAlert> check(Shard shard, TrackedKey key, AlertType type, long observed, long threshold,
+            String subject, RequestEvent event, List<SecurityAlert> alerts) {
+        if (observed < threshold || key.lastAlertWindow[type.ordinal()] == shard.windowIndex) {
+            return alerts;
+        }
+        key.lastAlertWindow[type.ordinal()] = shard.windowIndex;
+        List<SecurityAlert> result = alerts != null ? alerts : new ArrayList<>(2);
+        result.add(new SecurityAlert(type, subject, observed, threshold, event));
+        return result;
+    }
+
+    private Shard shardFor(long keyHash) {
+        return shards[(int) (keyHash >>> 40) & shardMask];
+    }
+
+    private static long signal(long keyHash, long signal) {
+        return Hashing.mix64(keyHash ^ (signal * SIGNAL_SEED));
+    }
+
+    private static int minCountThreshold(AnomalyProperties properties) {
+        return Math.min(Math.min(properties.getAuthFailuresPerIp(), properties.getBlockedPerIp()),
+                Math.min(properties.getRequestsPerIp(), properties.getAuthFailuresPerEndpoint()));
+    }
+
+    private final class Shard {
+
+        private CountMinSketch current;
+        private CountMinSketch previous;
+        private final LongObjectTable<TrackedKey> tracked;
+        private long windowIndex = Long.MIN_VALUE;
+        private long windowStart;
+        private long refusedKeys;
+
+        Shard(int sketchWidth, int maxTracked) {
+            this.current = new CountMinSketch(SKETCH_DEPTH, sketchWidth);
+            this.previous = new CountMinSketch(SKETCH_DEPTH, sketchWidth);
+            this.tracked = new LongObjectTable<>(maxTracked);
+        }
+
+        /** Rolls the window forward; events older than the current window count toward it. */
+        void advance(long now) {
+            long index = Math.floorDiv(now, windowMicros);
+            if (index <= windowIndex) {
+                return;
+            }
+            if (index == windowIndex + 1) {
+                CountMinSketch recycled = previous;
+                previous = current;
+                current = recycled;
+                current.clear();
+            } else {
+                current.clear();
+                previous.clear();
+            }
+            windowIndex = index;
+            windowStart = index * windowMicros;
+            int evicted = tracked.removeIf(key -> key.lastSeenWindow < index - 1);
+            if (refusedKeys > 0) {
+                log.warn("Anomaly state full: {} keys were not tracked in the last window, {} evicted now",
+                        refusedKeys, evicted);
+                refusedKeys = 0;
+            }
+        }
+
+        /** Counts one occurrence and returns the sliding-window estimate. */
+        long add(long key, long now) {
+            long elapsed = Math.min(Math.max(now - windowStart, 0), windowMicros);
+            double previousWeight = 1.0 - (double) elapsed / windowMicros;
+            return current.add(key, 1) + (long) (previous.estimate(key) * previousWeight);
+        }
+
+        TrackedKey track(long key, boolean secondary) {
+            TrackedKey state = tracked.computeIfAbsent(key, k -> new TrackedKey(properties.getHllPrecision(), secondary));
+            if (state == null) {
+                refusedKeys++;
+                return null;
+            }
+            state.touch(windowIndex);
+            return state;
+        }
+    }
+
+    /** Per-key state for keys past the track threshold. */
+    private static final class TrackedKey {
+
+        private final WindowedDistinct primary;
+        private final WindowedDistinct secondary;
+        private final long[] lastAlertWindow = new long[AlertType.values().length];
+        private long lastSeenWindow;
+
+        TrackedKey(int precision, boolean secondary) {
+            this.primary = new WindowedDistinct(precision);
+            this.secondary = secondary ? new WindowedDistinct(precision) : null;
+            Arrays.fill(lastAlertWindow, Long.MIN_VALUE);
+        }
+
+        void touch(long windowIndex) {
+            if (windowIndex != lastSeenWindow) {
+                primary.roll(windowIndex - lastSeenWindow);
+                if (secondary != null) {
+                    secondary.roll(windowIndex - lastSeenWindow);
+                }
+                lastSeenWindow = windowIndex;
+            }
+        }
+    }
+
+    /** Distinct count over the current and previous window. */
+    private static final class WindowedDistinct {
+
+        private HyperLogLog current;
+        private HyperLogLog previous;
+        private long estimate;
+
+        WindowedDistinct(int precision) {
+            this.current = new HyperLogLog(precision);
+            this.previous = new HyperLogLog(precision);
+        }
+
+        void roll(long windows) {
+            HyperLogLog recycled = previous;
+            previous = current;
+            current = recycled;
+            current.clear();
+            if (windows > 1) {
+                previous.clear();
+            }
+            estimate = previous.estimate();
+        }
+
+        void add(long hash) {
+            if (current.add(hash)) {
+                estimate = current.estimateUnion(previous);
+            }
+        }
+
+        long estimate() {
+            return estimate;
+        }
+    }
+}
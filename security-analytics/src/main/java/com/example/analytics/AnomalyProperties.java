@@ -0,0 +1,41 @@
+package com.example.analytics;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Sizing and thresholds of the {@link AnomalyEngine}. Every count threshold applies
+ * to a sliding {@code window}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "analytics.anomaly")
+public class AnomalyProperties {
+
+    private Duration window = Duration.ofMinutes(1);
+    /** Independently locked state partitions; rounded up to a power of two. */
+    private int shards = 16;
+    /** Columns per count-min sketch row; each shard keeps two generations of depth 4. */
+    private int sketchWidth = 16384;
+    /** Registers of each HyperLogLog are {@code 2^precision} bytes. */
+    private int hllPrecision = 7;
+    /** Keys with exact per-key state, across all shards. */
+    private int maxTrackedKeys = 100_000;
+    /**
+     * Requests in a window after which an IP, user or endpoint gets per-key state
+     * (distinct counters and alert cooldowns). Must not exceed the count thresholds.
+     */
+    private int trackThreshold = 20;
+
+    private int authFailuresPerIp = 20;
+    private int distinctApiKeysPerIp = 10;
+    private int distinctEndpointsPerIp = 100;
+    private int blockedPerIp = 100;
+    private int requestsPerIp = 6000;
+    private int distinctIpsPerUser = 20;
+    private int authFailuresPerEndpoint = 200;
+    private int distinctIpsPerEndpoint = 50;
+}
@@ -0,0 +1,45 @@
+package com.example.analytics;
+
+import com.example.events.IpBan;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Manual ban management: {@code PUT /api/security/bans/{ip}?duration=PT1H},
+ * {@code DELETE /api/security/bans/{ip}} and {@code GET /api/security/bans}.
+ */
+@RestController
+@RequestMapping("/api/security/bans")
+@RequiredArgsConstructor
+public class BanController {
+
+    private final IpBanPublisher banPublisher;
+
+    @GetMapping
+    public Map<String, IpBan> bans() {
+        return banPublisher.activeBans();
+    }
+
+    @PutMapping("/{ip}")
+    public IpBan ban(@PathVariable String ip, @RequestParam(defaultValue = "PT1H") Duration duration,
+            @RequestParam(defaultValue = "manual") String reason) {
+        return banPublisher.ban(ip, duration, reason);
+    }
+
+    @DeleteMapping("/{ip}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void unban(@PathVariable String ip) {
+        banPublisher.unban(ip);
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.analytics;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Set;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "analytics.bans")
+public class BanProperties {
+
+    private boolean enabled = true;
+    /** Alerts on an IP that ban it. */
+    private Set<AlertType> alertTypes = EnumSet.of(AlertType.BLOCK_EVASION, AlertType.CREDENTIAL_STUFFING);
+    /** First ban; each repeat offence within {@code strikeMemory} doubles it. */
+    private Duration initialDuration = Duration.ofMinutes(15);
+    private Duration maxDuration = Duration.ofHours(24);
+    /** How long an IP's offences count towards escalation after its last ban ended. */
+    private Duration strikeMemory = Duration.ofHours(24);
+    /** IPs whose ban history is remembered; the least recently banned are forgotten first. */
+    private int maxRemembered = 100_000;
+    /** How often expired bans are tombstoned on the topic. */
+    private long expiryCheckMs = 30_000;
+}
@@ -0,0 +1,26 @@
+package com.example.analytics;
+
+import com.example.events.IpBan;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.config.TopicConfig;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+/**
+ * Creates the compacted ban topic, so it only keeps the latest decision per IP.
+ * Tombstones are kept for the strike memory, since {@link IpBanPublisher} reads
+ * past offences from them on startup.
+ */
+@Configuration
+public class BanTopicConfig {
+
+    @Bean
+    public NewTopic ipBansTopic(BanProperties properties) {
+        return TopicBuilder.name(IpBan.TOPIC)
+                .partitions(1)
+                .compact()
+                .config(TopicConfig.DELETE_RETENTION_MS_CONFIG, String.valueOf(properties.getStrikeMemory().toMillis()))
+                .build();
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.analytics;
+
+import com.example.events.consumer.KeyOrderedExecutor;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/** How {@link SecurityAnalyticsConsumer} processes each polled batch. */
+@Data
+@Component
+@ConfigurationProperties(prefix = "analytics.consumer")
+public class ConsumerProperties {
+
+    /**
+     * {@code sequential} on the listener thread, or lanes on a {@code thread-pool} /
+     * {@code virtual-threads}. The build targets Java 17, where virtual threads
+     * silently fall back to the pool, so the pool is the default.
+     */
+    private KeyOrderedExecutor.Mode mode = KeyOrderedExecutor.Mode.THREAD_POOL;
+    /** Lanes per batch, per listener thread; events of one IP always share a lane. */
+    private int parallelism = 8;
+}
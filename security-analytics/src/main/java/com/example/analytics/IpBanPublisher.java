@@ -0,0 +1,235 @@
+package com.example.analytics;
+
+import com.example.events.IpBan;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Turns IP alerts into ban decisions on the compacted {@code ip-bans} topic that the
+ * gateways load into their deny lists. Repeat offenders get exponentially longer
+ * bans. Once a ban has expired a tombstone is published so compaction can drop it.
+ * <p>
+ * Every decision, tombstones included, carries the IP's strike count in a
+ * {@value #STRIKES_HEADER} header. On startup the topic is replayed into the ban
+ * history, so a restart neither forgets to tombstone the bans still active nor
+ * resets escalation. Escalation is decided from this instance's history alone:
+ * run a single analytics instance, or two would each count strikes independently.
+ */
+@Service
+@Slf4j
+public class IpBanPublisher implements SmartInitializingSingleton {
+
+    static final String STRIKES_HEADER = "strikes";
+
+    private static final String UNKNOWN_IP = "unknown";
+    private static final int MAX_DOUBLINGS = 30;
+    private static final Duration REPLAY_POLL_TIMEOUT = Duration.ofSeconds(1);
+
+    private final BanProperties properties;
+    private final ConsumerFactory<?, ?> consumerFactory;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final Map<String, BanHistory> history;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public IpBanPublisher(BanProperties properties, ProducerFactory<?, ?> producerFactory,
+            ConsumerFactory<?, ?> consumerFactory) {
+        this.properties = properties;
+        this.consumerFactory = consumerFactory;
+        // Same producer settings as the alert events, with plain string values
+        ProducerFactory<String, String> factory = (ProducerFactory) producerFactory;
+        this.kafkaTemplate = new KafkaTemplate<>(factory,
+                Map.of(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class));
+        this.history = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, BanHistory> eldest) {
+                return size() > properties.getMaxRemembered();
+            }
+        };
+    }
+
+    public void onAlert(SecurityAlert alert) {
+        if (properties.isEnabled() && properties.getAlertTypes().contains(alert.type())
+                && alert.subject() != null && !UNKNOWN_IP.equals(alert.subject())) {
+            ban(alert.subject(), null, alert.type().name());
+        }
+    }
+
+    /** Bans {@code ip} for {@code duration}, or for its escalated duration when {@code null}. */
+    public synchronized IpBan ban(String ip, Duration duration, String reason) {
+        long now = System.currentTimeMillis();
+        BanHistory previous = history.get(ip);
+        if (previous != null && previous.active() && previous.expiresAtMs() > now && duration == null) {
+            return new IpBan(previous.expiresAtMs(), previous.reason());
+        }
+        int strikes = previous != null && now - previous.expiresAtMs() < properties.getStrikeMemory().toMillis()
+                ? previous.strikes() + 1 : 1;
+        Duration banFor = duration != null ? duration : escalated(strikes);
+        IpBan ban = new IpBan(now + banFor.toMillis(), reason);
+        history.put(ip, new BanHistory(strikes, ban.expiresAtMs(), reason, true));
+        send(ip, ban.encode(), strikes);
+        log.warn("Banned {} for {} ({}, strike {})", ip, banFor, reason, strikes);
+        return ban;
+    }
+
+    public synchronized void unban(String ip) {
+        BanHistory previous = history.get(ip);
+        if (previous != null) {
+            history.put(ip, new BanHistory(previous.strikes(), System.currentTimeMillis(), previous.reason(), false));
+        }
+        send(ip, null, previous != null ? previous.strikes() : 0);
+        log.info("Unbanned {}", ip);
+    }
+
+    public synchronized Map<String, IpBan> activeBans() {
+        long now = System.currentTimeMillis();
+        Map<String, IpBan> active = new LinkedHashMap<>();
+        history.forEach((ip, entry) -> {
+            if (entry.active() && entry.expiresAtMs() > now) {
+                active.put(ip, new IpBan(entry.expiresAtMs(), entry.reason()));
+            }
+        });
+        return active;
+    }
+
+    /** Tombstones expired bans and forgets IPs whose strikes no longer count. */
+    @Scheduled(fixedDelayString = "${analytics.bans.expiry-check-ms:30000}")
+    public synchronized void expireBans() {
+        long now = System.currentTimeMillis();
+        long strikeMemoryMs = properties.getStrikeMemory().toMillis();
+        Iterator<Map.Entry<String, BanHistory>> entries = history.entrySet().iterator();
+        List<String> expired = new ArrayList<>();
+        while (entries.hasNext()) {
+            Map.Entry<String, BanHistory> entry = entries.next();
+            BanHistory ban = entry.getValue();
+            if (ban.active() && ban.expiresAtMs() <= now) {
+                expired.add(entry.getKey());
+            } else if (!ban.active() && now - ban.expiresAtMs() >= strikeMemoryMs) {
+                entries.remove();
+            }
+        }
+        for (String ip : expired) {
+            BanHistory ban = history.get(ip);
+            history.put(ip, new BanHistory(ban.strikes(), ban.expiresAtMs(), ban.reason(), false));
+            send(ip, null, ban.strikes());
+        }
+    }
+
+    /**
+     * Replays {@code ip-bans} up to its current end before any alert is consumed.
+     * If the topic can't be read the history starts empty, as it did before.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            int restored = restoreHistory();
+            log.info("Restored ban history for {} IPs from {}", restored, IpBan.TOPIC);
+        } catch (RuntimeException e) {
+            log.error("Could not restore ban history from {}: {}", IpBan.TOPIC, e.getMessage());
+        }
+    }
+
+    synchronized int restoreHistory() {
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        overrides.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+        overrides.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+        try (Consumer<?, ?> consumer = consumerFactory.createConsumer(null, "ip-ban-history", null, overrides)) {
+            List<TopicPartition> partitions = new ArrayList<>();
+            for (PartitionInfo info : consumer.partitionsFor(IpBan.TOPIC)) {
+                partitions.add(new TopicPartition(info.topic(), info.partition()));
+            }
+            // Assigned rather than subscribed: nothing is committed and no group rebalances
+            consumer.assign(partitions);
+            consumer.seekToBeginning(partitions);
+            Map<TopicPartition, Long> ends = consumer.endOffsets(partitions);
+            while (ends.entrySet().stream().anyMatch(end -> consumer.position(end.getKey()) < end.getValue())) {
+                for (ConsumerRecord<?, ?> record : consumer.poll(REPLAY_POLL_TIMEOUT)) {
+                    replay((String) record.key(), (String) record.value(), strikesOf(record), record.timestamp());
+                }
+            }
+        }
+        return history.size();
+    }
+
+    private void replay(String ip, String value, int strikes, long timestampMs) {
+        if (ip == null) {
+            return;
+        }
+        BanHistory previous = history.get(ip);
+        if (value != null) {
+            try {
+                IpBan ban = IpBan.decode(value);
+                int counted = strikes > 0 ? strikes : previous != null ? previous.strikes() + 1 : 1;
+                history.put(ip, new BanHistory(counted, ban.expiresAtMs(), ban.reason(), true));
+            } catch (RuntimeException e) {
+                log.warn("Ignoring malformed ban for {}: {}", ip, e.getMessage());
+            }
+        } else if (previous != null) {
+            // Lifted at the earlier of its expiry and the tombstone
+            history.put(ip, new BanHistory(strikes > 0 ? strikes : previous.strikes(),
+                    Math.min(previous.expiresAtMs(), timestampMs), previous.reason(), false));
+        } else if (strikes > 0) {
+            // The ban itself was compacted away; its tombstone still carries the strikes
+            history.put(ip, new BanHistory(strikes, timestampMs, null, false));
+        }
+    }
+
+    private static int strikesOf(ConsumerRecord<?, ?> record) {
+        Header header = record.headers().lastHeader(STRIKES_HEADER);
+        if (header == null) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(new String(header.value(), StandardCharsets.UTF_8));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private Duration escalated(int strikes) {
+        Duration duration = properties.getInitialDuration().multipliedBy(1L << Math.min(strikes - 1, MAX_DOUBLINGS));
+        return duration.compareTo(properties.getMaxDuration()) > 0 ? properties.getMaxDuration() : duration;
+    }
+
+    private void send(String ip, String value, int strikes) {
+        ProducerRecord<String, String> record = new ProducerRecord<>(IpBan.TOPIC, ip, value);
+        if (strikes > 0) {
+            record.headers().add(STRIKES_HEADER, String.valueOf(strikes).getBytes(StandardCharsets.UTF_8));
+        }
+        kafkaTemplate.send(record).whenComplete((result, ex) -> {
+            if (ex != null) {
+                log.error("Failed to publish ban decision for {}: {}", ip, ex.getMessage());
+            }
+        });
+    }
+
+    private record BanHistory(int strikes, long expiresAtMs, String reason, boolean active) {
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.analytics;
+
+import java.util.function.LongFunction;
+import java.util.function.Predicate;
+
+/**
+ * Open-addressing map from a 64-bit key hash to a value, capped at {@code maxSize}
+ * entries. Once full, new keys are refused until {@link #removeIf} frees space, so
+ * memory stays bounded no matter how many distinct keys are offered. Not thread-safe.
+ */
+final class LongObjectTable<V> {
+
+    private final int maxSize;
+    private long[] keys;
+    private Object[] values;
+    private int size;
+
+    LongObjectTable(int maxSize) {
+        this.maxSize = Math.max(1, maxSize);
+        int capacity = Integer.highestOneBit(this.maxSize * 2 - 1) << 1;
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask); values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return (V) values[i];
+            }
+        }
+        return null;
+    }
+
+    /** Returns the key's value, creating it if there is room; {@code null} when full. */
+    @SuppressWarnings("unchecked")
+    V computeIfAbsent(long key, LongFunction<V> factory) {
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        for (; values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return (V) values[i];
+            }
+        }
+        if (size >= maxSize) {
+            return null;
+        }
+        V value = factory.apply(key);
+        keys[i] = key;
+        values[i] = value;
+        size++;
+        return value;
+    }
+
+    /** Drops every entry matching {@code stale}; returns how many were removed. */
+    @SuppressWarnings("unchecked")
+    int removeIf(Predicate<V> stale) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[oldKeys.length];
+        values = new Object[oldValues.length];
+        int removed = 0;
+        size = 0;
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldValues.length; j++) {
+            if (oldValues[j] == null) {
+                continue;
+            }
+            if (stale.test((V) oldValues[j])) {
+                removed++;
+                continue;
+            }
+            int i = slot(oldKeys[j], mask);
+            while (values[i] != null) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = oldKeys[j];
+            values[i] = oldValues[j];
+            size++;
+        }
+        return removed;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private static int slot(long key, int mask) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+}
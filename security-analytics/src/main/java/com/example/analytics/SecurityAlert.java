@@ -0,0 +1,11 @@
+package com.example.analytics;
+
+import com.example.events.RequestEvent;
+
+/**
+ * A detector firing for {@code subject} (an IP, user id or endpoint) with
+ * {@code observed} at or above {@code threshold}. {@code trigger} is the event
+ * that crossed the threshold.
+ */
+public record SecurityAlert(AlertType type, String subject, long observed, long threshold, RequestEvent trigger) {
+}
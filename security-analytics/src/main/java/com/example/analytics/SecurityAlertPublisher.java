@@ -0,0 +1,48 @@
+package com.example.analytics;
+
+import com.example.events.RequestEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Publishes {@link SecurityAlert}s to {@code security-alerts} as {@code SECURITY_ALERT}
+ * events keyed by the alert subject. The event carries the request that triggered
+ * the alert; the detector and observed value travel as record headers.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class SecurityAlertPublisher {
+
+    static final String TOPIC_ALERTS = "security-alerts";
+    static final String HEADER_ALERT_TYPE = "alert-type";
+    static final String HEADER_ALERT_OBSERVED = "alert-observed";
+
+    private final KafkaTemplate<String, RequestEvent> kafkaTemplate;
+
+    public void publish(SecurityAlert alert) {
+        RequestEvent trigger = alert.trigger();
+        RequestEvent event = trigger.toBuilder()
+                .timestampMicros(RequestEvent.toEpochMicros(Instant.now()))
+                .type(RequestEvent.EventType.SECURITY_ALERT)
+                .build();
+        ProducerRecord<String, RequestEvent> record = new ProducerRecord<>(TOPIC_ALERTS, alert.subject(), event);
+        record.headers()
+                .add(HEADER_ALERT_TYPE, alert.type().name().getBytes(StandardCharsets.UTF_8))
+                .add(HEADER_ALERT_OBSERVED, Long.toString(alert.observed()).getBytes(StandardCharsets.UTF_8));
+
+        log.warn("Security alert {}: subject={}, observed={}, threshold={}, requestId={}",
+                alert.type(), alert.subject(), alert.observed(), alert.threshold(), trigger.requestId());
+        kafkaTemplate.send(record).whenComplete((result, ex) -> {
+            if (ex != null) {
+                log.error("Failed to publish security alert {} for {}: {}", alert.type(), alert.subject(), ex.getMessage());
+            }
+        });
+    }
+}
@@ -1,51 +1,91 @@
 package com.example.analytics;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.events.RequestEvent;
+import com.example.events.consumer.KeyOrderedExecutor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
+/**
+ * Feeds allowed and blocked request events into the {@link AnomalyEngine} and acts
+ * on its alerts: each is published, and IP alerts may lead to a ban. Both
+ * listeners run one consumer thread per partition ({@code spring.kafka.listener.concurrency})
+ * and receive whole polls, which {@link KeyOrderedExecutor} fans out by client IP
+ * ({@code analytics.consumer.*}). Offsets are committed once the whole poll is processed.
+ */
 @Service
 @Slf4j
-public class SecurityAnalyticsConsumer {
+public class SecurityAnalyticsConsumer implements DisposableBean {
+
+    private final AnomalyEngine anomalyEngine;
+    private final SecurityAlertPublisher alertPublisher;
+    private final IpBanPublisher banPublisher;
+    private final KeyOrderedExecutor executor;
+
+    public SecurityAnalyticsConsumer(AnomalyEngine anomalyEngine, SecurityAlertPublisher alertPublisher,
+            IpBanPublisher banPublisher, ConsumerProperties properties) {
+        this.anomalyEngine = anomalyEngine;
+        this.alertPublisher = alertPublisher;
+        this.banPublisher = banPublisher;
+        this.executor = KeyOrderedExecutor.create(properties.getMode(), properties.getParallelism(), "analytics-lane");
+        log.info("Processing events {} with parallelism {}", executor.mode(), properties.getParallelism());
+    }
+
+    @KafkaListener(topics = "api-requests", groupId = "analytics-group", batch = "true")
+    public void processRequests(List<RequestEvent> events) {
+        executor.process(events, SecurityAnalyticsConsumer::clientIp, this::processRequest);
+    }
+
+    @KafkaListener(topics = "api-blocked", groupId = "security-group", batch = "true")
+    public void processBlockedRequests(List<RequestEvent> events) {
+        executor.process(events, SecurityAnalyticsConsumer::clientIp, this::processBlockedRequest);
+    }
 
-    private final ObjectMapper mapper = new ObjectMapper();
+    @Override
+    public void destroy() {
+        executor.close();
+    }
 
-    @KafkaListener(topics = "api-requests", groupId = "analytics-group")
-    public void processRequest(ConsumerRecord<String, String> record) {
+    private void processRequest(RequestEvent event) {
         try {
-            JsonNode node = mapper.readTree(record.value());
-            analyzeRequest(node);
+            analyzeRequest(event);
         } catch (Exception e) {
             log.error("Failed to process request event: {}", e.getMessage());
         }
     }
 
-    @KafkaListener(topics = "api-blocked", groupId = "security-group")
-    public void processBlockedRequest(String message) {
+    private void processBlockedRequest(RequestEvent event) {
         try {
-            JsonNode node = mapper.readTree(message);
-            handleBlockedRequest(node);
+            handleBlockedRequest(event);
         } catch (Exception e) {
             log.error("Failed to process blocked event: {}", e.getMessage());
         }
     }
 
-    private void analyzeRequest(JsonNode node) {
-        String ip = node.path("ip").asText();
-        String endpoint = node.path("endpoint").asText();
-        int status = node.path("status").asInt();
-
-        log.debug("Analyzing request: ip={}, endpoint={}, status={}", ip, endpoint, status);
+    private void analyzeRequest(RequestEvent event) {
+        // ErrorHandlingDeserializer hands over undecodable records as null
+        if (event == null) {
+            return;
+        }
+        for (SecurityAlert alert : anomalyEngine.process(event)) {
+            alertPublisher.publish(alert);
+            banPublisher.onAlert(alert);
+        }
     }
 
-    private void handleBlockedRequest(JsonNode node) {
-        String ip = node.path("ip").asText();
-        String endpoint = node.path("endpoint").asText();
-        String requestId = node.path("requestId").asText();
+    private void handleBlockedRequest(RequestEvent event) {
+        if (event == null) {
+            return;
+        }
+        log.debug("Blocked request: requestId={}, ip={}, endpoint={}",
+                event.requestId(), event.getIp(), event.getEndpoint());
+        analyzeRequest(event);
+    }
 
-        log.warn("Blocked request: requestId={}, ip={}, endpoint={}", requestId, ip, endpoint);
+    private static String clientIp(RequestEvent event) {
+        return event != null ? event.getIp() : null;
     }
 }
@@ -0,0 +1,55 @@
+package com.example.analytics.sketch;
+
+import java.util.Arrays;
+
+/**
+ * Count-min sketch with conservative update: estimates never undercount, and only
+ * the rows holding the current minimum are raised, which keeps overcounting low for
+ * heavy hitters. Memory is {@code depth * width} ints regardless of how many keys
+ * are added. Not thread-safe.
+ */
+public final class CountMinSketch {
+
+    private static final long ROW_SEED = 0x9E3779B97F4A7C15L;
+
+    private final int depth;
+    private final int mask;
+    private final int[] counters;
+
+    /** {@code width} is rounded up to a power of two. */
+    public CountMinSketch(int depth, int width) {
+        int columns = width <= 1 ? 1 : Integer.highestOneBit(width - 1) << 1;
+        this.depth = depth;
+        this.mask = columns - 1;
+        this.counters = new int[depth * columns];
+    }
+
+    /** Adds {@code count} occurrences of the key and returns its new estimate. */
+    public int add(long keyHash, int count) {
+        int estimate = estimate(keyHash);
+        int target = estimate > Integer.MAX_VALUE - count ? Integer.MAX_VALUE : estimate + count;
+        for (int row = 0; row < depth; row++) {
+            int index = index(row, keyHash);
+            if (counters[index] < target) {
+                counters[index] = target;
+            }
+        }
+        return target;
+    }
+
+    public int estimate(long keyHash) {
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counters[index(row, keyHash)]);
+        }
+        return min;
+    }
+
+    public void clear() {
+        Arrays.fill(counters, 0);
+    }
+
+    private int index(int row, long keyHash) {
+        return row * (mask + 1) + ((int) Hashing.mix64(keyHash + row * ROW_SEED) & mask);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.analytics.sketch;
+
+import java.util.Arrays;
+
+/**
+ * HyperLogLog distinct counter over pre-hashed 64-bit values. With precision
+ * {@code p} it uses {@code 2^p} one-byte registers and has a standard error of
+ * about {@code 1.04 / sqrt(2^p)}. Not thread-safe.
+ */
+public final class HyperLogLog {
+
+    private final int precision;
+    private final byte[] registers;
+    private final double alphaMM;
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("precision must be between 4 and 16: " + precision);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+        int m = registers.length;
+        double alpha = switch (m) {
+            case 16 -> 0.673;
+            case 32 -> 0.697;
+            case 64 -> 0.709;
+            default -> 0.7213 / (1 + 1.079 / m);
+        };
+        this.alphaMM = alpha * m * m;
+    }
+
+    /** Returns whether a register changed, i.e. whether the estimate may have. */
+    public boolean add(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+            return true;
+        }
+        return false;
+    }
+
+    public long estimate() {
+        return estimateUnion(null);
+    }
+
+    /** Estimates the distinct count of this and {@code other} combined, without merging them. */
+    public long estimateUnion(HyperLogLog other) {
+        if (other != null && other.precision != precision) {
+            throw new IllegalArgumentException("Cannot combine precisions " + precision + " and " + other.precision);
+        }
+        double sum = 0;
+        int zeros = 0;
+        for (int i = 0; i < registers.length; i++) {
+            int register = other == null ? registers[i] : Math.max(registers[i], other.registers[i]);
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = alphaMM / sum;
+        int m = registers.length;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            // Linear counting is more accurate for small cardinalities
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    public void clear() {
+        Arrays.fill(registers, (byte) 0);
+    }
+}
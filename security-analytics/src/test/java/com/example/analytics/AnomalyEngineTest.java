@@ -0,0 +1,151 @@
+package com.example.analytics;
+
+import com.example.events.RequestEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AnomalyEngineTest {
+
+    private static final long START_MICROS = 1_700_000_000_000_000L;
+    private static final String IP = "203.0.113.7";
+
+    private final AnomalyEngine engine = new AnomalyEngine(new AnomalyProperties());
+
+    @Test
+    void repeatedUnauthorizedRequestsLookLikeCredentialStuffing() {
+        List<SecurityAlert> alerts = send(30, 401, RequestEvent.EventType.ALLOWED);
+
+        assertThat(alerts).extracting(SecurityAlert::type).contains(AlertType.CREDENTIAL_STUFFING);
+    }
+
+    @Test
+    void requestsRefusedByTheDenyListAreNotAuthFailures() {
+        List<SecurityAlert> alerts = send(30, 403, RequestEvent.EventType.BLOCKED);
+
+        assertThat(alerts).extracting(SecurityAlert::type).doesNotContain(AlertType.CREDENTIAL_STUFFING);
+    }
+
+    @Test
+    void manyApiKeysFromOneIpLookLikeCredentialStuffing() {
+        List<SecurityAlert> alerts = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            alerts.addAll(engine.process(event(i).apiKey("key-" + i).build()));
+        }
+
+        assertThat(alerts).singleElement().satisfies(alert -> {
+            assertThat(alert.type()).isEqualTo(AlertType.CREDENTIAL_STUFFING);
+            assertThat(alert.subject()).isEqualTo(IP);
+            assertThat(alert.threshold()).isEqualTo(10);
+        });
+    }
+
+    @Test
+    void walkingManyEndpointsLooksLikeScraping() {
+        List<SecurityAlert> alerts = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            alerts.addAll(engine.process(event(i).endpoint("/api/v1/items/" + i).build()));
+        }
+
+        assertThat(alerts).extracting(SecurityAlert::type).containsExactly(AlertType.SCRAPING);
+    }
+
+    @Test
+    void repeatedlyBlockedIpLooksLikeBlockEvasion() {
+        List<SecurityAlert> alerts = send(150, 429, RequestEvent.EventType.BLOCKED);
+
+        assertThat(alerts).extracting(SecurityAlert::type).containsExactly(AlertType.BLOCK_EVASION);
+        assertThat(alerts.get(0).observed()).isGreaterThanOrEqualTo(100);
+    }
+
+    @Test
+    void requestVolumeAboveTheThresholdIsAHeavyHitter() {
+        List<SecurityAlert> alerts = send(6_100, 200, RequestEvent.EventType.ALLOWED);
+
+        assertThat(alerts).extracting(SecurityAlert::type).containsExactly(AlertType.HEAVY_HITTER);
+    }
+
+    @Test
+    void oneUserFromManyIpsLooksLikeAccountSharing() {
+        List<SecurityAlert> alerts = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            alerts.addAll(engine.process(event(i).ip("198.51.100." + i).userId("alice").build()));
+        }
+
+        assertThat(alerts).singleElement().satisfies(alert -> {
+            assertThat(alert.type()).isEqualTo(AlertType.ACCOUNT_SHARING);
+            assertThat(alert.subject()).isEqualTo("alice");
+        });
+    }
+
+    @Test
+    void failuresOnOneEndpointFromManyIpsLookLikeDistributedCredentialStuffing() {
+        List<SecurityAlert> alerts = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            // Two failures per IP stay far below the per-IP threshold
+            alerts.addAll(engine.process(event(i).ip("198.51.100." + (i / 2)).endpoint("/login").status(401).build()));
+        }
+
+        assertThat(alerts).singleElement().satisfies(alert -> {
+            assertThat(alert.type()).isEqualTo(AlertType.DISTRIBUTED_CREDENTIAL_STUFFING);
+            assertThat(alert.subject()).isEqualTo("/login");
+        });
+    }
+
+    @Test
+    void alertRepeatsOncePerWindowAtMost() {
+        List<SecurityAlert> alerts = send(100, 401, RequestEvent.EventType.ALLOWED);
+        // Two windows later the old failures no longer count
+        long later = START_MICROS + 2 * 60_000_000L;
+        for (int i = 0; i < 30; i++) {
+            alerts.addAll(engine.process(event(0).timestampMicros(later + i * 1_000L).status(401).build()));
+        }
+
+        assertThat(alerts).extracting(SecurityAlert::type)
+                .containsExactly(AlertType.CREDENTIAL_STUFFING, AlertType.CREDENTIAL_STUFFING);
+    }
+
+    @Test
+    void ordinaryTrafficRaisesNoAlerts() {
+        List<SecurityAlert> alerts = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            // 50 clients, each a user with its own key calling a handful of endpoints
+            int client = i % 50;
+            alerts.addAll(engine.process(event(i).ip("198.51.100." + client).userId("user-" + client)
+                    .apiKey("key-" + client).endpoint("/api/v1/items/" + (i % 5)).build()));
+        }
+
+        assertThat(alerts).isEmpty();
+    }
+
+    @Test
+    void trackThresholdAboveACountThresholdIsRejected() {
+        AnomalyProperties properties = new AnomalyProperties();
+        properties.setTrackThreshold(properties.getAuthFailuresPerIp() + 1);
+
+        assertThatThrownBy(() -> new AnomalyEngine(properties)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private List<SecurityAlert> send(int count, int status, RequestEvent.EventType type) {
+        List<SecurityAlert> alerts = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            alerts.addAll(engine.process(event(i).status(status).type(type).build()));
+        }
+        return alerts;
+    }
+
+    /** The {@code i}th event of a burst from one IP, 1ms apart. */
+    private static RequestEvent.RequestEventBuilder event(int i) {
+        return RequestEvent.builder()
+                .timestampMicros(START_MICROS + i * 1_000L)
+                .ip(IP)
+                .endpoint("/api/v1/protected")
+                .method("GET")
+                .status(200)
+                .type(RequestEvent.EventType.ALLOWED);
+    }
+}
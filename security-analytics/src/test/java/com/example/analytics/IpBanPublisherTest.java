@@ -0,0 +1,129 @@
+package com.example.analytics;
+
+import com.example.events.IpBan;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.ProducerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IpBanPublisherTest {
+
+    private static final String IP = "203.0.113.7";
+    private static final TopicPartition PARTITION = new TopicPartition(IpBan.TOPIC, 0);
+
+    private final BanProperties properties = new BanProperties();
+    private final List<ConsumerRecord<String, String>> topic = new ArrayList<>();
+    private final MockProducer<String, String> producer = new MockProducer<>(true, new StringSerializer(),
+            new StringSerializer()) {
+        @Override
+        public void close(Duration timeout) {
+            // KafkaTemplate closes its producer after every send
+        }
+    };
+
+    @Test
+    void activeBanSurvivesARestart() {
+        long expiresAt = System.currentTimeMillis() + 60_000;
+        topic(IP, new IpBan(expiresAt, "CREDENTIAL_STUFFING").encode(), 1, System.currentTimeMillis());
+
+        IpBanPublisher publisher = restarted();
+        publisher.onAlert(new SecurityAlert(AlertType.CREDENTIAL_STUFFING, IP, 30, 20, null));
+
+        assertThat(publisher.activeBans()).containsEntry(IP, new IpBan(expiresAt, "CREDENTIAL_STUFFING"));
+        assertThat(producer.history()).isEmpty();
+    }
+
+    @Test
+    void banThatExpiredWhileDownIsTombstoned() {
+        long now = System.currentTimeMillis();
+        topic(IP, new IpBan(now - 1_000, "BLOCK_EVASION").encode(), 1, now - 60_000);
+
+        IpBanPublisher publisher = restarted();
+        publisher.expireBans();
+
+        assertThat(producer.history()).singleElement().satisfies(record -> {
+            assertThat(record.key()).isEqualTo(IP);
+            assertThat(record.value()).isNull();
+            assertThat(strikes(record)).isEqualTo("1");
+        });
+        assertThat(publisher.activeBans()).isEmpty();
+    }
+
+    @Test
+    void escalationContinuesFromTheStrikesOnTheTopic() {
+        long now = System.currentTimeMillis();
+        topic(IP, new IpBan(now - 60_000, "BLOCK_EVASION").encode(), 2, now - 120_000);
+        topic(IP, null, 2, now - 60_000);
+
+        IpBan ban = restarted().ban(IP, null, "BLOCK_EVASION");
+
+        // Third strike: four times the initial duration
+        assertThat(ban.expiresAtMs() - System.currentTimeMillis())
+                .isBetween(properties.getInitialDuration().multipliedBy(4).toMillis() - 5_000,
+                        properties.getInitialDuration().multipliedBy(4).toMillis());
+        assertThat(strikes(producer.history().get(0))).isEqualTo("3");
+    }
+
+    @Test
+    void strikesOutsideTheStrikeMemoryAreForgotten() {
+        long longAgo = System.currentTimeMillis() - properties.getStrikeMemory().toMillis() - 60_000;
+        topic(IP, null, 5, longAgo);
+
+        IpBanPublisher publisher = restarted();
+        publisher.ban(IP, null, "BLOCK_EVASION");
+
+        assertThat(strikes(producer.history().get(0))).isEqualTo("1");
+    }
+
+    private void topic(String ip, String value, int strikes, long timestampMs) {
+        RecordHeaders headers = new RecordHeaders();
+        headers.add(IpBanPublisher.STRIKES_HEADER, String.valueOf(strikes).getBytes(StandardCharsets.UTF_8));
+        topic.add(new ConsumerRecord<>(IpBan.TOPIC, 0, topic.size(), timestampMs, TimestampType.CREATE_TIME, -1, -1,
+                ip, value, headers, Optional.empty()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private IpBanPublisher restarted() {
+        MockConsumer<String, String> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.updatePartitions(IpBan.TOPIC, List.of(new PartitionInfo(IpBan.TOPIC, 0, null, null, null)));
+        consumer.updateBeginningOffsets(Map.of(PARTITION, 0L));
+        consumer.updateEndOffsets(Map.of(PARTITION, (long) topic.size()));
+        consumer.schedulePollTask(() -> topic.forEach(consumer::addRecord));
+        ConsumerFactory<String, String> consumerFactory = mock(ConsumerFactory.class);
+        when(consumerFactory.createConsumer(any(), any(), any(), any())).thenReturn(consumer);
+
+        ProducerFactory<String, String> producerFactory = mock(ProducerFactory.class);
+        when(producerFactory.copyWithConfigurationOverride(anyMap())).thenReturn(producerFactory);
+        when(producerFactory.createProducer()).thenReturn(producer);
+
+        IpBanPublisher publisher = new IpBanPublisher(properties, producerFactory, consumerFactory);
+        publisher.afterSingletonsInstantiated();
+        return publisher;
+    }
+
+    private static String strikes(ProducerRecord<String, String> record) {
+        return new String(record.headers().lastHeader(IpBanPublisher.STRIKES_HEADER).value(), StandardCharsets.UTF_8);
+    }
+}
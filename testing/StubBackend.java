@@ -0,0 +1,49 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Stand-in for backend-service under load: answers every path with a small JSON
+ * body after a fixed latency, handling at most {@code workers} requests at once,
+ * like a thread-per-request backend near saturation. Needs only a JDK:
+ *   java testing/StubBackend.java [port] [latencyMs] [workers]
+ * Defaults: 8034, 20ms, 200 workers. GET /stats returns requests served.
+ */
+public class StubBackend {
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8034;
+        long latencyMs = args.length > 1 ? Long.parseLong(args[1]) : 20;
+        int workers = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        AtomicLong served = new AtomicLong();
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 4096);
+        server.createContext("/stats", exchange -> respond(exchange, "{\"served\":" + served.get() + "}"));
+        server.createContext("/", exchange -> {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(latencyMs));
+            served.incrementAndGet();
+            respond(exchange, "{\"message\":\"Hello from stub backend\",\"path\":\""
+                    + exchange.getRequestURI().getPath() + "\",\"timestamp\":" + System.currentTimeMillis() + "}");
+        });
+        server.setExecutor(Executors.newFixedThreadPool(workers));
+        server.start();
+        System.out.printf("Stub backend on :%d, %dms latency, %d workers%n", port, latencyMs, workers);
+    }
+
+    private static void respond(HttpExchange exchange, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -1,9 +1,21 @@
 import http from 'k6/http';
 import { check, sleep } from 'k6';
 import { Rate } from 'k6/metrics';
+import crypto from 'k6/crypto';
+import encoding from 'k6/encoding';
 
 export let errorRate = new Rate('errors');
 
+// HS256 token signed with the gateway's dev secret (auth.jwt.hmac-secret)
+const JWT_SECRET = __ENV.JWT_SECRET || 'dev-only-hs256-secret-change-me-0123456789';
+
+function mintToken(subject) {
+  const header = encoding.b64encode(JSON.stringify({ alg: 'HS256', typ: 'JWT' }), 'rawurl');
+  const claims = encoding.b64encode(JSON.stringify({ sub: subject, exp: Math.floor(Date.now() / 1000) + 3600 }), 'rawurl');
+  const signature = crypto.hmac('sha256', JWT_SECRET, `${header}.${claims}`, 'base64rawurl');
+  return `${header}.${claims}.${signature}`;
+}
+
 export let options = {
   scenarios: {
     constant_request_rate: {
@@ -38,7 +50,7 @@ export default function () {
   // 1. Valid Request
   let params = {
     headers: {
-      'Authorization': 'Bearer valid-token',
+      'Authorization': `Bearer ${mintToken('load-test-user')}`,
       'Content-Type': 'application/json',
     },
     tags: { name: 'valid_request' },
@@ -105,7 +105,7 @@ export function teardown(data) {
     console.log('');
     console.log('🔍 To verify Redis counters, run:');
     console.log('');
-    console.log('   docker exec redis redis-cli ZCARD "ratelimit:ip:127.0.0.1"');
+    console.log('   docker exec redis redis-cli HGETALL "ratelimit:ip:{127.0.0.1}:ip:swc"');
     console.log('   docker exec redis redis-cli KEYS "ratelimit:*"');
     console.log('   docker exec redis redis-cli HGETALL "stats:endpoint:/api/v1/resource"');
     console.log('');
@@ -0,0 +1,55 @@
+#!/bin/bash
+# =====================================================================
+#  RATE LIMIT ALGORITHM HARNESS
+#  Compares Redis memory and commands per decision for every algorithm
+#  under api-gateway/src/main/resources/scripts/algorithms.
+#  Run from the project root against a disposable Redis instance:
+#    ./testing/redis-algorithm-harness.sh [decisions] [limit]
+# =====================================================================
+
+set -e
+
+DECISIONS=${1:-2000}
+LIMIT=${2:-2000}
+WINDOW_MS=60000
+STEP_MS=${STEP_MS:-10}
+REDIS_CLI=${REDIS_CLI:-redis-cli}
+SCRIPTS_DIR="api-gateway/src/main/resources/scripts"
+KEY="harness:ratelimit:method:GET"
+
+# Same composition as RateLimitScripts: registry, algorithm modules, driver
+SCRIPT=$({
+    echo 'local algorithms = {}'
+    for module in sliding_log sliding_window_counter gcra token_bucket; do
+        cat "$SCRIPTS_DIR/algorithms/$module.lua"
+        echo
+    done
+    cat "$SCRIPTS_DIR/rate_limit.lua"
+})
+SHA=$($REDIS_CLI SCRIPT LOAD "$SCRIPT")
+
+printf "%-24s %10s %10s %14s %14s\n" "ALGORITHM" "ALLOWED" "BLOCKED" "MEMORY(bytes)" "CMDS/DECISION"
+echo "-------------------------------------------------------------------------------"
+
+for algorithm in sliding_log sliding_window_counter gcra token_bucket; do
+    $REDIS_CLI DEL "$KEY" > /dev/null
+    $REDIS_CLI CONFIG RESETSTAT > /dev/null
+
+    START=$(( $(date +%s) * 1000 ))
+    RESULTS=$(awk -v n="$DECISIONS" -v sha="$SHA" -v key="$KEY" -v start="$START" -v step="$STEP_MS" \
+            -v alg="$algorithm" -v limit="$LIMIT" -v window="$WINDOW_MS" \
+            'BEGIN { for (i = 0; i < n; i++) printf "EVALSHA %s 1 %s %d %s %d %d\n", sha, key, start + i * step, alg, limit, window }' \
+        | $REDIS_CLI)
+
+    ALLOWED=$(echo "$RESULTS" | grep -c '^0$' || true)
+    BLOCKED=$(echo "$RESULTS" | grep -c '^1$' || true)
+    MEMORY=$($REDIS_CLI MEMORY USAGE "$KEY")
+    COMMANDS=$($REDIS_CLI INFO commandstats \
+        | grep '^cmdstat_' | grep -v -E 'cmdstat_(evalsha|config|info|memory|del|script)' \
+        | sed -E 's/.*calls=([0-9]+).*/\1/' | awk '{ s += $1 } END { print s + 0 }')
+
+    printf "%-24s %10s %10s %14s %14.2f\n" "$algorithm" "$ALLOWED" "$BLOCKED" "$MEMORY" \
+        "$(echo "$COMMANDS / $DECISIONS" | bc -l)"
+done
+
+$REDIS_CLI DEL "$KEY" > /dev/null
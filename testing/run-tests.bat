@@ -133,7 +133,7 @@ echo   docker exec redis redis-cli KEYS "stats:*"
 echo   docker exec redis redis-cli HGETALL "stats:endpoint:/api/v1/resource"
 echo.
 echo Check audit log:
-echo   type audit_log.json
+echo   type audit-log\segment-*.log
 echo.
 echo ===============================================================================
 
@@ -0,0 +1,111 @@
+/**
+ * ═══════════════════════════════════════════════════════════════════════════════
+ *                    UPSTREAM POOL SATURATION TEST (k6)
+ * ═══════════════════════════════════════════════════════════════════════════════
+ *
+ * Offers more load than the backend can serve and shows what the per-route
+ * connection pool (upstream.routes.backend_service) does with the excess.
+ *
+ * SETUP:
+ *   java testing/StubBackend.java 8034 200 20        # 20 workers x 200ms = 100 req/s
+ *   cd api-gateway && ./mvnw spring-boot:run -Dspring-boot.run.profiles=loadtest
+ *
+ * USAGE:
+ *   k6 run testing/upstream-pool-test.js               # 150 req/s on /api/v1/orders
+ *   k6 run -e RATE=300 testing/upstream-pool-test.js
+ *   k6 run -e DEDUP=true testing/upstream-pool-test.js # one URL, one caller
+ *   k6 run -e MIXED=true testing/upstream-pool-test.js # half the requests anonymous
+ *
+ * Then restart the gateway with an unbounded pool (as -Dspring-boot.run.arguments)
+ * and run again:
+ *   --upstream.routes.backend_service.max-connections=1000
+ *   --upstream.routes.backend_service.pending-acquire-max-count=-1
+ *   --upstream.routes.backend_service.pending-acquire-timeout=60s
+ *
+ * And once more with the unbounded pool and the adaptive concurrency limit, with
+ * MIXED=true to see anonymous requests shed first:
+ *   --upstream.routes.backend_service.concurrency.enabled=true
+ *
+ * EXPECTED RESULTS:
+ *   Bounded pool:   excess requests get a fast 503, p99 of the 200s stays near
+ *                   the pending-acquire-timeout plus the backend latency.
+ *   Unbounded pool: (almost) no 503s, but every request queues behind the
+ *                   backlog and p99 grows for as long as the overload lasts.
+ *   DEDUP=true with --upstream.routes.backend_service.dedup.enabled=true:
+ *                   all 200s, and GET http://localhost:8034/stats shows far
+ *                   fewer requests served than were sent.
+ *   Concurrency limit: fast 503s, p50 of the 200s near the backend latency,
+ *                   and most anonymous requests shed before authenticated ones.
+ *
+ * Watch gateway.upstream.pool.rejected{route}, gateway.upstream.dedup{route,outcome},
+ * gateway.concurrency.limit{route}, gateway.concurrency.rejected{route,reason}
+ * and reactor.netty.connection.provider.*{name="route-backend_service"} on
+ * http://localhost:8033/actuator/prometheus.
+ */
+import http from 'k6/http';
+import { check } from 'k6';
+import { Counter, Trend } from 'k6/metrics';
+import crypto from 'k6/crypto';
+import encoding from 'k6/encoding';
+
+export let rejected = new Counter('shed');
+export let servedDuration = new Trend('served_duration', true);
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8033';
+const RATE = parseInt(__ENV.RATE || '150');
+const DEDUP = __ENV.DEDUP === 'true';
+const MIXED = __ENV.MIXED === 'true';
+const JWT_SECRET = __ENV.JWT_SECRET || 'dev-only-hs256-secret-change-me-0123456789';
+
+function mintToken(subject) {
+  const header = encoding.b64encode(JSON.stringify({ alg: 'HS256', typ: 'JWT' }), 'rawurl');
+  const claims = encoding.b64encode(JSON.stringify({ sub: subject, exp: Math.floor(Date.now() / 1000) + 3600 }), 'rawurl');
+  const signature = crypto.hmac('sha256', JWT_SECRET, `${header}.${claims}`, 'base64rawurl');
+  return `${header}.${claims}.${signature}`;
+}
+
+export let options = {
+  scenarios: {
+    overload: {
+      executor: 'constant-arrival-rate',
+      rate: RATE,
+      timeUnit: '1s',
+      duration: '30s',
+      preAllocatedVUs: 200,
+      maxVUs: 2000,
+    },
+  },
+  // Listed only so the summary breaks the results down by caller
+  thresholds: MIXED ? {
+    'served_duration{caller:authenticated}': ['p(99)>=0'],
+    'served_duration{caller:anonymous}': ['p(99)>=0'],
+    'shed{caller:authenticated}': ['count>=0'],
+    'shed{caller:anonymous}': ['count>=0'],
+  } : {},
+};
+
+export function setup() {
+  // Deduplicated requests must look the same, so all VUs share one token
+  return { token: mintToken('pool-test-user') };
+}
+
+export default function (data) {
+  const url = DEDUP
+    ? `${BASE_URL}/api/v1/orders?page=1`
+    : `${BASE_URL}/api/v1/orders?vu=${__VU}&iter=${__ITER}`;
+  const caller = MIXED && __ITER % 2 === 1 ? 'anonymous' : 'authenticated';
+  const res = http.get(url, {
+    headers: caller === 'authenticated' ? { 'Authorization': `Bearer ${data.token}` } : {},
+    tags: { caller: caller },
+    timeout: '30s',
+  });
+
+  if (res.status === 200) {
+    servedDuration.add(res.timings.duration, { caller: caller });
+  } else if (res.status === 503) {
+    rejected.add(1, { caller: caller });
+  }
+  check(res, {
+    'served or shed': (r) => r.status === 200 || r.status === 503,
+  });
+}
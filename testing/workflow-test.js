@@ -28,6 +28,8 @@
 import http from 'k6/http';
 import { check, sleep, group } from 'k6';
 import { Counter, Rate, Trend } from 'k6/metrics';
+import crypto from 'k6/crypto';
+import encoding from 'k6/encoding';
 
 // ═══════════════════════════════════════════════════════════════════════════════
 // CONFIGURATION
@@ -36,6 +38,16 @@ import { Counter, Rate, Trend } from 'k6/metrics';
 const BASE_URL = __ENV.BASE_URL || 'http://localhost:8033';
 const SCENARIO = __ENV.SCENARIO || 'full_workflow';
 
+// HS256 token signed with the gateway's dev secret (auth.jwt.hmac-secret)
+const JWT_SECRET = __ENV.JWT_SECRET || 'dev-only-hs256-secret-change-me-0123456789';
+
+function mintToken(subject) {
+    const header = encoding.b64encode(JSON.stringify({ alg: 'HS256', typ: 'JWT' }), 'rawurl');
+    const claims = encoding.b64encode(JSON.stringify({ sub: subject, exp: Math.floor(Date.now() / 1000) + 3600 }), 'rawurl');
+    const signature = crypto.hmac('sha256', JWT_SECRET, `${header}.${claims}`, 'base64rawurl');
+    return `${header}.${claims}.${signature}`;
+}
+
 // ═══════════════════════════════════════════════════════════════════════════════
 // CUSTOM METRICS
 // ═══════════════════════════════════════════════════════════════════════════════
@@ -265,8 +277,8 @@ export function loadTest() {
         // Simulate authenticated user
         const params = {
             headers: {
-                'Authorization': `Bearer user-token-${__VU}`,
-                'X-API-KEY': `api-key-${__VU}`,
+                'Authorization': `Bearer ${mintToken(`user-${__VU}`)}`,
+                'X-API-KEY': 'secret-key',
             },
         };
 
@@ -342,7 +354,7 @@ export function teardown(data) {
     console.log('   docker exec redis redis-cli KEYS "stats:*"');
     console.log('');
     console.log('📝 Check audit log:');
-    console.log('   cat audit_log.json | tail -10');
+    console.log('   cat audit-log/segment-*.log | tr -d "\\000" | tail -10');
     console.log('');
     console.log('🔍 Check Kafka consumer logs for processed events');
     console.log('═══════════════════════════════════════════════════════════════');